@@ -513,6 +513,14 @@ CREATE TABLE m_archetype (
   oid       VARCHAR(36) NOT NULL,
   PRIMARY KEY (oid)
 );
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+  objectOid      VARCHAR(36),
+  objectType     VARCHAR(157),
+  sourceNode     VARCHAR(255),
+  timestampValue TIMESTAMP,
+  PRIMARY KEY (id)
+);
 CREATE TABLE m_case (
   closeTimestamp         TIMESTAMP,
   name_norm           VARCHAR(255),
@@ -801,6 +809,8 @@ CREATE INDEX iAuditDeltaRecordId
   ON m_audit_delta (record_id);
 CREATE INDEX iTimestampValue
   ON m_audit_event (timestampValue);
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
 CREATE INDEX iChangedItemPath
   ON m_audit_item (changedItemPath);
 CREATE INDEX iAuditItemRecordId
@@ -659,6 +659,17 @@ CREATE TABLE m_archetype (
   DEFAULT CHARACTER SET utf8mb4
   COLLATE utf8mb4_bin
   ENGINE = InnoDB;
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT NOT NULL AUTO_INCREMENT,
+  objectOid      VARCHAR(36) CHARSET utf8 COLLATE utf8_bin,
+  objectType     VARCHAR(157),
+  sourceNode     VARCHAR(191),
+  timestampValue DATETIME(6),
+  PRIMARY KEY (id)
+)
+  DEFAULT CHARACTER SET utf8mb4
+  COLLATE utf8mb4_bin
+  ENGINE = InnoDB;
 CREATE TABLE m_case (
   closeTimestamp         DATETIME(6),
   name_norm              VARCHAR(191),
@@ -1025,6 +1036,8 @@ CREATE INDEX iAuditDeltaRecordId
   ON m_audit_delta (record_id);
 CREATE INDEX iTimestampValue
   ON m_audit_event (timestampValue);
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
 CREATE INDEX iChangedItemPath
   ON m_audit_item (changedItemPath);
 CREATE INDEX iAuditItemRecordId
@@ -658,6 +658,17 @@ CREATE TABLE m_archetype (
   DEFAULT CHARACTER SET utf8
   COLLATE utf8_bin
   ENGINE = InnoDB;
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT NOT NULL AUTO_INCREMENT,
+  objectOid      VARCHAR(36),
+  objectType     VARCHAR(157),
+  sourceNode     VARCHAR(255),
+  timestampValue DATETIME(6),
+  PRIMARY KEY (id)
+)
+  DEFAULT CHARACTER SET utf8
+  COLLATE utf8_bin
+  ENGINE = InnoDB;
 CREATE TABLE m_case (
   closeTimestamp         DATETIME(6),
   name_norm           VARCHAR(255),
@@ -1024,6 +1035,8 @@ CREATE INDEX iAuditDeltaRecordId
   ON m_audit_delta (record_id);
 CREATE INDEX iTimestampValue
   ON m_audit_event (timestampValue);
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
 CREATE INDEX iChangedItemPath
   ON m_audit_item (changedItemPath);
 CREATE INDEX iAuditItemRecordId
@@ -0,0 +1,18 @@
+-- 4.1: cache invalidation events distributed via the repository (experimental)
+
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT NOT NULL AUTO_INCREMENT,
+  objectOid      VARCHAR(36) CHARSET utf8 COLLATE utf8_bin,
+  objectType     VARCHAR(157),
+  sourceNode     VARCHAR(191),
+  timestampValue DATETIME(6),
+  PRIMARY KEY (id)
+)
+  DEFAULT CHARACTER SET utf8mb4
+  COLLATE utf8mb4_bin
+  ENGINE = InnoDB;
+
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
+
+COMMIT;
@@ -509,6 +509,14 @@ CREATE TABLE m_archetype (
   oid       VARCHAR2(36 CHAR) NOT NULL,
   PRIMARY KEY (oid)
 ) INITRANS 30;
+CREATE TABLE m_cache_invalidation_event (
+  id             NUMBER(19, 0) GENERATED AS IDENTITY,
+  objectOid      VARCHAR2(36 CHAR),
+  objectType     VARCHAR2(157 CHAR),
+  sourceNode     VARCHAR2(255 CHAR),
+  timestampValue TIMESTAMP,
+  PRIMARY KEY (id)
+) INITRANS 30;
 CREATE TABLE m_case (
   closeTimestamp         TIMESTAMP,
   name_norm              VARCHAR2(255 CHAR),
@@ -797,6 +805,8 @@ CREATE INDEX iAuditDeltaRecordId
   ON m_audit_delta (record_id) INITRANS 30;
 CREATE INDEX iTimestampValue
   ON m_audit_event (timestampValue) INITRANS 30;
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue) INITRANS 30;
 CREATE INDEX iChangedItemPath
   ON m_audit_item (changedItemPath) INITRANS 30;
 CREATE INDEX iAuditItemRecordId
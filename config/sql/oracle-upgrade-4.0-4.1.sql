@@ -0,0 +1,15 @@
+-- 4.1: cache invalidation events distributed via the repository (experimental)
+
+CREATE TABLE m_cache_invalidation_event (
+  id             NUMBER(19, 0) GENERATED AS IDENTITY,
+  objectOid      VARCHAR2(36 CHAR),
+  objectType     VARCHAR2(157 CHAR),
+  sourceNode     VARCHAR2(255 CHAR),
+  timestampValue TIMESTAMP,
+  PRIMARY KEY (id)
+) INITRANS 30;
+
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue) INITRANS 30;
+
+COMMIT;
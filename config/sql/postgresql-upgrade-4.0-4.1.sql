@@ -0,0 +1,15 @@
+-- 4.1: cache invalidation events distributed via the repository (experimental)
+
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGSERIAL NOT NULL,
+  objectOid      VARCHAR(36),
+  objectType     VARCHAR(157),
+  sourceNode     VARCHAR(255),
+  timestampValue TIMESTAMP,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
+
+COMMIT;
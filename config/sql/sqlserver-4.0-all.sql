@@ -509,6 +509,14 @@ CREATE TABLE m_archetype (
   oid       NVARCHAR(36) COLLATE database_default NOT NULL,
   PRIMARY KEY (oid)
 );
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT IDENTITY NOT NULL,
+  objectOid      NVARCHAR(36) COLLATE database_default,
+  objectType     NVARCHAR(157) COLLATE database_default,
+  sourceNode     NVARCHAR(255) COLLATE database_default,
+  timestampValue DATETIME2,
+  PRIMARY KEY (id)
+);
 CREATE TABLE m_case (
   closeTimestamp         DATETIME2,
   name_norm           NVARCHAR(255) COLLATE database_default,
@@ -797,6 +805,8 @@ CREATE INDEX iAuditDeltaRecordId
   ON m_audit_delta (record_id);
 CREATE INDEX iTimestampValue
   ON m_audit_event (timestampValue);
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
 CREATE INDEX iChangedItemPath
   ON m_audit_item (changedItemPath);
 CREATE INDEX iAuditItemRecordId
@@ -0,0 +1,15 @@
+-- 4.1: cache invalidation events distributed via the repository (experimental)
+
+CREATE TABLE m_cache_invalidation_event (
+  id             BIGINT IDENTITY NOT NULL,
+  objectOid      NVARCHAR(36) COLLATE database_default,
+  objectType     NVARCHAR(157) COLLATE database_default,
+  sourceNode     NVARCHAR(255) COLLATE database_default,
+  timestampValue DATETIME2,
+  PRIMARY KEY (id)
+);
+
+CREATE INDEX iCacheInvalidationTimestamp
+  ON m_cache_invalidation_event (timestampValue);
+
+GO
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.evolveum.midpoint.schema.CountAccuracy;
 import com.evolveum.midpoint.schema.GetOperationOptionsBuilder;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import org.apache.commons.lang.Validate;
@@ -68,6 +69,9 @@ public class SelectableBeanObjectDataProvider<O extends ObjectType> extends Base
     // at least for the shadows.
     private int defaultCountIfNull = 0;
 
+    // whether the last count returned by the model was only an estimate (see CountAccuracy)
+    private boolean countEstimated;
+
     /**
      *  The number of all objects that the query can return. Defaults to a really big number
      *  if we cannot count the number of objects.
@@ -232,12 +236,14 @@ public class SelectableBeanObjectDataProvider<O extends ObjectType> extends Base
             return Integer.MAX_VALUE;
         }
         int count = 0;
+        countEstimated = false;
         Task task = getPage().createSimpleTask(OPERATION_COUNT_OBJECTS);
         OperationResult result = task.getResult();
         try {
             Collection<SelectorOptions<GetOperationOptions>> currentOptions = GetOperationOptions.merge(getPrismContext(), options, getDistinctRelatedOptions());
             Integer counted = getModel().countObjects(type, getQuery(), currentOptions, task, result);
             count = defaultIfNull(counted, defaultCountIfNull);
+            countEstimated = counted != null && isCountEstimated(result);
         } catch (Exception ex) {
             result.recordFatalError(getPage().createStringResource("ObjectDataProvider.message.countObjects.fatalError").getString(), ex);
             LoggingUtils.logUnexpectedException(LOGGER, "Couldn't count objects", ex);
@@ -255,6 +261,26 @@ public class SelectableBeanObjectDataProvider<O extends ObjectType> extends Base
         return count;
     }
 
+    private static boolean isCountEstimated(OperationResult result) {
+        if (Boolean.parseBoolean(result.getReturnSingle(CountAccuracy.RETURN_COUNT_ESTIMATED))) {
+            return true;
+        }
+        for (OperationResult subresult : result.getSubresults()) {
+            if (isCountEstimated(subresult)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the last count of objects was only an estimate. Can be true only if an estimate was requested
+     * (see {@link GetOperationOptions#getCountAccuracy()}).
+     */
+    public boolean isCountEstimated() {
+        return countEstimated;
+    }
+
 
 
     @Override
@@ -18,6 +18,7 @@ import com.evolveum.midpoint.model.api.authentication.CompiledObjectCollectionVi
 import com.evolveum.midpoint.prism.delta.*;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.QueryFactory;
+import com.evolveum.midpoint.schema.CountAccuracy;
 import com.evolveum.midpoint.schema.GetOperationOptionsBuilder;
 import com.evolveum.midpoint.web.component.menu.cog.ButtonInlineMenuItem;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
@@ -123,6 +124,7 @@ public abstract class ResourceContentPanel extends Panel {
 
     private static final String ID_TABLE = "table";
     private static final String ID_LABEL = "label";
+    private static final String ID_COUNT_ESTIMATED = "countEstimated";
 
     private static final String ID_IMPORT = "import";
     private static final String ID_RECONCILIATION = "reconciliation";
@@ -314,6 +316,19 @@ public abstract class ResourceContentPanel extends Panel {
         shadowListPanel.setAdditionalBoxCssClasses(GuiStyleConstants.CLASS_OBJECT_SHADOW_BOX_CSS_CLASSES);
         add(shadowListPanel);
 
+        Label countEstimated = new Label(ID_COUNT_ESTIMATED, new StringResourceModel("ResourceContentPanel.countEstimated", this));
+        countEstimated.setOutputMarkupPlaceholderTag(true);
+        add(countEstimated);
+        countEstimated.add(new VisibleEnableBehaviour() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean isVisible() {
+                // the table is configured (and so the objects are counted) before this label
+                return createQuery() != null && isUseObjectCounting() && provider != null && provider.isCountEstimated();
+            }
+        });
+
         Label label = new Label(ID_LABEL, "Nothing to show. Select intent to search");
         add(label);
         label.setOutputMarkupId(true);
@@ -545,7 +560,8 @@ public abstract class ResourceContentPanel extends Panel {
 
     private Collection<SelectorOptions<GetOperationOptions>> createSearchOptions() {
         GetOperationOptionsBuilder builder = getPageBase().getOperationOptionsBuilder()
-                .item(ShadowType.F_ASSOCIATION).dontRetrieve();
+                .item(ShadowType.F_ASSOCIATION).dontRetrieve()
+                .root().countAccuracy(getCountAccuracy());
         builder = addAdditionalOptions(builder);
         return builder.build();
     }
@@ -1135,4 +1151,11 @@ public abstract class ResourceContentPanel extends Panel {
     protected abstract GetOperationOptionsBuilder addAdditionalOptions(GetOperationOptionsBuilder builder);
 
     protected abstract boolean isUseObjectCounting();
+
+    /**
+     * Whether the object count (used for paging) has to be exact, or an estimate is sufficient.
+     */
+    protected CountAccuracy getCountAccuracy() {
+        return CountAccuracy.EXACT;
+    }
 }
@@ -20,6 +20,7 @@ import com.evolveum.midpoint.model.api.ModelExecuteOptions;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.schema.CountAccuracy;
 import com.evolveum.midpoint.schema.GetOperationOptionsBuilder;
 import com.evolveum.midpoint.schema.constants.MidPointConstants;
 import com.evolveum.midpoint.schema.processor.ResourceAttributeDefinition;
@@ -54,6 +55,14 @@ public class ResourceContentResourcePanel extends ResourceContentPanel {
         return ResourceTypeUtil.isCountObjectsCapabilityEnabled(getResourceModel().getObject().asObjectable());
     }
 
+    /**
+     * Counting resource objects may mean a full scan of the resource on each page view, so an estimate is sufficient here.
+     */
+    @Override
+    protected CountAccuracy getCountAccuracy() {
+        return CountAccuracy.ESTIMATE;
+    }
+
     @Override
     protected Search createSearch() {
         List<SearchItemDefinition> availableDefs = new ArrayList<>();
@@ -60,6 +60,8 @@ public abstract class AbstractModernObjectDummyConnector extends AbstractObjectD
 
         try {
 
+            resource.simulateOperation(DummyOperationType.MODIFY);
+
             if (ObjectClass.ACCOUNT.is(objectClass.getObjectClassValue())) {
 
                 final DummyAccount account;
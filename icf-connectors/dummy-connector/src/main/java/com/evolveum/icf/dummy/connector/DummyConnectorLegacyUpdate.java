@@ -31,6 +31,7 @@ import org.identityconnectors.framework.spi.PoolableConnector;
 import com.evolveum.icf.dummy.resource.ConflictException;
 import com.evolveum.icf.dummy.resource.DummyAccount;
 import com.evolveum.icf.dummy.resource.DummyGroup;
+import com.evolveum.icf.dummy.resource.DummyOperationType;
 import com.evolveum.icf.dummy.resource.DummyOrg;
 import com.evolveum.icf.dummy.resource.DummyPrivilege;
 import com.evolveum.icf.dummy.resource.DummyResource;
@@ -62,6 +63,8 @@ public class DummyConnectorLegacyUpdate extends AbstractObjectDummyConnector imp
 
         try {
 
+            resource.simulateOperation(DummyOperationType.MODIFY);
+
             if (ObjectClass.ACCOUNT.is(objectClass.getObjectClassValue())) {
 
                 final DummyAccount account;
@@ -305,6 +308,8 @@ public class DummyConnectorLegacyUpdate extends AbstractObjectDummyConnector imp
 
         try {
 
+            resource.simulateOperation(DummyOperationType.MODIFY);
+
             if (ObjectClass.ACCOUNT.is(objectClass.getObjectClassValue())) {
 
                 DummyAccount account;
@@ -504,6 +509,8 @@ public class DummyConnectorLegacyUpdate extends AbstractObjectDummyConnector imp
 
         try {
 
+            resource.simulateOperation(DummyOperationType.MODIFY);
+
             if (ObjectClass.ACCOUNT.is(objectClass.getObjectClassValue())) {
 
                 DummyAccount account;
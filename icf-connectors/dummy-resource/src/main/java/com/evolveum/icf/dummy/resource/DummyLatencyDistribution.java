@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.icf.dummy.resource;
+
+import java.util.Random;
+
+/**
+ * Distribution of simulated operation latencies (in milliseconds).
+ *
+ * @see DummyLoadSimulation
+ */
+@FunctionalInterface
+public interface DummyLatencyDistribution {
+
+    /**
+     * @return Next latency value in milliseconds. Negative values are treated as zero.
+     */
+    long nextLatency(Random random);
+
+    static DummyLatencyDistribution constant(long millis) {
+        return random -> millis;
+    }
+
+    /**
+     * Uniformly distributed latency from min (inclusive) to max (exclusive).
+     */
+    static DummyLatencyDistribution uniform(long min, long max) {
+        if (max <= min) {
+            return constant(min);
+        }
+        return random -> min + (long) (random.nextDouble() * (max - min));
+    }
+
+    /**
+     * Normally distributed latency, e.g. a database-like resource with stable response times.
+     */
+    static DummyLatencyDistribution gaussian(long mean, long standardDeviation) {
+        return random -> Math.round(mean + random.nextGaussian() * standardDeviation);
+    }
+
+    /**
+     * Exponentially distributed latency with given minimum, e.g. a directory server under load with occasional slow responses.
+     */
+    static DummyLatencyDistribution exponential(long min, long mean) {
+        return random -> min + Math.round(-Math.log(1.0 - random.nextDouble()) * (mean - min));
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.icf.dummy.resource;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.evolveum.midpoint.util.DebugDumpable;
+import com.evolveum.midpoint.util.DebugUtil;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+/**
+ * Simulates behavior of a "real" resource under load: operation latencies, limited number of concurrently served
+ * operations, limited throughput, slow paging of search results and random failures.
+ *
+ * It is meant for throughput and scalability testing (e.g. of provisioning or reconciliation) without a real LDAP
+ * or other server. It is switched off by default; it is enabled by setting an instance via
+ * {@link DummyResource#setLoadSimulation(DummyLoadSimulation)}.
+ *
+ * The configuration should be set up before the simulation is enabled. The simulation itself is thread safe.
+ */
+public class DummyLoadSimulation implements DebugDumpable {
+
+    private static final Trace LOGGER = TraceManager.getTrace(DummyLoadSimulation.class);
+
+    private final Map<DummyOperationType, DummyLatencyDistribution> latencies = new EnumMap<>(DummyOperationType.class);
+    private final Map<DummyOperationType, Double> errorRates = new EnumMap<>(DummyOperationType.class);
+    private BreakMode injectedErrorMode = BreakMode.NETWORK;
+
+    /**
+     * Maximum number of operations being "served" at once. Zero means no limit.
+     */
+    private int maxConcurrentOperations;
+    private Semaphore concurrencyLimiter;
+
+    /**
+     * Maximum number of operations started per second. Zero means no limit.
+     */
+    private int maxOperationsPerSecond;
+    private final AtomicLong nextFreeSlot = new AtomicLong();
+
+    /**
+     * If set, each page of search results (of this size) incurs pageLatency delay.
+     */
+    private int searchPageSize;
+    private DummyLatencyDistribution searchPageLatency;
+
+    private final Map<DummyOperationType, LongAdder> operationsCount = new EnumMap<>(DummyOperationType.class);
+    private final Map<DummyOperationType, LongAdder> errorsInjected = new EnumMap<>(DummyOperationType.class);
+    private final LongAdder waitTimeNanos = new LongAdder();
+    private final LongAdder latencyTimeNanos = new LongAdder();
+
+    public DummyLoadSimulation() {
+        for (DummyOperationType operation : DummyOperationType.values()) {
+            operationsCount.put(operation, new LongAdder());
+            errorsInjected.put(operation, new LongAdder());
+        }
+    }
+
+    public DummyLatencyDistribution getLatency(DummyOperationType operation) {
+        return latencies.get(operation);
+    }
+
+    public void setLatency(DummyOperationType operation, DummyLatencyDistribution latency) {
+        if (latency != null) {
+            latencies.put(operation, latency);
+        } else {
+            latencies.remove(operation);
+        }
+    }
+
+    public void setLatencyForAll(DummyLatencyDistribution latency) {
+        for (DummyOperationType operation : DummyOperationType.values()) {
+            setLatency(operation, latency);
+        }
+    }
+
+    public double getErrorRate(DummyOperationType operation) {
+        Double rate = errorRates.get(operation);
+        return rate != null ? rate : 0.0;
+    }
+
+    /**
+     * @param rate Probability (0.0 - 1.0) that given operation fails.
+     */
+    public void setErrorRate(DummyOperationType operation, double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1: " + rate);
+        }
+        errorRates.put(operation, rate);
+    }
+
+    public BreakMode getInjectedErrorMode() {
+        return injectedErrorMode;
+    }
+
+    public void setInjectedErrorMode(BreakMode injectedErrorMode) {
+        this.injectedErrorMode = injectedErrorMode;
+    }
+
+    public int getMaxConcurrentOperations() {
+        return maxConcurrentOperations;
+    }
+
+    public void setMaxConcurrentOperations(int maxConcurrentOperations) {
+        this.maxConcurrentOperations = maxConcurrentOperations;
+        this.concurrencyLimiter = maxConcurrentOperations > 0 ? new Semaphore(maxConcurrentOperations, true) : null;
+    }
+
+    public int getMaxOperationsPerSecond() {
+        return maxOperationsPerSecond;
+    }
+
+    public void setMaxOperationsPerSecond(int maxOperationsPerSecond) {
+        this.maxOperationsPerSecond = maxOperationsPerSecond;
+    }
+
+    public int getSearchPageSize() {
+        return searchPageSize;
+    }
+
+    public void setSearchPageSize(int searchPageSize) {
+        this.searchPageSize = searchPageSize;
+    }
+
+    public DummyLatencyDistribution getSearchPageLatency() {
+        return searchPageLatency;
+    }
+
+    public void setSearchPageLatency(DummyLatencyDistribution searchPageLatency) {
+        this.searchPageLatency = searchPageLatency;
+    }
+
+    public long getOperationsCount(DummyOperationType operation) {
+        return operationsCount.get(operation).sum();
+    }
+
+    public long getErrorsInjected(DummyOperationType operation) {
+        return errorsInjected.get(operation).sum();
+    }
+
+    /**
+     * Total time spent waiting for a free "server slot" (throughput or concurrency limit), in milliseconds.
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.sum());
+    }
+
+    /**
+     * Total simulated latency, in milliseconds.
+     */
+    public long getLatencyTime() {
+        return TimeUnit.NANOSECONDS.toMillis(latencyTimeNanos.sum());
+    }
+
+    public void resetStatistics() {
+        operationsCount.values().forEach(LongAdder::reset);
+        errorsInjected.values().forEach(LongAdder::reset);
+        waitTimeNanos.reset();
+        latencyTimeNanos.reset();
+    }
+
+    /**
+     * Simulates the execution of given operation: waits for throughput and concurrency limits, then for the latency.
+     *
+     * @return Break mode that should be applied to the operation (NONE if it should not fail).
+     */
+    BreakMode simulate(DummyOperationType operation) throws InterruptedException {
+        operationsCount.get(operation).increment();
+        Random random = ThreadLocalRandom.current();
+
+        long waitStart = System.nanoTime();
+        throttle();
+        Semaphore limiter = concurrencyLimiter;
+        if (limiter != null) {
+            limiter.acquire();
+        }
+        try {
+            long latencyStart = System.nanoTime();
+            waitTimeNanos.add(latencyStart - waitStart);
+            DummyLatencyDistribution latency = latencies.get(operation);
+            if (latency != null) {
+                sleep(latency.nextLatency(random), operation);
+            }
+            latencyTimeNanos.add(System.nanoTime() - latencyStart);
+        } finally {
+            if (limiter != null) {
+                limiter.release();
+            }
+        }
+
+        double errorRate = getErrorRate(operation);
+        if (errorRate > 0.0 && random.nextDouble() < errorRate) {
+            errorsInjected.get(operation).increment();
+            LOGGER.debug("Injecting {} error into {} operation", injectedErrorMode, operation);
+            return injectedErrorMode;
+        } else {
+            return BreakMode.NONE;
+        }
+    }
+
+    /**
+     * Simulates the delay of sending the search result with given (zero-based) index.
+     */
+    void simulateSearchResult(int index) throws InterruptedException {
+        DummyLatencyDistribution pageLatency = searchPageLatency;
+        if (searchPageSize > 0 && pageLatency != null && index > 0 && index % searchPageSize == 0) {
+            long start = System.nanoTime();
+            sleep(pageLatency.nextLatency(ThreadLocalRandom.current()), DummyOperationType.SEARCH);
+            latencyTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Makes sure that operations do not start more often than allowed by maxOperationsPerSecond.
+     * Each operation reserves its own time slot, so the callers do not compete for a lock.
+     */
+    private void throttle() throws InterruptedException {
+        int maxPerSecond = maxOperationsPerSecond;
+        if (maxPerSecond <= 0) {
+            return;
+        }
+        long interval = TimeUnit.SECONDS.toNanos(1) / maxPerSecond;
+        long now = System.nanoTime();
+        long previous = nextFreeSlot.getAndAccumulate(now, (slot, current) -> Math.max(slot, current) + interval);
+        long waitNanos = Math.max(previous, now) - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void sleep(long millis, DummyOperationType operation) throws InterruptedException {
+        if (millis > 0) {
+            LOGGER.trace("Simulating latency of {} ms for {} operation", millis, operation);
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public String debugDump(int indent) {
+        StringBuilder sb = new StringBuilder();
+        DebugUtil.debugDumpLabelLn(sb, "DummyLoadSimulation", indent);
+        DebugUtil.debugDumpWithLabelLn(sb, "maxConcurrentOperations", maxConcurrentOperations, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "maxOperationsPerSecond", maxOperationsPerSecond, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "searchPageSize", searchPageSize, indent + 1);
+        DebugUtil.debugDumpWithLabelLn(sb, "injectedErrorMode", String.valueOf(injectedErrorMode), indent + 1);
+        for (DummyOperationType operation : DummyOperationType.values()) {
+            DebugUtil.debugDumpWithLabelLn(sb, operation.name(), "count=" + getOperationsCount(operation)
+                    + ", errorsInjected=" + getErrorsInjected(operation) + ", errorRate=" + getErrorRate(operation), indent + 1);
+        }
+        DebugUtil.debugDumpWithLabelLn(sb, "waitTime", getWaitTime(), indent + 1);
+        DebugUtil.debugDumpWithLabel(sb, "latencyTime", getLatencyTime(), indent + 1);
+        return sb.toString();
+    }
+}
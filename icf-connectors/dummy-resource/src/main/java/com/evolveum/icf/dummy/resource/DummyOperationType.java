@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.icf.dummy.resource;
+
+/**
+ * Kinds of operations distinguished by the load simulation.
+ *
+ * @see DummyLoadSimulation
+ */
+public enum DummyOperationType {
+
+    GET,
+    SEARCH,
+    ADD,
+    MODIFY,
+    DELETE,
+    SYNC;
+
+}
@@ -16,8 +16,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.evolveum.midpoint.util.exception.SystemException;
@@ -57,6 +58,10 @@ import com.evolveum.midpoint.util.logging.TraceManager;
  * classloader. If the resource would be the same package as connector, it will get loaded by the
  * connector classloader regardless whether it is already loaded by the parent classloader.
  *
+ * The resource can be accessed concurrently. Lookups by ID do not serialize the callers; listing operations return
+ * snapshots of the current state. To simulate behavior of a real resource under load (latencies, limited concurrency,
+ * random failures) see {@link DummyLoadSimulation}.
+ *
  * @author Radovan Semancik
  *
  */
@@ -78,7 +83,6 @@ public class DummyResource implements DebugDumpable {
     public static final String UID_MODE_EXTERNAL = "external";
 
     private static final Trace LOGGER = TraceManager.getTrace(DummyResource.class);
-    private static final Random RND = new Random();
 
     public static final String ATTRIBUTE_CONNECTOR_TO_STRING = "connectorToString";
     public static final String ATTRIBUTE_CONNECTOR_STATIC_VAL = "connectorStaticVal";
@@ -140,7 +144,12 @@ public class DummyResource implements DebugDumpable {
     private BreakMode modifyBreakMode = BreakMode.NONE;
     private BreakMode deleteBreakMode = BreakMode.NONE;
 
-    private boolean blockOperations = false;
+    private volatile boolean blockOperations = false;
+
+    /**
+     * Simulation of a resource under load. Null means no simulation.
+     */
+    private volatile DummyLoadSimulation loadSimulation;
 
     private boolean generateAccountDescriptionOnCreate = false;           // simulates volatile behavior (on create)
     private boolean generateAccountDescriptionOnUpdate = false;        // simulates volatile behavior (on update)
@@ -158,7 +167,8 @@ public class DummyResource implements DebugDumpable {
     private static Map<String, DummyResource> instances = new HashMap<>();
 
     DummyResource() {
-        allObjects = Collections.synchronizedMap(new LinkedHashMap<>());
+        // allObjects is used only for lookups by ID, so no ordering is needed there
+        allObjects = new ConcurrentHashMap<>();
         accounts = Collections.synchronizedMap(new LinkedHashMap<>());
         groups = Collections.synchronizedMap(new LinkedHashMap<>());
         privileges = Collections.synchronizedMap(new LinkedHashMap<>());
@@ -192,6 +202,7 @@ public class DummyResource implements DebugDumpable {
         operationDelayRange = 0;
         blockOperations = false;
         syncSearchHandlerStart = false;
+        loadSimulation = null;
         resetBreakMode();
     }
 
@@ -199,7 +210,7 @@ public class DummyResource implements DebugDumpable {
         return getInstance(null);
     }
 
-    public static DummyResource getInstance(String instanceName) {
+    public static synchronized DummyResource getInstance(String instanceName) {
         DummyResource instance = instances.get(instanceName);
         if (instance == null) {
             instance = new DummyResource();
@@ -405,6 +416,14 @@ public class DummyResource implements DebugDumpable {
         this.monsterization = monsterization;
     }
 
+    public DummyLoadSimulation getLoadSimulation() {
+        return loadSimulation;
+    }
+
+    public void setLoadSimulation(DummyLoadSimulation loadSimulation) {
+        this.loadSimulation = loadSimulation;
+    }
+
     public String getUidMode() {
         return uidMode;
     }
@@ -449,7 +468,7 @@ public class DummyResource implements DebugDumpable {
         this.groupMembersReadCount = groupMembersReadCount;
     }
 
-    public void recordGroupMembersReadCount() {
+    public synchronized void recordGroupMembersReadCount() {
         groupMembersReadCount++;
         traceOperation("groupMembersRead", groupMembersReadCount);
     }
@@ -488,7 +507,17 @@ public class DummyResource implements DebugDumpable {
         checkBlockOperations();
         breakIt(getBreakMode, "get");
         delayOperation();
-        return accounts.values();
+        simulateOperation(DummyOperationType.SEARCH);
+        return snapshot(accounts);
+    }
+
+    /**
+     * Returns a copy of map values, so the caller can iterate over them without being disturbed by concurrent modifications.
+     */
+    private <T extends DummyObject> Collection<T> snapshot(Map<String,T> map) {
+        synchronized (map) {
+            return new ArrayList<>(map.values());
+        }
     }
 
     private <T extends DummyObject> T getObjectByName(Map<String,T> map, String name, boolean checkBreak) throws ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
@@ -500,6 +529,7 @@ public class DummyResource implements DebugDumpable {
         if (checkBreak) {
             breakIt(getBreakMode, "get");
         }
+        simulateOperation(DummyOperationType.GET);
         return map.get(normalize(name));
     }
 
@@ -541,6 +571,10 @@ public class DummyResource implements DebugDumpable {
             breakIt(getBreakMode, "get");
         }
         delayOperation();
+        simulateOperation(DummyOperationType.GET);
+        if (id == null) {
+            return null;
+        }
         DummyObject dummyObject = allObjects.get(id);
         if (dummyObject == null) {
             return null;
@@ -587,24 +621,33 @@ public class DummyResource implements DebugDumpable {
         checkBlockOperations();
         breakIt(getBreakMode, "get");
         delayOperation();
-        return groups.values();
+        simulateOperation(DummyOperationType.SEARCH);
+        return snapshot(groups);
     }
 
     public Collection<DummyPrivilege> listPrivileges() throws ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
         checkBlockOperations();
         breakIt(getBreakMode, "get");
         delayOperation();
-        return privileges.values();
+        simulateOperation(DummyOperationType.SEARCH);
+        return snapshot(privileges);
     }
 
     public Collection<DummyOrg> listOrgs() throws ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
         checkBlockOperations();
         breakIt(getBreakMode, "get");
         delayOperation();
-        return orgs.values();
+        simulateOperation(DummyOperationType.SEARCH);
+        return snapshot(orgs);
+    }
+
+    private <T extends DummyObject> String addObject(Map<String,T> map, T newObject) throws ObjectAlreadyExistsException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+        // Simulated load is applied outside the monitor, so that simulated operations can overlap.
+        simulateOperation(DummyOperationType.ADD);
+        return addObjectSynchronized(map, newObject);
     }
 
-    private synchronized <T extends DummyObject> String addObject(Map<String,T> map, T newObject) throws ObjectAlreadyExistsException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+    private synchronized <T extends DummyObject> String addObjectSynchronized(Map<String,T> map, T newObject) throws ObjectAlreadyExistsException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
         checkBlockOperations();
         recordWriteOperation("add");
         breakIt(addBreakMode, "add");
@@ -634,7 +677,7 @@ public class DummyResource implements DebugDumpable {
         //this is "resource-generated" attribute (used to simulate resource which generate by default attributes which we need to sync)
         if (generateDefaultValues) {
 //            int internalId = allObjects.size();
-            newObject.addAttributeValue(DummyAccount.ATTR_INTERNAL_ID, new Random().nextInt());
+            newObject.addAttributeValue(DummyAccount.ATTR_INTERNAL_ID, ThreadLocalRandom.current().nextInt());
         }
 
         String mapKey;
@@ -662,7 +705,12 @@ public class DummyResource implements DebugDumpable {
     }
 
 
-    private synchronized <T extends DummyObject> void deleteObjectByName(Class<T> type, Map<String,T> map, String name) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+    private <T extends DummyObject> void deleteObjectByName(Class<T> type, Map<String,T> map, String name) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+        simulateOperation(DummyOperationType.DELETE);
+        deleteObjectByNameSynchronized(type, map, name);
+    }
+
+    private synchronized <T extends DummyObject> void deleteObjectByNameSynchronized(Class<T> type, Map<String,T> map, String name) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
         checkBlockOperations();
         recordWriteOperation("delete");
         breakIt(deleteBreakMode, "delete");
@@ -706,7 +754,12 @@ public class DummyResource implements DebugDumpable {
         deleteObjectById(DummyOrg.class, orgs, id);
     }
 
-    private synchronized <T extends DummyObject> void deleteObjectById(Class<T> type, Map<String,T> map, String id) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+    private <T extends DummyObject> void deleteObjectById(Class<T> type, Map<String,T> map, String id) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+        simulateOperation(DummyOperationType.DELETE);
+        deleteObjectByIdSynchronized(type, map, id);
+    }
+
+    private synchronized <T extends DummyObject> void deleteObjectByIdSynchronized(Class<T> type, Map<String,T> map, String id) throws ObjectDoesNotExistException, ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
         checkBlockOperations();
         recordWriteOperation("delete");
         breakIt(deleteBreakMode, "delete");
@@ -893,6 +946,46 @@ public class DummyResource implements DebugDumpable {
         return null;
     }
 
+    /**
+     * Quickly generates a large number of accounts, e.g. for throughput testing. Accounts are named namePrefix + number
+     * (zero-padded), they have fullname and description attributes set. No break modes, delays, load simulation
+     * or sync deltas are applied.
+     *
+     * @return Number of accounts actually created (existing names are skipped).
+     */
+    public synchronized int generateSyntheticAccounts(String namePrefix, int count) throws SchemaViolationException,
+            ConflictException, FileNotFoundException, ConnectException, InterruptedException {
+        int digits = String.valueOf(count).length();
+        String format = "%s%0" + digits + "d";
+        int created = 0;
+        for (int i = 0; i < count; i++) {
+            String name = String.format(format, namePrefix, i);
+            String mapKey = enforceUniqueName ? normalize(name) : null;
+            if (mapKey != null && accounts.containsKey(mapKey)) {
+                continue;
+            }
+            DummyAccount account = new DummyAccount(name);
+            if (UID_MODE_EXTERNAL.equals(uidMode)) {
+                account.setId(name);
+            }
+            if (accountObjectClass.getAttributeDefinition(DummyAccount.ATTR_FULLNAME_NAME) != null) {
+                account.addAttributeValue(DummyAccount.ATTR_FULLNAME_NAME, "Synthetic user " + i);
+            }
+            if (accountObjectClass.getAttributeDefinition(DummyAccount.ATTR_DESCRIPTION_NAME) != null) {
+                account.addAttributeValue(DummyAccount.ATTR_DESCRIPTION_NAME, "Generated by load simulation");
+            }
+            account.setResource(this);
+            if (!UID_MODE_EXTERNAL.equals(uidMode)) {
+                account.setId(UUID.randomUUID().toString());
+            }
+            accounts.put(enforceUniqueName ? mapKey : account.getId(), account);
+            allObjects.put(account.getId(), account);
+            created++;
+        }
+        LOGGER.info("Generated {} synthetic accounts with prefix '{}' on dummy resource {}", created, namePrefix, instanceName);
+        return created;
+    }
+
     /**
      * Populates the resource with some kind of "default" schema. This is a schema that should suit
      * majority of basic test cases.
@@ -934,11 +1027,14 @@ public class DummyResource implements DebugDumpable {
     }
 
 
-    public List<DummyDelta> getDeltasSince(int syncToken) {
+    public List<DummyDelta> getDeltasSince(int syncToken) throws ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+        simulateOperation(DummyOperationType.SYNC);
         List<DummyDelta> result = new ArrayList<>();
-        for (DummyDelta delta: deltas) {
-            if (delta.getSyncToken() > syncToken) {
-                result.add(delta);
+        synchronized (deltas) {
+            for (DummyDelta delta : deltas) {
+                if (delta.getSyncToken() > syncToken) {
+                    result.add(delta);
+                }
             }
         }
         return result;
@@ -1002,7 +1098,7 @@ public class DummyResource implements DebugDumpable {
         }
         int delay = operationDelayOffset;
         if (operationDelayRange > 0) {
-            delay += RND.nextInt(operationDelayRange);
+            delay += ThreadLocalRandom.current().nextInt(operationDelayRange);
         }
         LOGGER.debug("Delaying dummy {} operation for {} ms", instanceName, delay);
         try {
@@ -1014,18 +1110,44 @@ public class DummyResource implements DebugDumpable {
         }
     }
 
-    private synchronized void checkBlockOperations() {
-        if (blockOperations) {
-            try {
-                LOGGER.info("Thread {} blocked (operation)", Thread.currentThread().getName());
-                this.wait();
-                LOGGER.info("Thread {} unblocked (operation)", Thread.currentThread().getName());
-            } catch (InterruptedException e) {
-                LOGGER.debug("Wait interrupted (operation)", e);
+    private void checkBlockOperations() {
+        // Fast path: we do not want to serialize all the operations on the resource monitor when blocking is not used.
+        if (!blockOperations) {
+            return;
+        }
+        synchronized (this) {
+            if (blockOperations) {
+                try {
+                    LOGGER.info("Thread {} blocked (operation)", Thread.currentThread().getName());
+                    this.wait();
+                    LOGGER.info("Thread {} unblocked (operation)", Thread.currentThread().getName());
+                } catch (InterruptedException e) {
+                    LOGGER.debug("Wait interrupted (operation)", e);
+                }
             }
         }
     }
 
+    /**
+     * Applies load simulation (if enabled) to given operation. May throw an injected error.
+     */
+    public void simulateOperation(DummyOperationType operation) throws ConnectException, FileNotFoundException, SchemaViolationException, ConflictException, InterruptedException {
+        DummyLoadSimulation simulation = loadSimulation;
+        if (simulation != null) {
+            breakIt(simulation.simulate(operation), operation.name());
+        }
+    }
+
+    /**
+     * Applies load simulation (if enabled) when returning search result with given (zero-based) index.
+     */
+    public void simulateSearchResult(int index) throws InterruptedException {
+        DummyLoadSimulation simulation = loadSimulation;
+        if (simulation != null) {
+            simulation.simulateSearchResult(index);
+        }
+    }
+
     public synchronized void unblock() {
         LOGGER.info("Unblocking");
         this.notify();
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.icf.dummy.resource;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+
+public class TestDummyLoadSimulation {
+
+    private static final Trace LOGGER = TraceManager.getTrace(TestDummyLoadSimulation.class);
+
+    private static final int THREADS = 8;
+    private static final long LATENCY = 200L;
+
+    /**
+     * Simulated latencies of write operations must not be serialized by the resource monitor.
+     */
+    @Test
+    public void test100ConcurrentAddsOverlap() throws Exception {
+        DummyResource resource = new DummyResource();
+        resource.populateWithDefaultSchema();
+        DummyLoadSimulation simulation = new DummyLoadSimulation();
+        simulation.setLatency(DummyOperationType.ADD, DummyLatencyDistribution.constant(LATENCY));
+        simulation.setLatency(DummyOperationType.DELETE, DummyLatencyDistribution.constant(LATENCY));
+        resource.setLoadSimulation(simulation);
+
+        long addTime = runConcurrently(i -> resource.addAccount(new DummyAccount("user" + i)));
+        LOGGER.info("{} concurrent adds took {} ms", THREADS, addTime);
+        assertEquals("Wrong # of accounts", THREADS, resource.listAccounts().size());
+        assertTrue("Adds were serialized: " + addTime + " ms", addTime < THREADS * LATENCY / 2);
+
+        long deleteTime = runConcurrently(i -> resource.deleteAccountByName("user" + i));
+        LOGGER.info("{} concurrent deletes took {} ms", THREADS, deleteTime);
+        assertEquals("Wrong # of accounts", 0, resource.listAccounts().size());
+        assertTrue("Deletes were serialized: " + deleteTime + " ms", deleteTime < THREADS * LATENCY / 2);
+
+        assertEquals("Wrong # of simulated adds", THREADS, simulation.getOperationsCount(DummyOperationType.ADD));
+        assertEquals("Wrong # of simulated deletes", THREADS, simulation.getOperationsCount(DummyOperationType.DELETE));
+    }
+
+    /**
+     * Generating synthetic accounts must not change the simulation nor sync style seen by concurrent operations.
+     */
+    @Test
+    public void test200SyntheticAccountsKeepSettings() throws Exception {
+        DummyResource resource = new DummyResource();
+        resource.populateWithDefaultSchema();
+        resource.setSyncStyle(DummySyncStyle.SMART);
+        DummyLoadSimulation simulation = new DummyLoadSimulation();
+        resource.setLoadSimulation(simulation);
+
+        int created = resource.generateSyntheticAccounts("synth", 100);
+
+        assertEquals("Wrong # of created accounts", 100, created);
+        assertEquals("Wrong # of accounts", 100, resource.listAccounts().size());
+        assertSame("Load simulation was changed", simulation, resource.getLoadSimulation());
+        assertEquals("Sync style was changed", DummySyncStyle.SMART, resource.getSyncStyle());
+        assertTrue("Sync deltas were generated", resource.getDeltas().isEmpty());
+        assertEquals("Operations were simulated", 0, simulation.getOperationsCount(DummyOperationType.ADD));
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void execute(int i) throws Exception;
+    }
+
+    private long runConcurrently(Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.currentTimeMillis();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    operation.execute(index);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+            return System.currentTimeMillis() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -52,6 +52,8 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
     private static final Trace LOGGER = TraceManager.getTrace(RefinedObjectClassDefinition.class);
 
     @NotNull private final List<RefinedAttributeDefinition<?>> attributeDefinitions = new ArrayList<>();
+    // Lookup map: attribute local name -> definitions (in the order of definition). Built lazily, reset on any change.
+    private transient volatile Map<String, List<RefinedAttributeDefinition<?>>> attributeDefinitionsByLocalName;
     @NotNull private final List<RefinedAssociationDefinition> associationDefinitions = new ArrayList<>();
 
     @NotNull private final ObjectClassComplexTypeDefinition originalObjectClassDefinition;
@@ -116,7 +118,10 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
     @Override
     public <ID extends ItemDefinition> ID findLocalItemDefinition(@NotNull QName name, @NotNull Class<ID> clazz,
             boolean caseInsensitive) {
-        for (ItemDefinition def : getDefinitions()) {
+        Collection<? extends ItemDefinition> candidates = caseInsensitive ?
+                getDefinitions() :
+                getAttributeDefinitionsByLocalName().getOrDefault(name.getLocalPart(), Collections.emptyList());
+        for (ItemDefinition def : candidates) {
             if (def.isValidFor(name, clazz, caseInsensitive)) {
                 return (ID) def;
             }
@@ -124,6 +129,19 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
         return null;
     }
 
+    @NotNull
+    private Map<String, List<RefinedAttributeDefinition<?>>> getAttributeDefinitionsByLocalName() {
+        Map<String, List<RefinedAttributeDefinition<?>>> map = attributeDefinitionsByLocalName;
+        if (map == null) {
+            map = new HashMap<>();
+            for (RefinedAttributeDefinition<?> def : attributeDefinitions) {
+                map.computeIfAbsent(def.getItemName().getLocalPart(), k -> new ArrayList<>()).add(def);
+            }
+            attributeDefinitionsByLocalName = map;
+        }
+        return map;
+    }
+
     //endregion
 
     //region Special attribute definitions ========================================================
@@ -626,7 +644,7 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
     public RefinedObjectClassDefinitionImpl clone() {
         RefinedObjectClassDefinitionImpl clone = new RefinedObjectClassDefinitionImpl(resourceOid, originalObjectClassDefinition);
         copyDefinitionData(clone);
-        shared = false;
+        clone.shared = false;
         return clone;
     }
 
@@ -653,7 +671,7 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
         // TODO TODO TODO (note that in original implementation this was also missing...)
         RefinedObjectClassDefinitionImpl clone = new RefinedObjectClassDefinitionImpl(resourceOid, originalObjectClassDefinition.deepClone(ctdMap, onThisPath, postCloneAction));
         copyDefinitionData(clone);
-        shared = false;
+        clone.shared = false;
         return clone;
     }
 
@@ -1163,6 +1181,7 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
 
     private void add(RefinedAttributeDefinition<?> refinedAttributeDefinition) {
         attributeDefinitions.add(refinedAttributeDefinition);
+        attributeDefinitionsByLocalName = null;
     }
     //endregion
 
@@ -1401,12 +1420,17 @@ public final class RefinedObjectClassDefinitionImpl implements RefinedObjectClas
 
     @Override
     public void trimTo(@NotNull Collection<ItemPath> paths) {
+        if (shared) {
+            // Shared definitions can be cached node-wide (see RefinedResourceSchemaCache); trimming must be done on a clone.
+            throw new IllegalStateException("Couldn't trim shared definition: " + this);
+        }
         originalObjectClassDefinition.trimTo(paths);
         List<QName> names = paths.stream()
                 .filter(p -> p.isSingleName())
                 .map(p -> p.asSingleName())
                 .collect(Collectors.toList());
         attributeDefinitions.removeIf(itemDefinition -> !QNameUtil.contains(names, itemDefinition.getItemName()));
+        attributeDefinitionsByLocalName = null;
         associationDefinitions.removeIf(itemDefinition -> !QNameUtil.contains(names, itemDefinition.getName()));
     }
 
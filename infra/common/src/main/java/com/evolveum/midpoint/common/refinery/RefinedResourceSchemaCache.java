@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.common.refinery;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.util.caching.CacheConfiguration.StatisticsLevel;
+import com.evolveum.midpoint.util.caching.CachePerformanceCollector;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide cache of parsed refined schemas, keyed by resource OID and version. Refined schemas are not modified after
+ * being parsed, so they can be shared by all threads and all in-memory copies of the same resource version.
+ * Their object class definitions are marked as shared, so they refuse to be trimmed; clients that need to trim
+ * a definition (e.g. when trimming definition tree of a shadow) have to work on a clone.
+ *
+ * The cache must be used only for resource objects that correspond to the repository state of their version,
+ * i.e. not for objects modified in memory. See {@link RefinedResourceSchemaImpl#getRefinedSchema(PrismObject, com.evolveum.midpoint.prism.PrismContext)}.
+ *
+ * Invalidation is driven from outside (by the provisioning resource cache that is registered in the cache registry).
+ *
+ * EXPERIMENTAL
+ */
+public class RefinedResourceSchemaCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(RefinedResourceSchemaCache.class);
+
+    public static final RefinedResourceSchemaCache INSTANCE = new RefinedResourceSchemaCache();
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        @NotNull private final String version;
+        @NotNull private final RefinedResourceSchema schema;
+        private final long parseTime;           // in milliseconds
+
+        private Entry(@NotNull String version, @NotNull RefinedResourceSchema schema, long parseTime) {
+            this.version = version;
+            this.schema = schema;
+            this.parseTime = parseTime;
+        }
+    }
+
+    RefinedResourceSchema get(PrismObject<ResourceType> resource) {
+        String oid = resource.getOid();
+        String version = resource.getVersion();
+        CachePerformanceCollector collector = CachePerformanceCollector.INSTANCE;
+        if (oid == null || version == null) {
+            collector.registerNotAvailable(RefinedResourceSchemaCache.class, ResourceType.class, StatisticsLevel.PER_CACHE);
+            return null;
+        }
+        Entry entry = cache.get(oid);
+        if (entry != null && entry.version.equals(version)) {
+            LOGGER.trace("HIT for {} version {}", oid, version);
+            collector.registerHit(RefinedResourceSchemaCache.class, ResourceType.class, StatisticsLevel.PER_CACHE);
+            collector.registerTimeSaved(RefinedResourceSchemaCache.class, ResourceType.class, StatisticsLevel.PER_CACHE,
+                    entry.parseTime);
+            return entry.schema;
+        } else {
+            LOGGER.trace("MISS for {} version {} (cached version: {})", oid, version, entry != null ? entry.version : null);
+            collector.registerMiss(RefinedResourceSchemaCache.class, ResourceType.class, StatisticsLevel.PER_CACHE);
+            return null;
+        }
+    }
+
+    void put(PrismObject<ResourceType> resource, @NotNull RefinedResourceSchema schema, long parseTimeNanos) {
+        String oid = resource.getOid();
+        String version = resource.getVersion();
+        if (oid != null && version != null) {
+            cache.put(oid, new Entry(version, schema, TimeUnit.NANOSECONDS.toMillis(parseTimeNanos)));
+        }
+    }
+
+    public void invalidate(String oid) {
+        if (oid != null) {
+            cache.remove(oid);
+        } else {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
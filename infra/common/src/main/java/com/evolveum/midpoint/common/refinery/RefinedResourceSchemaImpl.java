@@ -47,6 +47,9 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
     // This object contains the real data of the refined schema
     private ResourceSchema resourceSchema;
 
+    // Lookup map: object class local name -> refined definitions (in the order of definition). Built lazily, reset on any change.
+    private volatile Map<String, List<RefinedObjectClassDefinition>> definitionsByObjectClassName;
+
     private RefinedResourceSchemaImpl(@NotNull ResourceSchema originalResourceSchema) {
         this.originalResourceSchema = originalResourceSchema;
         this.resourceSchema = new ResourceSchemaImpl(originalResourceSchema.getNamespace(), originalResourceSchema.getPrismContext());
@@ -213,7 +216,12 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
 
     @Override
     public RefinedObjectClassDefinition getRefinedDefinition(QName objectClassName) {
-        for (RefinedObjectClassDefinition def: getRefinedDefinitions()) {
+        if (objectClassName == null) {
+            return null;
+        }
+        List<RefinedObjectClassDefinition> candidates = getDefinitionsByObjectClassName()
+                .getOrDefault(objectClassName.getLocalPart(), Collections.emptyList());
+        for (RefinedObjectClassDefinition def: candidates) {
             if (def.isDefault() && (QNameUtil.match(def.getTypeName(), objectClassName))) {
                 return def;
             }
@@ -221,7 +229,7 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
         // No default for this object class, so just use the first one.
         // This is not strictly correct .. but it is a "compatible bug" :-)
         // TODO: remove this in next major revision
-        for (RefinedObjectClassDefinition def: getRefinedDefinitions()) {
+        for (RefinedObjectClassDefinition def: candidates) {
             if ((QNameUtil.match(def.getTypeName(), objectClassName))) {
                 return def;
             }
@@ -284,7 +292,26 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
         return getRefinedSchema(resource, resource.getPrismContext());
     }
 
+    /**
+     * Returns refined schema of the resource, parsing it if needed. The schema is stored in the resource user data.
+     *
+     * If the resource object is immutable, it is considered to correspond to the repository state of its version,
+     * so the node-wide {@link RefinedResourceSchemaCache} is used.
+     */
     public static RefinedResourceSchema getRefinedSchema(PrismObject<ResourceType> resource, PrismContext prismContext) throws SchemaException {
+        return getRefinedSchema(resource, prismContext, resource != null && resource.isImmutable());
+    }
+
+    /**
+     * Returns refined schema of a resource that is known to correspond to the repository state of its version
+     * (e.g. it was just read from the repository). Such schemas are shared via the node-wide {@link RefinedResourceSchemaCache}.
+     */
+    public static RefinedResourceSchema getRefinedSchemaForRepositoryState(PrismObject<ResourceType> resource, PrismContext prismContext) throws SchemaException {
+        return getRefinedSchema(resource, prismContext, true);
+    }
+
+    private static RefinedResourceSchema getRefinedSchema(PrismObject<ResourceType> resource, PrismContext prismContext,
+            boolean useNodeCache) throws SchemaException {
         if (resource == null){
             throw new SchemaException("Could not get refined schema, resource does not exist.");
         }
@@ -298,12 +325,31 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
                         "in "+resource+", but got "+userDataEntry.getClass());
             }
         } else {
-            RefinedResourceSchema refinedSchema = parse(resource, prismContext);
+            RefinedResourceSchema refinedSchema = useNodeCache ?
+                    getOrParseShared(resource, prismContext) : parse(resource, prismContext);
             resource.modifyUnfrozen(r -> r.setUserData(USER_DATA_KEY_REFINED_SCHEMA, refinedSchema));
             return refinedSchema;
         }
     }
 
+    private static RefinedResourceSchema getOrParseShared(PrismObject<ResourceType> resource, PrismContext prismContext) throws SchemaException {
+        RefinedResourceSchemaCache cache = RefinedResourceSchemaCache.INSTANCE;
+        RefinedResourceSchema cached = cache.get(resource);
+        if (cached != null) {
+            if (resource.getUserData(USER_DATA_KEY_PARSED_RESOURCE_SCHEMA) == null) {
+                ResourceSchema originalSchema = cached.getOriginalResourceSchema();
+                resource.modifyUnfrozen(r -> r.setUserData(USER_DATA_KEY_PARSED_RESOURCE_SCHEMA, originalSchema));
+            }
+            return cached;
+        }
+        long start = System.nanoTime();
+        RefinedResourceSchema parsed = parse(resource, prismContext);
+        if (parsed != null) {
+            cache.put(resource, parsed, System.nanoTime() - start);
+        }
+        return parsed;
+    }
+
     public static LayerRefinedResourceSchema getRefinedSchema(PrismObject<ResourceType> resource, LayerType layer, PrismContext prismContext) throws SchemaException {
         RefinedResourceSchema refinedSchema = getRefinedSchema(resource, prismContext);
         if (refinedSchema == null) {
@@ -483,6 +529,20 @@ public final class RefinedResourceSchemaImpl implements RefinedResourceSchema {
 
     private void add(RefinedObjectClassDefinition rOcDef) {
         ((ResourceSchemaImpl) resourceSchema).add(rOcDef);
+        definitionsByObjectClassName = null;
+    }
+
+    @NotNull
+    private Map<String, List<RefinedObjectClassDefinition>> getDefinitionsByObjectClassName() {
+        Map<String, List<RefinedObjectClassDefinition>> map = definitionsByObjectClassName;
+        if (map == null) {
+            map = new HashMap<>();
+            for (RefinedObjectClassDefinition def : getRefinedDefinitions()) {
+                map.computeIfAbsent(def.getTypeName().getLocalPart(), k -> new ArrayList<>()).add(def);
+            }
+            definitionsByObjectClassName = map;
+        }
+        return map;
     }
 
     //region Delegations
@@ -10,8 +10,11 @@ package com.evolveum.midpoint.common.rest;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -27,6 +30,7 @@ import javax.xml.namespace.QName;
 
 import com.evolveum.midpoint.common.LocalizationService;
 import com.evolveum.midpoint.prism.*;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.util.exception.SystemException;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.provider.AbstractConfigurableProvider;
@@ -38,12 +42,16 @@ import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.api_types_3.ObjectListType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
 
 public abstract class MidpointAbstractProvider<T> extends AbstractConfigurableProvider implements MessageBodyReader<T>, MessageBodyWriter<T>{
 
     private static final transient Trace LOGGER = TraceManager.getTrace(MidpointAbstractProvider.class);
 
+    private static final QName OBJECT_LIST_ITEM_NAME = new QName(SchemaConstants.NS_API_TYPES, "object");
+
     @Autowired protected PrismContext prismContext;
     @Autowired protected LocalizationService localizationService;
 
@@ -83,6 +91,10 @@ public abstract class MidpointAbstractProvider<T> extends AbstractConfigurablePr
                 .options(SerializationOptions.createSerializeReferenceNames());
 
         try {
+            if (object instanceof ObjectListType && isObjectListWrittenIncrementally()) {
+                writeObjectList((ObjectListType) object, serializer, fakeQName, entityStream);
+                return;
+            }
             if (object instanceof PrismObject) {
                 xml = serializer.serialize((PrismObject<?>) object);
             } else if (object instanceof OperationResult) {
@@ -99,6 +111,29 @@ public abstract class MidpointAbstractProvider<T> extends AbstractConfigurablePr
         }
     }
 
+    /**
+     * Writes the objects (e.g. search results) one by one, so the serialized form of the whole list is never kept in memory.
+     * Objects are written as "object" elements with explicit types, just like when the list is serialized as a whole.
+     */
+    private void writeObjectList(ObjectListType objectList, PrismSerializer<String> serializer, QName aggregateElementName,
+            OutputStream entityStream) throws SchemaException {
+        Writer writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8);
+        try (PrismSerializer.ObjectsWriter objectsWriter = serializer.root(OBJECT_LIST_ITEM_NAME)
+                .objectsWriter(writer, aggregateElementName)) {
+            for (ObjectType object : objectList.getObject()) {
+                objectsWriter.write(object.asPrismObject());
+            }
+        }
+    }
+
+    /**
+     * Whether the objects writer produces the same structure of the object list as the standard serialization does.
+     * (In JSON and YAML the objects are nested differently, so the list is serialized as a whole there.)
+     */
+    protected boolean isObjectListWrittenIncrementally() {
+        return false;
+    }
+
     protected abstract PrismSerializer<String> getSerializer();
     protected abstract PrismParser getParser(InputStream entityStream);
 
@@ -26,6 +26,11 @@ public class MidpointXmlProvider<T> extends MidpointAbstractProvider<T> {
         return prismContext.xmlSerializer();
     }
 
+    @Override
+    protected boolean isObjectListWrittenIncrementally() {
+        return true;
+    }
+
     @Override
     protected PrismParser getParser(InputStream entityStream) {
         return prismContext.parserFor(entityStream).xml();
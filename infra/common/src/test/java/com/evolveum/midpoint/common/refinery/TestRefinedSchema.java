@@ -9,6 +9,7 @@ package com.evolveum.midpoint.common.refinery;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.*;
 
@@ -16,6 +17,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -25,6 +28,7 @@ import javax.xml.namespace.QName;
 
 import com.evolveum.midpoint.prism.ConsistencyCheckScope;
 import com.evolveum.midpoint.prism.path.ItemName;
+import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.EqualFilter;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
@@ -728,4 +732,56 @@ public class TestRefinedSchema {
         // TODO some asserts on correct parsing maybe
     }
 
+    /**
+     * Refined schemas of immutable resources are shared via node-wide cache. Trimming a definition must not affect
+     * the cached schema.
+     */
+    @Test
+    public void test210TrimmedDefinitionDoesNotLeakIntoCache() throws Exception {
+        final String TEST_NAME = "test210TrimmedDefinitionDoesNotLeakIntoCache";
+        TestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismContext prismContext = createInitializedPrismContext();
+        RefinedResourceSchemaCache.INSTANCE.invalidate(null);
+
+        PrismObject<ResourceType> resource1 = prismContext.parseObject(RESOURCE_COMPLEX_FILE);
+        resource1.setVersion("1");
+        resource1.freeze();
+        PrismObject<ResourceType> resource2 = prismContext.parseObject(RESOURCE_COMPLEX_FILE);
+        resource2.setVersion("1");
+        resource2.freeze();
+
+        RefinedResourceSchema cachedSchema = RefinedResourceSchemaImpl.getRefinedSchema(resource1, prismContext);
+        assertSame("Refined schema is not shared", cachedSchema, RefinedResourceSchemaImpl.getRefinedSchema(resource2, prismContext));
+
+        RefinedObjectClassDefinition cachedAccountDef = cachedSchema.getRefinedDefinition(ShadowKindType.ACCOUNT, (String) null);
+        int attributesBefore = cachedAccountDef.getAttributeDefinitions().size();
+        assertTrue("Too few attributes: " + attributesBefore, attributesBefore > 1);
+        ItemName keptAttributeName = cachedAccountDef.getAttributeDefinitions().iterator().next().getItemName();
+        List<ItemPath> paths = Collections.singletonList(keptAttributeName);
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        RefinedObjectClassDefinition clone = cachedAccountDef.deepClone(new HashMap<>(), new HashMap<>(), null);
+        clone.trimTo(paths);
+
+        try {
+            cachedAccountDef.trimTo(paths);
+            AssertJUnit.fail("Unexpected success in trimming shared definition");
+        } catch (IllegalStateException e) {
+            System.out.println("Expected exception: " + e.getMessage());
+        }
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        assertEquals("Wrong # of attributes in trimmed clone", 1, clone.getAttributeDefinitions().size());
+        assertNotNull("Kept attribute is missing in trimmed clone", clone.findAttributeDefinition(keptAttributeName));
+
+        RefinedObjectClassDefinition accountDefAfter = RefinedResourceSchemaImpl.getRefinedSchema(resource2, prismContext)
+                .getRefinedDefinition(ShadowKindType.ACCOUNT, (String) null);
+        assertSame("Cached definition was replaced", cachedAccountDef, accountDefAfter);
+        assertEquals("Trimming leaked into cached definition", attributesBefore, accountDefAfter.getAttributeDefinitions().size());
+    }
+
 }
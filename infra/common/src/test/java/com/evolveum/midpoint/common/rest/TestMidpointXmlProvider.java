@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.common.rest;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.test.util.TestUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.xml.ns._public.common.api_types_3.ObjectListType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests writing of object lists (e.g. REST search results) by {@link MidpointXmlProvider}.
+ */
+public class TestMidpointXmlProvider {
+
+    @BeforeSuite
+    public void setup() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    /**
+     * Objects are written incrementally; the output must be parseable as the object list again.
+     */
+    @Test
+    public void test100WriteObjectList() throws Exception {
+        final String TEST_NAME = "test100WriteObjectList";
+        TestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismContext prismContext = PrismTestUtil.getPrismContext();
+        MidpointXmlProvider<ObjectListType> provider = new MidpointXmlProvider<>();
+        provider.prismContext = prismContext;
+        ObjectListType objectList = new ObjectListType();
+        objectList.getObject().add(new UserType(prismContext).oid("c0c010c0-d34d-b33f-f00d-111111111111").name("jack"));
+        objectList.getObject().add(new UserType(prismContext).oid("c0c010c0-d34d-b33f-f00d-111111111112").name("will"));
+        objectList.getObject().add(new RoleType(prismContext).oid("12345678-d34d-b33f-f00d-55555555cccc").name("pirate"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // WHEN
+        TestUtil.displayWhen(TEST_NAME);
+        provider.writeTo(objectList, ObjectListType.class, null, null, MediaType.APPLICATION_XML_TYPE, null, out);
+
+        // THEN
+        TestUtil.displayThen(TEST_NAME);
+        String written = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        System.out.println("Object list written:\n" + written);
+        ObjectListType reparsed = prismContext.parserFor(written).xml().parseRealValue(ObjectListType.class);
+        assertEquals("Wrong # of objects", 3, reparsed.getObject().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Wrong object #" + i, objectList.getObject().get(i).asPrismObject(),
+                    reparsed.getObject().get(i).asPrismObject());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism;
+
+/**
+ * Visitor that does not visit items that have not been parsed yet (see {@link ParsingContext#lazyItems}).
+ * It is to be used when the same processing is applied to lazy items after they are parsed, so visiting them
+ * does not force their parsing.
+ *
+ * EXPERIMENTAL
+ */
+@FunctionalInterface
+public interface ParsedItemsVisitor<T extends Visitable<T>> extends Visitor<T> {
+}
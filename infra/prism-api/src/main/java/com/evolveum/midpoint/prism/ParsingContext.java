@@ -10,7 +10,10 @@ package com.evolveum.midpoint.prism;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.logging.Trace;
 
+import javax.xml.namespace.QName;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * TODO TODO TODO
@@ -40,4 +43,18 @@ public interface ParsingContext extends Cloneable {
     ParsingContext strict();
 
     ParsingContext compat();
+
+    /**
+     * Container items of object values that should not be parsed immediately. They are kept in the raw (XNode) form
+     * and parsed on first access. If they are not accessed at all, they are serialized back without being parsed.
+     *
+     * @param postProcessor Action to be applied to each lazy item after it is (eventually) parsed. May be null.
+     *
+     * EXPERIMENTAL
+     */
+    ParsingContext lazyItems(Collection<? extends QName> itemNames, Consumer<Item<?, ?>> postProcessor);
+
+    boolean isLazy(QName itemName);
+
+    Consumer<Item<?, ?>> getLazyItemPostProcessor();
 }
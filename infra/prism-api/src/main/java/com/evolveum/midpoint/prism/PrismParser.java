@@ -236,6 +236,15 @@ public interface PrismParser {
      */
     void parseObjectsIteratively(@NotNull ObjectHandler handler) throws SchemaException, IOException;
 
+    /**
+     * Parses objects using given number of worker threads. The input is read by the calling thread; objects are parsed
+     * by the workers and passed to the handler in the calling thread (so the handler need not be thread safe).
+     *
+     * @param ordered If true, objects are passed to the handler in the order of the input. If false, they are passed
+     *                as soon as they are parsed.
+     */
+    void parseObjectsIteratively(@NotNull ObjectHandler handler, int threads, boolean ordered) throws SchemaException, IOException;
+
     // ============= other methods (convenience ones, deprecated ones etc) =============
 
     //    /**
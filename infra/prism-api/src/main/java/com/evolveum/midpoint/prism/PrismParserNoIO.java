@@ -64,4 +64,6 @@ public interface PrismParserNoIO extends PrismParser {
     List<PrismObject<? extends Objectable>> parseObjects() throws SchemaException;
 
     void parseObjectsIteratively(@NotNull ObjectHandler handler) throws SchemaException;
+
+    void parseObjectsIteratively(@NotNull ObjectHandler handler, int threads, boolean ordered) throws SchemaException;
 }
@@ -14,6 +14,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.namespace.QName;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.List;
 
@@ -109,6 +110,36 @@ public interface PrismSerializer<T> {
     @NotNull
     T serializeObjects(@NotNull List<PrismObject<?>> objects, QName aggregateElementName) throws SchemaException;
 
+    /**
+     * Writes objects one by one to the output. The result is equivalent to the one of
+     * {@link #serializeObjects(List, QName)} but the objects need not be all present in memory at once:
+     * each one is written as soon as {@link ObjectsWriter#write(PrismObject)} is called.
+     *
+     * For JSON and YAML the output is identical. For XML, namespace declarations are put on each object element
+     * instead of the aggregate one, so the output is equivalent but not the same: the aggregate start tag is followed
+     * by objects serialized just like by {@link #serialize(Item)}, each on its own line.
+     *
+     * Applicable only to serializers producing strings; other ones throw {@link IllegalStateException}.
+     *
+     * EXPERIMENTAL
+     */
+    @NotNull
+    ObjectsWriter objectsWriter(@NotNull Writer out, QName aggregateElementName) throws SchemaException;
+
+    /**
+     * Writer of a sequence of objects. See {@link #objectsWriter(Writer, QName)}.
+     */
+    interface ObjectsWriter extends AutoCloseable {
+
+        void write(@NotNull PrismObject<?> object) throws SchemaException;
+
+        /**
+         * Finishes the output. The underlying writer is flushed but not closed.
+         */
+        @Override
+        void close() throws SchemaException;
+    }
+
     T serialize(JAXBElement<?> value) throws SchemaException;
     T serializeRealValue(Object value) throws SchemaException;
     T serializeRealValue(Object value, QName rootName) throws SchemaException;
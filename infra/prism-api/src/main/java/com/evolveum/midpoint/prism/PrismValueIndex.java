@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism;
+
+import com.evolveum.midpoint.prism.equivalence.EquivalenceStrategy;
+import com.evolveum.midpoint.prism.equivalence.ParameterizedEquivalenceStrategy;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.namespace.QName;
+import java.util.*;
+
+/**
+ * Hash index over a collection of prism values. It is used to avoid O(n^2) comparisons when working with items
+ * having a lot of values, e.g. 100K members of a group (see MID-5889).
+ *
+ * Values are indexed by a key derived from their real value (for property values of simple types) or from the target OID
+ * (for reference values). Values that cannot be indexed safely - container values, raw values, references without OID,
+ * property values of other types (DOM elements, protected strings, byte arrays, ...) - are kept aside and always
+ * considered as candidates.
+ *
+ * The key does not replace the equivalence check: it only narrows the set of candidates that are to be compared
+ * using the particular equivalence strategy. Therefore we only require that values that are equivalent under any
+ * {@link ParameterizedEquivalenceStrategy} have the same key. (This is why we do not use strategy-specific hash codes here:
+ * they are not reliable for raw values, protected strings, byte arrays, or references with un-normalized relations.)
+ *
+ * The index is a snapshot: it does not reflect changes in the original collection. Not thread safe.
+ */
+public class PrismValueIndex<V extends PrismValue> {
+
+    /**
+     * Minimal number of values for which the index is worth building.
+     */
+    public static final int THRESHOLD = 50;
+
+    private final Map<Object, List<V>> indexedValues = new HashMap<>();
+    private final List<V> notIndexedValues = new ArrayList<>();
+    private int size;
+
+    public PrismValueIndex(@NotNull Collection<? extends V> values) {
+        for (V value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Should the index be used for looking up given number of values in a collection of a given size?
+     * (For a single lookup the linear scan is always better.)
+     */
+    public static boolean isApplicable(int collectionSize, int lookups, EquivalenceStrategy strategy) {
+        return collectionSize >= THRESHOLD && lookups > 1 && strategy instanceof ParameterizedEquivalenceStrategy;
+    }
+
+    public void add(@NotNull V value) {
+        Object key = getKey(value);
+        if (key != null) {
+            indexedValues.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        } else {
+            notIndexedValues.add(value);
+        }
+        size++;
+    }
+
+    /**
+     * Returns values that can be equivalent to the given one, i.e. a superset of all values that are equivalent to it
+     * under any parameterized equivalence strategy.
+     */
+    @NotNull
+    public Collection<V> getCandidates(@NotNull PrismValue value) {
+        Object key = getKey(value);
+        if (key == null) {
+            List<V> all = new ArrayList<>(size);
+            indexedValues.values().forEach(all::addAll);
+            all.addAll(notIndexedValues);
+            return all;
+        }
+        List<V> matching = indexedValues.get(key);
+        if (matching == null) {
+            return notIndexedValues;
+        } else if (notIndexedValues.isEmpty()) {
+            return matching;
+        } else {
+            List<V> candidates = new ArrayList<>(matching);
+            candidates.addAll(notIndexedValues);
+            return candidates;
+        }
+    }
+
+    public boolean contains(@NotNull PrismValue value, @NotNull EquivalenceStrategy strategy) {
+        for (V candidate : getCandidates(value)) {
+            if (strategy.equals(candidate, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the key for the value or null if the value cannot be indexed.
+     */
+    private static Object getKey(PrismValue value) {
+        if (value instanceof PrismPropertyValue) {
+            PrismPropertyValue<?> propertyValue = (PrismPropertyValue<?>) value;
+            if (propertyValue.isRaw()) {
+                return null;
+            }
+            Object realValue = propertyValue.getValue();
+            if (realValue instanceof PolyString) {
+                return ((PolyString) realValue).getOrig();
+            } else if (realValue instanceof String || realValue instanceof Number || realValue instanceof Boolean
+                    || realValue instanceof Enum || realValue instanceof QName) {
+                // equivalence of these values is decided by their equals() method (QName prefixes are ignored by hashCode)
+                return realValue;
+            } else {
+                return null;
+            }
+        } else if (value instanceof PrismReferenceValue) {
+            return ((PrismReferenceValue) value).getOid();
+        } else {
+            return null;
+        }
+    }
+}
@@ -9,6 +9,7 @@ package com.evolveum.midpoint.prism.delta;
 
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismValue;
+import com.evolveum.midpoint.prism.PrismValueIndex;
 import com.evolveum.midpoint.prism.path.ItemPath;
 
 import java.util.Collection;
@@ -33,6 +34,11 @@ public class DeltaSetTripleUtil {
             triple.getMinusSet().addAll(valuesOld);
             return;
         }
+        if (isIndexable(valuesOld) && isIndexable(valuesNew)) {
+            //noinspection unchecked
+            diffIndexed((Collection<PrismValue>) valuesOld, (Collection<PrismValue>) valuesNew, (DeltaSetTriple<PrismValue>) triple);
+            return;
+        }
         for (T val : valuesOld) {
             if (valuesNew.contains(val)) {
                 triple.getZeroSet().add(val);
@@ -47,6 +53,42 @@ public class DeltaSetTripleUtil {
         }
     }
 
+    private static boolean isIndexable(Collection<?> values) {
+        return values.size() >= PrismValueIndex.THRESHOLD && values.stream().allMatch(v -> v instanceof PrismValue);
+    }
+
+    /**
+     * The same as the plain diff, but the values are looked up using hash indices. We rely on the fact that
+     * PrismValue.equals(Object) uses a parameterized equivalence strategy.
+     */
+    private static void diffIndexed(Collection<PrismValue> valuesOld, Collection<PrismValue> valuesNew,
+            DeltaSetTriple<PrismValue> triple) {
+        PrismValueIndex<PrismValue> oldIndex = new PrismValueIndex<>(valuesOld);
+        PrismValueIndex<PrismValue> newIndex = new PrismValueIndex<>(valuesNew);
+        for (PrismValue val : valuesOld) {
+            if (containsEqual(newIndex, val)) {
+                triple.getZeroSet().add(val);
+            } else {
+                triple.getMinusSet().add(val);
+            }
+        }
+        for (PrismValue val : valuesNew) {
+            if (!containsEqual(oldIndex, val)) {
+                triple.getPlusSet().add(val);
+            }
+        }
+    }
+
+    // The same as Collection.contains(value)
+    private static boolean containsEqual(PrismValueIndex<PrismValue> index, PrismValue value) {
+        for (PrismValue candidate : index.getCandidates(value)) {
+            if (value.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Compares two (unordered) collections and creates a triple describing the differences.
      */
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism.query;
+
+import com.evolveum.midpoint.prism.PrismContainerValue;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.util.exception.SchemaException;
+
+/**
+ * Object filter prepared for repeated in-memory evaluation. See {@link ObjectFilter#compile(MatchingRuleRegistry)}.
+ *
+ * Compiled filters are immutable and can be shared among threads.
+ */
+@FunctionalInterface
+public interface CompiledObjectFilter {
+
+    CompiledObjectFilter ALWAYS_TRUE = value -> true;
+    CompiledObjectFilter ALWAYS_FALSE = value -> false;
+
+    boolean match(PrismContainerValue value) throws SchemaException;
+}
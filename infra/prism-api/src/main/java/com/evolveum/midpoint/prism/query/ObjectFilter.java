@@ -25,6 +25,18 @@ public interface ObjectFilter extends DebugDumpable, Serializable, Revivable {
 
     boolean match(PrismContainerValue value, MatchingRuleRegistry matchingRuleRegistry) throws SchemaException;
 
+    /**
+     * Prepares the filter for repeated in-memory evaluation, i.e. resolves everything that does not depend on the value
+     * being matched (definitions, matching rules, filter values). The compiled filter must not be used after this filter
+     * is modified.
+     *
+     * match() of immutable filters uses the compiled form, created on the first call and kept. Mutable filters are matched
+     * directly, without compiling.
+     */
+    default CompiledObjectFilter compile(MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        return value -> match(value, matchingRuleRegistry);
+    }
+
     void accept(Visitor visitor);
 
     @Override
@@ -37,4 +49,11 @@ public interface ObjectFilter extends DebugDumpable, Serializable, Revivable {
     PrismContext getPrismContext();
 
     void setPrismContext(PrismContext prismContext);
+
+    boolean isImmutable();
+
+    /**
+     * Makes the filter (including its subfilters and values) immutable or mutable again.
+     */
+    void setImmutable(boolean immutable);
 }
@@ -167,4 +167,18 @@ public interface SchemaRegistry extends DebugDumpable, GlobalDefinitionsStore {
     QName unifyTypes(QName type1, QName type2);
 
     ItemDefinition<?> createAdHocDefinition(QName elementName, QName typeName, int minOccurs, int maxOccurs);
+
+    /**
+     * Returns canonical instance of an item name, if the name is defined in some of the registered schemas.
+     * Otherwise returns the name itself. The prefix of the returned name can differ from the original one.
+     */
+    @NotNull
+    QName internItemName(@NotNull QName name);
+
+    /**
+     * Returns canonical instance of a type name, if the type is defined in some of the registered schemas.
+     * Otherwise returns the name itself.
+     */
+    @NotNull
+    QName internTypeName(@NotNull QName name);
 }
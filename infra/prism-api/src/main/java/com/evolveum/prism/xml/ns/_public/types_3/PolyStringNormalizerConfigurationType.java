@@ -24,7 +24,8 @@ import com.evolveum.midpoint.util.ShortDumpable;
     "trim",
     "nfkd",
     "trimWhitespace",
-    "lowercase"
+    "lowercase",
+    "cacheSize"
 })
 public class PolyStringNormalizerConfigurationType implements Serializable, Cloneable, ShortDumpable {
 
@@ -34,6 +35,7 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
     public static final QName F_NFKD = new QName("http://prism.evolveum.com/xml/ns/public/types-3", "nfkd");
     public static final QName F_TRIM_WHITESPACE = new QName("http://prism.evolveum.com/xml/ns/public/types-3", "trimWhitespace");
     public static final QName F_LOWERCASE = new QName("http://prism.evolveum.com/xml/ns/public/types-3", "lowercase");
+    public static final QName F_CACHE_SIZE = new QName("http://prism.evolveum.com/xml/ns/public/types-3", "cacheSize");
 
     @XmlElement(required = false)
     protected String className;
@@ -50,6 +52,9 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
     @XmlElement(required = false)
     protected Boolean lowercase;
 
+    @XmlElement(required = false)
+    protected Integer cacheSize;
+
     public String getClassName() {
         return className;
     }
@@ -90,13 +95,23 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
         this.lowercase = lowercase;
     }
 
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
     @Override
     public PolyStringNormalizerConfigurationType clone() {
         PolyStringNormalizerConfigurationType clone = new PolyStringNormalizerConfigurationType();
         clone.setClassName(getClassName());
         clone.setTrim(isTrim());
+        clone.setNfkd(isNfkd());
         clone.setTrimWhitespace(isTrimWhitespace());
         clone.setLowercase(isLowercase());
+        clone.setCacheSize(getCacheSize());
         return clone;
     }
 
@@ -109,6 +124,7 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
         result = prime * result + ((nfkd == null) ? 0 : nfkd.hashCode());
         result = prime * result + ((trim == null) ? 0 : trim.hashCode());
         result = prime * result + ((trimWhitespace == null) ? 0 : trimWhitespace.hashCode());
+        result = prime * result + ((cacheSize == null) ? 0 : cacheSize.hashCode());
         return result;
     }
 
@@ -159,6 +175,13 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
         } else if (!trimWhitespace.equals(other.trimWhitespace)) {
             return false;
         }
+        if (cacheSize == null) {
+            if (other.cacheSize != null) {
+                return false;
+            }
+        } else if (!cacheSize.equals(other.cacheSize)) {
+            return false;
+        }
         return true;
     }
 
@@ -169,6 +192,7 @@ public class PolyStringNormalizerConfigurationType implements Serializable, Clon
         DebugUtil.shortDumpAppendProperty(sb, "nfkd", nfkd);
         DebugUtil.shortDumpAppendProperty(sb, "trimWhitespace", trimWhitespace);
         DebugUtil.shortDumpAppendProperty(sb, "lowercase", lowercase);
+        DebugUtil.shortDumpAppendProperty(sb, "cacheSize", cacheSize);
         DebugUtil.shortDumpRemoveLastComma(sb);
     }
 
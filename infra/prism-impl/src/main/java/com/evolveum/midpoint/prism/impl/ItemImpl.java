@@ -393,14 +393,7 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
     }
 
     public boolean addAll(Collection<V> newValues) throws SchemaException {
-        checkMutability();
-        boolean changed = false;
-        for (V val: newValues) {
-            if (add(val)) {
-                changed = true;
-            }
-        }
-        return changed;
+        return addAll(newValues, true, getEqualsHashCodeStrategy());
     }
 
     public boolean addAll(Collection<V> newValues, EquivalenceStrategy strategy) throws SchemaException {
@@ -409,6 +402,9 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
 
     public boolean addAll(Collection<V> newValues, boolean checkUniqueness, EquivalenceStrategy strategy) throws SchemaException {
         checkMutability();
+        if (checkUniqueness && PrismValueIndex.isApplicable(values.size() + newValues.size(), newValues.size(), strategy)) {
+            return addAllIndexed(newValues, strategy);
+        }
         boolean changed = false;
         for (V val: newValues) {
             if (add(val, checkUniqueness, strategy)) {
@@ -418,6 +414,28 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
         return changed;
     }
 
+    /**
+     * Adds values with uniqueness checking; existing (and already added) values are looked up using a hash index.
+     */
+    private boolean addAllIndexed(Collection<V> newValues, EquivalenceStrategy strategy) throws SchemaException {
+        PrismValueIndex<V> index = new PrismValueIndex<>(values);
+        boolean changed = false;
+        for (V val : newValues) {
+            if (val.getPrismContext() == null) {
+                val.setPrismContext(prismContext);
+            }
+            Itemable originalParent = val.getParent();
+            val.setParent(this);       // the same as in add(..)
+            if (index.contains(val, strategy)) {
+                val.setParent(originalParent);
+            } else if (add(val, false, strategy)) {
+                index.add(val);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
     public boolean add(@NotNull V newValue) throws SchemaException {
         return add(newValue, true, getEqualsHashCodeStrategy());
     }
@@ -455,6 +473,9 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
 
     public boolean removeAll(Collection<V> newValues) {
         checkMutability();
+        if (PrismValueIndex.isApplicable(values.size(), newValues.size(), EquivalenceStrategy.REAL_VALUE_CONSIDER_DIFFERENT_IDS)) {
+            return removeAllIndexed(newValues);
+        }
         boolean changed = false;
         for (V val: newValues) {
             if (remove(val)) {
@@ -464,6 +485,36 @@ public abstract class ItemImpl<V extends PrismValue, D extends ItemDefinition> i
         return changed;
     }
 
+    /**
+     * The same as removing values one by one, but candidate values are looked up using a hash index
+     * and the list of values is traversed only once at the end.
+     */
+    private boolean removeAllIndexed(Collection<V> valuesToRemove) {
+        PrismValueIndex<V> index = new PrismValueIndex<>(values);
+        Set<V> matching = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (V valueToRemove : valuesToRemove) {
+            for (V candidate : index.getCandidates(valueToRemove)) {
+                // the same algorithm as in remove(V)
+                if (candidate.representsSameValue(valueToRemove, false) ||
+                        candidate.equals(valueToRemove, EquivalenceStrategy.REAL_VALUE_CONSIDER_DIFFERENT_IDS)) {
+                    matching.add(candidate);
+                }
+            }
+        }
+        if (matching.isEmpty()) {
+            return false;
+        }
+        values.removeIf(val -> {
+            if (matching.contains(val)) {
+                val.setParent(null);
+                return true;
+            } else {
+                return false;
+            }
+        });
+        return true;
+    }
+
     public boolean remove(V newValue) {
         checkMutability();
         boolean changed = false;
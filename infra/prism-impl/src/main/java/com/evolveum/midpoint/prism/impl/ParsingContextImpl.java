@@ -7,13 +7,18 @@
 
 package com.evolveum.midpoint.prism.impl;
 
+import com.evolveum.midpoint.prism.Item;
 import com.evolveum.midpoint.prism.ParsingContext;
 import com.evolveum.midpoint.prism.marshaller.XNodeProcessorEvaluationMode;
+import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.logging.Trace;
 
+import javax.xml.namespace.QName;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  *
@@ -23,6 +28,8 @@ public class ParsingContextImpl implements ParsingContext {
     private XNodeProcessorEvaluationMode evaluationMode = XNodeProcessorEvaluationMode.STRICT;
     private boolean allowMissingRefTypes;
     private final List<String> warnings = new ArrayList<>();
+    private Collection<? extends QName> lazyItemNames;
+    private Consumer<Item<?, ?>> lazyItemPostProcessor;
 
     ParsingContextImpl() {
     }
@@ -91,7 +98,7 @@ public class ParsingContextImpl implements ParsingContext {
         }
     }
 
-    public void warn(String message) {
+    public synchronized void warn(String message) {      // can be called from parallel parsing threads
         warnings.add(message);
     }
 
@@ -113,6 +120,8 @@ public class ParsingContextImpl implements ParsingContext {
         clone.evaluationMode = evaluationMode;
         clone.allowMissingRefTypes = allowMissingRefTypes;
         clone.warnings.addAll(warnings);
+        clone.lazyItemNames = lazyItemNames;
+        clone.lazyItemPostProcessor = lazyItemPostProcessor;
         return clone;
     }
 
@@ -125,4 +134,18 @@ public class ParsingContextImpl implements ParsingContext {
         this.setEvaluationMode(XNodeProcessorEvaluationMode.COMPAT);
         return this;
     }
+
+    public ParsingContext lazyItems(Collection<? extends QName> itemNames, Consumer<Item<?, ?>> postProcessor) {
+        this.lazyItemNames = itemNames;
+        this.lazyItemPostProcessor = postProcessor;
+        return this;
+    }
+
+    public boolean isLazy(QName itemName) {
+        return lazyItemNames != null && QNameUtil.contains(lazyItemNames, itemName);
+    }
+
+    public Consumer<Item<?, ?>> getLazyItemPostProcessor() {
+        return lazyItemPostProcessor;
+    }
 }
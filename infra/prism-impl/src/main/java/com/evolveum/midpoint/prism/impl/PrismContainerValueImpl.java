@@ -10,6 +10,7 @@ import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.equivalence.ParameterizedEquivalenceStrategy;
 import com.evolveum.midpoint.prism.equivalence.EquivalenceStrategy;
+import com.evolveum.midpoint.prism.impl.xnode.XNodeImpl;
 import com.evolveum.midpoint.prism.marshaller.JaxbDomHack;
 import com.evolveum.midpoint.prism.path.*;
 import com.evolveum.midpoint.util.*;
@@ -24,6 +25,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.function.Consumer;
@@ -45,8 +48,20 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     // The QNames here should be qualified if at all possible. Unqualified names are kept here nevertheless
     // (in order to maintain the ordering) but they are maintained in a separate set to know they require a separate
     // handling.
-    protected final LinkedHashMap<QName, Item<?,?>> items = new LinkedHashMap<>();
-    protected final Set<String> unqualifiedItemNames = new HashSet<>();
+    // The map and the set are replaced (not modified) when lazy items are parsed, because this can occur also for immutable
+    // values that are shared among threads.
+    protected volatile LinkedHashMap<QName, Item<?,?>> items = new LinkedHashMap<>();
+    protected volatile Set<String> unqualifiedItemNames = new HashSet<>();
+
+    // Items that were not parsed yet (see ParsingContext.lazyItems). Null if there are none.
+    // The map is never modified; it is replaced instead.
+    private transient volatile Map<QName, LazyItem> lazyItems;
+
+    // Immutable value this one was cloned from, with items that were not copied yet. Null if there is none.
+    // Because the source cannot change, the copying can be postponed until the items are really needed;
+    // nested container values are cloned in the same way, so only the path actually touched is copied.
+    private transient volatile PrismContainerValueImpl<C> sharedSource;
+    private transient CloneStrategy sharedCloneStrategy;
 
     private Long id;
 
@@ -105,6 +120,142 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         return prismContext;
     }
 
+    /**
+     * Item that has not been parsed yet. See {@link ParsingContext#lazyItems(Collection, Consumer)}.
+     */
+    public interface LazyItem {
+
+        /**
+         * Raw form of the item. Must not be modified.
+         */
+        @NotNull
+        XNodeImpl getXNode();
+
+        @NotNull
+        Item<?, ?> parse() throws SchemaException;
+    }
+
+    public void addLazyItem(@NotNull QName itemName, @NotNull LazyItem lazyItem) {
+        checkMutability();
+        Map<QName, LazyItem> newLazyItems = lazyItems != null ? new LinkedHashMap<>(lazyItems) : new LinkedHashMap<>();
+        newLazyItems.put(itemName, lazyItem);
+        lazyItems = newLazyItems;
+    }
+
+    /**
+     * Returns items that have not been parsed yet, without parsing them. Intended for the serializer.
+     */
+    @NotNull
+    public Map<QName, LazyItem> getLazyItems() {
+        Map<QName, LazyItem> current = lazyItems;
+        return current != null ? Collections.unmodifiableMap(current) : Collections.emptyMap();
+    }
+
+    /**
+     * Returns items that have already been parsed, without parsing the lazy ones. Intended for the serializer.
+     */
+    @NotNull
+    public Collection<Item<?,?>> getParsedItems() {
+        return Collections.unmodifiableCollection(parsedItems().values());
+    }
+
+    /**
+     * Items map with all lazy items parsed.
+     */
+    private LinkedHashMap<QName, Item<?,?>> items() {
+        if (lazyItems != null) {
+            parseLazyItems(null);
+        }
+        return parsedItems();
+    }
+
+    /**
+     * Items map without parsing the lazy items. Use this only if the lazy items are treated separately.
+     * Items shared with the source of cloning are copied here, as they are indistinguishable from the regular ones.
+     */
+    private LinkedHashMap<QName, Item<?,?>> parsedItems() {
+        if (sharedSource != null) {
+            copySharedItems();
+        }
+        return items;
+    }
+
+    /**
+     * Copies the items of the (immutable) value this one was cloned from. See {@link #copyValues(CloneStrategy, PrismContainerValueImpl)}.
+     * Mutability is not checked, as this does not change the content of the value.
+     */
+    private synchronized void copySharedItems() {
+        PrismContainerValueImpl<C> source = sharedSource;
+        if (source == null) {
+            return;
+        }
+        LinkedHashMap<QName, Item<?,?>> newItems = new LinkedHashMap<>();
+        for (Item<?,?> item : source.parsedItems().values()) {
+            Item<?,?> clonedItem = item.cloneComplex(sharedCloneStrategy);
+            clonedItem.setParent(this);
+            if (isImmutable()) {
+                clonedItem.setImmutable(true);
+            }
+            newItems.put(clonedItem.getElementName(), clonedItem);
+        }
+        newItems.putAll(items);
+        items = newItems;
+        sharedSource = null;
+        sharedCloneStrategy = null;
+    }
+
+    private void parseLazyItem(QName itemName) {
+        Map<QName, LazyItem> current = lazyItems;
+        if (current != null && QNameUtil.contains(current.keySet(), itemName)) {
+            parseLazyItems(itemName);
+        }
+    }
+
+    /**
+     * Parses given lazy item (or all of them, if itemName is null) and puts it among regular items.
+     * Mutability is not checked, as this does not change the content of the value.
+     */
+    private synchronized void parseLazyItems(QName itemName) {
+        Map<QName, LazyItem> current = lazyItems;
+        if (current == null) {
+            return;
+        }
+        LinkedHashMap<QName, Item<?,?>> newItems = new LinkedHashMap<>(parsedItems());
+        Set<String> newUnqualifiedItemNames = new HashSet<>(unqualifiedItemNames);
+        Map<QName, LazyItem> remaining = new LinkedHashMap<>();
+        for (Map.Entry<QName, LazyItem> entry : current.entrySet()) {
+            if (itemName != null && !QNameUtil.match(itemName, entry.getKey())) {
+                remaining.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            Item<?, ?> item;
+            try {
+                item = entry.getValue().parse();
+            } catch (SchemaException e) {
+                throw new SystemException("Couldn't parse lazy item " + entry.getKey() + " in " + this + ": " + e.getMessage(), e);
+            }
+            LOGGER.trace("Parsed lazy item {} in {}", entry.getKey(), this);
+            item.setParent(this);
+            if (isImmutable()) {
+                item.setImmutable(true);
+            }
+            newItems.put(item.getElementName(), item);
+            if (QNameUtil.isUnqualified(item.getElementName())) {
+                newUnqualifiedItemNames.add(item.getElementName().getLocalPart());
+            }
+        }
+        // names first: readers that see the new items must see their names as well
+        unqualifiedItemNames = newUnqualifiedItemNames;
+        items = newItems;
+        lazyItems = remaining.isEmpty() ? null : remaining;
+    }
+
+    // Shared and lazy items are transient, so they have to be materialized before the value is written.
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        items();
+        out.defaultWriteObject();
+    }
+
     /**
      * Returns a set of items that the property container contains. The items may be properties or inner property containers.
      * <p>
@@ -118,9 +269,9 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     @NotNull
     public Collection<Item<?,?>> getItems() {
         if (isImmutable()) {
-            return Collections.unmodifiableCollection(items.values());
+            return Collections.unmodifiableCollection(items().values());
         } else {
-            return items.values();
+            return items().values();
         }
     }
 
@@ -128,7 +279,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     @SuppressWarnings("unchecked")
     public <I extends Item<?,?>> List<I> getItems(Class<I> type) {
         List<I> rv = new ArrayList<>();
-        for (Item<?, ?> item : items.values()) {
+        for (Item<?, ?> item : items().values()) {
             if (type.isAssignableFrom(item.getClass())) {
                 rv.add(((I) item));
             }
@@ -137,7 +288,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     }
 
     public int size() {
-        return items.size();
+        return items().size();
     }
 
     /**
@@ -153,7 +304,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     @NotNull
     public Set<PrismProperty<?>> getProperties() {
         Set<PrismProperty<?>> properties = new HashSet<>();
-        for (Item<?,?> item : items.values()) {
+        for (Item<?,?> item : items().values()) {
             if (item instanceof PrismProperty) {
                 properties.add((PrismProperty<?>) item);
             }
@@ -308,7 +459,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 
     @NotNull
     public Collection<QName> getItemNames() {
-        return new ArrayList<>(items.keySet());
+        return new ArrayList<>(items().keySet());
     }
 
     public <IV extends PrismValue,ID extends ItemDefinition> void add(Item<IV,ID> item) throws SchemaException {
@@ -346,7 +497,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 //        if (itemName.getLocalPart().equals("modelOperationContext")) {
 //            System.out.println("Hello!");
 //        }
-        items.put(itemName, item);
+        parsedItems().put(itemName, item);
         if (QNameUtil.isUnqualified(itemName)) {
             unqualifiedItemNames.add(itemName.getLocalPart());
         }
@@ -414,7 +565,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         Item<IV,ID> existingItem = findItem(item.getElementName(), Item.class);
         if (existingItem != null) {
             ItemName existingItemName = existingItem.getElementName();
-            items.remove(existingItemName);
+            items().remove(existingItemName);
             removeFromUnqualifiedIfNeeded(existingItemName);
             existingItem.setParent(null);
         }
@@ -422,13 +573,14 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 
     public void removeAll() {
         checkMutability();
-        Iterator<Item<?,?>> iterator = items.values().iterator();
+        Iterator<Item<?,?>> iterator = parsedItems().values().iterator();
         while (iterator.hasNext()) {
             Item<?,?> item = iterator.next();
             item.setParent(null);
             iterator.remove();
         }
         unqualifiedItemNames.clear();
+        lazyItems = null;
     }
 
     /**
@@ -464,10 +616,13 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         checkMutability();
         items.clear();
         unqualifiedItemNames.clear();
+        lazyItems = null;
+        sharedSource = null;
+        sharedCloneStrategy = null;
     }
 
     public boolean contains(Item item) {
-        return items.values().contains(item);
+        return items().values().contains(item);
     }
 
     public boolean contains(ItemName itemName) {
@@ -550,7 +705,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 
     // todo optimize this some day
     public PrismReference findReferenceByCompositeObjectElementName(QName elementName) {
-        for (Item item: items.values()) {
+        for (Item item: items().values()) {
             if (item instanceof PrismReference) {
                 PrismReference ref = (PrismReference)item;
                 PrismReferenceDefinition refDef = ref.getDefinition();
@@ -686,15 +841,18 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         if (QNameUtil.isUnqualified(subName) || unqualifiedItemNames.contains(subName.getLocalPart())) {
             return findItemByQNameFullScan(subName);
         } else {
+            parseLazyItem(subName);
+            // names of parsed items are interned (see SchemaRegistry.internItemName), so the key lookup is mostly
+            // resolved by identity comparison
             //noinspection unchecked
-            return (Item<IV, ID>) items.get(subName);
+            return (Item<IV, ID>) parsedItems().get(subName);
         }
     }
 
     private <IV extends PrismValue,ID extends ItemDefinition> Item<IV,ID> findItemByQNameFullScan(QName subName) throws SchemaException {
 //        LOGGER.warn("Full scan while finding {} in {}", subName, this);
         Item<IV,ID> matching = null;
-        for (Item<?,?> item : items.values()) {
+        for (Item<?,?> item : items().values()) {
             if (QNameUtil.match(subName, item.getElementName())) {
                 if (matching != null) {
                     String containerName = getParent() != null ? DebugUtil.formatElementName(getParent().getElementName()) : "";
@@ -844,7 +1002,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         }
         QName subName = itemPath.firstToName();
         ItemPath rest = itemPath.rest();
-        Iterator<Item<?,?>> itemsIterator = items.values().iterator();
+        Iterator<Item<?,?>> itemsIterator = items().values().iterator();
         while (itemsIterator.hasNext()) {
             Item<?,?> item = itemsIterator.next();
             ItemName itemName = item.getElementName();
@@ -872,7 +1030,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     }
 
     private void removeUnqualifiedItemName(ItemName itemName) {
-        for (Item<?, ?> item : items.values()) {
+        for (Item<?, ?> item : items().values()) {
             if (itemName.equals(item.getElementName())) {
                 return;
             }
@@ -902,10 +1060,21 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         // Nothing to do. The subitems should be already recomputed as they are added to this container.
     }
 
+    private LinkedHashMap<QName, Item<?,?>> itemsToVisit(Visitor visitor) {
+        return visitor instanceof ParsedItemsVisitor ? parsedItems() : items();
+    }
+
+    protected int getItemsCountWithoutParsing() {
+        Map<QName, LazyItem> current = lazyItems;
+        PrismContainerValueImpl<C> source = sharedSource;
+        return items.size() + (current != null ? current.size() : 0)
+                + (source != null ? source.getItemsCountWithoutParsing() : 0);
+    }
+
     @Override
     public void accept(Visitor visitor) {
         super.accept(visitor);
-        for (Item<?,?> item : new ArrayList<>(items.values())) {     // to allow modifying item list via the acceptor
+        for (Item<?,?> item : new ArrayList<>(itemsToVisit(visitor).values())) {     // to allow modifying item list via the acceptor
             item.accept(visitor);
         }
     }
@@ -926,7 +1095,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
             }
             QName subName = ItemPath.toName(first);
             ItemPath rest = path.rest();
-            for (Item<?,?> item : items.values()) {            // todo unqualified names!
+            for (Item<?,?> item : itemsToVisit(visitor).values()) {            // todo unqualified names!
                 if (subName.equals(item.getElementName())) {
                     item.accept(visitor, rest, recursive);
                 }
@@ -1153,7 +1322,8 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         }
         replaceComplexTypeDefinition(definitionToUse);
         // we need to continue even if CTD is null or 'any' - e.g. to resolve definitions within object extension
-        for (Item item : items.values()) {
+        // lazy items are parsed with their definitions, so they are processed only if forced
+        for (Item item : (force ? items() : parsedItems()).values()) {
             if (item.getDefinition() != null && !force) {
                 // Item has a definition already, no need to apply it
                 continue;
@@ -1198,7 +1368,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
             this.prismContext = prismContext;
         }
         super.revive(prismContext);
-        for (Item<?,?> item: items.values()) {
+        for (Item<?,?> item: parsedItems().values()) {
             item.revive(prismContext);
         }
     }
@@ -1210,7 +1380,8 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 
     @Override
     public boolean hasNoItems() {
-        return items.isEmpty();
+        PrismContainerValueImpl<C> source = sharedSource;
+        return items.isEmpty() && lazyItems == null && (source == null || source.hasNoItems());
     }
 
     public boolean isIdOnly() {
@@ -1220,7 +1391,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     @Override
     public void normalize() {
         checkMutability();
-        for (Item<?, ?> item : items.values()) {
+        for (Item<?, ?> item : items().values()) {
             item.normalize();
         }
     }
@@ -1231,7 +1402,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         if (getDefinition() == null) {
             throw new IllegalStateException("Definition-less container value " + this +" ("+myPath+" in "+rootItem+")");
         }
-        for (Item<?,?> item: items.values()) {
+        for (Item<?,?> item: items().values()) {
             if (scope.isThorough()) {
                 if (item == null) {
                     throw new IllegalStateException("Null item in container value "+this+" ("+myPath+" in "+rootItem+")");
@@ -1276,11 +1447,20 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         if (strategy == CloneStrategy.LITERAL) {
             clone.id = this.id;
         }
-        for (Item<?,?> item : this.items.values()) {
-            Item<?,?> clonedItem = item.cloneComplex(strategy);
-            clonedItem.setParent(clone);
-            clone.simpleAdd(clonedItem);
+        if (isImmutable()) {
+            // Items of an immutable value cannot change, so they are copied only when the clone needs them.
+            // This makes cloning of (e.g. cached) objects cheap when only a small part of the clone is used or modified.
+            clone.unqualifiedItemNames.addAll(unqualifiedItemNames);
+            clone.sharedSource = this;
+            clone.sharedCloneStrategy = strategy;
+        } else {
+            for (Item<?,?> item : parsedItems().values()) {
+                Item<?,?> clonedItem = item.cloneComplex(strategy);
+                clonedItem.setParent(clone);
+                clone.simpleAdd(clonedItem);
+            }
         }
+        clone.lazyItems = this.lazyItems;       // lazy items are parsed separately for each clone
     }
 
     protected void deepCloneDefinition(boolean ultraDeep, PrismContainerDefinition<C> clonedContainerDef, Consumer<ItemDefinition> postCloneAction) {
@@ -1293,7 +1473,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
                 replaceComplexTypeDefinition(complexTypeDefinition.deepClone(ultraDeep ? null : new HashMap<>(), new HashMap<>(), postCloneAction));        // OK?
             }
         }
-        for (Item<?,?> item: items.values()) {
+        for (Item<?,?> item: items().values()) {
             deepCloneDefinitionItem(item, ultraDeep, clonedContainerDef, postCloneAction);
         }
     }
@@ -1373,7 +1553,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
         // We also need to make sure that container valus that contain only metadata will produce zero hashcode
         // so it will not ruin hashcodes of parent containers
         int itemsHash = 0;
-        itemsHash = MiscUtil.unorderedCollectionHashcode(items.values(), item -> !item.isOperational());
+        itemsHash = MiscUtil.unorderedCollectionHashcode(items().values(), item -> !item.isOperational());
         if (itemsHash != 0) {
             result = prime * result + itemsHash;
         }
@@ -1446,7 +1626,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
 
     @Override
     public String toHumanReadableString() {
-        return "id="+id+": "+items.size()+" items";
+        return "id="+id+": "+getItemsCountWithoutParsing()+" items";
     }
 
     // copies the definition from original to aClone (created outside of this method)
@@ -1527,7 +1707,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     @Override
     public void setImmutable(boolean immutable) {
         super.setImmutable(immutable);
-        for (Item item : items.values()) {
+        for (Item item : parsedItems().values()) {      // lazy items are made immutable when parsed
             item.setImmutable(immutable);
         }
     }
@@ -1651,7 +1831,7 @@ public class PrismContainerValueImpl<C extends Containerable> extends PrismValue
     // Removes all unused definitions, in order to conserve heap. Assumes that the definition is not shared. Use with care!
     void trimItemsDefinitionsTrees(Collection<? extends ItemPath> alwaysKeep) {
         // to play safe, we won't touch PCV-specific complexTypeDefinition
-        for (Item<?, ?> item : items.values()) {
+        for (Item<?, ?> item : items().values()) {
             if (item instanceof PrismContainer) {
                 Collection<ItemPath> alwaysKeepInSub = ItemPathCollectionsUtil.remainder(CollectionUtils.emptyIfNull(alwaysKeep),
                         item.getElementName(), false);
@@ -15,6 +15,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.xml.namespace.QName;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -43,4 +44,14 @@ public class SerializerStringTarget extends SerializerTarget<String> {
         LexicalProcessor<String> lexicalProcessor = prismContext.getLexicalProcessorRegistry().processorFor(language);
         return lexicalProcessor.write(roots, aggregateElementName, context);
     }
+
+    /**
+     * Creates a writer for incremental writing of objects to the output.
+     */
+    @NotNull
+    public LexicalProcessor.RootXNodeWriter createObjectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName,
+            @Nullable SerializationContext context) throws SchemaException {
+        LexicalProcessor<String> lexicalProcessor = prismContext.getLexicalProcessorRegistry().processorFor(language);
+        return lexicalProcessor.createObjectsWriter(out, aggregateElementName, context);
+    }
 }
@@ -27,7 +27,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.evolveum.midpoint.prism.path.ItemPath.CompareResult;
 import static com.evolveum.midpoint.prism.path.ItemPath.checkNoSpecialSymbols;
@@ -864,15 +866,15 @@ public abstract class ItemDeltaImpl<V extends PrismValue,D extends ItemDefinitio
                 }
             } else {
                 ItemDelta<V,D> clone = clone();
+                Predicate<V> currentlyPresent = createCurrentValuePredicate(currentItem, comparator, clone);
                 if (!currentItem.isIncomplete() && clone.getValuesToDelete() != null) {
-                    clone.getValuesToDelete()
-                            .removeIf(valueToDelete -> !currentItem.containsEquivalentValue(valueToDelete, comparator));
+                    clone.getValuesToDelete().removeIf(currentlyPresent.negate());
                     if (clone.getValuesToDelete().isEmpty()) {
                         clone.resetValuesToDelete();
                     }
                 }
                 if (clone.getValuesToAdd() != null) {
-                    clone.getValuesToAdd().removeIf(valueToAdd -> currentItem.containsEquivalentValue(valueToAdd, comparator));
+                    clone.getValuesToAdd().removeIf(currentlyPresent);
                     if (clone.getValuesToAdd().isEmpty()) {
                         clone.resetValuesToAdd();
                     }
@@ -882,6 +884,21 @@ public abstract class ItemDeltaImpl<V extends PrismValue,D extends ItemDefinitio
         }
     }
 
+    /**
+     * Returns a predicate telling if the value is present in the current item. For large items (and no comparator)
+     * the values are looked up using a hash index.
+     */
+    private Predicate<V> createCurrentValuePredicate(Item<V, D> currentItem, Comparator<V> comparator, ItemDelta<V, D> delta) {
+        int lookups = CollectionUtils.size(delta.getValuesToAdd()) + CollectionUtils.size(delta.getValuesToDelete());
+        EquivalenceStrategy strategy = EquivalenceStrategy.IGNORE_METADATA_CONSIDER_DIFFERENT_IDS;
+        if (comparator == null && PrismValueIndex.isApplicable(currentItem.size(), lookups, strategy)) {
+            PrismValueIndex<V> index = new PrismValueIndex<>(currentItem.getValues());
+            return value -> index.contains(value, strategy);
+        } else {
+            return value -> currentItem.containsEquivalentValue(value, comparator);
+        }
+    }
+
     /**
      * Checks if the delta is redundant w.r.t. current state of the object.
      * I.e. if it changes the current object state.
@@ -1271,9 +1288,8 @@ public abstract class ItemDeltaImpl<V extends PrismValue,D extends ItemDefinitio
         }
         if (valuesToReplace != null) {
             // FIXME This is a temporary solution (ugly hack). We do this to avoid O(n^2) comparisons when replacing
-            //  a lot of values, like 100K members for a group. But the serious solution is to employ hashing in ItemImpl,
-            //  and resolve this efficiency issue (1) for all cases - i.e. ADD+DELETE+REPLACE, (2) preserving uniqueness checking.
-            //  See MID-5889.
+            //  a lot of values, like 100K members for a group. ADD and DELETE are already resolved by hashing
+            //  (see PrismValueIndex), but uniqueness checking for REPLACE is still not preserved. See MID-5889.
             item.clear();
             //noinspection unchecked
             item.addAll(PrismValueCollectionsUtil.cloneCollection(valuesToReplace), false, strategy);
@@ -1287,11 +1303,22 @@ public abstract class ItemDeltaImpl<V extends PrismValue,D extends ItemDefinitio
                     //noinspection unchecked
                     item.replaceAll(PrismValueCollectionsUtil.cloneCollection(valuesToAdd), strategy);
                 } else {
+                    //noinspection unchecked
+                    List<V> existingValues = item.getValues();
+                    boolean useIndex = PrismValueIndex.isApplicable(existingValues.size() + valuesToAdd.size(),
+                            valuesToAdd.size(), strategy);
+                    PrismValueIndex<V> index = useIndex ? new PrismValueIndex<>(existingValues) : null;
                     for (V valueToAdd : valuesToAdd) {
                         //noinspection unchecked
-                        if (!item.contains(valueToAdd, strategy)) {
+                        boolean present = index != null ? index.contains(valueToAdd, strategy) : item.contains(valueToAdd, strategy);
+                        if (!present) {
+                            //noinspection unchecked
+                            V clone = (V) valueToAdd.clone();
                             //noinspection unchecked
-                            item.add(valueToAdd.clone(), false);
+                            item.add(clone, false);
+                            if (index != null) {
+                                index.add(clone);
+                            }
                         }
                     }
                 }
@@ -662,6 +662,7 @@ public class ObjectDeltaImpl<O extends Objectable> implements ObjectDelta<O> {
             return null;
         }
         // MODIFY change
+        // If objectOld is immutable, only the parts touched by the modifications are really copied (see PrismContainerValueImpl)
         PrismObject<O> objectNew = objectOld.clone();
         for (ItemDelta modification : modifications) {
             modification.applyTo(objectNew);
@@ -19,6 +19,7 @@ import org.jetbrains.annotations.Nullable;
 import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -52,6 +53,35 @@ public interface LexicalProcessor<T> {
 
     void readObjectsIteratively(@NotNull ParserSource source, @NotNull ParsingContext parsingContext, RootXNodeHandler handler) throws SchemaException, IOException;
 
+    /**
+     * Provides the root node of an object read from the input. The conversion of the object to XNode form can be
+     * deferred to this call, so it can be carried out in a thread different from the one that reads the input.
+     */
+    @FunctionalInterface
+    interface RootXNodeSupplier {
+        @NotNull
+        RootXNodeImpl get() throws SchemaException;
+    }
+
+    @FunctionalInterface
+    interface RootXNodeSupplierHandler {
+        /**
+         * Called when an object was successfully read from the input.
+         * @return true if the processing should continue
+         */
+        boolean handleData(RootXNodeSupplier supplier);
+    }
+
+    /**
+     * Like {@link #readObjectsIteratively(ParserSource, ParsingContext, RootXNodeHandler)} but the processor can defer
+     * (part of) the conversion to XNode form to the suppliers. Suppliers of different objects must be independent
+     * of each other, so they can be invoked in parallel.
+     */
+    default void readObjectsIterativelyDeferred(@NotNull ParserSource source, @NotNull ParsingContext parsingContext,
+            RootXNodeSupplierHandler handler) throws SchemaException, IOException {
+        readObjectsIteratively(source, parsingContext, root -> handler.handleData(() -> root));
+    }
+
     /**
      * Checks if the processor can read from a given file. (Guessed by file extension, for now.)
      * Used for autodetection of language.
@@ -91,4 +121,28 @@ public interface LexicalProcessor<T> {
      */
     @NotNull
     T write(@NotNull List<RootXNodeImpl> roots, @Nullable QName aggregateElementName, @Nullable SerializationContext context) throws SchemaException;
+
+    /**
+     * Receives root nodes (objects) to be written one after another. See {@link #createObjectsWriter(Writer, QName, SerializationContext)}.
+     */
+    interface RootXNodeWriter {
+
+        void write(@NotNull RootXNodeImpl root) throws SchemaException;
+
+        /**
+         * Finishes the output. The underlying writer is flushed but not closed.
+         */
+        void close() throws SchemaException;
+    }
+
+    /**
+     * Creates a writer that writes a sequence of objects to the output. The result is equivalent to the one
+     * of {@link #write(List, QName, SerializationContext)} but the objects can be written incrementally, i.e. without
+     * keeping all their XNode trees in memory.
+     *
+     * Not supported for NullLexicalProcessor.
+     */
+    @NotNull
+    RootXNodeWriter createObjectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName,
+            @Nullable SerializationContext context) throws SchemaException;
 }
@@ -25,6 +25,7 @@ import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.prism.xml.ns._public.types_3.ItemPathType;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.codehaus.staxmate.dom.DOMConverter;
@@ -33,6 +34,7 @@ import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
@@ -43,6 +45,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.io.Writer;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.regex.Matcher;
@@ -105,10 +108,30 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
         return xmlInputFactory;
     }
 
-    // code taken from Validator class
     @Override
     public void readObjectsIteratively(@NotNull ParserSource source, @NotNull ParsingContext parsingContext,
             RootXNodeHandler handler) throws SchemaException, IOException {
+        readObjectElementsIteratively(source, objectElement -> handler.handleData(read(objectElement)));
+    }
+
+    /**
+     * Only the splitting of the input into DOM elements is done in the reading thread. The conversion of elements
+     * into XNode form is deferred to the supplier.
+     */
+    @Override
+    public void readObjectsIterativelyDeferred(@NotNull ParserSource source, @NotNull ParsingContext parsingContext,
+            RootXNodeSupplierHandler handler) throws SchemaException, IOException {
+        readObjectElementsIteratively(source, objectElement -> handler.handleData(() -> read(objectElement)));
+    }
+
+    @FunctionalInterface
+    private interface ObjectElementHandler {
+        boolean handle(Element objectElement) throws SchemaException;
+    }
+
+    // code taken from Validator class
+    private void readObjectElementsIteratively(@NotNull ParserSource source, ObjectElementHandler handler)
+            throws SchemaException, IOException {
         InputStream is = source.getInputStream();
         XMLStreamReader stream = null;
         try {
@@ -149,12 +172,11 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
     }
 
     private boolean readSingleObjectIteratively(XMLStreamReader stream, Map<String, String> rootNamespaceDeclarations,
-            DOMConverter domConverter, RootXNodeHandler handler) throws XMLStreamException, SchemaException {
+            DOMConverter domConverter, ObjectElementHandler handler) throws XMLStreamException, SchemaException {
         Document objectDoc = domConverter.buildDocument(stream);
         Element objectElement = DOMUtil.getFirstChildElement(objectDoc);
         DOMUtil.setNamespaceDeclarations(objectElement, rootNamespaceDeclarations);
-        RootXNodeImpl rootNode = read(objectElement);
-        return handler.handleData(rootNode);
+        return handler.handle(objectElement);
     }
 
     private List<RootXNodeImpl> readObjects(Document document) throws SchemaException{
@@ -189,7 +211,7 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
     private void extractCommonMetadata(Element element, XNodeImpl xnode) throws SchemaException {
         QName xsiType = DOMUtil.resolveXsiType(element);
         if (xsiType != null) {
-            xnode.setTypeQName(xsiType);
+            xnode.setTypeQName(schemaRegistry.internTypeName(xsiType));
             xnode.setExplicitTypeDeclaration(true);
         }
 
@@ -265,7 +287,7 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
         QName lastElementQName = null;
         List<Element> lastElements = null;
         for (Element childElement: DOMUtil.listChildElements(element)) {
-            QName childQName = DOMUtil.getQName(childElement);
+            QName childQName = schemaRegistry.internItemName(DOMUtil.getQName(childElement));
             if (match(childQName, lastElementQName)) {
                 lastElements.add(childElement);
             } else {
@@ -572,6 +594,57 @@ public class DomLexicalProcessor implements LexicalProcessor<String> {
         return DOMUtil.serializeDOMToString(aggregateElement);
     }
 
+    /**
+     * The objects are written one after another: the start tag of the aggregate element is written immediately, each object
+     * is serialized as a separate element (with its own namespace declarations) when received, and the end tag is written
+     * on close. So the output is equivalent to the one of {@link #write(List, QName, SerializationContext)}, although
+     * namespace declarations are not shared among the objects.
+     */
+    @NotNull
+    @Override
+    public RootXNodeWriter createObjectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName,
+            @Nullable SerializationContext context) throws SchemaException {
+        Element aggregateElement = writeXRootListToElement(Collections.emptyList(), aggregateElementName);
+        try {
+            out.write(createStartTag(aggregateElement));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new SchemaException("Couldn't write XML: " + e.getMessage(), e);
+        }
+        return new RootXNodeWriter() {
+            @Override
+            public void write(@NotNull RootXNodeImpl root) throws SchemaException {
+                try {
+                    out.write(DOMUtil.serializeDOMToString(writeXRootToElement(root)));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new SchemaException("Couldn't write XML: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void close() throws SchemaException {
+                try {
+                    out.write("</" + aggregateElement.getTagName() + ">\n");
+                    out.flush();
+                } catch (IOException e) {
+                    throw new SchemaException("Couldn't write XML: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    private String createStartTag(Element element) {
+        StringBuilder sb = new StringBuilder("<").append(element.getTagName());
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            sb.append(' ').append(attribute.getName()).append("=\"")
+                    .append(StringEscapeUtils.escapeXml(attribute.getValue())).append('"');
+        }
+        return sb.append('>').toString();
+    }
+
     @NotNull
     public Element writeXRootListToElement(@NotNull List<RootXNodeImpl> roots, QName aggregateElementName) throws SchemaException {
         DomLexicalWriter serializer = new DomLexicalWriter(schemaRegistry);
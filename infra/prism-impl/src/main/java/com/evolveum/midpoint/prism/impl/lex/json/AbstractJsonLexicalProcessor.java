@@ -630,7 +630,7 @@ public abstract class AbstractJsonLexicalProcessor implements LexicalProcessor<S
         return write(LexicalUtils.createRootXNode((XNodeImpl) xnode, rootElementName), serializationContext);
     }
 
-    protected abstract JsonGenerator createJacksonGenerator(StringWriter out) throws SchemaException;
+    protected abstract JsonGenerator createJacksonGenerator(Writer out) throws SchemaException;
 
     @NotNull
     @Override
@@ -683,6 +683,83 @@ public abstract class AbstractJsonLexicalProcessor implements LexicalProcessor<S
         }
     }
 
+    @NotNull
+    @Override
+    public RootXNodeWriter createObjectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName,
+            @Nullable SerializationContext prismSerializationContext) throws SchemaException {
+        JsonGenerator generator = createJacksonGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        JsonObjectsWriter writer = new JsonObjectsWriter(new JsonSerializationContext(generator, prismSerializationContext),
+                aggregateElementName);
+        try {
+            writer.start();
+        } catch (IOException ex) {
+            throw new SchemaException("Error during serializing to JSON/YAML: " + ex.getMessage(), ex);
+        }
+        return writer;
+    }
+
+    /**
+     * Writes objects one after another. The output must be the same as the one of {@link #write(List, QName, SerializationContext)},
+     * so the start and the end of the aggregate node are written in the same way as serializeFromMap and serializeFromList
+     * would do it.
+     */
+    private class JsonObjectsWriter implements RootXNodeWriter {
+
+        @NotNull private final JsonSerializationContext ctx;
+        private final QName aggregateElementName;
+        private final boolean multiDocument;
+        private boolean first = true;
+
+        private JsonObjectsWriter(@NotNull JsonSerializationContext ctx, QName aggregateElementName) {
+            this.ctx = ctx;
+            this.aggregateElementName = aggregateElementName;
+            this.multiDocument = aggregateElementName == null && ctx.generator instanceof MidpointYAMLGenerator;
+        }
+
+        private void start() throws IOException {
+            if (aggregateElementName != null) {
+                MapXNodeImpl aggregate = new RootXNodeImpl(aggregateElementName, new ListXNodeImpl()).toMapXNode();
+                ctx.generator.writeStartObject();
+                resetInlineTypeIfPossible(ctx);
+                generateNsDeclarationIfNeeded(aggregate, ctx);
+                ctx.generator.writeFieldName(createKeyUri(aggregate.entrySet().iterator().next(), ctx));
+            }
+            if (!multiDocument) {
+                ctx.generator.writeStartArray();
+                resetInlineTypeIfPossible(ctx);
+            }
+        }
+
+        @Override
+        public void write(@NotNull RootXNodeImpl root) throws SchemaException {
+            try {
+                if (multiDocument && !first) {
+                    ((MidpointYAMLGenerator) ctx.generator).newDocument();
+                }
+                first = false;
+                serialize(root.toMapXNode(), ctx, false);
+            } catch (IOException ex) {
+                throw new SchemaException("Error during serializing to JSON/YAML: " + ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        public void close() throws SchemaException {
+            try {
+                if (!multiDocument) {
+                    ctx.generator.writeEndArray();
+                }
+                if (aggregateElementName != null) {
+                    ctx.generator.writeEndObject();
+                }
+                ctx.generator.close();
+            } catch (IOException ex) {
+                throw new SchemaException("Error during serializing to JSON/YAML: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
     private void serialize(XNodeImpl xnode, JsonSerializationContext ctx, boolean inValueWrapMode) throws IOException {
         if (xnode instanceof MapXNodeImpl) {
             serializeFromMap((MapXNodeImpl) xnode, ctx);
@@ -29,7 +29,7 @@ import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.io.Writer;
 
 public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
 
@@ -57,10 +57,10 @@ public class JsonLexicalProcessor extends AbstractJsonLexicalProcessor {
         }
     }
 
-    public JsonGenerator createJacksonGenerator(StringWriter out) throws SchemaException{
+    public JsonGenerator createJacksonGenerator(Writer out) throws SchemaException{
         return createJsonGenerator(out);
     }
-    private JsonGenerator createJsonGenerator(StringWriter out) throws SchemaException{
+    private JsonGenerator createJsonGenerator(Writer out) throws SchemaException{
         try {
             JsonFactory factory = new JsonFactory();
             JsonGenerator generator = factory.createGenerator(out);
@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -80,4 +81,11 @@ public class NullLexicalProcessor implements LexicalProcessor<XNodeImpl> {
             @Nullable SerializationContext context) throws SchemaException {
         throw new UnsupportedOperationException("NullLexicalProcessor.write is not supported for a collection of objects");
     }
+
+    @NotNull
+    @Override
+    public RootXNodeWriter createObjectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName,
+            @Nullable SerializationContext context) {
+        throw new UnsupportedOperationException("NullLexicalProcessor.createObjectsWriter is not supported");
+    }
 }
@@ -32,7 +32,7 @@ import javax.xml.namespace.QName;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.io.Writer;
 //import com.fasterxml.jackson.core.YAMLGenerator;
 
 public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
@@ -59,7 +59,7 @@ public class YamlLexicalProcessor extends AbstractJsonLexicalProcessor {
         return dataString.startsWith("---");
     }
 
-    public YAMLGenerator createJacksonGenerator(StringWriter out) throws SchemaException{
+    public YAMLGenerator createJacksonGenerator(Writer out) throws SchemaException{
         try {
             MidpointYAMLFactory factory = new MidpointYAMLFactory();
             MidpointYAMLGenerator generator = (MidpointYAMLGenerator) factory.createGenerator(out);
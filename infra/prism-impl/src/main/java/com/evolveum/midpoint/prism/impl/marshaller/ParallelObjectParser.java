@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism.impl.marshaller;
+
+import com.evolveum.midpoint.prism.ParserSource;
+import com.evolveum.midpoint.prism.ParsingContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismParser.ObjectHandler;
+import com.evolveum.midpoint.prism.impl.lex.LexicalProcessor;
+import com.evolveum.midpoint.prism.impl.lex.LexicalProcessor.RootXNodeSupplier;
+import com.evolveum.midpoint.prism.impl.xnode.RootXNodeImpl;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses a multi-object input using a pool of worker threads.
+ *
+ * The input is read and split into individual objects by the calling thread. The objects are converted
+ * into prism form by the workers. The results are passed to the handler in the calling thread, either in the order
+ * of the input or as soon as they are available. So the handler does not need to be thread safe.
+ *
+ * The number of objects being parsed at once is limited, so the input is not read much faster than the handler
+ * is able to process it.
+ */
+class ParallelObjectParser {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ParallelObjectParser.class);
+
+    private static final int OBJECTS_IN_PROGRESS_PER_THREAD = 4;
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    @FunctionalInterface
+    interface ObjectParser {
+        PrismObject<?> parse(RootXNodeImpl root) throws SchemaException;
+    }
+
+    private final int threads;
+    private final boolean ordered;
+    private final int maxInProgress;
+
+    ParallelObjectParser(int threads, boolean ordered) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        this.ordered = ordered;
+        this.maxInProgress = threads * OBJECTS_IN_PROGRESS_PER_THREAD;
+    }
+
+    void parse(@NotNull LexicalProcessor<?> lexicalProcessor, @NotNull ParserSource source, @NotNull ParsingContext context,
+            @NotNull ObjectParser objectParser, @NotNull ObjectHandler handler) throws SchemaException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, createThreadFactory());
+        try {
+            Delivery delivery = ordered ? new OrderedDelivery(executor, handler) : new UnorderedDelivery(executor, handler);
+            lexicalProcessor.readObjectsIterativelyDeferred(source, context, supplier -> {
+                if (!delivery.deliverCompleted(maxInProgress - 1)) {
+                    return false;
+                }
+                delivery.submit(() -> parseObject(supplier, objectParser));
+                return true;
+            });
+            delivery.deliverCompleted(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PrismObject<?> parseObject(RootXNodeSupplier supplier, ObjectParser objectParser) throws SchemaException {
+        return objectParser.parse(supplier.get());
+    }
+
+    private ThreadFactory createThreadFactory() {
+        String prefix = "prism-parser-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private abstract static class Delivery {
+
+        @NotNull final ObjectHandler handler;
+        boolean stopped;
+
+        Delivery(@NotNull ObjectHandler handler) {
+            this.handler = handler;
+        }
+
+        abstract void submit(Callable<PrismObject<?>> task);
+
+        /**
+         * Passes completed objects to the handler, waiting until at most maxRemaining objects are in progress.
+         * @return false if the processing should stop
+         */
+        abstract boolean deliverCompleted(int maxRemaining);
+
+        boolean deliver(Future<PrismObject<?>> future) {
+            if (stopped) {
+                return false;
+            }
+            boolean cont;
+            try {
+                cont = handler.handleData(future.get());
+            } catch (ExecutionException e) {
+                cont = handler.handleError(e.getCause());
+            } catch (InterruptedException e) {
+                LOGGER.debug("Interrupted while waiting for parsed object, stopping the processing");
+                Thread.currentThread().interrupt();
+                cont = false;
+            }
+            if (!cont) {
+                stopped = true;
+            }
+            return cont;
+        }
+    }
+
+    private static class OrderedDelivery extends Delivery {
+
+        @NotNull private final ExecutorService executor;
+        private final Deque<Future<PrismObject<?>>> inProgress = new ArrayDeque<>();
+
+        private OrderedDelivery(@NotNull ExecutorService executor, @NotNull ObjectHandler handler) {
+            super(handler);
+            this.executor = executor;
+        }
+
+        @Override
+        void submit(Callable<PrismObject<?>> task) {
+            inProgress.add(executor.submit(task));
+        }
+
+        @Override
+        boolean deliverCompleted(int maxRemaining) {
+            while (!inProgress.isEmpty() && (inProgress.size() > maxRemaining || inProgress.peek().isDone())) {
+                if (!deliver(inProgress.poll())) {
+                    return false;
+                }
+            }
+            return !stopped;
+        }
+    }
+
+    private static class UnorderedDelivery extends Delivery {
+
+        @NotNull private final CompletionService<PrismObject<?>> completionService;
+        private int inProgress;
+
+        private UnorderedDelivery(@NotNull ExecutorService executor, @NotNull ObjectHandler handler) {
+            super(handler);
+            this.completionService = new ExecutorCompletionService<>(executor);
+        }
+
+        @Override
+        void submit(Callable<PrismObject<?>> task) {
+            completionService.submit(task);
+            inProgress++;
+        }
+
+        @Override
+        boolean deliverCompleted(int maxRemaining) {
+            while (inProgress > 0) {
+                Future<PrismObject<?>> completed;
+                if (inProgress > maxRemaining) {
+                    try {
+                        completed = completionService.take();
+                    } catch (InterruptedException e) {
+                        LOGGER.debug("Interrupted while waiting for parsed object, stopping the processing");
+                        Thread.currentThread().interrupt();
+                        stopped = true;
+                        return false;
+                    }
+                } else {
+                    completed = completionService.poll();
+                    if (completed == null) {
+                        break;
+                    }
+                }
+                inProgress--;
+                if (!deliver(completed)) {
+                    return false;
+                }
+            }
+            return !stopped;
+        }
+    }
+}
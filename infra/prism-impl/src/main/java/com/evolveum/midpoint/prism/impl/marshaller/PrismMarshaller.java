@@ -7,6 +7,8 @@
 package com.evolveum.midpoint.prism.impl.marshaller;
 
 import com.evolveum.midpoint.prism.*;
+import com.evolveum.midpoint.prism.impl.PrismContainerValueImpl;
+import com.evolveum.midpoint.prism.impl.PrismContainerValueImpl.LazyItem;
 import com.evolveum.midpoint.prism.impl.xnode.*;
 import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.polystring.PolyString;
@@ -31,7 +33,9 @@ import org.jetbrains.annotations.Nullable;
 import javax.xml.namespace.QName;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author semancik
@@ -297,6 +301,8 @@ public class PrismMarshaller {
             xmap.setExplicitTypeDeclaration(true);
         }
 
+        // Items that were not parsed yet are written in their original form (if possible) without being parsed.
+        Map<QName, LazyItem> lazyItems = getLazyItemsToCopy(containerVal, ctx);
         Collection<QName> marshaledItems = new ArrayList<>();
         if (containerDefinition != null) {
             // We have to serialize in the definition order. Some data formats (XML) are
@@ -304,6 +310,14 @@ public class PrismMarshaller {
             // document won't pass schema validation
             for (ItemDefinition itemDef: containerDefinition.getDefinitions()) {
                 ItemName elementName = itemDef.getItemName();
+                LazyItem lazyItem = lazyItems.get(elementName);
+                if (lazyItem != null) {
+                    if (!shouldSkipItem(itemsToSkip, elementName, itemDef, ctx)) {
+                        xmap.put(elementName, lazyItem.getXNode().clone());
+                        marshaledItems.add(elementName);
+                    }
+                    continue;
+                }
                 Item<?,?> item = containerVal.findItem(elementName);
                 if (item != null) {
                     if (!shouldSkipItem(itemsToSkip, elementName, itemDef, ctx)) {
@@ -316,7 +330,9 @@ public class PrismMarshaller {
         }
         // There are some cases when we do not have list of all elements in a container.
         // E.g. in run-time schema. Therefore we must also iterate over items and not just item definitions.
-        for (Item<?,?> item : containerVal.getItems()) {
+        Collection<Item<?,?>> items = lazyItems.isEmpty() ?
+                containerVal.getItems() : ((PrismContainerValueImpl<C>) containerVal).getParsedItems();
+        for (Item<?,?> item : items) {
             QName elementName = item.getElementName();
             if (marshaledItems.contains(elementName) || shouldSkipItem(itemsToSkip, elementName, item.getDefinition(), ctx)) {
                 continue;
@@ -324,6 +340,28 @@ public class PrismMarshaller {
             XNodeImpl xsubnode = marshalItemContent(item, getItemDefinition(containerVal, item), ctx, null);
             xmap.put(elementName, xsubnode);
         }
+        for (Map.Entry<QName, LazyItem> lazyEntry : lazyItems.entrySet()) {
+            QName elementName = lazyEntry.getKey();
+            if (!marshaledItems.contains(elementName) && !QNameUtil.contains(itemsToSkip, elementName)) {
+                xmap.put(elementName, lazyEntry.getValue().getXNode().clone());
+            }
+        }
+    }
+
+    /**
+     * Lazy items can be copied in their original form only if the serialization would not add anything to them.
+     */
+    @NotNull
+    private Map<QName, LazyItem> getLazyItemsToCopy(PrismContainerValue<?> containerVal, SerializationContext ctx) {
+        if (!(containerVal instanceof PrismContainerValueImpl)) {
+            return Collections.emptyMap();
+        }
+        SerializationOptions options = ctx != null ? ctx.getOptions() : null;
+        if (options != null && (options.isSerializeCompositeObjects() || options.isSerializeReferenceNames()
+                || options.isSerializeForExport())) {
+            return Collections.emptyMap();
+        }
+        return ((PrismContainerValueImpl<?>) containerVal).getLazyItems();
     }
 
     private boolean shouldSkipItem(Collection<? extends QName> itemsToSkip, QName elementName, ItemDefinition<?> itemDef,
@@ -197,6 +197,14 @@ abstract class PrismParserImpl implements PrismParser {
         });
     }
 
+    void doParseObjectsIteratively(ObjectHandler handler, int threads, boolean ordered) throws IOException, SchemaException {
+        // caller must make sure that itemDefinition, itemName, typeName, typeClass apply to all the objects
+        new ParallelObjectParser(threads, ordered).parse(getLexicalProcessor(), source, context,
+                root -> prismContext.getPrismUnmarshaller()
+                        .parseObject(root, itemDefinition, itemName, typeName, typeClass, context),
+                handler);
+    }
+
     Object doParseItemOrRealValue() throws IOException, SchemaException {
         RootXNodeImpl xnode = getLexicalProcessor().read(source, context);
         if (itemDefinition != null || itemName != null || typeName != null || typeClass != null) {
@@ -75,6 +75,12 @@ public class PrismParserImplIO extends PrismParserImpl {
         doParseObjectsIteratively(handler);
     }
 
+    @Override
+    public void parseObjectsIteratively(@NotNull ObjectHandler handler, int threads, boolean ordered)
+            throws SchemaException, IOException {
+        doParseObjectsIteratively(handler, threads, ordered);
+    }
+
     @Override
     public Object parseItemOrRealValue() throws IOException, SchemaException {
         return doParseItemOrRealValue();
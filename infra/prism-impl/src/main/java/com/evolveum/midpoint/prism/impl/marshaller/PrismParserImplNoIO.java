@@ -178,6 +178,15 @@ public class PrismParserImplNoIO extends PrismParserImpl implements PrismParserN
         }
     }
 
+    @Override
+    public void parseObjectsIteratively(@NotNull ObjectHandler handler, int threads, boolean ordered) throws SchemaException {
+        try {
+            doParseObjectsIteratively(handler, threads, ordered);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public Object parseItemOrRealValue() throws SchemaException {
         try {
@@ -10,7 +10,9 @@ package com.evolveum.midpoint.prism.impl.marshaller;
 import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.impl.PrismContextImpl;
 import com.evolveum.midpoint.prism.impl.PrismPropertyValueImpl;
+import com.evolveum.midpoint.prism.impl.SerializerStringTarget;
 import com.evolveum.midpoint.prism.impl.SerializerTarget;
+import com.evolveum.midpoint.prism.impl.lex.LexicalProcessor;
 import com.evolveum.midpoint.prism.xnode.RootXNode;
 import com.evolveum.midpoint.prism.impl.xnode.RootXNodeImpl;
 import com.evolveum.midpoint.prism.impl.xnode.XNodeImpl;
@@ -20,6 +22,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.namespace.QName;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -149,6 +152,31 @@ public class PrismSerializerImpl<T> implements PrismSerializer<T> {
         return target.write(roots, aggregateElementName, context);
     }
 
+    @NotNull
+    @Override
+    public ObjectsWriter objectsWriter(@NotNull Writer out, @Nullable QName aggregateElementName) throws SchemaException {
+        if (!(target instanceof SerializerStringTarget)) {
+            throw new IllegalStateException("Objects can be written incrementally only by serializers producing strings"
+                    + " (XML, JSON, YAML), not by " + target.getClass().getSimpleName());
+        }
+        LexicalProcessor.RootXNodeWriter rootWriter = ((SerializerStringTarget) target)
+                .createObjectsWriter(out, aggregateElementName, context);
+        return new ObjectsWriter() {
+            @Override
+            public void write(@NotNull PrismObject<?> object) throws SchemaException {
+                // itemName and itemDefinition might be set only if they apply to all the objects
+                RootXNodeImpl xroot = getMarshaller().marshalItemAsRoot(object, itemName, itemDefinition, context, itemsToSkip);
+                checkPostconditions(xroot);            // TODO find better way
+                rootWriter.write(xroot);
+            }
+
+            @Override
+            public void close() throws SchemaException {
+                rootWriter.close();
+            }
+        };
+    }
+
     @Override
     public T serializeRealValue(Object realValue) throws SchemaException {
         PrismValue prismValue;
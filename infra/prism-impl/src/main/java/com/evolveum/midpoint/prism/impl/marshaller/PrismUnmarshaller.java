@@ -31,8 +31,10 @@ import org.jetbrains.annotations.Nullable;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 public class PrismUnmarshaller {
 
@@ -257,6 +259,8 @@ public class PrismUnmarshaller {
             }
             cval = new PrismContainerValueImpl<>(null, null, null, id, complexTypeDefinition, prismContext);
         }
+        // lazy items are added after all the other ones, so they are not parsed by merge() calls
+        List<LazyEntry> lazyEntries = null;
         for (Entry<QName, XNodeImpl> entry : map.entrySet()) {
             QName itemName = entry.getKey();
             if (itemName == null) {
@@ -305,6 +309,8 @@ public class PrismUnmarshaller {
                 }
             }
 
+            itemName = internItemName(itemName, itemDef);
+
             Item<?, ?> item;
             if (entry.getValue() == null) {
                 if (itemDef != null) {
@@ -312,6 +318,12 @@ public class PrismUnmarshaller {
                 } else {
                     item = null;
                 }
+            } else if (isLazy(itemName, itemDef, containerDef, cval, pc)) {
+                if (lazyEntries == null) {
+                    lazyEntries = new ArrayList<>();
+                }
+                lazyEntries.add(new LazyEntry(itemName, entry.getValue(), (PrismContainerDefinition<?>) itemDef));
+                continue;
             } else {
                 item = parseItemInternal(entry.getValue(), itemName, itemDef, pc);
             }
@@ -321,9 +333,73 @@ public class PrismUnmarshaller {
                 cval.merge(item);
             }
         }
+        if (lazyEntries != null) {
+            for (LazyEntry lazyEntry : lazyEntries) {
+                if (cval.findItem(lazyEntry.definition.getItemName()) != null) {
+                    // present also under an alternative name, so it has to be merged now
+                    cval.merge(parseItemInternal(lazyEntry.node, lazyEntry.itemName, lazyEntry.definition, pc));
+                } else {
+                    addLazyItem((PrismContainerValueImpl<?>) cval, lazyEntry, pc);
+                }
+            }
+        }
         return cval;
     }
 
+    private static class LazyEntry {
+        @NotNull private final QName itemName;
+        @NotNull private final XNodeImpl node;
+        @NotNull private final PrismContainerDefinition<?> definition;
+
+        private LazyEntry(@NotNull QName itemName, @NotNull XNodeImpl node, @NotNull PrismContainerDefinition<?> definition) {
+            this.itemName = itemName;
+            this.node = node;
+            this.definition = definition;
+        }
+    }
+
+    /**
+     * Returns canonical instance of the item name, so parsed items do not keep their own copies of (mostly) the same names.
+     */
+    @NotNull
+    private QName internItemName(@NotNull QName itemName, ItemDefinition<?> itemDef) {
+        if (itemDef != null && itemName.equals(itemDef.getItemName())) {
+            return itemDef.getItemName();
+        } else {
+            return getSchemaRegistry().internItemName(itemName);
+        }
+    }
+
+    /**
+     * Only container items of object values are parsed lazily.
+     */
+    private boolean isLazy(QName itemName, ItemDefinition<?> itemDef, PrismContainerDefinition<?> containerDef,
+            PrismContainerValue<?> cval, ParsingContext pc) {
+        return pc.isLazy(itemName) && containerDef instanceof PrismObjectDefinition && cval instanceof PrismContainerValueImpl
+                && itemDef instanceof PrismContainerDefinition && !(itemDef instanceof PrismObjectDefinition);
+    }
+
+    private void addLazyItem(PrismContainerValueImpl<?> cval, LazyEntry entry, ParsingContext pc) {
+        Consumer<Item<?, ?>> postProcessor = pc.getLazyItemPostProcessor();
+        cval.addLazyItem(entry.definition.getItemName(), new PrismContainerValueImpl.LazyItem() {
+            @NotNull
+            @Override
+            public XNodeImpl getXNode() {
+                return entry.node;
+            }
+
+            @NotNull
+            @Override
+            public Item<?, ?> parse() throws SchemaException {
+                Item<?, ?> item = parseItemInternal(entry.node, entry.itemName, entry.definition, pc);
+                if (postProcessor != null) {
+                    postProcessor.accept(item);
+                }
+                return item;
+            }
+        });
+    }
+
     private SchemaMigration determineSchemaMigration(ComplexTypeDefinition complexTypeDefinition, QName itemName, @NotNull ParsingContext pc) {
         if (complexTypeDefinition == null) {
             return null;
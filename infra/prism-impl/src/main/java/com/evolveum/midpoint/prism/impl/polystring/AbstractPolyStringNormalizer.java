@@ -16,14 +16,15 @@ import com.evolveum.prism.xml.ns._public.types_3.PolyStringNormalizerConfigurati
 
 public abstract class AbstractPolyStringNormalizer implements PolyStringNormalizer, ConfigurableNormalizer {
 
-    private static final String WHITESPACE_REGEX = "\\s+";
-    private static final Pattern WHITESPACE_PATTERN = Pattern.compile(WHITESPACE_REGEX);
-
     private PolyStringNormalizerConfigurationType configuration;
 
+    private NormalizationCache cache;
+
     @Override
     public void configure(PolyStringNormalizerConfigurationType configuration) {
         this.configuration = configuration;
+        Integer cacheSize = configuration != null ? configuration.getCacheSize() : null;
+        this.cache = cacheSize != null && cacheSize > 0 ? new NormalizationCache(cacheSize) : null;
     }
 
     protected PolyStringNormalizerConfigurationType getConfiguration() {
@@ -38,9 +39,21 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
      * Unicode Normalization Form Compatibility Decomposition (NFKD)
      */
     protected String nfkd(String s) {
+        if (isAscii(s)) {
+            return s;       // ASCII characters are not changed by the decomposition
+        }
         return Normalizer.normalize(s, Normalizer.Form.NFKD);
     }
 
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected String replaceAll(String s, Pattern pattern, String replacement) {
         return pattern.matcher(s).replaceAll(replacement);
     }
@@ -50,18 +63,73 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
     }
 
     protected String removeAll(String s, int lowerCode, int upperCode) {
+        return retainAll(s, c -> c >= lowerCode && c <= upperCode);
+    }
+
+    /**
+     * Keeps only characters matching the predicate. Returns the original string if no character is to be removed.
+     */
+    protected String retainAll(String s, CharPredicate retain) {
+        int i = 0;
+        while (i < s.length() && retain.test(s.charAt(i))) {
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
         StringBuilder out = new StringBuilder(s.length());
-        for (int i = 0; i < s.length(); i++) {
+        out.append(s, 0, i);
+        for (i++; i < s.length(); i++) {
             char c = s.charAt(i);
-            if (c >= lowerCode && c <= upperCode) {
+            if (retain.test(c)) {
                 out.append(c);
             }
         }
         return out.toString();
     }
 
+    /**
+     * Replaces each sequence of whitespace characters (as defined by regex \s) with a single space.
+     * Equivalent to replacing regex \s+ with " " but faster.
+     */
     protected String trimWhitespace(String s) {
-        return replaceAll(s, WHITESPACE_PATTERN, " ");
+        int i = 0;
+        while (i < s.length() && !needsWhitespaceReplacement(s, i)) {
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
+        StringBuilder out = new StringBuilder(s.length());
+        out.append(s, 0, i);
+        boolean inWhitespace = false;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isRegexWhitespace(c)) {
+                if (!inWhitespace) {
+                    out.append(' ');
+                    inWhitespace = true;
+                }
+            } else {
+                out.append(c);
+                inWhitespace = false;
+            }
+        }
+        return out.toString();
+    }
+
+    // true if the character at index i starts a whitespace sequence that is not a single space
+    private static boolean needsWhitespaceReplacement(String s, int i) {
+        char c = s.charAt(i);
+        return isRegexWhitespace(c)
+                && (c != ' ' || i + 1 < s.length() && isRegexWhitespace(s.charAt(i + 1)));
+    }
+
+    /**
+     * Characters matching regex \s (without UNICODE_CHARACTER_CLASS flag), i.e. [ \t\n\x0B\f\r].
+     */
+    static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
     }
 
     protected String lowerCase(String s) {
@@ -80,11 +148,22 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
         if (orig == null) {
             return null;
         }
+        NormalizationCache cache = this.cache;
+        if (cache != null) {
+            String cached = cache.get(orig);
+            if (cached != null) {
+                return cached;
+            }
+        }
         String s = preprocess(orig);
 
         s = normalizeCore(s);
 
-        return postprocess(s);
+        String norm = postprocess(s);
+        if (cache != null) {
+            cache.put(orig, norm);
+        }
+        return norm;
     }
 
     protected abstract String normalizeCore(String s);
@@ -115,6 +194,11 @@ public abstract class AbstractPolyStringNormalizer implements PolyStringNormaliz
         return s;
     }
 
+    @FunctionalInterface
+    protected interface CharPredicate {
+        boolean test(char c);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
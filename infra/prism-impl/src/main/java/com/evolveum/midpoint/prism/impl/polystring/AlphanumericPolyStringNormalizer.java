@@ -9,7 +9,6 @@ package com.evolveum.midpoint.prism.impl.polystring;
 import com.evolveum.midpoint.prism.PrismConstants;
 
 import javax.xml.namespace.QName;
-import java.util.regex.Pattern;
 
 /**
  * @author semancik
@@ -17,15 +16,17 @@ import java.util.regex.Pattern;
  */
 public class AlphanumericPolyStringNormalizer extends AbstractPolyStringNormalizer {
 
-    private static final String MALFORMED_REGEX = "[^\\w\\s\\d]";
-    private static final Pattern MALFORMED_PATTERN = Pattern.compile(MALFORMED_REGEX);
-
     @Override
     protected String normalizeCore(String s) {
-        s = removeAll(s, MALFORMED_PATTERN);
+        // equivalent to removing all characters matching [^\w\s\d] regex
+        s = retainAll(s, AlphanumericPolyStringNormalizer::isAlphanumericOrWhitespace);
         return s;
     }
 
+    private static boolean isAlphanumericOrWhitespace(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || isRegexWhitespace(c);
+    }
+
     @Override
     public QName getName() {
         return PrismConstants.ALPHANUMERIC_POLY_STRING_NORMALIZER;
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism.impl.polystring;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of recently computed orig -> norm values. The same names are normalized again and again
+ * (when parsing, querying, evaluating mappings), so this saves the normalization for them.
+ *
+ * To keep the lookup cheap and lock-free, there is no LRU bookkeeping: the cache is simply cleared when it gets full.
+ *
+ * EXPERIMENTAL
+ */
+class NormalizationCache {
+
+    private final int maxSize;
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    NormalizationCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    String get(String orig) {
+        return cache.get(orig);
+    }
+
+    void put(String orig, String norm) {
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+        cache.put(orig, norm);
+    }
+}
@@ -10,6 +10,7 @@ package com.evolveum.midpoint.prism.impl.query;
 import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
 import com.evolveum.midpoint.prism.query.AndFilter;
+import com.evolveum.midpoint.prism.query.CompiledObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.util.exception.SchemaException;
 
@@ -51,6 +52,9 @@ public class AndFilterImpl extends NaryLogicalFilterImpl implements AndFilter {
 
     @Override
     public boolean match(PrismContainerValue value, MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        if (immutable) {
+            return matchCompiled(value, matchingRuleRegistry);
+        }
         for (ObjectFilter filter : getConditions()) {
             if (!filter.match(value, matchingRuleRegistry)) {
                 return false;
@@ -59,6 +63,27 @@ public class AndFilterImpl extends NaryLogicalFilterImpl implements AndFilter {
         return true;
     }
 
+    @Override
+    public CompiledObjectFilter compile(MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        List<CompiledObjectFilter> compiledConditions = compileConditions(matchingRuleRegistry, true);
+        if (compiledConditions == null) {
+            return CompiledObjectFilter.ALWAYS_FALSE;
+        } else if (compiledConditions.isEmpty()) {
+            return CompiledObjectFilter.ALWAYS_TRUE;
+        } else if (compiledConditions.size() == 1) {
+            return compiledConditions.get(0);
+        } else {
+            return value -> {
+                for (CompiledObjectFilter condition : compiledConditions) {
+                    if (!condition.match(value)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+    }
+
     @Override
     public boolean equals(Object obj, boolean exact) {
         return super.equals(obj, exact) && obj instanceof AndFilter;
@@ -42,6 +42,7 @@ public abstract class ComparativeFilterImpl<T> extends PropertyValueFilterImpl<T
     }
 
     public void setEquals(boolean equals) {
+        checkMutable();
         this.equals = equals;
     }
 
@@ -11,6 +11,7 @@ import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.match.MatchingRule;
 import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.query.CompiledObjectFilter;
 import com.evolveum.midpoint.prism.query.EqualFilter;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.prism.xml.ns._public.types_3.RawType;
@@ -18,6 +19,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -102,6 +104,9 @@ public class EqualFilterImpl<T> extends PropertyValueFilterImpl<T> implements Eq
 
     @Override
     public boolean match(PrismContainerValue objectValue, MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        if (immutable) {
+            return matchCompiled(objectValue, matchingRuleRegistry);
+        }
         if (!super.match(objectValue, matchingRuleRegistry)) {
             return false;
         }
@@ -123,6 +128,45 @@ public class EqualFilterImpl<T> extends PropertyValueFilterImpl<T> implements Eq
         return false;
     }
 
+    /**
+     * Filter item values and the matching rule are resolved here, so they are not re-created on each match.
+     */
+    @Override
+    public CompiledObjectFilter compile(MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        if (getValues() == null || getValues().isEmpty()) {
+            return value -> getObjectItemValues(value).isEmpty();
+        }
+        if (getDefinition() == null) {
+            // We report the missing definition only if there are object values to be compared (as it was always done).
+            return value -> {
+                if (getObjectItemValues(value).isEmpty()) {
+                    return false;
+                } else {
+                    throw new SchemaException("Could not find definition for item " + getPath());
+                }
+            };
+        }
+        Item filterItem = getFilterItem();
+        MatchingRule<?> matchingRule = getMatchingRuleFromRegistry(matchingRuleRegistry, filterItem);
+        List<PrismPropertyValue<?>> filterValues = new ArrayList<>(filterItem.getValues().size());
+        for (Object filterItemValue : filterItem.getValues()) {
+            checkPrismPropertyValue(filterItemValue);
+            filterValues.add((PrismPropertyValue<?>) filterItemValue);
+        }
+        return value -> {
+            Collection<PrismValue> objectItemValues = getObjectItemValues(value);
+            for (PrismPropertyValue<?> filterValue : filterValues) {
+                for (Object objectItemValue : objectItemValues) {
+                    checkPrismPropertyValue(objectItemValue);
+                    if (matches(filterValue, (PrismPropertyValue<?>) objectItemValue, matchingRule)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
     private void checkPrismPropertyValue(Object value) {
         if (!(value instanceof PrismPropertyValue)) {
             throw new IllegalArgumentException("Not supported prism value for equals filter. It must be an instance of PrismPropertyValue but it is " + value.getClass());
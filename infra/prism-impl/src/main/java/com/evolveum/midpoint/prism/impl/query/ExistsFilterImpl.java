@@ -52,9 +52,18 @@ public final class ExistsFilterImpl extends ObjectFilterImpl implements ExistsFi
     }
 
     public void setFilter(ObjectFilter filter) {
+        checkMutable();
         this.filter = filter;
     }
 
+    @Override
+    public void setImmutable(boolean immutable) {
+        super.setImmutable(immutable);
+        if (filter != null) {
+            filter.setImmutable(immutable);
+        }
+    }
+
     public static <C extends Containerable> ExistsFilter createExists(ItemPath itemPath, PrismContainerDefinition<C> containerDef,
                                                                       ObjectFilter filter) throws SchemaException {
         ItemDefinition itemDefinition = FilterImplUtil.findItemDefinition(itemPath, containerDef);
@@ -51,6 +51,7 @@ public final class FullTextFilterImpl extends ObjectFilterImpl implements FullTe
     }
 
     public void setValues(Collection<String> values) {
+        checkMutable();
         this.values = values;
     }
 
@@ -59,6 +60,7 @@ public final class FullTextFilterImpl extends ObjectFilterImpl implements FullTe
     }
 
     public void setExpression(ExpressionWrapper expression) {
+        checkMutable();
         this.expression = expression;
     }
 
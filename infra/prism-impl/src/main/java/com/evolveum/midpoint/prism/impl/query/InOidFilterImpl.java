@@ -65,6 +65,7 @@ public final class InOidFilterImpl extends ObjectFilterImpl implements InOidFilt
     }
 
     public void setOids(Collection<String> oids) {
+        checkMutable();
         this.oids = oids != null ? new ArrayList<>(oids) : null;
     }
 
@@ -77,6 +78,7 @@ public final class InOidFilterImpl extends ObjectFilterImpl implements InOidFilt
     }
 
     public void setExpression(ExpressionWrapper expression) {
+        checkMutable();
         this.expression = expression;
     }
 
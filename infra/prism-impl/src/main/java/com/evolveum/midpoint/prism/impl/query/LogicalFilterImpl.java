@@ -8,6 +8,7 @@
 package com.evolveum.midpoint.prism.impl.query;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.evolveum.midpoint.prism.query.LogicalFilter;
@@ -20,6 +21,9 @@ public abstract class LogicalFilterImpl extends ObjectFilterImpl implements Logi
     protected List<ObjectFilter> conditions;
 
     public List<ObjectFilter> getConditions() {
+        if (immutable) {
+            return conditions != null ? Collections.unmodifiableList(conditions) : Collections.emptyList();
+        }
         if (conditions == null){
             conditions = new ArrayList<>();
         }
@@ -27,10 +31,12 @@ public abstract class LogicalFilterImpl extends ObjectFilterImpl implements Logi
     }
 
     public void setConditions(List<ObjectFilter> condition) {
+        checkMutable();
         this.conditions = condition;
     }
 
     public void addCondition(ObjectFilter condition) {
+        checkMutable();
         if (this.conditions == null) {
             conditions = new ArrayList<>();
         }
@@ -41,6 +47,16 @@ public abstract class LogicalFilterImpl extends ObjectFilterImpl implements Logi
         return this.conditions.contains(condition);
     }
 
+    @Override
+    public void setImmutable(boolean immutable) {
+        super.setImmutable(immutable);
+        if (conditions != null) {
+            for (ObjectFilter condition : conditions) {
+                condition.setImmutable(immutable);
+            }
+        }
+    }
+
     abstract public LogicalFilter cloneEmpty();
 
     protected List<ObjectFilter> getClonedConditions() {
@@ -7,9 +7,12 @@
 
 package com.evolveum.midpoint.prism.impl.query;
 
-import com.evolveum.midpoint.prism.query.NaryLogicalFilter;
-import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.PrismContainerValue;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.prism.query.*;
+import com.evolveum.midpoint.util.exception.SchemaException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class NaryLogicalFilterImpl extends LogicalFilterImpl implements NaryLogicalFilter {
@@ -34,4 +37,66 @@ public abstract class NaryLogicalFilterImpl extends LogicalFilterImpl implements
     @Override
     public abstract NaryLogicalFilterImpl clone();
 
+    /**
+     * Compiles the conditions for in-memory evaluation. Conditions that are always true (for AND) or always false (for OR)
+     * are skipped. Cheap conditions (OID checks) are evaluated first; the order of other ones is kept.
+     * Each condition is compiled only when it is evaluated for the first time, so conditions that are never reached
+     * (because of short-circuiting) are not compiled at all.
+     *
+     * @return null if a condition decides the result regardless of other conditions
+     */
+    List<CompiledObjectFilter> compileConditions(MatchingRuleRegistry matchingRuleRegistry, boolean neutralValue)
+            throws SchemaException {
+        List<CompiledObjectFilter> cheap = new ArrayList<>();
+        List<CompiledObjectFilter> other = new ArrayList<>();
+        for (ObjectFilter condition : getConditions()) {
+            Boolean constant = getConstantValue(condition);
+            if (constant != null) {
+                if (constant != neutralValue) {
+                    return null;
+                }
+            } else if (condition instanceof InOidFilter) {
+                cheap.add(new LazilyCompiledCondition(condition, matchingRuleRegistry));
+            } else {
+                other.add(new LazilyCompiledCondition(condition, matchingRuleRegistry));
+            }
+        }
+        cheap.addAll(other);
+        return cheap;
+    }
+
+    /**
+     * @return The value of the filter if it does not depend on the object being matched; null otherwise.
+     */
+    static Boolean getConstantValue(ObjectFilter filter) {
+        if (filter instanceof AllFilter || filter instanceof UndefinedFilter) {
+            return true;
+        } else if (filter instanceof NoneFilter) {
+            return false;
+        } else {
+            return null;
+        }
+    }
+
+    private static class LazilyCompiledCondition implements CompiledObjectFilter {
+
+        private final ObjectFilter condition;
+        private final MatchingRuleRegistry matchingRuleRegistry;
+        private volatile CompiledObjectFilter compiled;         // compiling twice in parallel threads is harmless
+
+        private LazilyCompiledCondition(ObjectFilter condition, MatchingRuleRegistry matchingRuleRegistry) {
+            this.condition = condition;
+            this.matchingRuleRegistry = matchingRuleRegistry;
+        }
+
+        @Override
+        public boolean match(PrismContainerValue value) throws SchemaException {
+            CompiledObjectFilter current = compiled;
+            if (current == null) {
+                current = condition.compile(matchingRuleRegistry);
+                compiled = current;
+            }
+            return current.match(value);
+        }
+    }
 }
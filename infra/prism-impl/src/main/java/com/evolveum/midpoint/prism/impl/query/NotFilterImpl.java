@@ -9,6 +9,7 @@ package com.evolveum.midpoint.prism.impl.query;
 
 import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.prism.query.CompiledObjectFilter;
 import com.evolveum.midpoint.prism.query.NotFilter;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.util.exception.SchemaException;
@@ -40,9 +41,22 @@ public class NotFilterImpl extends UnaryLogicalFilterImpl implements NotFilter {
 
     @Override
     public boolean match(PrismContainerValue value, MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        if (immutable) {
+            return matchCompiled(value, matchingRuleRegistry);
+        }
         return !getFilter().match(value, matchingRuleRegistry);
     }
 
+    @Override
+    public CompiledObjectFilter compile(MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        Boolean constant = NaryLogicalFilterImpl.getConstantValue(getFilter());
+        if (constant != null) {
+            return constant ? CompiledObjectFilter.ALWAYS_FALSE : CompiledObjectFilter.ALWAYS_TRUE;
+        }
+        CompiledObjectFilter compiledFilter = getFilter().compile(matchingRuleRegistry);
+        return value -> !compiledFilter.match(value);
+    }
+
     @Override
     public boolean equals(Object obj, boolean exact) {
         return super.equals(obj, exact) && obj instanceof NotFilter;
@@ -7,7 +7,10 @@
 
 package com.evolveum.midpoint.prism.impl.query;
 
+import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.prism.query.CompiledObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.Visitor;
 import com.evolveum.midpoint.util.exception.SchemaException;
@@ -16,6 +19,13 @@ public abstract class ObjectFilterImpl implements ObjectFilter {
 
     transient protected PrismContext prismContext;
 
+    protected boolean immutable;
+
+    /**
+     * Compiled form of this filter. Kept only for immutable filters.
+     */
+    private transient volatile CompiledForm compiledForm;
+
     public void accept(Visitor visitor) {
         visitor.visit(this);
     }
@@ -33,6 +43,50 @@ public abstract class ObjectFilterImpl implements ObjectFilter {
         this.prismContext = prismContext;
     }
 
+    @Override
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    @Override
+    public void setImmutable(boolean immutable) {
+        this.immutable = immutable;
+        compiledForm = null;
+    }
+
+    protected void checkMutable() {
+        if (immutable) {
+            throw new IllegalStateException("An attempt to modify an immutable filter: " + this);
+        }
+    }
+
+    /**
+     * Matches the value using the compiled form of this immutable filter. The compiled form is created on the first call
+     * (per matching rule registry) and kept. Mutable filters are not compiled in match(), because the kept compiled form
+     * could get out of sync with the filter and compiling it on each call would be slower than matching it directly.
+     */
+    boolean matchCompiled(PrismContainerValue value, MatchingRuleRegistry matchingRuleRegistry) throws SchemaException {
+        if (!immutable) {
+            throw new IllegalStateException("Compiled form is kept only for immutable filters: " + this);
+        }
+        CompiledForm current = compiledForm;
+        if (current == null || current.matchingRuleRegistry != matchingRuleRegistry) {
+            current = new CompiledForm(matchingRuleRegistry, compile(matchingRuleRegistry));
+            compiledForm = current;
+        }
+        return current.filter.match(value);
+    }
+
     @Override
     public abstract ObjectFilterImpl clone();
+
+    private static class CompiledForm {
+        private final MatchingRuleRegistry matchingRuleRegistry;
+        private final CompiledObjectFilter filter;
+
+        private CompiledForm(MatchingRuleRegistry matchingRuleRegistry, CompiledObjectFilter filter) {
+            this.matchingRuleRegistry = matchingRuleRegistry;
+            this.filter = filter;
+        }
+    }
 }
@@ -44,7 +44,11 @@ public class RefFilterImpl extends ValueFilterImpl<PrismReferenceValue, PrismRef
     @SuppressWarnings("CloneDoesntCallSuperClone")
     @Override
     public RefFilterImpl clone() {
-        return new RefFilterImpl(getFullPath(), getDefinition(), getClonedValues(), getExpression());
+        RefFilterImpl clone = new RefFilterImpl(getFullPath(), getDefinition(), getClonedValues(), getExpression());
+        clone.oidNullAsAny = oidNullAsAny;
+        clone.targetTypeNullAsAny = targetTypeNullAsAny;
+        clone.relationNullAsAny = relationNullAsAny;
+        return clone;
     }
 
     @Override
@@ -126,18 +130,31 @@ public class RefFilterImpl extends ValueFilterImpl<PrismReferenceValue, PrismRef
 
     @Override
     public boolean equals(Object obj, boolean exact) {
-        return obj instanceof RefFilter && super.equals(obj, exact);
+        if (!(obj instanceof RefFilter) || !super.equals(obj, exact)) {
+            return false;
+        }
+        if (obj instanceof RefFilterImpl) {
+            RefFilterImpl other = (RefFilterImpl) obj;
+            return oidNullAsAny == other.oidNullAsAny &&
+                    targetTypeNullAsAny == other.targetTypeNullAsAny &&
+                    relationNullAsAny == other.relationNullAsAny;
+        } else {
+            return true;
+        }
     }
 
     public void setOidNullAsAny(boolean oidNullAsAny) {
+        checkMutable();
         this.oidNullAsAny = oidNullAsAny;
     }
 
     public void setTargetTypeNullAsAny(boolean targetTypeNullAsAny) {
+        checkMutable();
         this.targetTypeNullAsAny = targetTypeNullAsAny;
     }
 
     public void setRelationNullAsAny(boolean relationNullAsAny) {
+        checkMutable();
         this.relationNullAsAny = relationNullAsAny;
     }
 
@@ -47,12 +47,21 @@ public class TypeFilterImpl extends ObjectFilterImpl implements TypeFilter {
     }
 
     public void setFilter(ObjectFilter filter) {
+        checkMutable();
         if (filter == this) {
             throw new IllegalArgumentException("Type filte has itself as a subfilter");
         }
         this.filter = filter;
     }
 
+    @Override
+    public void setImmutable(boolean immutable) {
+        super.setImmutable(immutable);
+        if (filter != null) {
+            filter.setImmutable(immutable);
+        }
+    }
+
     public static TypeFilter createType(QName type, ObjectFilter filter) {
         return new TypeFilterImpl(type, filter);
     }
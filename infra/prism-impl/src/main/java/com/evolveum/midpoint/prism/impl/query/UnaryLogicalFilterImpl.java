@@ -28,6 +28,7 @@ public abstract class UnaryLogicalFilterImpl extends LogicalFilterImpl implement
     }
 
     public void setFilter(ObjectFilter filter){
+        checkMutable();
         conditions = new ArrayList<>();
         conditions.add(filter);
     }
@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 import javax.xml.namespace.QName;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -104,6 +105,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
     }
 
     public void setDefinition(@Nullable D definition) {
+        checkMutable();
         this.definition = definition;
         checkConsistence(false);
     }
@@ -114,6 +116,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
     }
 
     public void setMatchingRule(@Nullable QName matchingRule) {
+        checkMutable();
         this.matchingRule = matchingRule;
     }
 
@@ -132,7 +135,17 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
 
     @Nullable
     public List<V> getValues() {
-        return values;
+        return immutable && values != null ? Collections.unmodifiableList(values) : values;
+    }
+
+    @Override
+    public void setImmutable(boolean immutable) {
+        super.setImmutable(immutable);
+        if (values != null) {
+            for (V value : values) {
+                value.setImmutable(immutable);
+            }
+        }
     }
 
     @Nullable
@@ -177,6 +190,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
      * @param value value, has to be parent-less
      */
     public void setValue(V value) {
+        checkMutable();
         this.values = new ArrayList<>();
         if (value != null) {
             value.setParent(this);
@@ -190,6 +204,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
     }
 
     public void setExpression(@Nullable ExpressionWrapper expression) {
+        checkMutable();
         this.expression = expression;
     }
 
@@ -199,6 +214,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
     }
 
     public void setRightHandSidePath(@Nullable ItemPath rightHandSidePath) {
+        checkMutable();
         this.rightHandSidePath = rightHandSidePath;
     }
 
@@ -208,6 +224,7 @@ public abstract class ValueFilterImpl<V extends PrismValue, D extends ItemDefini
     }
 
     public void setRightHandSideDefinition(@Nullable ItemDefinition rightHandSideDefinition) {
+        checkMutable();
         this.rightHandSideDefinition = rightHandSideDefinition;
     }
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.prism.impl.schema;
+
+import com.evolveum.midpoint.prism.ComplexTypeDefinition;
+import com.evolveum.midpoint.prism.Definition;
+import com.evolveum.midpoint.prism.ItemDefinition;
+import com.evolveum.midpoint.prism.TypeDefinition;
+import com.evolveum.midpoint.prism.path.ItemName;
+import com.evolveum.midpoint.prism.schema.PrismSchema;
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.namespace.QName;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps canonical instances of item and type names defined in registered schemas. Parsers use them instead of
+ * freshly created QNames, so parsed data do not hold many copies of the same name, and item names can be mostly
+ * compared by identity.
+ *
+ * Only names that are known to the schema registry are kept, so the size of the maps is bounded by the size
+ * of the schemas.
+ */
+class QNameInterner {
+
+    private final Map<QName, ItemName> itemNames = new ConcurrentHashMap<>();
+    private final Map<QName, QName> typeNames = new ConcurrentHashMap<>();
+
+    void register(@NotNull PrismSchema schema) {
+        for (Definition definition : schema.getDefinitions()) {
+            if (definition instanceof ItemDefinition) {
+                registerItemName(((ItemDefinition<?>) definition).getItemName());
+            }
+            if (definition instanceof TypeDefinition) {
+                typeNames.putIfAbsent(definition.getTypeName(), definition.getTypeName());
+            }
+            if (definition instanceof ComplexTypeDefinition) {
+                for (ItemDefinition<?> itemDefinition : ((ComplexTypeDefinition) definition).getDefinitions()) {
+                    registerItemName(itemDefinition.getItemName());
+                }
+            }
+        }
+    }
+
+    private void registerItemName(ItemName itemName) {
+        if (itemName != null) {
+            itemNames.putIfAbsent(itemName, itemName);
+        }
+    }
+
+    @NotNull
+    QName internItemName(@NotNull QName name) {
+        // Prefixes are not considered here (as in QName.equals), so the canonical name can have a different prefix.
+        // This is the same situation as with items created programmatically.
+        ItemName canonical = itemNames.get(name);
+        return canonical != null ? canonical : name;
+    }
+
+    @NotNull
+    QName internTypeName(@NotNull QName name) {
+        QName canonical = typeNames.get(name);
+        return canonical != null ? canonical : name;
+    }
+}
@@ -21,6 +21,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -63,6 +65,7 @@ import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
 import com.evolveum.midpoint.util.JAXBUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 
@@ -79,10 +82,11 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 
     private static final String DEFAULT_RUNTIME_CATALOG_RESOURCE = "META-INF/catalog-runtime.xml";
 
+    private static final int INITIALIZATION_THREADS = 4;
+
     private File[] catalogFiles;                                                        // overrides catalog resource name
     private String catalogResourceName = DEFAULT_RUNTIME_CATALOG_RESOURCE;
 
-    private javax.xml.validation.SchemaFactory schemaFactory;
     private javax.xml.validation.Schema javaxSchema;
     private EntityResolver builtinSchemaResolver;
     final private List<SchemaDescription> schemaDescriptions = new ArrayList<>();
@@ -90,7 +94,10 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
     final private MultiValuedMap<String,SchemaDescription> parsedSchemas = new ArrayListValuedHashMap<>();
     // base type name -> CTD with (merged) extension definition
     final private Map<QName,ComplexTypeDefinition> extensionSchemas = new HashMap<>();
+    // canonical instances of item and type names
+    final private QNameInterner qNameInterner = new QNameInterner();
     private boolean initialized = false;
+    private boolean parallelInitialization = true;
     private DynamicNamespacePrefixMapper namespacePrefixMapper;
     private String defaultNamespace;
 
@@ -119,6 +126,14 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
         this.prismContext = prismContext;
     }
 
+    /**
+     * Whether the independent parts of the initialization run in parallel. Turning this off is useful only
+     * for comparison in performance tests.
+     */
+    public void setParallelInitialization(boolean parallelInitialization) {
+        this.parallelInitialization = parallelInitialization;
+    }
+
     public XmlEntityResolver getEntityResolver() {
         return entityResolver;
     }
@@ -348,6 +363,11 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
 
     /**
      * This can be used to read additional schemas even after the registry was initialized.
+     *
+     * Parts of the initialization that do not depend on each other run concurrently: lookup of compile-time classes
+     * (classpath scanning and reflection) and - if all the schemas can be read from their original input streams -
+     * creation of the javax.xml.validation schema run in parallel to parsing of prism schemas. (Prism schemas
+     * themselves are parsed as a single wrapper XSD because of circular imports, so they cannot be split among threads.)
      */
     @Override
     public void initialize() throws SAXException, IOException, SchemaException {
@@ -357,6 +377,8 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
         if (namespacePrefixMapper == null) {
             throw new IllegalStateException("Namespace prefix mapper not set");
         }
+        ExecutorService executor = parallelInitialization ?
+                Executors.newFixedThreadPool(INITIALIZATION_THREADS, createInitializationThreadFactory()) : null;
         try {
             LOGGER.trace("initialize() starting");
             long start = System.currentTimeMillis();
@@ -365,30 +387,104 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
             long resolverDone = System.currentTimeMillis();
             LOGGER.trace("initResolver() done in {} ms", resolverDone - start);
 
+            Map<SchemaDescription, Future<Map<QName, Class<?>>>> xsdTypeMapFutures = new HashMap<>();
+            for (SchemaDescription schemaDescription : schemaDescriptions) {
+                Package pkg = schemaDescription.getCompileTimeClassesPackage();
+                if (pkg != null) {
+                    xsdTypeMapFutures.put(schemaDescription, submit(executor, () -> createXsdTypeMap(pkg)));
+                }
+            }
+
+            // DOM trees are not thread safe (even for reading), so javax schema is created concurrently only
+            // if it is not going to touch them
+            Future<javax.xml.validation.Schema> javaxSchemaFuture = executor != null && canParseJavaxSchemaConcurrently() ?
+                    executor.submit(this::parseJavaxSchema) : null;
+
             parsePrismSchemas();
             long prismSchemasDone = System.currentTimeMillis();
             LOGGER.trace("parsePrismSchemas() done in {} ms", prismSchemasDone - resolverDone);
 
-            parseJavaxSchema();
+            javaxSchema = javaxSchemaFuture != null ? getResult(javaxSchemaFuture) : parseJavaxSchema();
             long javaxSchemasDone = System.currentTimeMillis();
-            LOGGER.trace("parseJavaxSchema() done in {} ms", javaxSchemasDone - prismSchemasDone);
+            LOGGER.trace("parseJavaxSchema() done in {} ms after prism schemas (concurrently: {})",
+                    javaxSchemasDone - prismSchemasDone, javaxSchemaFuture != null);
 
-            compileCompileTimeClassList();
+            for (Entry<SchemaDescription, Future<Map<QName, Class<?>>>> entry : xsdTypeMapFutures.entrySet()) {
+                entry.getKey().setXsdTypeTocompileTimeClassMap(getResult(entry.getValue()));
+            }
             long classesDone = System.currentTimeMillis();
-            LOGGER.trace("compileCompileTimeClassList() done in {} ms", classesDone - javaxSchemasDone);
+            LOGGER.trace("compileCompileTimeClassList() done in {} ms after javax schema", classesDone - javaxSchemasDone);
 
             initialized = true;
+            LOGGER.debug("Schema registry initialized in {} ms", classesDone - start);
         } catch (SAXException ex) {
             if (ex instanceof SAXParseException) {
                 SAXParseException sex = (SAXParseException)ex;
                 throw new SchemaException("Error parsing schema "+sex.getSystemId()+" line "+sex.getLineNumber()+": "+sex.getMessage(), sex);
             }
             throw ex;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Submits the task to the executor or, if there is none, runs it right now in the current thread.
+     */
+    private <T> Future<T> submit(ExecutorService executor, Callable<T> callable) {
+        if (executor != null) {
+            return executor.submit(callable);
+        } else {
+            FutureTask<T> task = new FutureTask<>(callable);
+            task.run();
+            return task;
+        }
+    }
+
+    private boolean canParseJavaxSchemaConcurrently() {
+        return schemaDescriptions.stream().allMatch(SchemaDescription::canInputStream);
+    }
+
+    private ThreadFactory createInitializationThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "schema-registry-init-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private <T> T getResult(Future<T> future) throws SAXException, IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while initializing schema registry", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new SystemException("Couldn't initialize schema registry: " + cause.getMessage(), cause);
+            }
         }
     }
 
-    private void parseJavaxSchema() throws SAXException, IOException {
-        schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    /**
+     * The javax schema can be created concurrently with parsing of prism schemas, so it gets its own entity resolver.
+     * The catalog resolver is not thread safe; the other data used by the resolver (registered schema descriptions)
+     * are not modified during initialization, and the schemas are read from their input streams (not DOM trees).
+     */
+    private javax.xml.validation.Schema parseJavaxSchema() throws SAXException, IOException {
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
         Source[] sources = new Source[schemaDescriptions.size()];
         int i = 0;
         for (SchemaDescription schemaDescription : schemaDescriptions) {
@@ -396,8 +492,8 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
             sources[i] = source;
             i++;
         }
-        schemaFactory.setResourceResolver(entityResolver);
-        javaxSchema = schemaFactory.newSchema(sources);
+        schemaFactory.setResourceResolver(new XmlEntityResolverImpl(this, createBuiltinSchemaResolver()));
+        return schemaFactory.newSchema(sources);
     }
 
     private void parsePrismSchemas() throws SchemaException {
@@ -408,6 +504,7 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
                 PrismSchemaImpl schema = (PrismSchemaImpl) schemaDescription.getSchema();
                 resolveMissingTypeDefinitionsInGlobalItemDefinitions(schema);
                 fillInSubtypes(schema);
+                qNameInterner.register(schema);
             }
         }
         if (LOGGER.isTraceEnabled()) {
@@ -550,17 +647,11 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
         }
     }
 
-    private void compileCompileTimeClassList() {
-        for (SchemaDescription schemaDescription : schemaDescriptions) {
-            Package pkg = schemaDescription.getCompileTimeClassesPackage();
-            if (pkg != null) {
-                Map<QName, Class<?>> map = createXsdTypeMap(pkg);
-                schemaDescription.setXsdTypeTocompileTimeClassMap(map);
-            }
-        }
+    private void initResolver() throws IOException {
+        builtinSchemaResolver = createBuiltinSchemaResolver();
     }
 
-    private void initResolver() throws IOException {
+    private EntityResolver createBuiltinSchemaResolver() throws IOException {
         CatalogManager catalogManager = new CatalogManager();
         catalogManager.setUseStaticCatalog(true);
         catalogManager.setIgnoreMissingProperties(true);
@@ -586,7 +677,7 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
             throw new IllegalStateException("Catalog is not defined");
         }
 
-        builtinSchemaResolver = catalogResolver;
+        return catalogResolver;
     }
     //endregion
 
@@ -1571,6 +1662,18 @@ public class SchemaRegistryImpl implements DebugDumpable, SchemaRegistry {
         }
     }
 
+    @NotNull
+    @Override
+    public QName internItemName(@NotNull QName name) {
+        return qNameInterner.internItemName(name);
+    }
+
+    @NotNull
+    @Override
+    public QName internTypeName(@NotNull QName name) {
+        return qNameInterner.internTypeName(name);
+    }
+
     private PrismPropertyDefinition<?> createAdHocPropertyDefinition(QName elementName, QName typeName, int minOccurs, int maxOccurs) {
         PrismPropertyDefinitionImpl<?> def = new PrismPropertyDefinitionImpl<>(elementName, typeName, prismContext);
         def.setMinOccurs(minOccurs);
@@ -13,6 +13,7 @@ import com.evolveum.midpoint.util.DOMUtil;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import org.w3c.dom.ls.LSInput;
+import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -30,9 +31,15 @@ public class XmlEntityResolverImpl implements XmlEntityResolver {
     private static final Trace LOGGER = TraceManager.getTrace(XmlEntityResolverImpl.class);
 
     private final SchemaRegistryImpl schemaRegistry;
+    private final EntityResolver builtinSchemaResolver;         // if null, the one of schema registry is used
 
     public XmlEntityResolverImpl(SchemaRegistryImpl schemaRegistry) {
+        this(schemaRegistry, null);
+    }
+
+    public XmlEntityResolverImpl(SchemaRegistryImpl schemaRegistry, EntityResolver builtinSchemaResolver) {
         this.schemaRegistry = schemaRegistry;
+        this.builtinSchemaResolver = builtinSchemaResolver;
     }
 
      /*
@@ -138,12 +145,12 @@ public class XmlEntityResolverImpl implements XmlEntityResolver {
             // we first try to use traditional pair of publicId + systemId
             // the use of namespaceUri can be misleading in case of schema fragments:
             // e.g. when xsd:including common-model-context-3 the publicId=null, systemId=.../common-model-context-3 but nsUri=.../common-3
-            inputSource = schemaRegistry.getBuiltinSchemaResolver().resolveEntity(publicId, systemId);
+            inputSource = getBuiltinSchemaResolver().resolveEntity(publicId, systemId);
             LOGGER.trace("...... Result of using builtin resolver by publicId + systemId: {}", inputSource);
             // in some weird cases (e.g. when publicId=null, systemId=xml.xsd) we go with namespaceUri (e.g. http://www.w3.org/XML/1998/namespace)
             // it's a kind of unfortunate magic here
             if (inputSource == null && namespaceURI != null) {
-                inputSource = schemaRegistry.getBuiltinSchemaResolver().resolveEntity(namespaceURI, systemId);
+                inputSource = getBuiltinSchemaResolver().resolveEntity(namespaceURI, systemId);
                 LOGGER.trace("...... Result of using builtin resolver by namespaceURI + systemId: {}", inputSource);
             }
         } catch (SAXException e) {
@@ -158,6 +165,10 @@ public class XmlEntityResolverImpl implements XmlEntityResolver {
         return inputSource;
     }
 
+    private EntityResolver getBuiltinSchemaResolver() {
+        return builtinSchemaResolver != null ? builtinSchemaResolver : schemaRegistry.getBuiltinSchemaResolver();
+    }
+
     static class Input implements LSInput {
 
         private String publicId;
@@ -1116,6 +1116,42 @@ public class TestDelta extends AbstractPrismTest {
         user.checkConsistence();
     }
 
+    /**
+     * Clones of immutable objects share the items with the original until they are needed.
+     * Checks that changing such a clone does not affect the original and gives the same result as for a regular clone.
+     */
+    @Test
+    public void testObjectDeltaComputeChangedObjectFromImmutable() throws Exception {
+        final String TEST_NAME="testObjectDeltaComputeChangedObjectFromImmutable";
+        displayTestTitle(TEST_NAME);
+        // GIVEN
+        PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+        addAssignment(user, ASSIGNMENT_PATLAMA_ID, ASSIGNMENT_PATLAMA_DESCRIPTION);
+        addAssignment(user, ASSIGNMENT_ABRAKADABRA_ID, ASSIGNMENT_ABRAKADABRA_DESCRIPTION);
+        PrismObject<UserType> mutableUser = user.clone();
+        user.setImmutable(true);
+
+        ObjectDelta<UserType> userDelta = PrismTestUtil.getPrismContext().deltaFor(UserType.class)
+                .item(UserType.F_ASSIGNMENT, ASSIGNMENT_PATLAMA_ID, AssignmentType.F_DESCRIPTION).replace("changed")
+                .item(UserType.F_ADDITIONAL_NAMES).replace(createPolyString("Cpt"))
+                .asObjectDeltaCast(USER_FOO_OID);
+
+        // WHEN
+        PrismObject<UserType> changedUser = userDelta.computeChangedObject(user);
+
+        // THEN
+        display("Changed user", changedUser);
+        assertFalse("Changed user is immutable", changedUser.isImmutable());
+        PrismAsserts.assertPropertyValue(changedUser, UserType.F_ADDITIONAL_NAMES, createPolyString("Cpt"));
+        PrismAsserts.assertPropertyValue(changedUser,
+                ItemPath.create(UserType.F_ASSIGNMENT, ASSIGNMENT_PATLAMA_ID, AssignmentType.F_DESCRIPTION), "changed");
+        PrismAsserts.assertPropertyValue(user,
+                ItemPath.create(UserType.F_ASSIGNMENT, ASSIGNMENT_PATLAMA_ID, AssignmentType.F_DESCRIPTION), ASSIGNMENT_PATLAMA_DESCRIPTION);
+        assertTrue("Original user was changed", user.equivalent(mutableUser));
+        assertTrue("Changed user differs from regular clone", changedUser.equivalent(userDelta.computeChangedObject(mutableUser)));
+        changedUser.checkConsistence();
+    }
+
     @Test
     public void testObjectDeltaFindItemDeltaModifyProperty() throws Exception {
         final String TEST_NAME="testObjectDeltaFindItemDeltaModifyProperty";
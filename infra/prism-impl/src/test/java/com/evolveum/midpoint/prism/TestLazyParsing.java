@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.prism;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_FILE_XML;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.impl.ParsingContextImpl;
+import com.evolveum.midpoint.prism.impl.PrismContainerValueImpl;
+import com.evolveum.midpoint.util.SerializationUtil;
+
+/**
+ * Tests parsing of selected items on demand (see {@link ParsingContext#lazyItems}).
+ */
+public class TestLazyParsing extends AbstractPrismTest {
+
+    private final AtomicInteger itemsParsed = new AtomicInteger();
+
+    @Test
+    public void test100PartialAccess() throws Exception {
+        final String TEST_NAME = "test100PartialAccess";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = parseLazily();
+        assertEquals("Wrong lazy items", 2, getLazyItemsCount(user));
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        PrismContainer<?> assignment = user.findContainer(UserType.F_ASSIGNMENT);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertNotNull("No assignment", assignment);
+        assertEquals("Wrong # of assignment values", 2, assignment.size());
+        assertEquals("Wrong # of items parsed", 1, itemsParsed.get());
+        assertEquals("Wrong lazy items after partial access", 1, getLazyItemsCount(user));
+
+        // non-lazy items are accessible without parsing the lazy ones
+        assertEquals("Wrong given name", "Jack", user.findProperty(UserType.F_GIVEN_NAME).getRealValue());
+        assertEquals("Wrong # of items parsed", 1, itemsParsed.get());
+    }
+
+    @Test
+    public void test110FullMaterialization() throws Exception {
+        final String TEST_NAME = "test110FullMaterialization";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = parseLazily();
+        PrismObject<UserType> eager = parseEagerly();
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        int size = user.getValue().size();
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Wrong # of items", eager.getValue().size(), size);
+        assertEquals("Lazy items remained", 0, getLazyItemsCount(user));
+        assertEquals("Wrong # of items parsed", 2, itemsParsed.get());
+        assertEquals("Wrong # of account refs", 2, user.findReference(UserType.F_ACCOUNT_REF).size());
+    }
+
+    @Test
+    public void test120Equality() throws Exception {
+        final String TEST_NAME = "test120Equality";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> eager = parseEagerly();
+
+        // WHEN+THEN (nothing parsed)
+        PrismObject<UserType> user = parseLazily();
+        assertTrue("Lazily parsed object is not equal to the eagerly parsed one", eager.equals(user));
+
+        // WHEN+THEN (partially parsed)
+        user = parseLazily();
+        user.findContainer(UserType.F_ASSIGNMENT);
+        ObjectDelta<UserType> diff = eager.diff(user);
+        assertTrue("Partially parsed object differs from the eagerly parsed one: " + diff.debugDump(), diff.isEmpty());
+
+        // WHEN+THEN (serialized without parsing and parsed again)
+        user = parseLazily();
+        String xml = getPrismContext().xmlSerializer().serialize(user);
+        assertEquals("Lazy items were parsed during serialization", 0, itemsParsed.get());
+        PrismObject<UserType> reparsed = getPrismContext().parserFor(xml).parse();
+        assertTrue("Re-parsed object is not equal to the eagerly parsed one", eager.equals(reparsed));
+
+        // WHEN+THEN (clone of immutable value)
+        user = parseLazily();
+        user.setImmutable(true);
+        PrismObject<UserType> clone = user.clone();
+        assertTrue("Clone of immutable object is not equal to the eagerly parsed one", eager.equals(clone));
+    }
+
+    /**
+     * Lazy items of an immutable (shared) object are parsed by concurrent readers.
+     */
+    @Test
+    public void test130ConcurrentMaterialization() throws Exception {
+        final String TEST_NAME = "test130ConcurrentMaterialization";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> user = parseLazily();
+        user.setImmutable(true);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            boolean assignmentFirst = i % 2 == 0;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    if (assignmentFirst) {
+                        assertEquals("Wrong # of assignment values", 2, user.findContainer(UserType.F_ASSIGNMENT).size());
+                    } else {
+                        assertEquals("Wrong # of account refs", 2, user.findReference(UserType.F_ACCOUNT_REF).size());
+                    }
+                    assertNotNull("No given name", user.findProperty(UserType.F_GIVEN_NAME));
+                    user.getValue().getItems().forEach(item -> assertNotNull("Item without parent", item.getParent()));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        if (failure.get() != null) {
+            throw new AssertionError("Concurrent access failed: " + failure.get().getMessage(), failure.get());
+        }
+        assertEquals("Lazy items remained", 0, getLazyItemsCount(user));
+        assertTrue("Object is not equal to the eagerly parsed one", parseEagerly().equals(user));
+    }
+
+    /**
+     * Items of a clone of an immutable value are copied from the original on demand, so they must be materialized
+     * when the clone is serialized.
+     */
+    @Test
+    public void test140SerializationOfImmutableClone() throws Exception {
+        final String TEST_NAME = "test140SerializationOfImmutableClone";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismObject<UserType> eager = parseEagerly();
+        PrismObject<UserType> eagerImmutable = parseEagerly();
+        eagerImmutable.setImmutable(true);
+        PrismObject<UserType> lazyImmutable = parseLazily();
+        lazyImmutable.setImmutable(true);
+
+        for (PrismObject<UserType> original : Arrays.asList(eagerImmutable, lazyImmutable)) {
+            PrismObject<UserType> clone = original.clone();
+
+            // WHEN
+            displayWhen(TEST_NAME);
+            String serialized = SerializationUtil.toString(clone);
+            PrismObject<UserType> deserialized = SerializationUtil.fromString(serialized);
+
+            // THEN
+            displayThen(TEST_NAME);
+            deserialized.revive(getPrismContext());
+            ObjectDelta<UserType> diff = eager.diff(deserialized);
+            assertTrue("Deserialized clone differs from the eagerly parsed object: " + diff.debugDump(), diff.isEmpty());
+            assertEquals("Wrong # of assignment values", 2, deserialized.findContainer(UserType.F_ASSIGNMENT).size());
+        }
+    }
+
+    private PrismObject<UserType> parseLazily() throws Exception {
+        itemsParsed.set(0);
+        ParsingContext parsingContext = ParsingContextImpl.createDefault()
+                .lazyItems(Arrays.asList(UserType.F_ASSIGNMENT, UserType.F_ACCOUNT_REF), item -> itemsParsed.incrementAndGet());
+        return getPrismContext().parserFor(USER_JACK_FILE_XML).context(parsingContext).parse();
+    }
+
+    private PrismObject<UserType> parseEagerly() throws Exception {
+        return getPrismContext().parserFor(USER_JACK_FILE_XML).parse();
+    }
+
+    private int getLazyItemsCount(PrismObject<UserType> user) {
+        return ((PrismContainerValueImpl<?>) user.getValue()).getLazyItems().size();
+    }
+}
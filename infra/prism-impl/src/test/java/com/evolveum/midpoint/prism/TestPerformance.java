@@ -6,6 +6,8 @@
  */
 package com.evolveum.midpoint.prism;
 
+import static org.testng.AssertJUnit.assertTrue;
+
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
 
 import javax.xml.namespace.QName;
@@ -15,6 +17,10 @@ import org.testng.annotations.Test;
 
 import com.evolveum.midpoint.prism.foo.AssignmentType;
 import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.impl.match.MatchingRuleRegistryFactory;
+import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.util.PrettyPrinter;
 
 /**
@@ -89,4 +95,51 @@ public class TestPerformance {
         System.out.println(user.debugDump());
     }
 
+    /**
+     * Compares in-memory matching of a mutable filter (compiled on each call) with an immutable one
+     * (compiled only once).
+     */
+    @Test
+    public void testPerfFilterMatch() throws Exception {
+        final String TEST_NAME = "testPerfFilterMatch";
+        PrismInternalTestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        PrismContext ctx = constructInitializedPrismContext();
+        MatchingRuleRegistry matchingRuleRegistry = MatchingRuleRegistryFactory.createRegistry();
+        PrismObject<UserType> user = ctx.parserFor(USER_JACK_FILE_XML).parse();
+        ObjectFilter mutableFilter = ctx.queryFor(UserType.class)
+                .item(UserType.F_FAMILY_NAME).eq("Sparrow")
+                .and()
+                    .block()
+                        .item(UserType.F_GIVEN_NAME).eq("jack").matchingCaseIgnore()
+                        .or().item(UserType.F_GIVEN_NAME).eq("Jackie")
+                    .endBlock()
+                .and().not().item(UserType.F_ACCOUNT_REF).ref("xxxxxxxxxxxxxx")
+                .buildFilter();
+        ObjectFilter immutableFilter = mutableFilter.clone();
+        immutableFilter.setImmutable(true);
+        PerfRecorder recorderMutable = new PerfRecorder("matchMutable");
+        PerfRecorder recorderImmutable = new PerfRecorder("matchImmutable");
+
+        // WHEN
+        for (int i = 0; i < ITERATIONS; i++) {
+            long tsStart = System.nanoTime();
+            boolean mutableMatch = ObjectQuery.match(user, mutableFilter, matchingRuleRegistry);
+            long ts1 = System.nanoTime();
+            boolean immutableMatch = ObjectQuery.match(user, immutableFilter, matchingRuleRegistry);
+            long tsEnd = System.nanoTime();
+
+            assertTrue("Mutable filter does not match", mutableMatch);
+            assertTrue("Immutable filter does not match", immutableMatch);
+            recorderMutable.record(i, ((double)(ts1 - tsStart))/1000000);
+            recorderImmutable.record(i, ((double)(tsEnd - ts1))/1000000);
+        }
+
+        // THEN
+        System.out.println(recorderMutable.dump());
+        System.out.println(recorderImmutable.dump());
+
+        recorderImmutable.assertAverageBelow(0.05D);
+    }
 }
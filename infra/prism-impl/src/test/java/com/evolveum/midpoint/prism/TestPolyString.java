@@ -16,6 +16,7 @@ import static org.testng.AssertJUnit.assertTrue;
 import javax.xml.namespace.QName;
 
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.apache.commons.lang.StringUtils;
 import org.testng.annotations.Test;
 
 import com.evolveum.midpoint.prism.foo.UserType;
@@ -26,6 +27,7 @@ import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.polystring.PolyStringNormalizer;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringNormalizerConfigurationType;
 
+import java.text.Normalizer;
 import java.util.HashMap;
 
 /**
@@ -220,6 +222,55 @@ public class TestPolyString extends AbstractPrismTest {
                 "  Ľala  ho  papľuha!    ");
     }
 
+    /**
+     * Compares the (optimized) alphanumeric normalizer with the original regex-based algorithm.
+     */
+    @Test
+    public void testAlphaNormalizationEquivalentToRegex() {
+        final String TEST_NAME = "testAlphaNormalizationEquivalentToRegex";
+        displayTestTitle(TEST_NAME);
+
+        AlphanumericPolyStringNormalizer normalizer = new AlphanumericPolyStringNormalizer();
+        String[] origs = {
+                "", " ", "jack", "Jack Sparrow", "  jack \t\n sparrow  ", "a\u000Bb\fc\rd", "a_b-c.d@e",
+                "@ x", "x @", "\u00A0nbsp\u00A0", "\u2003em\u2003space",
+                "Gul\u00F4\u010Dka  v jam\u00F4\u010Dke", "\u041F\u0440\u043E\u043B\u0435\u0442\u0430\u0440\u0438\u0438",
+                "\uFB01ne \u2163", "\uD83D\uDE00 smile", "J\u00FCrgen M\u00FCller-L\u00FCdenscheidt", "\u5C71\u7530 \u592A\u90CE"
+        };
+        for (String orig : origs) {
+            String expected = normalizeUsingRegex(orig);
+            assertEquals("wrong norm for '" + unicodeEscape(orig) + "'", expected, normalizer.normalize(orig));
+        }
+    }
+
+    private String normalizeUsingRegex(String orig) {
+        String s = StringUtils.trim(orig);
+        s = Normalizer.normalize(s, Normalizer.Form.NFKD);
+        s = s.replaceAll("[^\\w\\s\\d]", "");
+        s = s.replaceAll("\\s+", " ");
+        if (StringUtils.isBlank(s)) {
+            return "";
+        }
+        return StringUtils.lowerCase(s);
+    }
+
+    @Test
+    public void testNormalizationCache() {
+        final String TEST_NAME = "testNormalizationCache";
+        displayTestTitle(TEST_NAME);
+
+        AlphanumericPolyStringNormalizer normalizer = new AlphanumericPolyStringNormalizer();
+        PolyStringNormalizerConfigurationType configuration = new PolyStringNormalizerConfigurationType();
+        configuration.setCacheSize(2);
+        normalizer.configure(configuration);
+
+        for (int i = 0; i < 3; i++) {
+            testNormalization(normalizer, "Jack Sparrow", "jack sparrow");
+            testNormalization(normalizer, " Gul\u00F4\u010Dka ", "gulocka");
+            testNormalization(normalizer, "Will  Turner", "will turner");
+        }
+    }
+
     private void testNormalization(PolyStringNormalizer normalizer, String orig, String expectedNorm) {
         PolyString polyString = new PolyString(orig);
         polyString.recompute(normalizer);
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.prism;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.delta.PropertyDelta;
+import com.evolveum.midpoint.prism.delta.ReferenceDelta;
+import com.evolveum.midpoint.prism.equivalence.EquivalenceStrategy;
+import com.evolveum.midpoint.prism.equivalence.ParameterizedEquivalenceStrategy;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.impl.delta.PropertyDeltaImpl;
+import com.evolveum.midpoint.prism.impl.delta.ReferenceDeltaImpl;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+
+/**
+ * Checks that operations using {@link PrismValueIndex} give the same results as the linear algorithms.
+ */
+public class TestPrismValueIndex extends AbstractPrismTest {
+
+    private static final int VALUES = 2 * PrismValueIndex.THRESHOLD;
+
+    private static final QName RELATION_MANAGER = new QName(NS_FOO, "manager");
+
+    private static final List<ParameterizedEquivalenceStrategy> STRATEGIES = Arrays.asList(
+            EquivalenceStrategy.LITERAL,
+            EquivalenceStrategy.NOT_LITERAL,
+            EquivalenceStrategy.IGNORE_METADATA,
+            EquivalenceStrategy.IGNORE_METADATA_CONSIDER_DIFFERENT_IDS,
+            EquivalenceStrategy.LITERAL_IGNORE_METADATA,
+            EquivalenceStrategy.REAL_VALUE,
+            EquivalenceStrategy.REAL_VALUE_CONSIDER_DIFFERENT_IDS);
+
+    @Test
+    public void test100ContainsUnderAllStrategies() {
+        final String TEST_NAME = "test100ContainsUnderAllStrategies";
+        displayTestTitle(TEST_NAME);
+
+        List<PrismValue> values = createMixedValues();
+        PrismValueIndex<PrismValue> index = new PrismValueIndex<>(values);
+        assertEquals("Wrong index size", values.size(), index.size());
+
+        List<PrismValue> lookups = new ArrayList<>(createMixedValues());
+        lookups.add(createPropertyValue("nonexistent"));
+        lookups.add(createPropertyValue(new PolyString("nonexistent")));
+        lookups.add(createReferenceValue("nonexistent", null));
+
+        int found = 0;
+        for (ParameterizedEquivalenceStrategy strategy : STRATEGIES) {
+            for (PrismValue lookup : lookups) {
+                boolean expected = containsLinear(values, lookup, strategy);
+                assertEquals("Wrong result for " + lookup + " under " + strategy, expected, index.contains(lookup, strategy));
+                if (expected) {
+                    found++;
+                }
+            }
+        }
+        assertTrue("No value was found at all", found > 0);
+    }
+
+    @Test
+    public void test200AddAll() throws Exception {
+        final String TEST_NAME = "test200AddAll";
+        displayTestTitle(TEST_NAME);
+
+        PrismProperty<String> indexed = createUser().findOrCreateProperty(USER_ADDITIONALNAMES_QNAME);
+        PrismProperty<String> linear = createUser().findOrCreateProperty(USER_ADDITIONALNAMES_QNAME);
+        for (int i = 0; i < VALUES; i++) {
+            indexed.addRealValue("name" + i);
+            linear.addRealValue("name" + i);
+        }
+
+        // half of the values exist, some are duplicated in the added collection
+        List<String> toAdd = new ArrayList<>();
+        for (int i = VALUES / 2; i < VALUES * 3 / 2; i++) {
+            toAdd.add("name" + i);
+        }
+        toAdd.add("name" + (VALUES + 1));
+        toAdd.add("name0");
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        indexed.addAll(createPropertyValues(toAdd));
+        for (PrismPropertyValue<String> value : createPropertyValues(toAdd)) {
+            linear.add(value);
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Indexed and linear addAll differ", linear.getRealValues(), indexed.getRealValues());
+        assertEquals("Wrong # of values", VALUES * 3 / 2, indexed.size());
+        assertParent(indexed);
+    }
+
+    @Test
+    public void test210RemoveAll() throws Exception {
+        final String TEST_NAME = "test210RemoveAll";
+        displayTestTitle(TEST_NAME);
+
+        PrismReference indexed = createUser().findOrCreateReference(USER_ACCOUNTREF_QNAME);
+        PrismReference linear = createUser().findOrCreateReference(USER_ACCOUNTREF_QNAME);
+        for (PrismReferenceValue value : createReferenceValues(0, VALUES)) {
+            indexed.add(value);
+        }
+        for (PrismReferenceValue value : createReferenceValues(0, VALUES)) {
+            linear.add(value);
+        }
+
+        // some of the values do not exist, some differ in relation
+        List<PrismReferenceValue> toRemove = createReferenceValues(VALUES / 2, VALUES * 3 / 2);
+        toRemove.add(createReferenceValue("oid0", RELATION_MANAGER));
+        toRemove.add(createReferenceValue("oid1", null));
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        indexed.removeAll(cloneValues(toRemove));
+        for (PrismReferenceValue value : cloneValues(toRemove)) {
+            linear.remove(value);
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Indexed and linear removeAll differ", describe(linear.getValues()), describe(indexed.getValues()));
+        assertTrue("Nothing was removed", indexed.size() < VALUES);
+    }
+
+    @Test
+    public void test220ApplyPropertyDelta() throws Exception {
+        final String TEST_NAME = "test220ApplyPropertyDelta";
+        displayTestTitle(TEST_NAME);
+
+        PrismProperty<String> indexed = createUser().findOrCreateProperty(USER_ADDITIONALNAMES_QNAME);
+        PrismProperty<String> linear = createUser().findOrCreateProperty(USER_ADDITIONALNAMES_QNAME);
+        for (int i = 0; i < VALUES; i++) {
+            indexed.addRealValue("name" + i);
+            linear.addRealValue("name" + i);
+        }
+
+        List<String> toAdd = new ArrayList<>();
+        List<String> toDelete = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++) {
+            toAdd.add("name" + (i + VALUES / 2));
+            toDelete.add("name" + (i * 2));
+        }
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        PropertyDelta<String> delta = new PropertyDeltaImpl<>(indexed.getDefinition(), getPrismContext());
+        delta.addRealValuesToAdd(toAdd);
+        delta.addRealValuesToDelete(toDelete);
+        delta.applyTo(indexed);
+
+        for (String value : toDelete) {
+            PropertyDelta<String> single = new PropertyDeltaImpl<>(linear.getDefinition(), getPrismContext());
+            single.addRealValuesToDelete(value);
+            single.applyTo(linear);
+        }
+        for (String value : toAdd) {
+            PropertyDelta<String> single = new PropertyDeltaImpl<>(linear.getDefinition(), getPrismContext());
+            single.addRealValuesToAdd(value);
+            single.applyTo(linear);
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Indexed and linear delta application differ", linear.getRealValues(), indexed.getRealValues());
+    }
+
+    @Test
+    public void test230ApplyReferenceDelta() throws Exception {
+        final String TEST_NAME = "test230ApplyReferenceDelta";
+        displayTestTitle(TEST_NAME);
+
+        PrismReference indexed = createUser().findOrCreateReference(USER_ACCOUNTREF_QNAME);
+        PrismReference linear = createUser().findOrCreateReference(USER_ACCOUNTREF_QNAME);
+        for (PrismReferenceValue value : createReferenceValues(0, VALUES)) {
+            indexed.add(value);
+        }
+        for (PrismReferenceValue value : createReferenceValues(0, VALUES)) {
+            linear.add(value);
+        }
+
+        List<PrismReferenceValue> toAdd = createReferenceValues(VALUES / 2, VALUES * 3 / 2);
+        toAdd.add(createReferenceValue("oid2", RELATION_MANAGER));
+        List<PrismReferenceValue> toDelete = createReferenceValues(0, VALUES / 4);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        ReferenceDelta delta = new ReferenceDeltaImpl(indexed.getDefinition(), getPrismContext());
+        delta.addValuesToDelete(cloneValues(toDelete));
+        delta.addValuesToAdd(cloneValues(toAdd));
+        delta.applyTo(indexed);
+
+        for (PrismReferenceValue value : cloneValues(toDelete)) {
+            ReferenceDelta single = new ReferenceDeltaImpl(linear.getDefinition(), getPrismContext());
+            single.addValuesToDelete(value);
+            single.applyTo(linear);
+        }
+        for (PrismReferenceValue value : cloneValues(toAdd)) {
+            ReferenceDelta single = new ReferenceDeltaImpl(linear.getDefinition(), getPrismContext());
+            single.addValuesToAdd(value);
+            single.applyTo(linear);
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Indexed and linear delta application differ", describe(linear.getValues()), describe(indexed.getValues()));
+    }
+
+    private boolean containsLinear(Collection<? extends PrismValue> values, PrismValue value, EquivalenceStrategy strategy) {
+        for (PrismValue candidate : values) {
+            if (strategy.equals(candidate, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Values of various kinds: indexable and non-indexable ones, and values that are equal only under some strategies.
+     */
+    private List<PrismValue> createMixedValues() {
+        List<PrismValue> values = new ArrayList<>();
+        for (int i = 0; i < VALUES; i++) {
+            values.add(createPropertyValue("string" + i));
+            values.add(createPropertyValue(i));
+        }
+        values.add(createPropertyValue(new PolyString("Jack Sparrow")));
+        values.add(createPropertyValue(new PolyString("Jack Sparrow", "differentnorm")));
+        values.add(createPropertyValue(new QName(NS_FOO, "name", "foo")));
+        values.add(createPropertyValue(new QName(NS_FOO, "name", "bar")));
+        values.add(createPropertyValue(true));
+        values.add(createPropertyValue("not indexable".getBytes()));
+        values.add(createReferenceValue("oid1", null));
+        values.add(createReferenceValue("oid1", RELATION_MANAGER));
+        values.add(createReferenceValue(null, null));
+        return values;
+    }
+
+    private <T> PrismPropertyValue<T> createPropertyValue(T realValue) {
+        return getPrismContext().itemFactory().createPropertyValue(realValue);
+    }
+
+    private List<PrismPropertyValue<String>> createPropertyValues(Collection<String> realValues) {
+        return realValues.stream()
+                .map(this::createPropertyValue)
+                .collect(Collectors.toList());
+    }
+
+    private PrismReferenceValue createReferenceValue(String oid, QName relation) {
+        PrismReferenceValue value = getPrismContext().itemFactory().createReferenceValue(oid, ACCOUNT_TYPE_QNAME);
+        value.setRelation(relation);
+        return value;
+    }
+
+    /**
+     * References to oid{from}..oid{to-1}; every third one has non-default relation.
+     */
+    private List<PrismReferenceValue> createReferenceValues(int from, int to) {
+        List<PrismReferenceValue> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(createReferenceValue("oid" + i, i % 3 == 0 ? RELATION_MANAGER : null));
+        }
+        return values;
+    }
+
+    private List<PrismReferenceValue> cloneValues(List<PrismReferenceValue> values) {
+        return values.stream()
+                .map(PrismReferenceValue::clone)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> describe(List<PrismReferenceValue> values) {
+        return values.stream()
+                .map(v -> v.getOid() + "/" + v.getRelation())
+                .collect(Collectors.toList());
+    }
+
+    private void assertParent(Item<?, ?> item) {
+        for (PrismValue value : item.getValues()) {
+            assertEquals("Wrong parent of " + value, item, value.getParent());
+        }
+    }
+
+    private PrismObject<UserType> createUser() throws Exception {
+        return getUserTypeDefinition().instantiate();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.prism.impl.marshaller;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.DEFAULT_NAMESPACE_PREFIX;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismInternalTestUtil;
+import com.evolveum.midpoint.prism.foo.*;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+
+/**
+ * Measures concurrent lookups in {@link PrismBeanInspector} caches, as done by bean marshaller and unmarshaller
+ * for each bean property.
+ *
+ * The baseline emulates the original caches (synchronized maps accessed by containsKey + get), so the numbers
+ * show the difference between the lock-based and the concurrent maps under contention.
+ */
+public class TestBeanInspectorPerformance {
+
+    private static final int ITERATIONS = 20000;
+    private static final List<Class<?>> BEAN_CLASSES = Arrays.asList(UserType.class, AccountType.class,
+            AssignmentType.class, ActivationType.class, AccountConstructionType.class, ResourceType.class);
+
+    private PrismBeanInspector inspector;
+
+    @BeforeSuite
+    public void setupDebug() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(DEFAULT_NAMESPACE_PREFIX);
+        PrismTestUtil.resetPrismContext(new PrismInternalTestUtil());
+        inspector = new PrismBeanInspector(PrismTestUtil.getPrismContext());
+    }
+
+    @Test
+    public void test100ConcurrentLookups() throws Exception {
+        final String TEST_NAME = "test100ConcurrentLookups";
+        PrismInternalTestUtil.displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        Map<String, Method> expected = lookUp(inspector);       // also warms up the caches
+        LockingInspectorCache baseline = new LockingInspectorCache(inspector);
+        assertEquals("Baseline returns different results", expected, lookUp(baseline));
+        int threads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+        // WHEN
+        long baselineSingle = measure(1, () -> lookUp(baseline), expected);
+        long baselineConcurrent = measure(threads, () -> lookUp(baseline), expected);
+        long currentSingle = measure(1, () -> lookUp(inspector), expected);
+        long currentConcurrent = measure(threads, () -> lookUp(inspector), expected);
+
+        // THEN
+        System.out.println("Lookups of " + expected.size() + " properties, " + ITERATIONS + " iterations per thread:");
+        System.out.println("Synchronized maps, 1 thread: " + baselineSingle + " ms");
+        System.out.println("Synchronized maps, " + threads + " threads: " + baselineConcurrent + " ms");
+        System.out.println("Concurrent maps, 1 thread: " + currentSingle + " ms");
+        System.out.println("Concurrent maps, " + threads + " threads: " + currentConcurrent + " ms");
+
+        // Timing is not asserted, as it depends too much on the environment. The results must be correct, though.
+    }
+
+    private interface Inspector {
+        List<String> getPropOrder(Class<?> beanClass);
+        Method findPropertyGetter(Class<?> beanClass, String propName);
+        Method findSetter(Class<?> beanClass, String propName);
+    }
+
+    private Map<String, Method> lookUp(PrismBeanInspector inspector) {
+        return lookUp(new Inspector() {
+            @Override
+            public List<String> getPropOrder(Class<?> beanClass) {
+                return inspector.getPropOrder(beanClass);
+            }
+
+            @Override
+            public Method findPropertyGetter(Class<?> beanClass, String propName) {
+                return inspector.findPropertyGetter(beanClass, propName);
+            }
+
+            @Override
+            public Method findSetter(Class<?> beanClass, String propName) {
+                return inspector.findSetter(beanClass, propName);
+            }
+        });
+    }
+
+    private Map<String, Method> lookUp(Inspector inspector) {
+        Map<String, Method> rv = new HashMap<>();
+        for (Class<?> beanClass : BEAN_CLASSES) {
+            for (String propName : inspector.getPropOrder(beanClass)) {
+                rv.put(beanClass.getSimpleName() + "." + propName + ":get", inspector.findPropertyGetter(beanClass, propName));
+                rv.put(beanClass.getSimpleName() + "." + propName + ":set", inspector.findSetter(beanClass, propName));
+            }
+        }
+        return rv;
+    }
+
+    private long measure(int threads, Lookup lookup, Map<String, Method> expected) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        Map<String, Method> result = lookup.run();
+                        if (j == 0) {
+                            assertEquals("Wrong lookup results", expected, result);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        assertNull("Lookups failed: " + failure.get(), failure.get());
+        return duration;
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        Map<String, Method> run();
+    }
+
+    /**
+     * Caches of the same structure as the original PrismBeanInspector ones, i.e. (nested) synchronized maps
+     * accessed by containsKey + get.
+     */
+    private static class LockingInspectorCache implements Inspector {
+
+        private final PrismBeanInspector inspector;
+        private final Map<Class<?>, List<String>> getPropOrder = Collections.synchronizedMap(new HashMap<>());
+        private final Map<Class<?>, Map<String, Method>> findPropertyGetter = Collections.synchronizedMap(new HashMap<>());
+        private final Map<Class<?>, Map<String, Method>> findSetter = Collections.synchronizedMap(new HashMap<>());
+
+        private LockingInspectorCache(PrismBeanInspector inspector) {
+            this.inspector = inspector;
+        }
+
+        @Override
+        public List<String> getPropOrder(Class<?> beanClass) {
+            return find1(getPropOrder, beanClass, inspector::getPropOrder);
+        }
+
+        @Override
+        public Method findPropertyGetter(Class<?> beanClass, String propName) {
+            Map<String, Method> cache2 = findPropertyGetter.computeIfAbsent(beanClass, k -> Collections.synchronizedMap(new HashMap<>()));
+            return find1(cache2, propName, p -> inspector.findPropertyGetter(beanClass, p));
+        }
+
+        @Override
+        public Method findSetter(Class<?> beanClass, String propName) {
+            Map<String, Method> cache2 = findSetter.computeIfAbsent(beanClass, k -> Collections.synchronizedMap(new HashMap<>()));
+            return find1(cache2, propName, p -> inspector.findSetter(beanClass, p));
+        }
+
+        private <K, V> V find1(Map<K, V> cache, K key, Function<K, V> getter) {
+            if (cache.containsKey(key)) {
+                return cache.get(key);
+            } else {
+                V value = getter.apply(key);
+                cache.put(key, value);
+                return value;
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.DEFAULT_NAMESPACE_PREFIX;
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
@@ -254,4 +255,105 @@ public class TestObjectQuery {
         boolean match = ObjectQuery.match(user, filter, matchingRuleRegistry);
         AssertJUnit.assertFalse("filter matches object, but it should not", match);
     }
+
+    /**
+     * Immutable filters keep their compiled form. The results must be the same as for mutable (non-cached) ones,
+     * also when the filter is evaluated repeatedly against different objects.
+     */
+    @Test
+    public void testImmutableFilterMatchesLikeMutable() throws Exception {
+        PrismObject<UserType> jack = PrismTestUtil.parseObject(PrismInternalTestUtil.USER_JACK_FILE_XML);
+        PrismObject<UserType> jackie = jack.clone();
+        jackie.findProperty(UserType.F_GIVEN_NAME).setRealValue("Jackie");
+        jackie.removeContainer(UserType.F_ASSIGNMENT);
+        PrismObject<UserType> nobody = jack.clone();
+        nobody.findProperty(UserType.F_GIVEN_NAME).setRealValue("Nobody");
+
+        ObjectFilter mutable = getPrismContext().queryFor(UserType.class)
+                .item(UserType.F_FAMILY_NAME).eq("Sparrow")
+                .and()
+                    .block()
+                        .item(UserType.F_GIVEN_NAME).eq("jack").matchingCaseIgnore()
+                        .or().item(UserType.F_GIVEN_NAME).eq("Jackie")
+                    .endBlock()
+                .and().not().item(UserType.F_ACCOUNT_REF).ref("xxxxxxxxxxxxxx")
+                .and().not().exists(UserType.F_ASSIGNMENT)
+                        .item(AssignmentType.F_DESCRIPTION).eq("Assignment NONE")
+                .buildFilter();
+        ObjectFilter immutable = mutable.clone();
+        immutable.setImmutable(true);
+
+        for (int round = 0; round < 2; round++) {
+            for (PrismObject<UserType> user : Arrays.asList(jack, jackie, nobody)) {
+                boolean expected = ObjectQuery.match(user, mutable, matchingRuleRegistry);
+                AssertJUnit.assertEquals("Wrong result for immutable filter on " + user, expected,
+                        ObjectQuery.match(user, immutable, matchingRuleRegistry));
+            }
+        }
+        AssertJUnit.assertTrue("filter does not match jack", ObjectQuery.match(jack, immutable, matchingRuleRegistry));
+        AssertJUnit.assertTrue("filter does not match jackie", ObjectQuery.match(jackie, immutable, matchingRuleRegistry));
+        AssertJUnit.assertFalse("filter matches nobody", ObjectQuery.match(nobody, immutable, matchingRuleRegistry));
+    }
+
+    /**
+     * Conditions of a compiled AND filter are compiled only when they are reached. The second condition has an unknown
+     * matching rule, so compiling it would fail; it must not be touched, because the first condition does not match.
+     */
+    @Test
+    public void testImmutableFilterShortCircuit() throws Exception {
+        PrismObject<UserType> user = PrismTestUtil.parseObject(PrismInternalTestUtil.USER_JACK_FILE_XML);
+        ObjectFilter filter = getPrismContext().queryFor(UserType.class)
+                .item(UserType.F_GIVEN_NAME).eq("Nobody")
+                .and().item(UserType.F_FAMILY_NAME).eq("Sparrow").matching(new QName("a-rule"))
+                .buildFilter();
+        ObjectFilter immutable = filter.clone();
+        immutable.setImmutable(true);
+
+        AssertJUnit.assertFalse("mutable filter matches object", ObjectQuery.match(user, filter, matchingRuleRegistry));
+        AssertJUnit.assertFalse("immutable filter matches object", ObjectQuery.match(user, immutable, matchingRuleRegistry));
+    }
+
+    @Test
+    public void testImmutableFilterCannotBeModified() throws Exception {
+        PrismObject<UserType> user = PrismTestUtil.parseObject(PrismInternalTestUtil.USER_JACK_FILE_XML);
+        AndFilter filter = (AndFilter) getPrismContext().queryFor(UserType.class)
+                .item(UserType.F_GIVEN_NAME).eq("Jack")
+                .and().item(UserType.F_FAMILY_NAME).eq("Sparrow")
+                .buildFilter();
+        filter.setImmutable(true);
+        AssertJUnit.assertTrue("filter does not match object", ObjectQuery.match(user, filter, matchingRuleRegistry));
+
+        EqualFilter<?> givenNameFilter = (EqualFilter<?>) filter.getConditions().get(0);
+        AssertJUnit.assertTrue("subfilter is not immutable", givenNameFilter.isImmutable());
+        try {
+            filter.addCondition(getPrismContext().queryFactory().createNone());
+            AssertJUnit.fail("immutable filter was modified");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            givenNameFilter.setMatchingRule(new QName("a-rule"));
+            AssertJUnit.fail("immutable subfilter was modified");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            filter.getConditions().clear();
+            AssertJUnit.fail("conditions of immutable filter were modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        // clones are mutable; changing them does not influence the original (compiled) filter
+        AndFilter clone = filter.clone();
+        AssertJUnit.assertFalse("clone is immutable", clone.isImmutable());
+        clone.addCondition(getPrismContext().queryFactory().createNone());
+        AssertJUnit.assertFalse("changed clone matches object", ObjectQuery.match(user, clone, matchingRuleRegistry));
+        AssertJUnit.assertTrue("original filter does not match object", ObjectQuery.match(user, filter, matchingRuleRegistry));
+
+        // after making the filter mutable again, the compiled form must not be used any more
+        filter.setImmutable(false);
+        filter.addCondition(getPrismContext().queryFactory().createNone());
+        AssertJUnit.assertFalse("changed filter matches object", ObjectQuery.match(user, filter, matchingRuleRegistry));
+    }
 }
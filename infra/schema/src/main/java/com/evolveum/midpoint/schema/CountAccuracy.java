@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.schema;
+
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CountAccuracyType;
+
+/**
+ * How accurate should be the result of countObjects operation. Currently applies to counting resource objects
+ * (shadows) in provisioning; other components always provide exact counts.
+ *
+ * EXPERIMENTAL
+ */
+public enum CountAccuracy {
+
+    /**
+     * The count must be exact, even if it requires a (potentially very expensive) full scan of resource objects.
+     * This is the default.
+     */
+    EXACT,
+
+    /**
+     * An estimate is acceptable. The count can be provided e.g. by a paged search estimate, taken from the repository
+     * shadows (that may be out of date) or reused from a recent count of the same objects.
+     */
+    ESTIMATE;
+
+    /**
+     * Name of the operation result return value telling whether the returned count is only an estimate.
+     * It is recorded (as "true" or "false") by the component that computed the count.
+     */
+    public static final String RETURN_COUNT_ESTIMATED = "countEstimated";
+
+    public static CountAccuracyType toCountAccuracyType(CountAccuracy value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value) {
+            case EXACT: return CountAccuracyType.EXACT;
+            case ESTIMATE: return CountAccuracyType.ESTIMATE;
+            default: throw new IllegalArgumentException("value: " + value);
+        }
+    }
+
+    public static CountAccuracy toCountAccuracy(CountAccuracyType value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value) {
+            case EXACT: return CountAccuracy.EXACT;
+            case ESTIMATE: return CountAccuracy.ESTIMATE;
+            default: throw new IllegalArgumentException("value: " + value);
+        }
+    }
+}
@@ -192,6 +192,13 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
      */
     private Boolean executionPhase;
 
+    /**
+     * How accurate should be the result of countObjects operation. Null means EXACT.
+     *
+     * EXPERIMENTAL
+     */
+    private CountAccuracy countAccuracy;
+
     /*
      *  !!! After adding option here don't forget to update equals, clone, merge, etc. !!!
      */
@@ -880,6 +887,33 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         return opts;
     }
 
+    public CountAccuracy getCountAccuracy() {
+        return countAccuracy;
+    }
+
+    public void setCountAccuracy(CountAccuracy countAccuracy) {
+        this.countAccuracy = countAccuracy;
+    }
+
+    public GetOperationOptions countAccuracy(CountAccuracy countAccuracy) {
+        this.countAccuracy = countAccuracy;
+        return this;
+    }
+
+    public static CountAccuracy getCountAccuracy(GetOperationOptions options) {
+        return options != null ? options.countAccuracy : null;
+    }
+
+    public static boolean isEstimatedCount(GetOperationOptions options) {
+        return getCountAccuracy(options) == CountAccuracy.ESTIMATE;
+    }
+
+    public static GetOperationOptions createCountAccuracy(CountAccuracy value) {
+        GetOperationOptions opts = new GetOperationOptions();
+        opts.setCountAccuracy(value);
+        return opts;
+    }
+
     public RelationalValueSearchQuery getRelationalValueSearchQuery() {
         return relationalValueSearchQuery;
     }
@@ -911,14 +945,16 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
                 Objects.equals(pointInTimeType, that.pointInTimeType) &&
                 Objects.equals(staleness, that.staleness) &&
                 Objects.equals(attachDiagData, that.attachDiagData) &&
-                Objects.equals(executionPhase, that.executionPhase);
+                Objects.equals(executionPhase, that.executionPhase) &&
+                countAccuracy == that.countAccuracy;
     }
 
     @Override
     public int hashCode() {
         return Objects
                 .hash(retrieve, resolve, resolveNames, noFetch, raw, tolerateRawData, doNotDiscovery, relationalValueSearchQuery,
-                        allowNotFound, readOnly, staleness, distinct, definitionProcessing, attachDiagData, executionPhase);
+                        allowNotFound, readOnly, staleness, distinct, definitionProcessing, attachDiagData, executionPhase,
+                        countAccuracy);
     }
 
     public GetOperationOptions clone() {
@@ -940,6 +976,7 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
             clone.relationalValueSearchQuery = this.relationalValueSearchQuery.clone();
         }
         clone.definitionProcessing = this.definitionProcessing;
+        clone.countAccuracy = this.countAccuracy;
         return clone;
     }
 
@@ -968,6 +1005,7 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         appendVal(sb, "definitionProcessing", definitionProcessing);
         appendFlag(sb, "attachDiagData", attachDiagData);
         appendFlag(sb, "executionPhase", executionPhase);
+        appendVal(sb, "countAccuracy", countAccuracy);
         removeLastComma(sb);
     }
 
@@ -1110,5 +1148,8 @@ public class GetOperationOptions extends AbstractOptions implements Serializable
         if (increment.executionPhase != null) {
             this.executionPhase = increment.executionPhase;
         }
+        if (increment.countAccuracy != null) {
+            this.countAccuracy = increment.countAccuracy;
+        }
     }
 }
@@ -59,6 +59,7 @@ public interface GetOperationOptionsBuilder {
     GetOperationOptionsBuilder iterationMethod(IterationMethodType value);
     GetOperationOptionsBuilder executionPhase();
     GetOperationOptionsBuilder executionPhase(Boolean value);
+    GetOperationOptionsBuilder countAccuracy(CountAccuracy value);
 
     GetOperationOptionsBuilder setFrom(Collection<SelectorOptions<GetOperationOptions>> options);
     GetOperationOptionsBuilder mergeFrom(Collection<SelectorOptions<GetOperationOptions>> options);
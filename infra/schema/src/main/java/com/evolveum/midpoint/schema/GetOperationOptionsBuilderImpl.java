@@ -231,6 +231,11 @@ public class GetOperationOptionsBuilderImpl implements GetOperationOptionsBuilde
         return forPaths(opts -> opts.setIterationMethod(value));
     }
 
+    @Override
+    public GetOperationOptionsBuilder countAccuracy(CountAccuracy value) {
+        return forPaths(opts -> opts.setCountAccuracy(value));
+    }
+
     @Override
     public GetOperationOptionsBuilder executionPhase() {
         return executionPhase(true);
@@ -277,6 +277,7 @@ public abstract class SchemaConstants {
     public static final ItemName MODEL_EXTENSION_RETRY_LIVE_SYNC_ERRORS = new ItemName(NS_MODEL_EXTENSION, "retryLiveSyncErrors");
     public static final ItemName MODEL_EXTENSION_UPDATE_LIVE_SYNC_TOKEN_IN_DRY_RUN = new ItemName(NS_MODEL_EXTENSION, "updateLiveSyncTokenInDryRun");
     public static final ItemName MODEL_EXTENSION_LIVE_SYNC_BATCH_SIZE = new ItemName(NS_MODEL_EXTENSION, "liveSyncBatchSize");
+    public static final ItemName MODEL_EXTENSION_LIVE_SYNC_COALESCING_WINDOW = new ItemName(NS_MODEL_EXTENSION, "liveSyncCoalescingWindow");
     public static final ItemName MODEL_EXTENSION_FINISH_OPERATIONS_ONLY = new ItemName(NS_MODEL_EXTENSION, "finishOperationsOnly");
     public static final ItemName MODEL_EXTENSION_KIND = new ItemName(NS_MODEL_EXTENSION, "kind");
     public static final ItemName MODEL_EXTENSION_INTENT = new ItemName(NS_MODEL_EXTENSION, "intent");
@@ -350,6 +351,11 @@ public abstract class SchemaConstants {
     public static final ItemName MODEL_EXTENSION_OBJECT_DELTA = new ItemName(NS_MODEL_EXTENSION, "objectDelta");
     public static final ItemName MODEL_EXTENSION_OBJECT_DELTAS = new ItemName(NS_MODEL_EXTENSION, "objectDeltas");
     public static final ItemName MODEL_EXTENSION_WORKER_THREADS = new ItemName(NS_MODEL_EXTENSION, "workerThreads");
+    public static final ItemName MODEL_EXTENSION_WORKER_BATCH_SIZE = new ItemName(NS_MODEL_EXTENSION, "workerBatchSize");
+    public static final ItemName MODEL_EXTENSION_WORKER_AFFINITY = new ItemName(NS_MODEL_EXTENSION, "workerAffinity");
+    public static final ItemName MODEL_EXTENSION_WORKER_THREADS_WEIGHT = new ItemName(NS_MODEL_EXTENSION, "workerThreadsWeight");
+    public static final ItemName MODEL_EXTENSION_WORKER_THREADS_MIN = new ItemName(NS_MODEL_EXTENSION, "workerThreadsMin");
+    public static final ItemName MODEL_EXTENSION_WORKER_THREADS_TUNING_WINDOW = new ItemName(NS_MODEL_EXTENSION, "workerThreadsTuningWindow");
     public static final ItemName MODEL_EXTENSION_OPTION_RAW = new ItemName(NS_MODEL_EXTENSION, "optionRaw");
     public static final ItemName MODEL_EXTENSION_EXECUTE_OPTIONS = new ItemName(NS_MODEL_EXTENSION, "executeOptions");
 
@@ -19,6 +19,8 @@ import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Pavol Mederly
@@ -29,20 +31,61 @@ public class ActionsExecutedInformation {
      * Thread safety: Just like EnvironmentalPerformanceInformation, instances of this class may be accessed from
      * more than one thread at once. Updates are invoked in the context of the thread executing the task.
      * Queries are invoked either from this thread, or from some observer (task manager or GUI thread).
+     *
+     * Updates do not lock, as there can be many worker threads recording their actions at once. Entries are kept
+     * in concurrent maps and their counters are LongAdders.
      */
 
     private final ActionsExecutedInformationType startValue;
 
-    // Note: key-related fields in value objects (objectType, channel, ...) are filled-in but ignored in the following two maps
     // allObjectActions: all executed actions
-    private Map<ActionsExecutedObjectsKey,ObjectActionsExecutedEntryType> allObjectActions = new HashMap<>();
+    private final Map<ActionsExecutedObjectsKey,Entry> allObjectActions = new ConcurrentHashMap<>();
     // resultingObjectActions: "cleaned up" actions - i.e. if an object is added and then modified (in one "logical" operation),
     // we count it as 1xADD
-    private Map<ActionsExecutedObjectsKey,ObjectActionsExecutedEntryType> resultingObjectActions = new HashMap<>();
+    private final Map<ActionsExecutedObjectsKey,Entry> resultingObjectActions = new ConcurrentHashMap<>();
 
     // operations executed in the current scope: we "clean them up" when markObjectActionExecutedBoundary is called
-    // (indexed by object oid)
-    private Map<String,List<ObjectActionExecuted>> currentScopeObjectActions = new HashMap<>();
+    // (indexed by object oid); the scope is per thread, as each worker thread processes its own objects
+    private final ThreadLocal<Map<String,List<ObjectActionExecuted>>> currentScopeObjectActions = ThreadLocal.withInitial(HashMap::new);
+
+    private static class Entry {
+        private final LongAdder totalSuccessCount = new LongAdder();
+        private final LongAdder totalFailureCount = new LongAdder();
+        private volatile ObjectActionExecuted lastSuccess;
+        private volatile ObjectActionExecuted lastFailure;
+
+        private void record(ObjectActionExecuted a) {
+            if (a.exception == null) {
+                totalSuccessCount.increment();
+                lastSuccess = a;
+            } else {
+                totalFailureCount.increment();
+                lastFailure = a;
+            }
+        }
+
+        private ObjectActionsExecutedEntryType toJaxb() {
+            ObjectActionsExecutedEntryType e = new ObjectActionsExecutedEntryType();
+            e.setTotalSuccessCount(totalSuccessCount.intValue());
+            ObjectActionExecuted lastSuccess = this.lastSuccess;
+            if (lastSuccess != null) {
+                e.setLastSuccessObjectName(lastSuccess.objectName);
+                e.setLastSuccessObjectDisplayName(lastSuccess.objectDisplayName);
+                e.setLastSuccessObjectOid(lastSuccess.objectOid);
+                e.setLastSuccessTimestamp(lastSuccess.timestamp);
+            }
+            e.setTotalFailureCount(totalFailureCount.intValue());
+            ObjectActionExecuted lastFailure = this.lastFailure;
+            if (lastFailure != null) {
+                e.setLastFailureObjectName(lastFailure.objectName);
+                e.setLastFailureObjectDisplayName(lastFailure.objectDisplayName);
+                e.setLastFailureObjectOid(lastFailure.objectOid);
+                e.setLastFailureTimestamp(lastFailure.timestamp);
+                e.setLastFailureExceptionMessage(lastFailure.exception.getMessage());
+            }
+            return e;
+        }
+    }
 
     public ActionsExecutedInformation(ActionsExecutedInformationType value) {
         startValue = value;
@@ -56,12 +99,12 @@ public class ActionsExecutedInformation {
         return (ActionsExecutedInformationType) startValue;
     }
 
-    public synchronized ActionsExecutedInformationType getDeltaValue() {
+    public ActionsExecutedInformationType getDeltaValue() {
         ActionsExecutedInformationType rv = toActionsExecutedInformationType();
         return rv;
     }
 
-    public synchronized ActionsExecutedInformationType getAggregatedValue() {
+    public ActionsExecutedInformationType getAggregatedValue() {
         ActionsExecutedInformationType delta = toActionsExecutedInformationType();
         ActionsExecutedInformationType rv = aggregate(startValue, delta);
         return rv;
@@ -137,9 +180,9 @@ public class ActionsExecutedInformation {
         mapToJaxb(resultingObjectActions, rv.getResultingObjectActionsEntry());
     }
 
-    private void mapToJaxb(Map<ActionsExecutedObjectsKey, ObjectActionsExecutedEntryType> map, List<ObjectActionsExecutedEntryType> list) {
-        for (Map.Entry<ActionsExecutedObjectsKey,ObjectActionsExecutedEntryType> entry : map.entrySet()) {
-            ObjectActionsExecutedEntryType e = entry.getValue().clone();
+    private void mapToJaxb(Map<ActionsExecutedObjectsKey, Entry> map, List<ObjectActionsExecutedEntryType> list) {
+        for (Map.Entry<ActionsExecutedObjectsKey, Entry> entry : map.entrySet()) {
+            ObjectActionsExecutedEntryType e = entry.getValue().toJaxb();
             e.setObjectType(entry.getKey().getObjectType());
             e.setOperation(ChangeType.toChangeTypeType(entry.getKey().getOperation()));
             e.setChannel(entry.getKey().getChannel());
@@ -147,52 +190,34 @@ public class ActionsExecutedInformation {
         }
     }
 
-    public synchronized void recordObjectActionExecuted(String objectName, String objectDisplayName, QName objectType, String objectOid, ChangeType changeType, String channel, Throwable exception) {
+    public void recordObjectActionExecuted(String objectName, String objectDisplayName, QName objectType, String objectOid, ChangeType changeType, String channel, Throwable exception) {
         XMLGregorianCalendar now = XmlTypeConverter.createXMLGregorianCalendar(new Date());
         ObjectActionExecuted action = new ObjectActionExecuted(objectName, objectDisplayName, objectType, objectOid, changeType, channel, exception, now);
 
         addEntry(allObjectActions, action);
 
         if (action.objectOid == null) {
-            action.objectOid = "dummy-" + ((int) Math.random() * 10000000);     // hack for unsuccessful ADDs
+            // hack for unsuccessful ADDs (the action is not modified, as it is already referenced from allObjectActions)
+            action = new ObjectActionExecuted(objectName, objectDisplayName, objectType, "dummy-" + ((int) Math.random() * 10000000),
+                    changeType, channel, exception, now);
         }
         addAction(action);
     }
 
-    protected void addAction(ObjectActionExecuted action) {
-        List<ObjectActionExecuted> actions = currentScopeObjectActions.get(action.objectOid);
-        if (actions == null) {
-            actions = new ArrayList<>();
-            currentScopeObjectActions.put(action.objectOid, actions);
-        }
-        actions.add(action);
+    private void addAction(ObjectActionExecuted action) {
+        currentScopeObjectActions.get()
+                .computeIfAbsent(action.objectOid, oid -> new ArrayList<>())
+                .add(action);
     }
 
-    protected void addEntry(Map<ActionsExecutedObjectsKey,ObjectActionsExecutedEntryType> target, ObjectActionExecuted a) {
+    private void addEntry(Map<ActionsExecutedObjectsKey,Entry> target, ObjectActionExecuted a) {
         ActionsExecutedObjectsKey key = new ActionsExecutedObjectsKey(a.objectType, a.changeType, a.channel);
-        ObjectActionsExecutedEntryType entry = target.get(key);
-        if (entry == null) {
-            entry = new ObjectActionsExecutedEntryType();
-            target.put(key, entry);
-        }
-
-        if (a.exception == null) {
-            entry.setTotalSuccessCount(entry.getTotalSuccessCount() + 1);
-            entry.setLastSuccessObjectName(a.objectName);
-            entry.setLastSuccessObjectDisplayName(a.objectDisplayName);
-            entry.setLastSuccessObjectOid(a.objectOid);
-            entry.setLastSuccessTimestamp(a.timestamp);
-        } else {
-            entry.setTotalFailureCount(entry.getTotalFailureCount() + 1);
-            entry.setLastFailureObjectName(a.objectName);
-            entry.setLastFailureObjectDisplayName(a.objectDisplayName);
-            entry.setLastFailureObjectOid(a.objectOid);
-            entry.setLastFailureTimestamp(a.timestamp);
-            entry.setLastFailureExceptionMessage(a.exception.getMessage());
-        }
+        target.computeIfAbsent(key, k -> new Entry())
+                .record(a);
     }
 
-    public synchronized void markObjectActionExecutedBoundary() {
+    public void markObjectActionExecutedBoundary() {
+        Map<String,List<ObjectActionExecuted>> currentScopeObjectActions = this.currentScopeObjectActions.get();
         for (Map.Entry<String,List<ObjectActionExecuted>> entry : currentScopeObjectActions.entrySet()) {
             // Last non-modify operation determines the result
             List<ObjectActionExecuted> actions = entry.getValue();
@@ -218,7 +243,7 @@ public class ActionsExecutedInformation {
         final String objectName;
         final String objectDisplayName;
         final QName objectType;
-        String objectOid;
+        final String objectOid;
         final ChangeType changeType;
         final String channel;
         final Throwable exception;
@@ -39,6 +39,10 @@ public class CachePerformanceInformationUtil {
         rv.setMissCount(info.misses.intValue());
         rv.setPassCount(info.passes.intValue());
         rv.setNotAvailableCount(info.notAvailable.intValue());
+        long timeSaved = info.timeSaved.get();
+        if (timeSaved > 0) {
+            rv.setTimeSaved(timeSaved);
+        }
         return rv;
     }
 
@@ -69,6 +73,9 @@ public class CachePerformanceInformationUtil {
         aggregate.setMissCount(aggregate.getMissCount() + part.getMissCount());
         aggregate.setPassCount(aggregate.getPassCount() + part.getPassCount());
         aggregate.setNotAvailableCount(aggregate.getNotAvailableCount() + part.getNotAvailableCount());
+        if (part.getTimeSaved() != null) {
+            aggregate.setTimeSaved(defaultIfNull(aggregate.getTimeSaved(), 0L) + part.getTimeSaved());
+        }
     }
 
     public static String format(CachesPerformanceInformationType information) {
@@ -85,6 +92,9 @@ public class CachePerformanceInformationUtil {
             int sum = hits + weakHits + misses + passes + notAvailable;
             sb.append(String.format("  %-" + (max+2) + "s ", c.getName()+":"));
             CacheUtil.formatPerformanceData(sb, hits, weakHits, misses, passes, notAvailable, sum);
+            if (c.getTimeSaved() != null && c.getTimeSaved() > 0) {
+                sb.append(", time saved: ").append(c.getTimeSaved()).append(" ms");
+            }
             sb.append("\n");
         }
         return sb.toString();
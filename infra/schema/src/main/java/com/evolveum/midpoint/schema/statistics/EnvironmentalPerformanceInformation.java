@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 
@@ -31,17 +32,19 @@ public class EnvironmentalPerformanceInformation {
      * Updates are invoked in the context of the thread executing the task.
      * Queries are invoked either from this thread, or from some observer (task manager or GUI thread).
      *
-     * We ensure synchronization by making public methods synchronized. We don't expect much contention on this.
+     * The record methods can be called by many worker threads at once, so they do not lock: the data are kept
+     * in concurrent maps and the statistics data objects are thread safe. Queries see the most recent values,
+     * although values recorded concurrently with the query may or may not be included.
      */
     private final EnvironmentalPerformanceInformationType startValue;        // this object is concurrently read (that is thread-safe), not written
 
-    private Map<ProvisioningStatisticsKey,ProvisioningStatisticsData> provisioningData = new HashMap<>();
-    private Map<NotificationsStatisticsKey,GenericStatisticsData> notificationsData = new HashMap<>();
-    private Map<MappingsStatisticsKey,GenericStatisticsData> mappingsData = new HashMap<>();
+    private final Map<ProvisioningStatisticsKey,ProvisioningStatisticsData> provisioningData = new ConcurrentHashMap<>();
+    private final Map<NotificationsStatisticsKey,GenericStatisticsData> notificationsData = new ConcurrentHashMap<>();
+    private final Map<MappingsStatisticsKey,GenericStatisticsData> mappingsData = new ConcurrentHashMap<>();
 
     private static final int AGGREGATION_THRESHOLD = 50;
 
-    private StatusMessage lastMessage;
+    private volatile StatusMessage lastMessage;
 
     public EnvironmentalPerformanceInformation(EnvironmentalPerformanceInformationType value) {
         startValue = value;
@@ -55,11 +58,11 @@ public class EnvironmentalPerformanceInformation {
         return startValue;
     }
 
-    public synchronized EnvironmentalPerformanceInformationType getDeltaValue() {
+    public EnvironmentalPerformanceInformationType getDeltaValue() {
         return toEnvironmentalPerformanceInformationType();
     }
 
-    public synchronized EnvironmentalPerformanceInformationType getAggregatedValue() {
+    public EnvironmentalPerformanceInformationType getAggregatedValue() {
         EnvironmentalPerformanceInformationType delta = toEnvironmentalPerformanceInformationType();
         return aggregate(startValue, delta);
     }
@@ -69,6 +72,7 @@ public class EnvironmentalPerformanceInformation {
         rv.setProvisioningStatistics(toProvisioningStatisticsType());
         rv.setMappingsStatistics(toMappingsStatisticsType());
         rv.setNotificationsStatistics(toNotificationsStatisticsType());
+        StatusMessage lastMessage = this.lastMessage;
         if (lastMessage != null) {
             rv.setLastMessageTimestamp(XmlTypeConverter.createXMLGregorianCalendar(lastMessage.getDate()));
             rv.setLastMessage(lastMessage.getMessage());
@@ -436,42 +440,30 @@ public class EnvironmentalPerformanceInformation {
         return Math.max(a, b);
     }
 
-    public synchronized void recordProvisioningOperation(String resourceOid, String resourceName, QName objectClassName, ProvisioningOperation operation, boolean success, int count, long duration) {
+    public void recordProvisioningOperation(String resourceOid, String resourceName, QName objectClassName, ProvisioningOperation operation, boolean success, int count, long duration) {
         ProvisioningStatisticsKey key = new ProvisioningStatisticsKey(resourceOid, resourceName, objectClassName, operation, success);
-        ProvisioningStatisticsData data = provisioningData.get(key);
-        if (data == null) {
-            data = new ProvisioningStatisticsData();
-            provisioningData.put(key, data);
-        }
-        data.recordOperation(duration, count);
+        provisioningData.computeIfAbsent(key, k -> new ProvisioningStatisticsData())
+                .recordOperation(duration, count);
     }
 
-    public synchronized void recordNotificationOperation(String transportName, boolean success, long duration) {
+    public void recordNotificationOperation(String transportName, boolean success, long duration) {
         NotificationsStatisticsKey key = new NotificationsStatisticsKey(transportName, success);
-        GenericStatisticsData data = notificationsData.get(key);
-        if (data == null) {
-            data = new GenericStatisticsData();
-            notificationsData.put(key, data);
-        }
-        data.recordOperation(duration, 1);
+        notificationsData.computeIfAbsent(key, k -> new GenericStatisticsData())
+                .recordOperation(duration, 1);
     }
 
-    public synchronized void recordMappingOperation(String objectOid, String objectName, String objectTypeName, String mappingName, long duration) {
+    public void recordMappingOperation(String objectOid, String objectName, String objectTypeName, String mappingName, long duration) {
         // ignoring mapping name for now
         MappingsStatisticsKey key = new MappingsStatisticsKey(objectOid, objectName, objectTypeName);
-        GenericStatisticsData data = mappingsData.get(key);
-        if (data == null) {
-            data = new GenericStatisticsData();
-            mappingsData.put(key, data);
-        }
-        data.recordOperation(duration, 1);
+        mappingsData.computeIfAbsent(key, k -> new GenericStatisticsData())
+                .recordOperation(duration, 1);
     }
 
-    public synchronized StatusMessage getLastMessage() {
+    public StatusMessage getLastMessage() {
         return lastMessage;
     }
 
-    public synchronized void recordState(String message) {
+    public void recordState(String message) {
         lastMessage = new StatusMessage(message);
     }
 
@@ -10,6 +10,7 @@ package com.evolveum.midpoint.schema.statistics;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.IterativeTaskInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsTuningInformationType;
 import org.apache.commons.collections.buffer.CircularFifoBuffer;
 import org.jetbrains.annotations.NotNull;
 
@@ -19,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Pavol Mederly
@@ -31,37 +33,63 @@ public class IterativeTaskInformation {
      * Thread safety: Just like EnvironmentalPerformanceInformation, instances of this class may be accessed from
      * more than one thread at once. Updates are invoked in the context of the thread executing the task.
      * Queries are invoked either from this thread, or from some observer (task manager or GUI thread).
+     *
+     * Updates do not lock, because there can be many worker threads recording their operations at once: totals are kept
+     * in LongAdders and the information about the last (or current) object is replaced as a whole by a single write.
+     * A query can therefore see e.g. totals that already include an operation whose "last success" information
+     * is not visible yet. This is acceptable for statistics.
      */
 
     protected final IterativeTaskInformationType startValue;
 
-    protected String lastSuccessObjectName;
-    protected String lastSuccessObjectDisplayName;
-    protected QName lastSuccessObjectType;
-    protected String lastSuccessObjectOid;
-    protected Date lastSuccessEndTimestamp;
-    protected long lastSuccessDuration;
-    protected long totalSuccessDuration;
-    protected int totalSuccessCount;
-
-    protected String lastFailureObjectName;
-    protected String lastFailureObjectDisplayName;
-    protected QName lastFailureObjectType;
-    protected String lastFailureObjectOid;
-    protected Date lastFailureEndTimestamp;
-    protected long lastFailureDuration;
-    protected long totalFailureDuration;
-    protected int totalFailureCount;
-    protected Throwable lastFailureException;
-    protected String lastFailureExceptionMessage;
-
-    protected String currentObjectName;
-    protected String currentObjectDisplayName;
-    protected QName currentObjectType;
-    protected String currentObjectOid;
-    protected Date currentObjectStartTimestamp;
-
-    protected CircularFifoBuffer lastFailures = new CircularFifoBuffer(LAST_FAILURES_KEPT);
+    private final LongAdder totalSuccessDuration = new LongAdder();
+    private final LongAdder totalSuccessCount = new LongAdder();
+    private final LongAdder totalFailureDuration = new LongAdder();
+    private final LongAdder totalFailureCount = new LongAdder();
+    private final LongAdder totalQueueWaitTime = new LongAdder();
+    private final LongAdder totalIdleTime = new LongAdder();
+
+    private volatile OperationEnd lastSuccess;
+    private volatile OperationEnd lastFailure;
+    private volatile OperationStart current;
+    private volatile WorkerThreadsTuningInformationType workerThreadsTuning;
+
+    private final CircularFifoBuffer lastFailures = new CircularFifoBuffer(LAST_FAILURES_KEPT);        // guarded by itself
+
+    private static class ObjectInfo {
+        private final String objectName;
+        private final String objectDisplayName;
+        private final QName objectType;
+        private final String objectOid;
+
+        private ObjectInfo(String objectName, String objectDisplayName, QName objectType, String objectOid) {
+            this.objectName = objectName;
+            this.objectDisplayName = objectDisplayName;
+            this.objectType = objectType;
+            this.objectOid = objectOid;
+        }
+    }
+
+    private static class OperationStart extends ObjectInfo {
+        private final Date startTimestamp = new Date();
+
+        private OperationStart(String objectName, String objectDisplayName, QName objectType, String objectOid) {
+            super(objectName, objectDisplayName, objectType, objectOid);
+        }
+    }
+
+    private static class OperationEnd extends ObjectInfo {
+        private final Date endTimestamp = new Date();
+        private final long duration;
+        private final String exceptionMessage;
+
+        private OperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid, long started,
+                Throwable exception) {
+            super(objectName, objectDisplayName, objectType, objectOid);
+            this.duration = endTimestamp.getTime() - started;
+            this.exceptionMessage = exception != null ? exception.getClass().getSimpleName() + ": " + exception.getMessage() : null;
+        }
+    }
 
     public IterativeTaskInformation() {
         this(null);
@@ -75,12 +103,12 @@ public class IterativeTaskInformation {
         return startValue;
     }
 
-    public synchronized IterativeTaskInformationType getDeltaValue() {
+    public IterativeTaskInformationType getDeltaValue() {
         IterativeTaskInformationType rv = toIterativeTaskInformationType();
         return rv;
     }
 
-    public synchronized IterativeTaskInformationType getAggregatedValue() {
+    public IterativeTaskInformationType getAggregatedValue() {
         IterativeTaskInformationType delta = toIterativeTaskInformationType();
         IterativeTaskInformationType rv = aggregate(startValue, delta);
         return rv;
@@ -102,72 +130,91 @@ public class IterativeTaskInformation {
         return rv;
     }
 
-    public synchronized void recordOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid, long started, Throwable exception) {
+    public void recordOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid, long started, Throwable exception) {
+        OperationEnd end = new OperationEnd(objectName, objectDisplayName, objectType, objectOid, started, exception);
         if (exception != null) {
-            lastFailureObjectName = objectName;
-            lastFailureObjectDisplayName = objectDisplayName;
-            lastFailureObjectType = objectType;
-            lastFailureObjectOid = objectOid;
-            lastFailureEndTimestamp = new Date();
-            lastFailureDuration = lastFailureEndTimestamp.getTime() - started;
-            lastFailureException = exception;
-            lastFailureExceptionMessage = exception.getClass().getSimpleName() + ": " + exception.getMessage();
-            totalFailureDuration += lastFailureDuration;
-            totalFailureCount++;
+            lastFailure = end;
+            totalFailureDuration.add(end.duration);
+            totalFailureCount.increment();
 
             String name = objectName != null ? objectName
                     : objectOid != null ? objectOid : "(unnamed)";
-            lastFailures.add(name + ": " + exception.getMessage());
+            synchronized (lastFailures) {
+                //noinspection unchecked
+                lastFailures.add(name + ": " + exception.getMessage());
+            }
         } else {
-            lastSuccessObjectName = objectName;
-            lastSuccessObjectDisplayName = objectDisplayName;
-            lastSuccessObjectType = objectType;
-            lastSuccessObjectOid = objectOid;
-            lastSuccessEndTimestamp = new Date();
-            lastSuccessDuration = lastSuccessEndTimestamp.getTime() - started;
-            totalSuccessDuration += lastSuccessDuration;
-            totalSuccessCount++;
-        }
-        currentObjectName = null;
-        currentObjectDisplayName = null;
-        currentObjectType = null;
-        currentObjectOid = null;
-        currentObjectStartTimestamp = null;
-    }
-
-    public synchronized void recordOperationStart(String objectName, String objectDisplayName, QName objectType, String objectOid) {
-        currentObjectName = objectName;
-        currentObjectDisplayName = objectDisplayName;
-        currentObjectType = objectType;
-        currentObjectOid = objectOid;
-        currentObjectStartTimestamp = new Date();
+            lastSuccess = end;
+            totalSuccessDuration.add(end.duration);
+            totalSuccessCount.increment();
+        }
+        current = null;
+    }
+
+    public void recordOperationStart(String objectName, String objectDisplayName, QName objectType, String objectOid) {
+        current = new OperationStart(objectName, objectDisplayName, objectType, objectOid);
+    }
+
+    public void recordWorkerWaitTimes(long queueWaitTime, long idleTime) {
+        totalQueueWaitTime.add(queueWaitTime);
+        totalIdleTime.add(idleTime);
+    }
+
+    public void recordWorkerThreadsTuning(WorkerThreadsTuningInformationType information) {
+        workerThreadsTuning = information != null ? information.clone() : null;
     }
 
     private void toJaxb(IterativeTaskInformationType rv) {
-        rv.setLastSuccessObjectName(lastSuccessObjectName);
-        rv.setLastSuccessObjectDisplayName(lastSuccessObjectDisplayName);
-        rv.setLastSuccessObjectType(lastSuccessObjectType);
-        rv.setLastSuccessObjectOid(lastSuccessObjectOid);
-        rv.setLastSuccessEndTimestamp(XmlTypeConverter.createXMLGregorianCalendar(lastSuccessEndTimestamp));
-        rv.setLastSuccessDuration(lastSuccessDuration);
-        rv.setTotalSuccessDuration(totalSuccessDuration);
-        rv.setTotalSuccessCount(totalSuccessCount);
-
-        rv.setLastFailureObjectName(lastFailureObjectName);
-        rv.setLastFailureObjectDisplayName(lastFailureObjectDisplayName);
-        rv.setLastFailureObjectType(lastFailureObjectType);
-        rv.setLastFailureObjectOid(lastFailureObjectOid);
-        rv.setLastFailureEndTimestamp(XmlTypeConverter.createXMLGregorianCalendar(lastFailureEndTimestamp));
-        rv.setLastFailureDuration(lastFailureDuration);
-        rv.setLastFailureExceptionMessage(lastFailureExceptionMessage);
-        rv.setTotalFailureDuration(totalFailureDuration);
-        rv.setTotalFailureCount(totalFailureCount);
-
-        rv.setCurrentObjectName(currentObjectName);
-        rv.setCurrentObjectDisplayName(currentObjectDisplayName);
-        rv.setCurrentObjectType(currentObjectType);
-        rv.setCurrentObjectOid(currentObjectOid);
-        rv.setCurrentObjectStartTimestamp(XmlTypeConverter.createXMLGregorianCalendar(currentObjectStartTimestamp));
+        OperationEnd lastSuccess = this.lastSuccess;
+        if (lastSuccess != null) {
+            rv.setLastSuccessObjectName(lastSuccess.objectName);
+            rv.setLastSuccessObjectDisplayName(lastSuccess.objectDisplayName);
+            rv.setLastSuccessObjectType(lastSuccess.objectType);
+            rv.setLastSuccessObjectOid(lastSuccess.objectOid);
+            rv.setLastSuccessEndTimestamp(XmlTypeConverter.createXMLGregorianCalendar(lastSuccess.endTimestamp));
+            rv.setLastSuccessDuration(lastSuccess.duration);
+        } else {
+            rv.setLastSuccessDuration(0L);
+        }
+        rv.setTotalSuccessDuration(totalSuccessDuration.sum());
+        rv.setTotalSuccessCount(totalSuccessCount.intValue());
+
+        OperationEnd lastFailure = this.lastFailure;
+        if (lastFailure != null) {
+            rv.setLastFailureObjectName(lastFailure.objectName);
+            rv.setLastFailureObjectDisplayName(lastFailure.objectDisplayName);
+            rv.setLastFailureObjectType(lastFailure.objectType);
+            rv.setLastFailureObjectOid(lastFailure.objectOid);
+            rv.setLastFailureEndTimestamp(XmlTypeConverter.createXMLGregorianCalendar(lastFailure.endTimestamp));
+            rv.setLastFailureDuration(lastFailure.duration);
+            rv.setLastFailureExceptionMessage(lastFailure.exceptionMessage);
+        } else {
+            rv.setLastFailureDuration(0L);
+        }
+        rv.setTotalFailureDuration(totalFailureDuration.sum());
+        rv.setTotalFailureCount(totalFailureCount.intValue());
+
+        OperationStart current = this.current;
+        if (current != null) {
+            rv.setCurrentObjectName(current.objectName);
+            rv.setCurrentObjectDisplayName(current.objectDisplayName);
+            rv.setCurrentObjectType(current.objectType);
+            rv.setCurrentObjectOid(current.objectOid);
+            rv.setCurrentObjectStartTimestamp(XmlTypeConverter.createXMLGregorianCalendar(current.startTimestamp));
+        }
+
+        // These are collected only when objects are dispatched to workers in batches; so we do not show zeros otherwise.
+        long queueWaitTime = totalQueueWaitTime.sum();
+        long idleTime = totalIdleTime.sum();
+        if (queueWaitTime != 0 || idleTime != 0) {
+            rv.setTotalQueueWaitTime(queueWaitTime);
+            rv.setTotalIdleTime(idleTime);
+        }
+
+        WorkerThreadsTuningInformationType workerThreadsTuning = this.workerThreadsTuning;
+        if (workerThreadsTuning != null) {
+            rv.setWorkerThreadsTuning(workerThreadsTuning.clone());
+        }
     }
 
     // overrideCurrent should be TRUE if the delta is chronologically later (i.e. if delta is meant as an update to sum)
@@ -209,11 +256,24 @@ public class IterativeTaskInformation {
             sum.setCurrentObjectOid(delta.getCurrentObjectOid());
             sum.setCurrentObjectStartTimestamp(delta.getCurrentObjectStartTimestamp());
         }
+
+        if (delta.getTotalQueueWaitTime() != null) {
+            sum.setTotalQueueWaitTime(or0(sum.getTotalQueueWaitTime()) + delta.getTotalQueueWaitTime());
+        }
+        if (delta.getTotalIdleTime() != null) {
+            sum.setTotalIdleTime(or0(sum.getTotalIdleTime()) + delta.getTotalIdleTime());
+        }
+        // there is only one source of this information (the coordinator task); the later value wins
+        if (delta.getWorkerThreadsTuning() != null && (overrideCurrent || sum.getWorkerThreadsTuning() == null)) {
+            sum.setWorkerThreadsTuning(delta.getWorkerThreadsTuning().clone());
+        }
     }
 
     public List<String> getLastFailures() {
-        //noinspection unchecked
-        return new ArrayList<>(lastFailures);
+        synchronized (lastFailures) {
+            //noinspection unchecked
+            return new ArrayList<>(lastFailures);
+        }
     }
 
     public static String format(IterativeTaskInformationType i) {
@@ -242,6 +302,10 @@ public class IterativeTaskInformation {
                     i.getCurrentObjectName(), i.getCurrentObjectDisplayName(), i.getCurrentObjectOid(),
                     XmlTypeConverter.toDate(i.getCurrentObjectStartTimestamp())));
         }
+        if (i.getTotalQueueWaitTime() != null || i.getTotalIdleTime() != null) {
+            sb.append(String.format(Locale.US, "  Waiting in worker queues: %d ms, workers idle: %d ms\n",
+                    or0(i.getTotalQueueWaitTime()), or0(i.getTotalIdleTime())));
+        }
         return sb.toString();
     }
 
@@ -249,4 +313,8 @@ public class IterativeTaskInformation {
         return count != 0 ? (float) duration / count : 0;
     }
 
+    private static long or0(Long value) {
+        return value != null ? value : 0L;
+    }
+
 }
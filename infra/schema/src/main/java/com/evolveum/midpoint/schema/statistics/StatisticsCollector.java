@@ -16,6 +16,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.ActionsExecutedInfor
 import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStatsType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.SynchronizationInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsTuningInformationType;
 import org.jetbrains.annotations.NotNull;
 
 import javax.xml.namespace.QName;
@@ -57,6 +58,17 @@ public interface StatisticsCollector {
 
     void recordIterativeOperationEnd(ShadowType shadow, long started, Throwable exception);
 
+    /**
+     * Records how long a worker thread waited for objects to process (idle time), and how long did the objects
+     * it got wait in its queue (queue wait time). Both in milliseconds.
+     */
+    void recordWorkerWaitTimes(long queueWaitTime, long idleTime);
+
+    /**
+     * Records the current state of automatic tuning of the number of worker threads.
+     */
+    void recordWorkerThreadsTuning(WorkerThreadsTuningInformationType information);
+
     /**
      * Records information about synchronization events.
      */
@@ -66,6 +78,11 @@ public interface StatisticsCollector {
     void recordSynchronizationOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid, long started,
             Throwable exception, SynchronizationInformation.Record originalStateIncrement, SynchronizationInformation.Record newStateIncrement);
 
+    /**
+     * Records that given number of changes were coalesced into other (later) changes and therefore not processed individually.
+     */
+    void recordSynchronizationChangesCoalesced(int count);
+
     /**
      * Records information about repository (focal) events.
      */
@@ -11,6 +11,9 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.SynchronizationInfor
 import org.jetbrains.annotations.Nullable;
 
 import javax.xml.namespace.QName;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 
 /**
  * @author Pavol Mederly
@@ -21,6 +24,8 @@ public class SynchronizationInformation {
      * Thread safety: Just like EnvironmentalPerformanceInformation, instances of this class may be accessed from
      * more than one thread at once. Updates are invoked in the context of the thread executing the task.
      * Queries are invoked either from this thread, or from some observer (task manager or GUI thread).
+     *
+     * Counters are updated without locking, as many worker threads can record their operations at once.
      */
 
     private final SynchronizationInformationType startValue;
@@ -77,8 +82,26 @@ public class SynchronizationInformation {
 
     };
 
-    private final Record stateBefore = new Record();
-    private final Record stateAfter = new Record();
+    private static class State {
+
+        private final LongAdder countProtected = new LongAdder();
+        private final LongAdder countNoSynchronizationPolicy = new LongAdder();
+        private final LongAdder countSynchronizationDisabled = new LongAdder();
+        private final LongAdder countNotApplicableForTask = new LongAdder();
+        private final LongAdder countDeleted = new LongAdder();
+        private final LongAdder countDisputed = new LongAdder();
+        private final LongAdder countLinked = new LongAdder();
+        private final LongAdder countUnlinked = new LongAdder();
+        private final LongAdder countUnmatched = new LongAdder();
+    }
+
+    private final State stateBefore = new State();
+    private final State stateAfter = new State();
+
+    /**
+     * Changes that were merged into a later change of the same object (live sync coalescing).
+     */
+    private final LongAdder countCoalesced = new LongAdder();
 
     public SynchronizationInformation(SynchronizationInformationType value) {
         startValue = value;
@@ -92,12 +115,12 @@ public class SynchronizationInformation {
         return (SynchronizationInformationType) startValue;
     }
 
-    public synchronized SynchronizationInformationType getDeltaValue() {
+    public SynchronizationInformationType getDeltaValue() {
         SynchronizationInformationType rv = toSynchronizationInformationType();
         return rv;
     }
 
-    public synchronized SynchronizationInformationType getAggregatedValue() {
+    public SynchronizationInformationType getAggregatedValue() {
         SynchronizationInformationType delta = toSynchronizationInformationType();
         SynchronizationInformationType rv = aggregate(startValue, delta);
         return rv;
@@ -136,6 +159,10 @@ public class SynchronizationInformation {
         sum.setCountLinkedAfter(sum.getCountLinkedAfter() + delta.getCountLinkedAfter());
         sum.setCountUnlinkedAfter(sum.getCountUnlinkedAfter() + delta.getCountUnlinkedAfter());
         sum.setCountUnmatchedAfter(sum.getCountUnmatchedAfter() + delta.getCountUnmatchedAfter());
+
+        if (delta.getCountCoalesced() != null) {
+            sum.setCountCoalesced(defaultIfNull(sum.getCountCoalesced(), 0) + delta.getCountCoalesced());
+        }
     }
 
     private SynchronizationInformationType toSynchronizationInformationType() {
@@ -145,47 +172,63 @@ public class SynchronizationInformation {
     }
 
     private void toJaxb(SynchronizationInformationType rv) {
-        rv.setCountProtected(stateBefore.countProtected);
-        rv.setCountNoSynchronizationPolicy(stateBefore.countNoSynchronizationPolicy);
-        rv.setCountSynchronizationDisabled(stateBefore.countSynchronizationDisabled);
-        rv.setCountNotApplicableForTask(stateBefore.countNotApplicableForTask);
-        rv.setCountDeleted(stateBefore.countDeleted);
-        rv.setCountDisputed(stateBefore.countDisputed);
-        rv.setCountLinked(stateBefore.countLinked);
-        rv.setCountUnlinked(stateBefore.countUnlinked);
-        rv.setCountUnmatched(stateBefore.countUnmatched);
-
-        rv.setCountProtectedAfter(stateAfter.countProtected);
-        rv.setCountNoSynchronizationPolicyAfter(stateAfter.countNoSynchronizationPolicy);
-        rv.setCountSynchronizationDisabledAfter(stateAfter.countSynchronizationDisabled);
-        rv.setCountNotApplicableForTaskAfter(stateAfter.countNotApplicableForTask);
-        rv.setCountDeletedAfter(stateAfter.countDeleted);
-        rv.setCountDisputedAfter(stateAfter.countDisputed);
-        rv.setCountLinkedAfter(stateAfter.countLinked);
-        rv.setCountUnlinkedAfter(stateAfter.countUnlinked);
-        rv.setCountUnmatchedAfter(stateAfter.countUnmatched);
+        rv.setCountProtected(stateBefore.countProtected.intValue());
+        rv.setCountNoSynchronizationPolicy(stateBefore.countNoSynchronizationPolicy.intValue());
+        rv.setCountSynchronizationDisabled(stateBefore.countSynchronizationDisabled.intValue());
+        rv.setCountNotApplicableForTask(stateBefore.countNotApplicableForTask.intValue());
+        rv.setCountDeleted(stateBefore.countDeleted.intValue());
+        rv.setCountDisputed(stateBefore.countDisputed.intValue());
+        rv.setCountLinked(stateBefore.countLinked.intValue());
+        rv.setCountUnlinked(stateBefore.countUnlinked.intValue());
+        rv.setCountUnmatched(stateBefore.countUnmatched.intValue());
+
+        rv.setCountProtectedAfter(stateAfter.countProtected.intValue());
+        rv.setCountNoSynchronizationPolicyAfter(stateAfter.countNoSynchronizationPolicy.intValue());
+        rv.setCountSynchronizationDisabledAfter(stateAfter.countSynchronizationDisabled.intValue());
+        rv.setCountNotApplicableForTaskAfter(stateAfter.countNotApplicableForTask.intValue());
+        rv.setCountDeletedAfter(stateAfter.countDeleted.intValue());
+        rv.setCountDisputedAfter(stateAfter.countDisputed.intValue());
+        rv.setCountLinkedAfter(stateAfter.countLinked.intValue());
+        rv.setCountUnlinkedAfter(stateAfter.countUnlinked.intValue());
+        rv.setCountUnmatchedAfter(stateAfter.countUnmatched.intValue());
+
+        int coalesced = countCoalesced.intValue();
+        if (coalesced > 0) {
+            rv.setCountCoalesced(coalesced);
+        }
     }
 
-    public synchronized void recordSynchronizationOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid,
+    public void recordSynchronizationOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid,
             long started, Throwable exception, Record originalStateIncrement, Record newStateIncrement) {
         addToState(stateBefore, originalStateIncrement);
         addToState(stateAfter, newStateIncrement);
     }
 
-    protected void addToState(Record state, Record increment) {
-        state.countProtected += increment.countProtected;
-        state.countNoSynchronizationPolicy += increment.countNoSynchronizationPolicy;
-        state.countSynchronizationDisabled += increment.countSynchronizationDisabled;
-        state.countNotApplicableForTask += increment.countNotApplicableForTask;
-        state.countDeleted += increment.countDeleted;
-        state.countDisputed += increment.countDisputed;
-        state.countLinked += increment.countLinked;
-        state.countUnlinked += increment.countUnlinked;
-        state.countUnmatched += increment.countUnmatched;
+    private void addToState(State state, Record increment) {
+        addIfNonZero(state.countProtected, increment.countProtected);
+        addIfNonZero(state.countNoSynchronizationPolicy, increment.countNoSynchronizationPolicy);
+        addIfNonZero(state.countSynchronizationDisabled, increment.countSynchronizationDisabled);
+        addIfNonZero(state.countNotApplicableForTask, increment.countNotApplicableForTask);
+        addIfNonZero(state.countDeleted, increment.countDeleted);
+        addIfNonZero(state.countDisputed, increment.countDisputed);
+        addIfNonZero(state.countLinked, increment.countLinked);
+        addIfNonZero(state.countUnlinked, increment.countUnlinked);
+        addIfNonZero(state.countUnmatched, increment.countUnmatched);
+    }
+
+    // usually only one of the counters is incremented, so we avoid touching the others
+    private void addIfNonZero(LongAdder counter, int increment) {
+        if (increment != 0) {
+            counter.add(increment);
+        }
     }
 
     public void recordSynchronizationOperationStart(String objectName, String objectDisplayName, QName objectType, String objectOid) {
         // noop
     }
 
+    public void recordChangesCoalesced(int count) {
+        countCoalesced.add(count);
+    }
+
 }
@@ -164,6 +164,7 @@ public class MiscSchemaUtil {
          optionsType.setDefinitionProcessing(DefinitionProcessingOption.toDefinitionProcessingOptionType(options.getDefinitionProcessing()));
          optionsType.setStaleness(options.getStaleness());
          optionsType.setDistinct(options.getDistinct());
+         optionsType.setCountAccuracy(CountAccuracy.toCountAccuracyType(options.getCountAccuracy()));
          return optionsType;
      }
 
@@ -201,6 +202,7 @@ public class MiscSchemaUtil {
         options.setDefinitionProcessing(DefinitionProcessingOption.toDefinitionProcessingOption(optionsType.getDefinitionProcessing()));
         options.setStaleness(optionsType.getStaleness());
         options.setDistinct(optionsType.isDistinct());
+        options.setCountAccuracy(CountAccuracy.toCountAccuracy(optionsType.getCountAccuracy()));
         return options;
     }
 
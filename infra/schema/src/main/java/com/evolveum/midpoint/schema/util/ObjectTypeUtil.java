@@ -622,6 +622,21 @@ public class ObjectTypeUtil {
         }
     }
 
+    /**
+     * Normalizes relations only in items that have already been parsed. Lazily parsed items are expected to be normalized
+     * when they are parsed (see {@link ParsingContext#lazyItems}).
+     */
+    public static void normalizeParsedRelations(PrismValue value, RelationRegistry relationRegistry) {
+        if (value != null) {
+            ParsedItemsVisitor visitor = v -> {
+                if (v instanceof PrismReferenceValue) {
+                    normalizeRelation((PrismReferenceValue) v, relationRegistry);
+                }
+            };
+            value.accept(visitor);
+        }
+    }
+
     private static Visitor createNormalizingVisitor(RelationRegistry relationRegistry) {
         return v -> {
             if (v instanceof PrismReferenceValue) {
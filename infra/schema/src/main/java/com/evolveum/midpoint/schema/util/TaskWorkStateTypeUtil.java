@@ -37,8 +37,10 @@ public class TaskWorkStateTypeUtil {
             WorkBucketsManagementType buckets = cfg.getBuckets();
             return MiscUtil.getFirstNonNull(
                     buckets.getNumericSegmentation(),
+                    buckets.getAdaptiveNumericSegmentation(),
                     buckets.getStringSegmentation(),
                     buckets.getOidSegmentation(),
+                    buckets.getSampledSegmentation(),
                     buckets.getExplicitSegmentation(),
                     buckets.getSegmentation());
         } else {
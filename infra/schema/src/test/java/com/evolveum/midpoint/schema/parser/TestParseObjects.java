@@ -17,7 +17,10 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import org.testng.annotations.Test;
 
+import javax.xml.namespace.QName;
 import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.evolveum.midpoint.schema.TestConstants.OBJECTS_FILE_BASENAME;
@@ -70,4 +73,42 @@ public class TestParseObjects extends AbstractParserTest {
         assertEquals("Reparsed objects are different from original ones", objects, objectsReparsedDefault);
     }
 
+    @Test
+    public void testObjectsWriter() throws Exception {
+        displayTestTitle("testObjectsWriter");
+        PrismContext prismContext = getPrismContext();
+
+        List<PrismObject<?>> objects = prismContext.parserFor(getFile()).parseObjects();
+
+        for (String language : Arrays.asList(PrismContext.LANG_XML, PrismContext.LANG_JSON, PrismContext.LANG_YAML)) {
+            PrismSerializer<String> serializer = prismContext.serializerFor(language);
+            for (QName aggregateElementName : Arrays.asList(SchemaConstants.C_OBJECTS, null)) {
+                String expected = serializer.serializeObjects(objects, aggregateElementName);
+                StringWriter out = new StringWriter();
+                try (PrismSerializer.ObjectsWriter writer = serializer.objectsWriter(out, aggregateElementName)) {
+                    for (PrismObject<?> object : objects) {
+                        writer.write(object);
+                    }
+                }
+                System.out.println("Objects written incrementally (" + aggregateElementName + "):\n" + out);
+                if (PrismContext.LANG_XML.equals(language)) {
+                    // namespace declarations are put on each object (see PrismSerializer.objectsWriter), so the output
+                    // is compared to the aggregate start tag followed by objects serialized one by one
+                    String written = out.toString();
+                    String startTag = written.substring(0, written.indexOf('\n') + 1);
+                    String tagName = startTag.substring(1, startTag.indexOf(startTag.contains(" ") ? ' ' : '>'));
+                    StringBuilder expectedXml = new StringBuilder(startTag);
+                    for (PrismObject<?> object : objects) {
+                        expectedXml.append(serializer.serialize(object)).append('\n');
+                    }
+                    expectedXml.append("</").append(tagName).append(">\n");
+                    assertEquals("Objects written incrementally differ from serialized ones", expectedXml.toString(), written);
+                    assertEquals("Objects written incrementally differ from serialized ones", objects,
+                            prismContext.parserFor(written).parseObjects());
+                } else {
+                    assertEquals("Objects written incrementally differ from serialized ones", expected, out.toString());
+                }
+            }
+        }
+    }
 }
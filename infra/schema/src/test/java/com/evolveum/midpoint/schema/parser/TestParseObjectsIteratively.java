@@ -17,6 +17,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 
 import static com.evolveum.midpoint.schema.TestConstants.OBJECTS_FILE_BASENAME;
@@ -63,4 +64,58 @@ public class TestParseObjectsIteratively extends AbstractParserTest {
         assertEquals("Objects are different if read in a standard way", objectsStandard, objects);
     }
 
+    @Test
+    public void testRoundTripParallel() throws Exception {
+        displayTestTitle("testRoundTripParallel");
+        PrismContext prismContext = getPrismContext();
+
+        PrismParser parser = prismContext.parserFor(getFile());
+        List<PrismObject<?>> objects = new ArrayList<>();
+        parser.parseObjectsIteratively(new PrismParser.ObjectHandler() {
+            @Override
+            public boolean handleData(PrismObject<?> object) {
+                objects.add(object);
+                return true;
+            }
+
+            @Override
+            public boolean handleError(Throwable t) {
+                throw new AssertionError("unexpected handleError call");
+            }
+        }, 2, true);
+
+        System.out.println("Objects as parsed: " + DebugUtil.debugDump(objects));
+
+        List<PrismObject<?>> objectsStandard = prismContext.parserFor(getFile()).parseObjects();
+        assertEquals("Objects are different if read in parallel", objectsStandard, objects);
+    }
+
+    @Test
+    public void testRoundTripParallelUnordered() throws Exception {
+        displayTestTitle("testRoundTripParallelUnordered");
+        PrismContext prismContext = getPrismContext();
+
+        PrismParser parser = prismContext.parserFor(getFile());
+        List<PrismObject<?>> objects = new ArrayList<>();
+        parser.parseObjectsIteratively(new PrismParser.ObjectHandler() {
+            @Override
+            public boolean handleData(PrismObject<?> object) {
+                objects.add(object);
+                return true;
+            }
+
+            @Override
+            public boolean handleError(Throwable t) {
+                throw new AssertionError("unexpected handleError call");
+            }
+        }, 3, false);
+
+        System.out.println("Objects as parsed: " + DebugUtil.debugDump(objects));
+
+        // the order is not guaranteed
+        List<PrismObject<?>> objectsStandard = prismContext.parserFor(getFile()).parseObjects();
+        assertEquals("Wrong # of objects", objectsStandard.size(), objects.size());
+        assertEquals("Objects are different if read in parallel", new HashSet<>(objectsStandard), new HashSet<>(objects));
+    }
+
 }
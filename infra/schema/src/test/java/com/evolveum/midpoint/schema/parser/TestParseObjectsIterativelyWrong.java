@@ -18,7 +18,10 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.evolveum.midpoint.schema.TestConstants.OBJECTS_WRONG_FILE_BASENAME;
@@ -76,4 +79,57 @@ public class TestParseObjectsIterativelyWrong extends AbstractParserTest {
         }
     }
 
+    @Test
+    public void testParseParallel() throws Exception {
+        displayTestTitle("testParseParallel");
+
+        List<PrismObject<?>> objects = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger(0);
+        parseParallel(objects, errors, true);
+
+        System.out.println("Objects as parsed: " + DebugUtil.debugDump(objects));
+
+        assertEquals("Wrong # of objects", 2, objects.size());
+        assertEquals("Wrong class of object 1", UserType.class, objects.get(0).asObjectable().getClass());
+        assertEquals("Wrong class of object 2", RoleType.class, objects.get(1).asObjectable().getClass());
+        assertEquals("Wrong # of errors", 1, errors.get());
+    }
+
+    @Test
+    public void testParseParallelUnordered() throws Exception {
+        displayTestTitle("testParseParallelUnordered");
+
+        List<PrismObject<?>> objects = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger(0);
+        parseParallel(objects, errors, false);
+
+        System.out.println("Objects as parsed: " + DebugUtil.debugDump(objects));
+
+        assertEquals("Wrong # of objects", 2, objects.size());
+        Set<Class<?>> classes = new HashSet<>();
+        objects.forEach(object -> classes.add(object.asObjectable().getClass()));
+        assertEquals("Wrong classes of objects", new HashSet<>(Arrays.asList(UserType.class, RoleType.class)), classes);
+        assertEquals("Wrong # of errors", 1, errors.get());
+    }
+
+    private void parseParallel(List<PrismObject<?>> objects, AtomicInteger errors, boolean ordered) throws Exception {
+        PrismParser parser = getPrismContext().parserFor(getFile());
+        parser.parseObjectsIteratively(new PrismParser.ObjectHandler() {
+            @Override
+            public boolean handleData(PrismObject<?> object) {
+                objects.add(object);
+                return true;
+            }
+
+            @Override
+            public boolean handleError(Throwable t) {
+                System.out.println("Got (probably expected) exception:");
+                t.printStackTrace(System.out);
+                assert t instanceof SchemaException;
+                errors.incrementAndGet();
+                return true;
+            }
+        }, 2, ordered);
+    }
+
 }
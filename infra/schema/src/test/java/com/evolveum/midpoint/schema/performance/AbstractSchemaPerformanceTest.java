@@ -101,6 +101,38 @@ public class AbstractSchemaPerformanceTest {
         return micros;
     }
 
+    /**
+     * Measures the heap occupied by objects created by the producer. It is only an approximation, as it relies
+     * on System.gc() and Runtime memory statistics.
+     *
+     * @return Bytes per object.
+     */
+    protected double measureHeap(String label, CheckedProducer<?> producer, int count) throws CommonException, IOException {
+        long before = usedHeap();
+        List<Object> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(producer.get());
+        }
+        long after = usedHeap();
+        double bytesPerObject = (double) (after - before) / objects.size();
+        String message = label + ": " + count + " objects take " + (after - before) + " bytes (" + bytesPerObject + " bytes per object)";
+        System.out.println(message);
+        LOGGER.info(message);
+
+        PrintWriter resultsWriter = new PrintWriter(new FileWriter(RESULTS_FILE, true));
+        resultsWriter.println(runId + ";" + new Date() + ";" + LABEL + ";" + label + ";heap;" + count + ";" + bytesPerObject);
+        resultsWriter.close();
+        return bytesPerObject;
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     @NotNull
     public PrismObject<UserType> getJack() throws SchemaException, IOException {
         return getPrismContext().parserFor(USER_JACK_FILE).parse();
@@ -6,17 +6,30 @@
  */
 package com.evolveum.midpoint.schema.performance;
 
+import com.evolveum.midpoint.prism.Item;
+import com.evolveum.midpoint.prism.PrismContainer;
+import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismObjectDefinition;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.PrismReference;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.impl.schema.SchemaRegistryImpl;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.schema.SchemaRegistry;
 import com.evolveum.midpoint.prism.xnode.RootXNode;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
 
 /**
  *
@@ -221,4 +234,58 @@ public class TestBasicPerformance extends AbstractSchemaPerformanceTest {
         measure("schemaRegistry.findObjectDefinitionByCompileTimeClass(UserType.class)", () -> schemaRegistry.findObjectDefinitionByCompileTimeClass(UserType.class));
     }
 
+    @Test
+    public void test500ParsedObjectsHeap() throws Exception {
+        System.out.println("===[ test500ParsedObjectsHeap ]===");
+
+        PrismObject<UserType> jack = getJack();
+        PrismObjectDefinition<UserType> userDefinition = jack.getDefinition();
+        Set<Class<?>> kindsChecked = new HashSet<>();
+        for (Item<?, ?> item : jack.getValue().getItems()) {
+            if (item.getDefinition() != null) {
+                assertSame("Item name of " + item + " is not interned",
+                        userDefinition.findItemDefinition(item.getElementName()).getItemName(), item.getElementName());
+                if (item instanceof PrismContainer) {
+                    kindsChecked.add(PrismContainer.class);
+                } else if (item instanceof PrismProperty) {
+                    kindsChecked.add(PrismProperty.class);
+                } else if (item instanceof PrismReference) {
+                    kindsChecked.add(PrismReference.class);
+                }
+            }
+        }
+        assertEquals("Not all kinds of items were checked",
+                new HashSet<>(Arrays.asList(PrismContainer.class, PrismProperty.class, PrismReference.class)), kindsChecked);
+
+        String xml = getPrismContext().xmlSerializer().serialize(jack);
+        measureHeap("parsed user jack", () -> getPrismContext().parserFor(xml).xml().parse(), 2000);
+    }
+
+    /**
+     * Compares the initialization with independent parts run in parallel to the sequential one.
+     */
+    @Test
+    public void test600InitializePrismContext() throws Exception {
+        System.out.println("===[ test600InitializePrismContext ]===");
+
+        final int ROUNDS = 3;
+        long sequentialTime = 0, parallelTime = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sequentialTime += measurePrismContextInitialization(false);
+            parallelTime += measurePrismContextInitialization(true);
+        }
+        String message = String.format("initialize prism context: %d ms sequentially, %d ms in parallel "
+                        + "(average of %d rounds), ratio parallel/sequential: %.2f", sequentialTime / ROUNDS,
+                parallelTime / ROUNDS, ROUNDS, (double) parallelTime / sequentialTime);
+        System.out.println(message);
+        LOGGER.info(message);
+    }
+
+    private long measurePrismContextInitialization(boolean parallel) throws Exception {
+        PrismContext prismContext = MidPointPrismContextFactory.FACTORY.createPrismContext();
+        ((SchemaRegistryImpl) prismContext.getSchemaRegistry()).setParallelInitialization(parallel);
+        long start = System.currentTimeMillis();
+        prismContext.initialize();
+        return System.currentTimeMillis() - start;
+    }
 }
@@ -8,16 +8,26 @@ package com.evolveum.midpoint.schema.performance;
 
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismPropertyDefinition;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.delta.ObjectDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.util.DOMUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AdminGuiConfigurationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.CredentialsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.PasswordType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import org.testng.annotations.Test;
 
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
 
@@ -140,4 +150,92 @@ public class TestDeltaPerformance extends AbstractSchemaPerformanceTest {
         measure("jack2.diff(jack)", () -> jack2.diff(jack));
     }
 
+    private static final int MANY_VALUES = 100000;
+    private static final int SOME_VALUES = 1000;
+
+    @Test
+    public void test200ApplyDeltasToItemsWith100kValues() throws Exception {
+        System.out.println("===[ test200ApplyDeltasToItemsWith100kValues ]===");
+
+        PrismObject<UserType> jack = getJack();
+        List<PrismPropertyValue<String>> subtypeValues = new ArrayList<>();
+        for (String subtype : subtypes(0, MANY_VALUES)) {
+            subtypeValues.add(getPrismContext().itemFactory().createPropertyValue(subtype));
+        }
+        List<PrismReferenceValue> linkRefValues = new ArrayList<>();
+        for (ObjectReferenceType linkRef : linkRefs(0, MANY_VALUES)) {
+            linkRefValues.add(linkRef.asReferenceValue());
+        }
+        measure("jack.clone().addAll(100k values)", () -> {
+            PrismObject<UserType> clone = jack.clone();
+            clone.<String>findOrCreateProperty(UserType.F_SUBTYPE).addAll(CloneUtil.cloneCollectionMembers(subtypeValues));
+            clone.findOrCreateReference(UserType.F_LINK_REF).addAll(CloneUtil.cloneCollectionMembers(linkRefValues));
+            return true;
+        }, 10000, 3);
+
+        jack.<String>findOrCreateProperty(UserType.F_SUBTYPE).addAll(subtypeValues);
+        jack.findOrCreateReference(UserType.F_LINK_REF).addAll(linkRefValues);
+        PrismObject<UserType> temp = jack.clone();
+
+        // half of the values are already present
+        ObjectDelta<UserType> addDelta = getPrismContext().deltaFor(UserType.class)
+                .item(UserType.F_SUBTYPE).addRealValues(subtypes(MANY_VALUES - SOME_VALUES / 2, SOME_VALUES))
+                .item(UserType.F_LINK_REF).addRealValues(linkRefs(MANY_VALUES - SOME_VALUES / 2, SOME_VALUES))
+                .asObjectDeltaCast(jack.getOid());
+        measure("addDelta.applyTo(jack)", () -> { addDelta.applyTo(temp); return true; });
+
+        ObjectDelta<UserType> deleteDelta = getPrismContext().deltaFor(UserType.class)
+                .item(UserType.F_SUBTYPE).deleteRealValues(subtypes(0, SOME_VALUES))
+                .item(UserType.F_LINK_REF).deleteRealValues(linkRefs(0, SOME_VALUES))
+                .asObjectDeltaCast(jack.getOid());
+        measure("deleteDelta.applyTo(jack)", () -> { deleteDelta.applyTo(temp); return true; });
+
+        PrismObject<UserType> jack2 = jack.clone();
+        addDelta.applyTo(jack2);
+        deleteDelta.applyTo(jack2);
+        measure("jack2.diff(jack)", () -> jack2.diff(jack));
+    }
+
+    private static final int ASSIGNMENTS = 1000;
+
+    @Test
+    public void test300ComputeChangedObjectWithManyAssignments() throws Exception {
+        System.out.println("===[ test300ComputeChangedObjectWithManyAssignments ]===");
+
+        PrismObject<UserType> jack = getJack();
+        for (int i = 0; i < ASSIGNMENTS; i++) {
+            jack.asObjectable().getAssignment().add(new AssignmentType(getPrismContext())
+                    .id(10000L + i)
+                    .description("assignment " + i)
+                    .targetRef(String.format("00000000-0000-0000-0000-%012d", i), RoleType.COMPLEX_TYPE));
+        }
+        ObjectDelta<UserType> delta = getPrismContext().deltaFor(UserType.class)
+                .item(UserType.F_NAME).replace(new PolyString("jjj"))
+                .item(UserType.F_ASSIGNMENT, 10005L, AssignmentType.F_DESCRIPTION).replace("changed")
+                .asObjectDeltaCast(jack.getOid());
+
+        measure("delta.computeChangedObject(jack)", () -> delta.computeChangedObject(jack));
+
+        // clones of immutable objects (e.g. the cached ones) share items with the original until they are modified
+        PrismObject<UserType> immutableJack = jack.clone();
+        immutableJack.setImmutable(true);
+        measure("delta.computeChangedObject(immutable jack)", () -> delta.computeChangedObject(immutableJack));
+        measure("immutable jack.clone()", immutableJack::clone);
+    }
+
+    private List<String> subtypes(int from, int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            values.add("subtype-" + i);
+        }
+        return values;
+    }
+
+    private List<ObjectReferenceType> linkRefs(int from, int count) {
+        List<ObjectReferenceType> values = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            values.add(new ObjectReferenceType().oid(String.format("00000000-0000-0000-0000-%012d", i)).type(ShadowType.COMPLEX_TYPE));
+        }
+        return values;
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.schema.performance;
+
+import com.evolveum.midpoint.prism.impl.polystring.AlphanumericPolyStringNormalizer;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.polystring.PolyStringNormalizer;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringNormalizerConfigurationType;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.evolveum.midpoint.prism.util.PrismTestUtil.getPrismContext;
+
+/**
+ * Measures PolyString normalization of typical names.
+ */
+public class TestPolyStringPerformance extends AbstractSchemaPerformanceTest {
+
+    private static final String[] ASCII_NAMES = {
+            "jack", "Jack Sparrow", "Will Turner", "elizabeth.swann", "Hector Barbossa", "davy-jones"
+    };
+
+    private static final String[] EUROPEAN_NAMES = {
+            "Jürgen Müller", "François Lefèvre", "Ľubomír Štefánik",
+            "Søren Kierkegård", "José María Nuñez", "Zdzisław Wiśniewski"
+    };
+
+    private static final String[] NON_LATIN_NAMES = {
+            "Иван Петров", "Νίκος Παπαδόπουλος",
+            "山田 太郎", "李小龙", "דוד כהן", "محمد علي"
+    };
+
+    @Test
+    public void test100NormalizeAsciiNames() throws Exception {
+        System.out.println("===[ test100NormalizeAsciiNames ]===");
+
+        measureNormalization("normalize ASCII names", getPrismContext().getDefaultPolyStringNormalizer(), ASCII_NAMES);
+    }
+
+    @Test
+    public void test110NormalizeEuropeanNames() throws Exception {
+        System.out.println("===[ test110NormalizeEuropeanNames ]===");
+
+        measureNormalization("normalize European names", getPrismContext().getDefaultPolyStringNormalizer(), EUROPEAN_NAMES);
+    }
+
+    @Test
+    public void test120NormalizeNonLatinNames() throws Exception {
+        System.out.println("===[ test120NormalizeNonLatinNames ]===");
+
+        measureNormalization("normalize non-Latin names", getPrismContext().getDefaultPolyStringNormalizer(), NON_LATIN_NAMES);
+    }
+
+    @Test
+    public void test200NormalizeWithCache() throws Exception {
+        System.out.println("===[ test200NormalizeWithCache ]===");
+
+        AlphanumericPolyStringNormalizer normalizer = new AlphanumericPolyStringNormalizer();
+        PolyStringNormalizerConfigurationType configuration = new PolyStringNormalizerConfigurationType();
+        configuration.setCacheSize(1000);
+        normalizer.configure(configuration);
+
+        measureNormalization("normalize ASCII names (cached)", normalizer, ASCII_NAMES);
+        measureNormalization("normalize European names (cached)", normalizer, EUROPEAN_NAMES);
+        measureNormalization("normalize non-Latin names (cached)", normalizer, NON_LATIN_NAMES);
+    }
+
+    @Test
+    public void test300CreatePolyString() throws Exception {
+        System.out.println("===[ test300CreatePolyString ]===");
+
+        PolyStringNormalizer normalizer = getPrismContext().getDefaultPolyStringNormalizer();
+        AtomicInteger counter = new AtomicInteger();
+        measure("new PolyString + recompute (European names)", () -> {
+            PolyString polyString = new PolyString(EUROPEAN_NAMES[counter.getAndIncrement() % EUROPEAN_NAMES.length]);
+            polyString.recompute(normalizer);
+            return polyString;
+        });
+    }
+
+    private void measureNormalization(String label, PolyStringNormalizer normalizer, String[] names) throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        measure(label, () -> normalizer.normalize(names[counter.getAndIncrement() % names.length]));
+    }
+}
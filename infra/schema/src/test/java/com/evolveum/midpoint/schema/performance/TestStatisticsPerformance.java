@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.schema.performance;
+
+import com.evolveum.midpoint.prism.delta.ChangeType;
+import com.evolveum.midpoint.schema.statistics.ActionsExecutedInformation;
+import com.evolveum.midpoint.schema.statistics.EnvironmentalPerformanceInformation;
+import com.evolveum.midpoint.schema.statistics.IterativeTaskInformation;
+import com.evolveum.midpoint.schema.statistics.ProvisioningOperation;
+import com.evolveum.midpoint.schema.statistics.SynchronizationInformation;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActionsExecutedInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.IterativeTaskInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ProvisioningStatisticsEntryType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SynchronizationInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import org.testng.annotations.Test;
+
+import javax.xml.namespace.QName;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Records task statistics from many threads at once (as worker threads of a task do) and checks
+ * that the collectors scale and that no updates are lost.
+ */
+public class TestStatisticsPerformance extends AbstractSchemaPerformanceTest {
+
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final int OPERATIONS = 1_000_000;            // total, divided among the threads
+
+    private static final QName OBJECT_CLASS = new QName("http://midpoint.evolveum.com/xml/ns/public/resource/instance-3", "AccountObjectClass");
+
+    @Test
+    public void test100RecordConcurrently() throws Exception {
+        System.out.println("===[ test100RecordConcurrently ]===");
+
+        for (int threads : THREADS) {
+            measureConcurrentRecording(threads);
+        }
+    }
+
+    private void measureConcurrentRecording(int threads) throws Exception {
+        IterativeTaskInformation iterative = new IterativeTaskInformation();
+        SynchronizationInformation synchronization = new SynchronizationInformation();
+        ActionsExecutedInformation actions = new ActionsExecutedInformation();
+        EnvironmentalPerformanceInformation environmental = new EnvironmentalPerformanceInformation();
+
+        int perThread = OPERATIONS / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "thread-" + t + "-";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    SynchronizationInformation.Record before = new SynchronizationInformation.Record();
+                    before.setCountUnmatched(1);
+                    SynchronizationInformation.Record after = new SynchronizationInformation.Record();
+                    after.setCountLinked(1);
+                    for (int i = 0; i < perThread; i++) {
+                        String name = prefix + i;
+                        long started = System.currentTimeMillis();
+                        iterative.recordOperationStart(name, null, ShadowType.COMPLEX_TYPE, null);
+                        environmental.recordProvisioningOperation("oid", "resource", OBJECT_CLASS,
+                                ProvisioningOperation.ICF_GET, true, 1, 1);
+                        actions.recordObjectActionExecuted(name, null, UserType.COMPLEX_TYPE, name, ChangeType.MODIFY, null, null);
+                        actions.markObjectActionExecutedBoundary();
+                        synchronization.recordSynchronizationOperationEnd(name, null, ShadowType.COMPLEX_TYPE, null,
+                                started, null, before, after);
+                        iterative.recordOperationEnd(name, null, ShadowType.COMPLEX_TYPE, null, started, null);
+                    }
+                    return null;
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long duration = System.nanoTime() - startTime;
+
+            int total = perThread * threads;
+            double opsPerSecond = total * 1e9 / duration;
+            String message = "Recording statistics in " + threads + " thread(s): " + total + " operations in "
+                    + duration / 1000000 + " ms (" + (long) opsPerSecond + " operations per second)";
+            System.out.println(message);
+            LOGGER.info(message);
+            PrintWriter resultsWriter = new PrintWriter(new FileWriter(RESULTS_FILE, true));
+            resultsWriter.println(System.currentTimeMillis() + ";" + new Date() + ";" + LABEL + ";record statistics;"
+                    + threads + ";" + total + ";" + opsPerSecond);
+            resultsWriter.close();
+
+            assertNoUpdatesLost(total, iterative, synchronization, actions, environmental);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertNoUpdatesLost(int total, IterativeTaskInformation iterative, SynchronizationInformation synchronization,
+            ActionsExecutedInformation actions, EnvironmentalPerformanceInformation environmental) {
+        IterativeTaskInformationType iterativeValue = iterative.getAggregatedValue();
+        assertEquals("Wrong success count", total, iterativeValue.getTotalSuccessCount());
+        assertEquals("Wrong failure count", 0, iterativeValue.getTotalFailureCount());
+
+        SynchronizationInformationType synchronizationValue = synchronization.getAggregatedValue();
+        assertEquals("Wrong unmatched count", total, synchronizationValue.getCountUnmatched());
+        assertEquals("Wrong linked (after) count", total, synchronizationValue.getCountLinkedAfter());
+
+        ActionsExecutedInformationType actionsValue = actions.getAggregatedValue();
+        assertEquals("Wrong # of action entries", 1, actionsValue.getObjectActionsEntry().size());
+        assertEquals("Wrong actions count", total, actionsValue.getObjectActionsEntry().get(0).getTotalSuccessCount());
+        assertEquals("Wrong resulting actions count", total, actionsValue.getResultingObjectActionsEntry().get(0).getTotalSuccessCount());
+
+        List<ProvisioningStatisticsEntryType> provisioningEntries = environmental.getAggregatedValue()
+                .getProvisioningStatistics().getEntry();
+        assertEquals("Wrong # of provisioning entries", 1, provisioningEntries.size());
+        assertEquals("Wrong provisioning count", total, provisioningEntries.get(0).getGetSuccess());
+    }
+}
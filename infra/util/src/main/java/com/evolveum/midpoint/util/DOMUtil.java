@@ -31,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
@@ -284,6 +285,18 @@ public class DOMUtil {
 
     public static StringBuffer printDom(Node node, boolean indent, boolean omitXmlDeclaration) {
         StringWriter writer = new StringWriter();
+        printDom(node, writer, indent, omitXmlDeclaration);
+        return writer.getBuffer();
+    }
+
+    /**
+     * Writes the same output as {@link #serializeDOMToString(Node)} does, but without creating the string.
+     */
+    public static void serializeDOMToWriter(Node node, Writer writer) {
+        printDom(node, writer, true, true);
+    }
+
+    private static void printDom(Node node, Writer writer, boolean indent, boolean omitXmlDeclaration) {
         DOMSource source = new DOMSource(node);
         try {
             Transformer trans = TRANSFORMER_THREAD_LOCAL.get();
@@ -294,8 +307,6 @@ public class DOMUtil {
         } catch (TransformerException e) {
             throw new SystemException("Error in XML transformation: "+e.getMessage(),e);
         }
-
-        return writer.getBuffer();
     }
 
     private static void showDomNode(Node node, StringBuilder sb, int level) {
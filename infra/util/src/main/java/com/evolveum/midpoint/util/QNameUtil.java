@@ -211,7 +211,8 @@ public class QNameUtil {
 
     // case insensitive is related to local parts
     public static boolean match(QName a, QName b, boolean caseInsensitive) {
-        if (a == null && b == null) {
+        if (a == b) {
+            // fast path, mainly for interned names (covers also a == null && b == null)
             return true;
         }
         if (a == null || b == null) {
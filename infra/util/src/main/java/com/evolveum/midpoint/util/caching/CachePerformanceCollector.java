@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
@@ -35,6 +36,7 @@ public class CachePerformanceCollector implements DebugDumpable {
         public final AtomicInteger misses = new AtomicInteger(0);
         public final AtomicInteger passes = new AtomicInteger(0);
         public final AtomicInteger notAvailable = new AtomicInteger(0);
+        public final AtomicLong timeSaved = new AtomicLong(0);                  // in milliseconds, for caches that can estimate it
 
         public AtomicInteger getHits() {
             return hits;
@@ -56,6 +58,10 @@ public class CachePerformanceCollector implements DebugDumpable {
             return notAvailable;
         }
 
+        public AtomicLong getTimeSaved() {
+            return timeSaved;
+        }
+
         public void add(AbstractThreadLocalCache cache) {
             hits.addAndGet(cache.getHits());
             misses.addAndGet(cache.getMisses());
@@ -71,6 +77,10 @@ public class CachePerformanceCollector implements DebugDumpable {
             int notAvailable = this.notAvailable.get();
             int sum = hits + weakHits + misses + passes + notAvailable;
             CacheUtil.formatPerformanceData(sb, hits, weakHits, misses, passes, notAvailable, sum);
+            long timeSaved = this.timeSaved.get();
+            if (timeSaved > 0) {
+                sb.append(", time saved: ").append(timeSaved).append(" ms");
+            }
         }
     }
 
@@ -125,6 +135,20 @@ public class CachePerformanceCollector implements DebugDumpable {
         increment(cacheClass, type, statisticsLevel, CacheData::getNotAvailable);
     }
 
+    /**
+     * Records the (estimated) time saved by a cache hit, e.g. the time that was needed to create the cached value.
+     */
+    public void registerTimeSaved(Class<?> cacheClass, Class<?> type, StatisticsLevel statisticsLevel, long millis) {
+        String key = createKey(cacheClass, type, statisticsLevel);
+        if (key != null && millis > 0) {
+            getOrCreate(performanceMap, key).timeSaved.addAndGet(millis);
+            Map<String, CacheData> localMap = threadLocalPerformanceMap.get();
+            if (localMap != null) {
+                getOrCreate(localMap, key).timeSaved.addAndGet(millis);
+            }
+        }
+    }
+
     private CacheData getOrCreate(Map<String, CacheData> performanceMap, String key) {
         if (performanceMap != null) {
             CacheData existingData = performanceMap.get(key);
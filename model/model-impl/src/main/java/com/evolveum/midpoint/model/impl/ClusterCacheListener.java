@@ -78,7 +78,10 @@ public class ClusterCacheListener implements CacheListener {
             return;
         }
 
-
+        if (taskManager.isCacheInvalidationOverRepository()) {
+            taskManager.publishCacheInvalidationEvent(type, oid, result);
+            return;
+        }
 
         clusterExecutionHelper.execute((client, result1) -> {
             client.path(ClusterRestService.EVENT_INVALIDATION +
@@ -102,7 +102,9 @@ public class ObjectImporter {
         int stopAfterErrors = options != null && options.getStopAfterErrors() != null ?
                 options.getStopAfterErrors() : 0;
 
-        if (!PrismContext.LANG_XML.equals(language)) {
+        Integer parsingThreads = options != null ? options.getParsingThreads() : null;
+
+        if (!PrismContext.LANG_XML.equals(language) || parsingThreads != null && parsingThreads > 0) {
             AtomicInteger index = new AtomicInteger(0);
             AtomicInteger errors = new AtomicInteger(0);
             AtomicInteger successes = new AtomicInteger(0);
@@ -140,7 +142,12 @@ public class ObjectImporter {
                 parser = parser.compat();
             }
             try {
-                parser.parseObjectsIteratively(handler);
+                if (parsingThreads != null && parsingThreads > 0) {
+                    // objects are imported in the original order, as later ones can depend on earlier ones
+                    parser.parseObjectsIteratively(handler, parsingThreads, true);
+                } else {
+                    parser.parseObjectsIteratively(handler);
+                }
             } catch (SchemaException|IOException e) {
                 parentResult.recordFatalError("Couldn't parse objects to be imported: " + e.getMessage(), e);
                 LoggingUtils.logUnexpectedException(LOGGER, "Couldn't parse objects to be imported", e);
@@ -31,6 +31,7 @@ import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.schema.cache.CacheConfigurationManager;
 import com.evolveum.midpoint.schema.cache.CacheType;
+import com.evolveum.midpoint.schema.result.CompiledTracingProfile;
 import com.evolveum.midpoint.schema.result.OperationResultBuilder;
 import com.evolveum.midpoint.task.api.*;
 import com.evolveum.midpoint.util.logging.*;
@@ -250,17 +251,22 @@ public class Clockwork {
         // If the result is already traced, we could abstain from recording the final trace ourselves.
         // But I think it's more reasonable to do that, because e.g. if there is clockwork-inside-clockwork processing,
         // we would like to have two traces, even if the second one is contained also within the first one.
-        TracingProfileType tracingProfile = ModelExecuteOptions.getTracingProfile(context.getOptions());
-        if (tracingProfile != null) {
-            builder.tracingProfile(tracer.compileProfile(tracingProfile, parentResult));
-            return true;
+        TracingProfileType profile;
+        TracingProfileType profileFromOptions = ModelExecuteOptions.getTracingProfile(context.getOptions());
+        if (profileFromOptions != null) {
+            profile = profileFromOptions;
         } else if (task.getTracingRequestedFor().contains(TracingRootType.CLOCKWORK_RUN)) {
-            TracingProfileType profile = task.getTracingProfile() != null ? task.getTracingProfile() : tracer.getDefaultProfile();
-            builder.tracingProfile(tracer.compileProfile(profile, parentResult));
-            return true;
+            profile = task.getTracingProfile() != null ? task.getTracingProfile() : tracer.getDefaultProfile();
         } else {
             return false;
         }
+        CompiledTracingProfile compiledProfile = tracer.compileProfileIfSampled(profile, parentResult);
+        if (compiledProfile != null) {
+            builder.tracingProfile(compiledProfile);
+            return true;
+        } else {
+            return false;       // sampled out
+        }
     }
 
     private <F extends ObjectType> ClockworkRunTraceType recordTraceAtStart(LensContext<F> context, Task task,
@@ -29,6 +29,7 @@ import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 import org.jetbrains.annotations.NotNull;
 
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -358,6 +359,28 @@ public class MockFactory {
             public PerformanceMonitor getPerformanceMonitor() {
                 return null;
             }
+
+            @Override
+            public long addCacheInvalidationEvent(@NotNull CacheInvalidationEventType event, OperationResult parentResult) {
+                return 0;
+            }
+
+            @NotNull
+            @Override
+            public List<CacheInvalidationEventType> getCacheInvalidationEvents(long afterSequenceNumber, int maxSize,
+                    OperationResult parentResult) {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public long getLastCacheInvalidationEventSequenceNumber(OperationResult parentResult) {
+                return 0;
+            }
+
+            @Override
+            public int deleteCacheInvalidationEvents(@NotNull XMLGregorianCalendar olderThan, OperationResult parentResult) {
+                return 0;
+            }
         };
     }
 
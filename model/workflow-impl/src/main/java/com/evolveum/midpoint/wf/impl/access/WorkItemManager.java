@@ -11,6 +11,7 @@ import com.evolveum.midpoint.prism.PrismContainerValue;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.CompiledTracingProfile;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultBuilder;
 import com.evolveum.midpoint.schema.util.WorkItemId;
@@ -108,8 +109,13 @@ public class WorkItemManager {
             throws SchemaException {
         if (task.getTracingRequestedFor().contains(TracingRootType.WORKFLOW_OPERATION)) {
             TracingProfileType profile = task.getTracingProfile() != null ? task.getTracingProfile() : tracer.getDefaultProfile();
-            builder.tracingProfile(tracer.compileProfile(profile, parentResult));
-            return true;
+            CompiledTracingProfile compiledProfile = tracer.compileProfileIfSampled(profile, parentResult);
+            if (compiledProfile != null) {
+                builder.tracingProfile(compiledProfile);
+                return true;
+            } else {
+                return false;       // sampled out
+            }
         } else {
             return false;
         }
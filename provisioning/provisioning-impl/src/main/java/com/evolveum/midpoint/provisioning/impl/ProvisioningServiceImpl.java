@@ -567,7 +567,7 @@ public class ProvisioningServiceImpl implements ProvisioningService, SystemConfi
         Integer count;
         try {
 
-            count = shadowCache.countObjects(query, task, result);
+            count = shadowCache.countObjects(query, rootOptions, task, result);
 
             result.computeStatus();
 
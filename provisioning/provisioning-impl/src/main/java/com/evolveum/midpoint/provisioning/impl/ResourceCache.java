@@ -6,11 +6,23 @@
  */
 package com.evolveum.midpoint.provisioning.impl;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.common.refinery.RefinedResourceSchemaCache;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.repo.api.Cacheable;
+import com.evolveum.midpoint.repo.cache.CacheRegistry;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.evolveum.midpoint.prism.PrismObject;
@@ -21,20 +33,38 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
 /**
  * Class for caching ResourceType instances with a parsed schemas.
  *
+ * It also takes care of invalidating the node-wide {@link RefinedResourceSchemaCache}.
+ *
  * @author Radovan Semancik
  *
  */
 @Component
-public class ResourceCache {
+public class ResourceCache implements Cacheable {
 
     private static final Trace LOGGER = TraceManager.getTrace(ResourceCache.class);
 
+    private static final String RESOURCE_CACHE_NAME = ResourceCache.class.getName();
+    private static final String REFINED_SCHEMA_CACHE_NAME = RefinedResourceSchemaCache.class.getName();
+
+    @Autowired private CacheRegistry cacheRegistry;
+    @Autowired private PrismContext prismContext;
+
     private Map<String,PrismObject<ResourceType>> cache;
 
     ResourceCache() {
         cache = new HashMap<>();
     }
 
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCacheableService(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCacheableService(this);
+    }
+
     public synchronized void put(PrismObject<ResourceType> resource) throws SchemaException {
         String oid = resource.getOid();
         if (oid == null) {
@@ -126,6 +156,42 @@ public class ResourceCache {
 
     public synchronized void remove(String oid) {
         cache.remove(oid);
+        RefinedResourceSchemaCache.INSTANCE.invalidate(oid);
+    }
+
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (context != null && context.isTerminateSession()) {
+            LOGGER.trace("Skipping invalidation request. Request is for terminate session, not for resource cache invalidation.");
+            return;
+        }
+        if (type == null || ResourceType.class.isAssignableFrom(type)) {
+            if (oid != null) {
+                remove(oid);
+            } else {
+                synchronized (this) {
+                    cache.clear();
+                }
+                RefinedResourceSchemaCache.INSTANCE.invalidate(null);
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public Collection<SingleCacheStateInformationType> getStateInformation() {
+        int size;
+        synchronized (this) {
+            size = cache.size();
+        }
+        return Arrays.asList(
+                new SingleCacheStateInformationType(prismContext)
+                        .name(RESOURCE_CACHE_NAME)
+                        .size(size),
+                new SingleCacheStateInformationType(prismContext)
+                        .name(REFINED_SCHEMA_CACHE_NAME)
+                        .size(RefinedResourceSchemaCache.INSTANCE.size())
+        );
     }
 
 }
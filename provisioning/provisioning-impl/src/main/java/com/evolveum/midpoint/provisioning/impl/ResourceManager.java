@@ -300,9 +300,10 @@ public class ResourceManager {
 
         try {
             // make sure it has parsed resource and refined schema. We are going to cache
-            // it, so we want to cache it with the parsed schemas
+            // it, so we want to cache it with the parsed schemas. The resource corresponds to the repository state,
+            // so the refined schema (along with the parsed resource schema) can be taken from the node-wide cache.
+            RefinedResourceSchemaImpl.getRefinedSchemaForRepositoryState(newResource, prismContext);
             RefinedResourceSchemaImpl.getResourceSchema(newResource, prismContext);
-            RefinedResourceSchemaImpl.getRefinedSchema(newResource);
 
         } catch (SchemaException e) {
             String message = "Schema error while processing schemaHandling section of "+newResource+": "+e.getMessage();
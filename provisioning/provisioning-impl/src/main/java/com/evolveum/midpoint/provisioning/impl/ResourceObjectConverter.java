@@ -1394,9 +1394,10 @@ public class ResourceObjectConverter {
             Task task, OperationResult parentResult) throws SchemaException {
         boolean tracingRequested;
         if (task != null && task.getTracingRequestedFor().contains(tracingRoot)) {
-            tracingRequested = true;
             try {
-                resultBuilder.tracingProfile(tracer.compileProfile(task.getTracingProfile(), parentResult));
+                CompiledTracingProfile compiledProfile = tracer.compileProfileIfSampled(task.getTracingProfile(), parentResult);
+                tracingRequested = compiledProfile != null;         // null means sampled out
+                resultBuilder.tracingProfile(compiledProfile);
             } catch (SchemaException | RuntimeException e) {
                 parentResult.recordFatalError(e);
                 throw e;
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.common.Clock;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.repo.api.Cacheable;
+import com.evolveum.midpoint.repo.cache.CacheRegistry;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SingleCacheStateInformationType;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.xml.namespace.QName;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps recent (estimated) counts of resource objects, so repeated requests for the same count (e.g. when paging
+ * through resource content in GUI) do not hit the resource each time. Entries expire after {@link #TIME_TO_LIVE}
+ * and are removed when the resource is changed (via the cache invalidation mechanism).
+ *
+ * Used only when the client is satisfied with an estimated count; see {@link com.evolveum.midpoint.schema.CountAccuracy}.
+ *
+ * EXPERIMENTAL
+ */
+@Component
+public class ResourceObjectCountCache implements Cacheable {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ResourceObjectCountCache.class);
+
+    private static final String CACHE_NAME = ResourceObjectCountCache.class.getName();
+
+    static final long TIME_TO_LIVE = 60000L;
+    private static final int MAX_ENTRIES = 1000;
+
+    @Autowired private Clock clock;
+    @Autowired private CacheRegistry cacheRegistry;
+    @Autowired private PrismContext prismContext;
+
+    private final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public ResourceObjectCountCache() {
+    }
+
+    // for unit tests
+    ResourceObjectCountCache(Clock clock) {
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void register() {
+        cacheRegistry.registerCacheableService(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        cacheRegistry.unregisterCacheableService(this);
+    }
+
+    public synchronized Integer get(String resourceOid, QName objectClassName, ObjectQuery query) {
+        Key key = new Key(resourceOid, objectClassName, query);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        } else if (clock.currentTimeMillis() - entry.timestamp > TIME_TO_LIVE) {
+            LOGGER.trace("Cached count for {} expired", key);
+            cache.remove(key);
+            return null;
+        } else {
+            LOGGER.trace("Returning cached count of {} for {}", entry.count, key);
+            return entry.count;
+        }
+    }
+
+    public synchronized void put(String resourceOid, QName objectClassName, ObjectQuery query, int count) {
+        cache.put(new Key(resourceOid, objectClassName, query), new Entry(count, clock.currentTimeMillis()));
+    }
+
+    public synchronized void remove(String resourceOid) {
+        cache.keySet().removeIf(key -> Objects.equals(key.resourceOid, resourceOid));
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Counts depend on the resource configuration (e.g. base context, object class definitions, protected objects),
+     * so they are thrown away when the resource changes.
+     */
+    @Override
+    public void invalidate(Class<?> type, String oid, CacheInvalidationContext context) {
+        if (context != null && context.isTerminateSession()) {
+            return;
+        }
+        if (type == null || ResourceType.class.isAssignableFrom(type)) {
+            if (oid != null) {
+                remove(oid);
+            } else {
+                clear();
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public Collection<SingleCacheStateInformationType> getStateInformation() {
+        return Collections.singleton(
+                new SingleCacheStateInformationType(prismContext)
+                        .name(CACHE_NAME)
+                        .size(size()));
+    }
+
+    private static class Key {
+        private final String resourceOid;
+        private final QName objectClassName;
+        private final ObjectFilter filter;        // paging is irrelevant for counting
+
+        private Key(String resourceOid, QName objectClassName, ObjectQuery query) {
+            this.resourceOid = resourceOid;
+            this.objectClassName = objectClassName;
+            this.filter = query != null && query.getFilter() != null ? query.getFilter().clone() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(resourceOid, key.resourceOid) &&
+                    Objects.equals(objectClassName, key.objectClassName) &&
+                    Objects.equals(filter, key.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resourceOid, objectClassName, filter);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "resourceOid='" + resourceOid + '\'' +
+                    ", objectClassName=" + objectClassName +
+                    ", filter=" + filter +
+                    '}';
+        }
+    }
+
+    private static class Entry {
+        private final int count;
+        private final long timestamp;
+
+        private Entry(int count, long timestamp) {
+            this.count = count;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -117,6 +117,7 @@ public class ShadowCache {
     @Autowired private ProvisioningContextFactory ctxFactory;
     @Autowired private Protector protector;
     @Autowired private CacheConfigurationManager cacheConfigurationManager;
+    @Autowired private ResourceObjectCountCache countCache;
 
     private static final Trace LOGGER = TraceManager.getTrace(ShadowCache.class);
 
@@ -2434,7 +2435,18 @@ public class ShadowCache {
         changeNotificationDispatcher.notifyChange(change, task, parentResult);
     }
 
-    public Integer countObjects(ObjectQuery query, Task task, final OperationResult result)
+    /**
+     * Counts resource objects. The counting strategy is selected like this:
+     *
+     * 1. if the connector can count natively, or the count can be estimated by a paged search, this is used;
+     * 2. if only an estimate is requested (see {@link CountAccuracy}), a recent count of the same objects is reused,
+     *    or repository shadows are counted instead of scanning the resource one object at a time;
+     * 3. otherwise a sequential search is used (if configured) or null is returned.
+     *
+     * Whether the count is an estimate and where it comes from is recorded in the operation result
+     * (return values {@link CountAccuracy#RETURN_COUNT_ESTIMATED} and {@link #RETURN_COUNT_SOURCE}).
+     */
+    public Integer countObjects(ObjectQuery query, GetOperationOptions rootOptions, Task task, final OperationResult result)
             throws SchemaException, ObjectNotFoundException, CommunicationException, ConfigurationException,
             SecurityViolationException, ExpressionEvaluationException {
 
@@ -2444,10 +2456,98 @@ public class ShadowCache {
         applyDefinition(ctx, query);
 
         RefinedObjectClassDefinition objectClassDef = ctx.getObjectClassDefinition();
+        QName objectClassName = objectClassDef.getTypeName();
+        boolean estimateAcceptable = GetOperationOptions.isEstimatedCount(rootOptions);
+        if (estimateAcceptable) {
+            Integer cached = countCache.get(ctx.getResourceOid(), objectClassName, query);
+            if (cached != null) {
+                LOGGER.trace("countObjects: returning recently computed count");
+                recordCountSource(result, CountSource.CACHE, true);
+                result.recordSuccessIfUnknown();
+                return cached;
+            }
+        }
+
+        Integer count = countObjects(ctx, objectClassDef, query, estimateAcceptable, task, result);
+        if (estimateAcceptable && count != null) {
+            countCache.put(ctx.getResourceOid(), objectClassName, query, count);
+        }
+        return count;
+    }
+
+    /**
+     * Describes where the count came from.
+     */
+    enum CountSource {
+        CONNECTOR, PAGED_SEARCH_ESTIMATE, SEQUENTIAL_SEARCH, REPOSITORY, CACHE
+    }
+
+    static final String RETURN_COUNT_SOURCE = "countSource";
+
+    private void recordCountSource(OperationResult result, CountSource source, boolean estimated) {
+        result.addReturn(RETURN_COUNT_SOURCE, source.name());
+        result.addReturn(CountAccuracy.RETURN_COUNT_ESTIMATED, estimated);
+    }
+
+    /**
+     * Can the repository count shadows matching given filter, with the same result as the resource would have?
+     * Only filters on resource, object class, kind and intent qualify; attribute values are generally not stored
+     * in the repository.
+     */
+    static boolean isCountableInRepository(ObjectFilter filter) {
+        if (filter == null) {
+            return true;
+        } else if (filter instanceof AndFilter) {
+            return ((AndFilter) filter).getConditions().stream().allMatch(ShadowCache::isCountableInRepository);
+        } else if (filter instanceof RefFilter) {
+            return ((RefFilter) filter).getParentPath().isEmpty()
+                    && QNameUtil.match(ShadowType.F_RESOURCE_REF, ((RefFilter) filter).getElementName());
+        } else if (filter instanceof EqualFilter) {
+            QName elementName = ((EqualFilter) filter).getElementName();
+            return ((EqualFilter) filter).getParentPath().isEmpty()
+                    && (QNameUtil.match(ShadowType.F_OBJECT_CLASS, elementName)
+                        || QNameUtil.match(ShadowType.F_KIND, elementName)
+                        || QNameUtil.match(ShadowType.F_INTENT, elementName));
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Counts live repository shadows instead of resource objects. The result may be out of date: it is as fresh as
+     * the last reconciliation (or other full synchronization) of the resource.
+     */
+    private Integer countRepositoryShadows(ObjectQuery query, OperationResult result) throws SchemaException {
+        ObjectFilter notDeadFilter = prismContext.queryFor(ShadowType.class)
+                .block()
+                    .item(ShadowType.F_DEAD).eq(false)
+                    .or().item(ShadowType.F_DEAD).isNull()
+                .endBlock()
+                .buildFilter();
+        ObjectFilter filter = query.getFilter() != null ? query.getFilter().clone() : null;
+        ObjectQuery repoQuery = prismContext.queryFactory().createQuery(
+                ObjectQueryUtil.filterAnd(filter, notDeadFilter, prismContext));
+        int count = repositoryService.countObjects(ShadowType.class, repoQuery, null, result);
+        recordCountSource(result, CountSource.REPOSITORY, true);
+        result.computeStatus();
+        result.cleanupResult();
+        return count;
+    }
+
+    private Integer countObjects(ProvisioningContext ctx, RefinedObjectClassDefinition objectClassDef, ObjectQuery query,
+            boolean estimateAcceptable, Task task, OperationResult result)
+            throws SchemaException, ObjectNotFoundException, CommunicationException, ConfigurationException,
+            SecurityViolationException, ExpressionEvaluationException {
+
         ResourceType resourceType = ctx.getResource();
         CountObjectsCapabilityType countObjectsCapabilityType = objectClassDef
                 .getEffectiveCapability(CountObjectsCapabilityType.class, resourceType);
+        boolean repositoryEstimateAcceptable = estimateAcceptable && isCountableInRepository(query.getFilter());
         if (countObjectsCapabilityType == null) {
+            if (repositoryEstimateAcceptable) {
+                LOGGER.trace("countObjects: no counting capability, estimating from repository shadows");
+                return countRepositoryShadows(query, result);
+            }
             // Unable to count. Return null which means "I do not know"
             LOGGER.trace("countObjects: cannot count (no counting capability)");
             result.recordNotApplicableIfUnknown();
@@ -2470,6 +2570,7 @@ public class ShadowCache {
                         result.recordFatalError(e);
                         throw e;
                     }
+                    recordCountSource(result, CountSource.CONNECTOR, false);
                     result.computeStatus();
                     result.cleanupResult();
                     return count;
@@ -2526,12 +2627,17 @@ public class ShadowCache {
                     result.recordFatalError(e);
                     throw e;
                 }
+                recordCountSource(result, CountSource.PAGED_SEARCH_ESTIMATE, true);
                 result.computeStatus();
                 result.cleanupResult();
 
                 return resultMetadata.getApproxNumberOfAllResults();
 
             } else if (simulate == CountObjectsSimulateType.SEQUENTIAL_SEARCH) {
+                if (repositoryEstimateAcceptable) {
+                    LOGGER.trace("countObjects: estimating from repository shadows instead of sequential search");
+                    return countRepositoryShadows(query, result);
+                }
                 //fix for MID-5204. as sequentialSearch option causes to fetch all resource objects,
                 // query paging is senseless here
                 if (query != null) {
@@ -2557,6 +2663,7 @@ public class ShadowCache {
                         .build();
 
                 searchObjectsIterative(query, options, handler, false, task, result);
+                recordCountSource(result, CountSource.SEQUENTIAL_SEARCH, false);
                 // TODO: better error handling
                 result.computeStatus();
                 result.cleanupResult();
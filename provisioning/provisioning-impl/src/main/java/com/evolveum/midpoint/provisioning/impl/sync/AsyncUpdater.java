@@ -111,6 +111,7 @@ public class AsyncUpdater {
                  */
                 LOGGER.trace("Submitting request for processing: {}", request);
                 coordinator.submit(request);
+                coordinator.flush();            // we are going to wait for the request, so it must not stay in a partially filled batch
 
                 /*
                  * Let's wait for the request completion.
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.sync;
+
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.provisioning.ucf.api.Change;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Coalesces changes of the same resource object that arrive within one live sync "window" (a group of consecutively
+ * fetched changes). Changes are grouped by primary identifier. The resulting change carries the latest state of the object
+ * (and the latest token), and a delta that is the merge of the individual deltas, if they can be merged.
+ *
+ * Each coalesced change remembers sequential numbers (see {@link OldestTokenWatcher}) of all changes it represents,
+ * so that the token can be correctly advanced only after all of them are processed.
+ *
+ * Coalesced changes do not keep operation results of the original changes, as these are closed when the changes
+ * are buffered. The caller provides the result when submitting the coalesced change.
+ *
+ * Not thread safe. It is expected to be used from the thread that fetches the changes.
+ *
+ * EXPERIMENTAL
+ */
+class ChangeCoalescer {
+
+    private static final Trace LOGGER = TraceManager.getTrace(ChangeCoalescer.class);
+
+    private final int windowSize;
+
+    /**
+     * Changes waiting to be submitted, indexed by primary identifier. Ordered by the arrival of the first change.
+     */
+    private final Map<Object, CoalescedChange> waitingChanges = new LinkedHashMap<>();
+
+    /**
+     * Number of changes (original ones, i.e. before coalescing) currently in the window.
+     */
+    private int changesInWindow;
+
+    /**
+     * Total number of changes that were merged into other ones.
+     */
+    private int changesCoalesced;
+
+    ChangeCoalescer(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Adds a change to the window.
+     *
+     * @return Changes that are ready to be submitted (in the order they should be submitted). Usually empty; non-empty
+     * when the window gets full, when the change cannot be coalesced, or when it cannot be merged with the waiting one.
+     */
+    @NotNull
+    List<CoalescedChange> add(@NotNull Change change, int sequentialNumber) {
+        Object primaryIdentifier = change.getPrimaryIdentifierRealValue();
+        if (primaryIdentifier == null) {
+            LOGGER.trace("No primary identifier in change, so it cannot be coalesced: {}", change);
+            return Collections.singletonList(new CoalescedChange(change, sequentialNumber));
+        }
+
+        List<CoalescedChange> ready = new ArrayList<>();
+        CoalescedChange existing = waitingChanges.get(primaryIdentifier);
+        if (existing == null) {
+            waitingChanges.put(primaryIdentifier, new CoalescedChange(change, sequentialNumber));
+        } else if (existing.coalesceWith(change, sequentialNumber)) {
+            changesCoalesced++;
+            LOGGER.trace("Coalesced change #{} of {} with {} previous one(s)", sequentialNumber, primaryIdentifier,
+                    existing.sequentialNumbers.size() - 1);
+        } else {
+            // We have to keep the order of changes for given object. So the waiting one goes first.
+            waitingChanges.remove(primaryIdentifier);
+            ready.add(existing);
+            waitingChanges.put(primaryIdentifier, new CoalescedChange(change, sequentialNumber));
+        }
+        changesInWindow++;
+        if (changesInWindow >= windowSize) {
+            ready.addAll(flush());
+        }
+        return ready;
+    }
+
+    /**
+     * Returns all waiting changes and clears the window.
+     */
+    @NotNull
+    List<CoalescedChange> flush() {
+        List<CoalescedChange> ready = new ArrayList<>(waitingChanges.values());
+        waitingChanges.clear();
+        changesInWindow = 0;
+        return ready;
+    }
+
+    /**
+     * Throws away all waiting changes. Used when the processing is being stopped: these changes are not marked
+     * as processed, so the token is not moved beyond them and they are fetched again on the next run.
+     *
+     * @return Number of original changes discarded.
+     */
+    int discard() {
+        int discarded = 0;
+        for (CoalescedChange waiting : waitingChanges.values()) {
+            discarded += waiting.sequentialNumbers.size();
+        }
+        waitingChanges.clear();
+        changesInWindow = 0;
+        return discarded;
+    }
+
+    boolean isEmpty() {
+        return waitingChanges.isEmpty();
+    }
+
+    int getChangesCoalesced() {
+        return changesCoalesced;
+    }
+
+    /**
+     * A change representing one or more original changes of the same resource object.
+     */
+    static class CoalescedChange {
+
+        @NotNull private Change change;
+        @NotNull private final List<Integer> sequentialNumbers = new ArrayList<>();
+
+        private CoalescedChange(@NotNull Change change, int sequentialNumber) {
+            this.change = change;
+            this.sequentialNumbers.add(sequentialNumber);
+        }
+
+        @NotNull
+        Change getChange() {
+            return change;
+        }
+
+        @NotNull
+        List<Integer> getSequentialNumbers() {
+            return sequentialNumbers;
+        }
+
+        /**
+         * @return false if the changes cannot be coalesced (the deltas cannot be merged)
+         */
+        private boolean coalesceWith(@NotNull Change newer, int sequentialNumber) {
+            ObjectDelta<ShadowType> mergedDelta;
+            try {
+                mergedDelta = mergeDeltas(change.getObjectDelta(), newer.getObjectDelta());
+            } catch (SchemaException | RuntimeException e) {
+                LOGGER.debug("Couldn't merge deltas of {} and {}, not coalescing them: {}", change, newer, e.getMessage(), e);
+                return false;
+            }
+            newer.setObjectDelta(mergedDelta);
+            change = newer;
+            sequentialNumbers.add(sequentialNumber);
+            return true;
+        }
+
+        /**
+         * The current state of the object is taken from the newer change. The delta is computed like this:
+         *
+         * 1. DELETE in newer change wins,
+         * 2. if the older change has no delta, or it is DELETE, the delta of newer change is used (it may be null),
+         * 3. if the newer change has no delta, older ADD is kept (the object was created within the window),
+         *    otherwise there is no delta, i.e. we rely on the current state,
+         * 4. otherwise, the deltas are merged.
+         */
+        private static ObjectDelta<ShadowType> mergeDeltas(ObjectDelta<ShadowType> older, ObjectDelta<ShadowType> newer)
+                throws SchemaException {
+            if (newer != null && newer.isDelete()) {
+                return newer;
+            } else if (older == null || older.isDelete()) {
+                return newer;
+            } else if (newer == null) {
+                return older.isAdd() ? older : null;
+            } else {
+                ObjectDelta<ShadowType> merged = older.clone();
+                merged.merge(newer);
+                return merged;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CoalescedChange{" +
+                    "change=" + change +
+                    ", sequentialNumbers=" + sequentialNumbers +
+                    '}';
+        }
+    }
+}
@@ -9,6 +9,7 @@ package com.evolveum.midpoint.provisioning.impl.sync;
 
 import com.evolveum.midpoint.prism.PrismProperty;
 import com.evolveum.midpoint.prism.util.CloneUtil;
+import com.evolveum.midpoint.repo.common.task.WorkStealingDispatcher;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
@@ -50,6 +51,7 @@ public class ChangeProcessingCoordinator {
     private final boolean multithreaded;
     private final List<OperationResult> workerSpecificResults;
     private final BlockingQueue<ProcessChangeRequest> waitingRequestsQueue;
+    private final WorkStealingDispatcher<ProcessChangeRequest> dispatcher;      // used instead of the queue if batched dispatching is configured
     private final AffinityController affinityController;
 
     private volatile boolean allItemsSubmitted;
@@ -63,22 +65,31 @@ public class ChangeProcessingCoordinator {
 
         int threadsCount = getWorkerThreadsCount();
         if (threadsCount > 0) {
-            int queueSize = threadsCount*2;                // actually, size of threadsCount should be sufficient but it doesn't hurt if queue is larger
             multithreaded = true;
-            waitingRequestsQueue = new ArrayBlockingQueue<>(queueSize);
+            dispatcher = WorkStealingDispatcher.createIfConfigured(coordinatorTask, threadsCount,
+                    ProcessChangeRequest::getPrimaryIdentifierRealValue);
+            if (dispatcher == null) {
+                int queueSize = threadsCount*2;                // actually, size of threadsCount should be sufficient but it doesn't hurt if queue is larger
+                waitingRequestsQueue = new ArrayBlockingQueue<>(queueSize);
+            } else {
+                waitingRequestsQueue = null;
+            }
             workerSpecificResults = new ArrayList<>(threadsCount);
             affinityController = new AffinityController();
             createWorkerTasks(threadsCount);
         } else {
             multithreaded = false;
             waitingRequestsQueue = null;
+            dispatcher = null;
             workerSpecificResults = null;
             affinityController = null;
         }
     }
 
     public void submit(ProcessChangeRequest request) throws InterruptedException {
-        if (multithreaded) {
+        if (dispatcher != null) {
+            dispatcher.submit(request, canRunSupplier::get);
+        } else if (multithreaded) {
             while (!waitingRequestsQueue.offer(request, REQUEST_QUEUE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
                 if (!canRunSupplier.get()) {
                     return;
@@ -89,6 +100,16 @@ public class ChangeProcessingCoordinator {
         }
     }
 
+    /**
+     * Makes sure all submitted requests are handed over to workers. Needed when requests are dispatched in batches
+     * and the caller is going to wait for the processing of the requests it has submitted.
+     */
+    public void flush() {
+        if (dispatcher != null) {
+            dispatcher.flush();
+        }
+    }
+
     private void createWorkerTasks(int threadsCount) {
 
         RunningTask runningCoordinatorTask = (RunningTask) coordinatorTask;
@@ -103,7 +124,7 @@ public class ChangeProcessingCoordinator {
             workerSpecificResult.addContext("subtaskIndex", i+1);
             workerSpecificResults.add(workerSpecificResult);
 
-            RunningTask subtask = runningCoordinatorTask.createSubtask(new WorkerHandler(workerSpecificResult));
+            RunningTask subtask = runningCoordinatorTask.createSubtask(new WorkerHandler(workerSpecificResult, i));
             subtask.resetIterativeTaskInformation(null);
             subtask.resetSynchronizationInformation(null);
             subtask.resetActionsExecutedInformation(null);
@@ -118,16 +139,19 @@ public class ChangeProcessingCoordinator {
 
     private class WorkerHandler implements LightweightTaskHandler {
         private OperationResult workerSpecificResult;
+        private final int workerIndex;
+        private final Deque<ProcessChangeRequest> requestsFromBatch = new ArrayDeque<>();      // used with dispatcher only
 
-        private WorkerHandler(OperationResult workerSpecificResult) {
+        private WorkerHandler(OperationResult workerSpecificResult, int workerIndex) {
             this.workerSpecificResult = workerSpecificResult;
+            this.workerIndex = workerIndex;
         }
 
         @Override
         public void run(RunningTask workerTask) {
 
             assert multithreaded;
-            assert waitingRequestsQueue != null;
+            assert waitingRequestsQueue != null || dispatcher != null;
             assert affinityController != null;
 
             // temporary hack: how to see thread name for this task
@@ -136,11 +160,21 @@ public class ChangeProcessingCoordinator {
 
             while (workerTask.canRun() && canRunSupplier.get()) {
                 workerTask.refreshLowLevelStatistics();
+                boolean allSubmitted = allItemsSubmitted;           // must be checked before fetching the request
                 ProcessChangeRequest preAssigned = affinityController.getAssigned(workerTask.getTaskIdentifier());
                 ProcessChangeRequest request;
                 if (preAssigned != null) {
                     LOGGER.trace("Got pre-assigned request {}", preAssigned);
                     request = preAssigned;
+                } else if (dispatcher != null) {
+                    try {
+                        request = getRequestFromBatch(workerTask);
+                        LOGGER.trace("Got request {}", request);
+                    } catch (InterruptedException e) {
+                        LOGGER.trace("Interrupted when waiting for next batch of requests", e);
+                        workerTask.refreshLowLevelStatistics();
+                        break;
+                    }
                 } else {
                     try {
                         request = waitingRequestsQueue.poll(WORKER_THREAD_WAIT_FOR_REQUEST, TimeUnit.MILLISECONDS);
@@ -174,7 +208,7 @@ public class ChangeProcessingCoordinator {
                         workerSpecificResult.cleanupResult();
                     }
                 } else {
-                    if (allItemsSubmitted) {
+                    if (allSubmitted) {
                         LOGGER.trace("queue is empty and nothing more is expected - exiting");
                         break;
                     }
@@ -184,6 +218,24 @@ public class ChangeProcessingCoordinator {
             if (assigned > 0) {
                 LOGGER.warn("Worker task exiting but it has {} change requests assigned", assigned);
             }
+            if (!requestsFromBatch.isEmpty()) {
+                LOGGER.warn("Worker task exiting but it has {} change requests taken", requestsFromBatch.size());
+            }
+        }
+
+        private ProcessChangeRequest getRequestFromBatch(RunningTask workerTask) throws InterruptedException {
+            if (requestsFromBatch.isEmpty()) {
+                long waitStart = System.currentTimeMillis();
+                WorkStealingDispatcher.Batch<ProcessChangeRequest> batch = dispatcher.take(workerIndex, WORKER_THREAD_WAIT_FOR_REQUEST);
+                long idleTime = System.currentTimeMillis() - waitStart;
+                if (batch != null) {
+                    workerTask.recordWorkerWaitTimes(batch.getQueueWaitTime(), idleTime);
+                    requestsFromBatch.addAll(batch.getRequests());
+                } else {
+                    workerTask.recordWorkerWaitTimes(0, idleTime);
+                }
+            }
+            return requestsFromBatch.poll();
         }
     }
 
@@ -198,6 +250,9 @@ public class ChangeProcessingCoordinator {
     }
 
     void setAllItemsSubmitted() {
+        if (dispatcher != null) {
+            dispatcher.signalAllSubmitted();
+        }
         this.allItemsSubmitted = true;
     }
 
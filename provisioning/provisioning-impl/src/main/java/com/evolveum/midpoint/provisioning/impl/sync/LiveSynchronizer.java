@@ -38,6 +38,9 @@ import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.apache.commons.lang3.BooleanUtils.isNotFalse;
 import static org.apache.commons.lang3.BooleanUtils.isTrue;
 
@@ -49,6 +52,8 @@ public class LiveSynchronizer {
 
     private static final Trace LOGGER = TraceManager.getTrace(LiveSynchronizer.class);
 
+    private static final String OP_PROCESS_COALESCED_CHANGE = LiveSynchronizer.class.getName() + ".processCoalescedChange";
+
     @Autowired private ProvisioningContextFactory ctxFactory;
     @Autowired private ResourceObjectConverter resourceObjectConverter;
     @Autowired private ChangeProcessor changeProcessor;
@@ -95,56 +100,118 @@ public class LiveSynchronizer {
                 () -> ctx.canRun() && !syncResult.isHaltingErrorEncountered(),
                 changeProcessor, task, partition);
 
+        ChangeCoalescer coalescer = createCoalescer(task);
+
         Holder<PrismProperty<?>> finalTokenHolder = new Holder<>();
-        ChangeHandler changeHandler = new ChangeHandler() {
+        class LiveSyncChangeHandler implements ChangeHandler {
             @Override
             public boolean handleChange(Change change, OperationResult result) {
                 int sequentialNumber = oldestTokenWatcher.changeArrived(change.getToken());
                 if (ctx.canRun()) {
-                    ProcessChangeRequest request = new ProcessChangeRequest(change, ctx, isSimulate, result) {
-                        /**
-                         * This is a success reported by change processor. It is hopefully the usual case.
-                         */
-                        @Override
-                        public void onSuccess() {
-                            treatSuccess(sequentialNumber);
-                        }
-
-                        /**
-                         * This is a "soft" error reported by change processor - i.e. the one without an exception.
-                         * The issue should be already recorded in the operation result. Our task is to stop or
-                         * continue processing, depending on the settings.
-                         */
-                        @Override
-                        public void onError(OperationResult result) {
-                            LOGGER.error("An error occurred during live synchronization in {}, when processing #{}: {}", task,
-                                    sequentialNumber, change);
-                            treatError(sequentialNumber, RepoCommonUtils.getResultExceptionIfExists(result));
+                    if (coalescer != null) {
+                        for (ChangeCoalescer.CoalescedChange ready : coalescer.add(change, sequentialNumber)) {
+                            if (!submitCoalesced(ready, result)) {
+                                return false;
+                            }
                         }
-
-                        /**
-                         * This is a "hard" error reported by change processor - i.e. the one with an exception.
-                         * The issue should be already recorded in the operation result. Our task is to stop or
-                         * continue processing, depending on the settings.
-                         */
-                        @Override
-                        public void onError(Throwable t, OperationResult result) {
-                            LoggingUtils.logUnexpectedException(LOGGER, "An exception occurred during live synchronization in {},"
-                                    + " when processing #{}: {}", t, task, sequentialNumber, change);
-                            treatError(sequentialNumber, t);
+                    } else {
+                        if (!submit(change, Collections.singletonList(sequentialNumber), result)) {
+                            return false;
                         }
-                    };
-                    try {
-                        coordinator.submit(request);
-                    } catch (InterruptedException e) {
-                        LOGGER.trace("Got InterruptedException, probably the coordinator task was suspended. Let's stop fetching changes.");
-                        syncResult.setSuspendEncountered(true);     // ok?
-                        return false;
                     }
                 }
                 return ctx.canRun() && !syncResult.isHaltingErrorEncountered();
             }
 
+            /**
+             * Submits changes that are waiting in the coalescer (if any).
+             */
+            private void submitCoalescedChanges(OperationResult parentResult) {
+                if (coalescer == null || coalescer.isEmpty()) {
+                    return;
+                }
+                if (!ctx.canRun() || syncResult.isHaltingErrorEncountered()) {
+                    // These changes will not be marked as processed, so the token will not be moved beyond them.
+                    int discarded = coalescer.discard();
+                    LOGGER.trace("Not submitting {} change(s) waiting for coalescing because the processing is being stopped",
+                            discarded);
+                    return;
+                }
+                for (ChangeCoalescer.CoalescedChange ready : coalescer.flush()) {
+                    if (!submitCoalesced(ready, parentResult)) {
+                        return;
+                    }
+                }
+            }
+
+            /**
+             * Results of the buffered changes are already closed, so each coalesced change gets its own result,
+             * created under the result of the change being currently handled (or under the main result at the end).
+             */
+            private boolean submitCoalesced(ChangeCoalescer.CoalescedChange ready, OperationResult parentResult) {
+                OperationResult result = parentResult.subresult(OP_PROCESS_COALESCED_CHANGE)
+                        .setMinor()
+                        .addArbitraryObjectCollectionAsParam("sequentialNumbers", ready.getSequentialNumbers())
+                        .addArbitraryObjectAsParam("primaryIdentifier", ready.getChange().getPrimaryIdentifierRealValue())
+                        .build();
+                try {
+                    return submit(ready.getChange(), ready.getSequentialNumbers(), result);
+                } catch (Throwable t) {
+                    result.recordFatalError(t);
+                    throw t;
+                } finally {
+                    result.computeStatusIfUnknown();
+                }
+            }
+
+            /**
+             * @param sequentialNumbers Sequential numbers of all (original) changes that are represented by this change.
+             * @return false if the submission was interrupted
+             */
+            private boolean submit(Change change, List<Integer> sequentialNumbers, OperationResult result) {
+                ProcessChangeRequest request = new ProcessChangeRequest(change, ctx, isSimulate, result) {
+                    /**
+                     * This is a success reported by change processor. It is hopefully the usual case.
+                     */
+                    @Override
+                    public void onSuccess() {
+                        treatSuccess(sequentialNumbers);
+                    }
+
+                    /**
+                     * This is a "soft" error reported by change processor - i.e. the one without an exception.
+                     * The issue should be already recorded in the operation result. Our task is to stop or
+                     * continue processing, depending on the settings.
+                     */
+                    @Override
+                    public void onError(OperationResult result) {
+                        LOGGER.error("An error occurred during live synchronization in {}, when processing #{}: {}", task,
+                                sequentialNumbers, change);
+                        treatError(sequentialNumbers, RepoCommonUtils.getResultExceptionIfExists(result));
+                    }
+
+                    /**
+                     * This is a "hard" error reported by change processor - i.e. the one with an exception.
+                     * The issue should be already recorded in the operation result. Our task is to stop or
+                     * continue processing, depending on the settings.
+                     */
+                    @Override
+                    public void onError(Throwable t, OperationResult result) {
+                        LoggingUtils.logUnexpectedException(LOGGER, "An exception occurred during live synchronization in {},"
+                                + " when processing #{}: {}", t, task, sequentialNumbers, change);
+                        treatError(sequentialNumbers, t);
+                    }
+                };
+                try {
+                    coordinator.submit(request);
+                    return true;
+                } catch (InterruptedException e) {
+                    LOGGER.trace("Got InterruptedException, probably the coordinator task was suspended. Let's stop fetching changes.");
+                    syncResult.setSuspendEncountered(true);     // ok?
+                    return false;
+                }
+            }
+
             /**
              * This is a "hard" error reported in preparation stages of change processing. The change might be even null here
              * (in that case we hope at least token is present).
@@ -157,7 +224,7 @@ public class LiveSynchronizer {
                         .logUnexpectedException(LOGGER, "An exception occurred during live synchronization in {}, "
                                 + "as part of pre-processing #{}: {}", exception, task,
                                 sequentialNumber, change != null ? "change " + change : "sync delta with token " + token);
-                return treatError(sequentialNumber, exception);
+                return treatError(Collections.singletonList(sequentialNumber), exception);
             }
 
             @Override
@@ -167,16 +234,19 @@ public class LiveSynchronizer {
                 syncResult.setAllChangesFetched(true);
             }
 
-            private boolean treatSuccess(int sequentialNumber) {
-                oldestTokenWatcher.changeProcessed(sequentialNumber);
-                syncResult.incrementChangesProcessed();
-                if (task instanceof RunningTask) {
-                    ((RunningTask) task).incrementProgressAndStoreStatsIfNeeded();
+            private boolean treatSuccess(List<Integer> sequentialNumbers) {
+                // Progress is counted in original changes, i.e. a coalesced change counts as all the changes it represents.
+                for (Integer sequentialNumber : sequentialNumbers) {
+                    oldestTokenWatcher.changeProcessed(sequentialNumber);
+                    syncResult.incrementChangesProcessed();
+                    if (task instanceof RunningTask) {
+                        ((RunningTask) task).incrementProgressAndStoreStatsIfNeeded();
+                    }
                 }
                 return ctx.canRun();
             }
 
-            private boolean treatError(int sequentialNumber, Throwable t) {
+            private boolean treatError(List<Integer> sequentialNumbers, Throwable t) {
                 syncResult.incrementErrors();
                 if (retryLiveSyncErrors) {
                     // We need to retry the failed change -- so we must not update the token.
@@ -190,17 +260,25 @@ public class LiveSynchronizer {
                 } else {
                     LOGGER.info("LiveSync encountered an error but 'retryLiveSyncErrors' is set to false: so continuing "
                                     + "as if nothing happened. Task: {}", ctx.getTask());
-                    return treatSuccess(sequentialNumber);
+                    return treatSuccess(sequentialNumbers);
                 }
             }
-        };
+        }
 
+        LiveSyncChangeHandler changeHandler = new LiveSyncChangeHandler();
         try {
             resourceObjectConverter.fetchChanges(ctx, initialToken, changeHandler, parentResult);
+            changeHandler.submitCoalescedChanges(parentResult);
         } finally {
             coordinator.setAllItemsSubmitted();
         }
 
+        if (coalescer != null && coalescer.getChangesCoalesced() > 0) {
+            LOGGER.debug("{} change(s) were coalesced with later changes of the same object(s)", coalescer.getChangesCoalesced());
+            syncResult.setChangesCoalesced(coalescer.getChangesCoalesced());
+            task.recordSynchronizationChangesCoalesced(coalescer.getChangesCoalesced());
+        }
+
         if (task instanceof RunningTask) {
             taskManager.waitForTransientChildren((RunningTask) task, parentResult);
             coordinator.updateOperationResult(parentResult);
@@ -249,6 +327,18 @@ public class LiveSynchronizer {
         return syncResult;
     }
 
+    @Nullable
+    private ChangeCoalescer createCoalescer(Task task) {
+        Integer windowSize = task.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_LIVE_SYNC_COALESCING_WINDOW);
+        // A window of a single change has nothing to coalesce.
+        if (windowSize != null && windowSize > 1) {
+            LOGGER.trace("Coalescing changes of the same objects within window of {} changes", windowSize);
+            return new ChangeCoalescer(windowSize);
+        } else {
+            return null;
+        }
+    }
+
     private PrismProperty<?> getTokenFromTask(Task task) {
         PrismProperty<?> tokenProperty = task.getExtensionPropertyOrClone(SchemaConstants.SYNC_TOKEN);
         LOGGER.trace("Initial token from the task: {}", SchemaDebugUtil.prettyPrintLazily(tokenProperty));
@@ -18,6 +18,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class SynchronizationOperationResult {
     private AtomicInteger changesProcessed = new AtomicInteger(0);
     private AtomicInteger errors = new AtomicInteger(0);
+    private int changesCoalesced;
     private volatile boolean suspendEncountered;
     private volatile boolean haltingErrorEncountered;
     private Throwable exceptionEncountered;             // FIXME this is a workaround for thresholds
@@ -33,6 +34,14 @@ public class SynchronizationOperationResult {
         return errors.get();
     }
 
+    public int getChangesCoalesced() {
+        return changesCoalesced;
+    }
+
+    public void setChangesCoalesced(int changesCoalesced) {
+        this.changesCoalesced = changesCoalesced;
+    }
+
     public boolean isSuspendEncountered() {
         return suspendEncountered;
     }
@@ -85,6 +94,7 @@ public class SynchronizationOperationResult {
     public String toString() {
         return "changesProcessed=" + changesProcessed +
                 ", errors=" + errors +
+                ", changesCoalesced=" + changesCoalesced +
                 ", suspendEncountered=" + suspendEncountered +
                 ", haltingErrorEncountered=" + haltingErrorEncountered +
                 ", exceptionEncountered=" + exceptionEncountered +
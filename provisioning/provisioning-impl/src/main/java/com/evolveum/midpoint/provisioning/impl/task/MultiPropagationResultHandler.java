@@ -7,26 +7,41 @@
 package com.evolveum.midpoint.provisioning.impl.task;
 
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
 import com.evolveum.midpoint.prism.crypto.EncryptionException;
-import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.provisioning.impl.ShadowCache;
 import com.evolveum.midpoint.provisioning.ucf.api.GenericFrameworkException;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.common.task.AbstractSearchIterativeResultHandler;
+import com.evolveum.midpoint.repo.common.task.WorkStealingDispatcher;
 import com.evolveum.midpoint.schema.ResultHandler;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.result.OperationResultStatus;
+import com.evolveum.midpoint.task.api.LightweightTaskHandler;
 import com.evolveum.midpoint.task.api.RunningTask;
 import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.task.api.TaskManager;
 import com.evolveum.midpoint.util.exception.CommonException;
-import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
+ * Propagates pending operations of all resources. Resources are processed one after another.
+ * Shadows of a resource are handed over to worker threads (if the workerThreads extension property is set)
+ * in batches of workerBatchSize shadows. Pending operations of each shadow are merged into a single operation
+ * by {@link ShadowCache#propagateOperations(PrismObject, PrismObject, Task, OperationResult)}.
+ *
+ * Iterative task information is recorded per shadow, so the throughput of the propagation is visible in the task.
+ *
  * @author semancik
  *
  */
@@ -34,13 +49,30 @@ public class MultiPropagationResultHandler extends AbstractSearchIterativeResult
 
     private static final transient Trace LOGGER = TraceManager.getTrace(MultiPropagationResultHandler.class);
 
+    private static final String OP_PROPAGATE_SHADOW_OPERATIONS = MultiPropagationResultHandler.class.getName() + ".propagateShadowOperations";
+    private static final String OP_PROPAGATE_ASYNCHRONOUSLY = MultiPropagationResultHandler.class.getName() + ".propagateAsynchronously";
+
+    private static final int DEFAULT_BATCH_SIZE = 20;
+    private static final long WORKER_THREAD_WAIT_FOR_BATCH = 500L;
+
+    private final TaskManager taskManager;
     private final RepositoryService repositoryService;
     private final ShadowCache shadowCache;
 
     public MultiPropagationResultHandler(RunningTask coordinatorTask, String taskOperationPrefix, TaskManager taskManager, RepositoryService repositoryService, ShadowCache shadowCache) {
         super(coordinatorTask, taskOperationPrefix, "propagation", "multipropagation", null, taskManager);
+        this.taskManager = taskManager;
         this.repositoryService = repositoryService;
         this.shadowCache = shadowCache;
+        setRecordIterationStatistics(false);        // we record the statistics per shadow, not per resource
+    }
+
+    /**
+     * Resources are not handed over to worker threads; the workers are used for shadows of each resource instead.
+     */
+    @Override
+    protected Integer getWorkerThreadsCount(Task task) {
+        return null;
     }
 
     @Override
@@ -54,25 +86,175 @@ public class MultiPropagationResultHandler extends AbstractSearchIterativeResult
                 .exists(ShadowType.F_PENDING_OPERATION)
             .build();
 
-        ResultHandler<ShadowType> handler =
-                (shadow, result) -> {
-                    propagateShadowOperations(resource, shadow, workerTask, result);
-                    return true;
-                };
+        // Resources are processed in the coordinator thread (see getWorkerThreadsCount), so workerTask is the coordinator.
+        Integer threads = super.getWorkerThreadsCount(workerTask);
+        PropagationCounters counters = new PropagationCounters();
+        long started = System.currentTimeMillis();
 
-        repositoryService.searchObjectsIterative(ShadowType.class, query, handler, null, true, taskResult);
+        if (threads != null && threads > 0) {
+            propagateInWorkerThreads(resource, query, threads, workerTask, counters, taskResult);
+        } else {
+            ResultHandler<ShadowType> handler =
+                    (shadow, result) -> {
+                        propagateShadowOperations(resource, shadow, workerTask, counters, taskResult);
+                        return workerTask.canRun();
+                    };
+            repositoryService.searchObjectsIterative(ShadowType.class, query, handler, null, true, taskResult);
+        }
 
-        LOGGER.trace("Propagation of {} done", resource);
+        long duration = System.currentTimeMillis() - started;
+        int shadows = counters.propagated.get() + counters.failed.get();
+        LOGGER.debug("Propagation of {} done: {} shadow(s) in {} ms ({} shadow(s) per second), {} failure(s)",
+                resource, shadows, duration, duration > 0 ? shadows * 1000L / duration : shadows, counters.failed.get());
 
+        taskResult.computeStatus("Couldn't propagate operations of " + counters.failed.get() + " shadow(s)");
         return true;
     }
 
-    protected void propagateShadowOperations(PrismObject<ResourceType> resource, PrismObject<ShadowType> shadow, Task workerTask, OperationResult result) {
+    private void propagateInWorkerThreads(PrismObject<ResourceType> resource, ObjectQuery query, int threads,
+            RunningTask coordinatorTask, PropagationCounters counters, OperationResult taskResult) throws CommonException {
+        WorkStealingDispatcher<PrismObject<ShadowType>> dispatcher =
+                new WorkStealingDispatcher<>(threads, getBatchSize(coordinatorTask), null);
+        List<OperationResult> workerSpecificResults = createWorkerThreads(resource, dispatcher, threads, coordinatorTask, counters);
         try {
-            shadowCache.propagateOperations(resource, shadow, workerTask, result);
-        } catch (CommonException | GenericFrameworkException | EncryptionException e) {
-            throw new SystemException("Generic provisioning framework error: " + e.getMessage(), e);
+            ResultHandler<ShadowType> handler =
+                    (shadow, result) -> {
+                        try {
+                            return dispatcher.submit(shadow, coordinatorTask::canRun) && coordinatorTask.canRun();
+                        } catch (InterruptedException e) {
+                            LOGGER.trace("Interrupted when submitting {} for propagation", shadow, e);
+                            return false;
+                        }
+                    };
+            repositoryService.searchObjectsIterative(ShadowType.class, query, handler, null, true, taskResult);
+        } finally {
+            dispatcher.signalAllSubmitted();
+            taskManager.waitForTransientChildren(coordinatorTask, taskResult);
+            for (OperationResult workerSpecificResult : workerSpecificResults) {
+                workerSpecificResult.computeStatus();
+                workerSpecificResult.summarize();
+                taskResult.addSubresult(workerSpecificResult);
+            }
+        }
+    }
+
+    private List<OperationResult> createWorkerThreads(PrismObject<ResourceType> resource,
+            WorkStealingDispatcher<PrismObject<ShadowType>> dispatcher, int threads, RunningTask coordinatorTask,
+            PropagationCounters counters) {
+
+        // remove subtasks that could have been created during processing of previous resources
+        coordinatorTask.deleteLightweightAsynchronousSubtasks();
+
+        List<OperationResult> workerSpecificResults = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            // worker specific results are put under the resource result only after the workers are done
+            OperationResult workerSpecificResult = new OperationResult(OP_PROPAGATE_ASYNCHRONOUSLY);
+            workerSpecificResult.addContext("subtaskIndex", i+1);
+            workerSpecificResults.add(workerSpecificResult);
+
+            RunningTask subtask = coordinatorTask.createSubtask(
+                    new WorkerHandler(resource, dispatcher, i, counters, workerSpecificResult));
+            subtask.resetIterativeTaskInformation(null);
+            subtask.setCategory(coordinatorTask.getCategory());
+            subtask.setResult(new OperationResult(getTaskOperationPrefix() + ".executeWorker", OperationResultStatus.IN_PROGRESS, (String) null));
+            subtask.setName("Propagation worker thread " + (i+1) + " of " + threads);
+            subtask.setExecutionEnvironment(CloneUtil.clone(coordinatorTask.getExecutionEnvironment()));
+            subtask.startLightweightHandler();
+            LOGGER.trace("Worker subtask {} created", subtask);
         }
+        return workerSpecificResults;
     }
 
+    private int getBatchSize(Task coordinatorTask) {
+        PrismProperty<Integer> batchSizeProperty = coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_BATCH_SIZE);
+        Integer batchSize = batchSizeProperty != null ? batchSizeProperty.getRealValue() : null;
+        return batchSize != null && batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Propagates operations of a single shadow. Failures are recorded in the shadow-specific subresult
+     * (so they make the resource result an error) but they do not stop the propagation of other shadows.
+     */
+    private void propagateShadowOperations(PrismObject<ResourceType> resource, PrismObject<ShadowType> shadow,
+            RunningTask workerTask, PropagationCounters counters, OperationResult parentResult) {
+        OperationResult result = parentResult.subresult(OP_PROPAGATE_SHADOW_OPERATIONS)
+                .setMinor()
+                .addParam("shadow", shadow)
+                .build();
+        long started = System.currentTimeMillis();
+        workerTask.recordIterativeOperationStart(shadow.asObjectable());
+        try {
+            propagateOperations(resource, shadow, workerTask, result);
+            workerTask.recordIterativeOperationEnd(shadow.asObjectable(), started, null);
+            counters.propagated.incrementAndGet();
+        } catch (CommonException | GenericFrameworkException | EncryptionException | RuntimeException e) {
+            workerTask.recordIterativeOperationEnd(shadow.asObjectable(), started, e);
+            counters.failed.incrementAndGet();
+            LOGGER.error("Couldn't propagate operations of {} on {}: {}", shadow, resource, e.getMessage(), e);
+            result.recordFatalError("Couldn't propagate operations of " + shadow + ": " + e.getMessage(), e);
+        } finally {
+            result.computeStatusIfUnknown();
+            parentResult.summarize();
+        }
+    }
+
+    // overridden in tests
+    protected void propagateOperations(PrismObject<ResourceType> resource, PrismObject<ShadowType> shadow, Task workerTask,
+            OperationResult result) throws CommonException, GenericFrameworkException, EncryptionException {
+        shadowCache.propagateOperations(resource, shadow, workerTask, result);
+    }
+
+    private static class PropagationCounters {
+        private final AtomicInteger propagated = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+    }
+
+    private class WorkerHandler implements LightweightTaskHandler {
+
+        private final PrismObject<ResourceType> resource;
+        private final WorkStealingDispatcher<PrismObject<ShadowType>> dispatcher;
+        private final int workerIndex;
+        private final PropagationCounters counters;
+        private final OperationResult workerSpecificResult;
+
+        private WorkerHandler(PrismObject<ResourceType> resource, WorkStealingDispatcher<PrismObject<ShadowType>> dispatcher,
+                int workerIndex, PropagationCounters counters, OperationResult workerSpecificResult) {
+            this.resource = resource;
+            this.dispatcher = dispatcher;
+            this.workerIndex = workerIndex;
+            this.counters = counters;
+            this.workerSpecificResult = workerSpecificResult;
+        }
+
+        @Override
+        public void run(RunningTask workerTask) {
+            while (workerTask.canRun()) {
+                boolean allSubmitted = dispatcher.isAllSubmitted();        // must be checked before taking the batch
+                long waitStart = System.currentTimeMillis();
+                WorkStealingDispatcher.Batch<PrismObject<ShadowType>> batch;
+                try {
+                    batch = dispatcher.take(workerIndex, WORKER_THREAD_WAIT_FOR_BATCH);
+                } catch (InterruptedException e) {
+                    LOGGER.trace("Interrupted when waiting for next batch of shadows", e);
+                    return;
+                }
+                long idleTime = System.currentTimeMillis() - waitStart;
+                if (batch != null) {
+                    workerTask.recordWorkerWaitTimes(batch.getQueueWaitTime(), idleTime);
+                    for (PrismObject<ShadowType> shadow : batch.getRequests()) {
+                        if (!workerTask.canRun()) {
+                            return;
+                        }
+                        propagateShadowOperations(resource, shadow, workerTask, counters, workerSpecificResult);
+                    }
+                } else {
+                    workerTask.recordWorkerWaitTimes(0, idleTime);
+                    if (allSubmitted) {
+                        LOGGER.trace("No more shadows to propagate - exiting");
+                        return;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.common.Clock;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowKindType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+
+public class TestResourceObjectCountCache {
+
+    private static final String RESOURCE_OID = "10000000-0000-0000-0000-000000000004";
+    private static final String OTHER_RESOURCE_OID = "10000000-0000-0000-0000-000000000005";
+    private static final QName OBJECT_CLASS = new QName(MidPointConstants.NS_RI, "AccountObjectClass");
+
+    @BeforeSuite
+    public void setup() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100HitAndMiss() throws Exception {
+        final String TEST_NAME = "test100HitAndMiss";
+        displayTestTitle(TEST_NAME);
+
+        ResourceObjectCountCache cache = new ResourceObjectCountCache(new Clock());
+        assertNull("Unexpected count in empty cache", cache.get(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID)));
+
+        cache.put(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID), 42);
+
+        // separately built but equal query; paging is irrelevant
+        ObjectQuery pagedQuery = createQuery(RESOURCE_OID);
+        pagedQuery.setPaging(getPrismContext().queryFactory().createPaging(20, 10));
+        assertEquals("Wrong cached count", (Integer) 42, cache.get(RESOURCE_OID, OBJECT_CLASS, pagedQuery));
+
+        assertNull("Unexpected count for other resource", cache.get(OTHER_RESOURCE_OID, OBJECT_CLASS, createQuery(OTHER_RESOURCE_OID)));
+        ObjectQuery otherQuery = getPrismContext().queryFor(ShadowType.class)
+                .item(ShadowType.F_RESOURCE_REF).ref(RESOURCE_OID)
+                .and().item(ShadowType.F_OBJECT_CLASS).eq(OBJECT_CLASS)
+                .and().item(ShadowType.F_KIND).eq(ShadowKindType.ACCOUNT)
+                .build();
+        assertNull("Unexpected count for different filter", cache.get(RESOURCE_OID, OBJECT_CLASS, otherQuery));
+    }
+
+    @Test
+    public void test110Expiration() throws Exception {
+        final String TEST_NAME = "test110Expiration";
+        displayTestTitle(TEST_NAME);
+
+        Clock clock = new Clock();
+        clock.override(1000000L);
+        ResourceObjectCountCache cache = new ResourceObjectCountCache(clock);
+        cache.put(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID), 42);
+
+        clock.override(1000000L + ResourceObjectCountCache.TIME_TO_LIVE);
+        assertEquals("Wrong cached count", (Integer) 42, cache.get(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID)));
+
+        clock.override(1000000L + ResourceObjectCountCache.TIME_TO_LIVE + 1);
+        assertNull("Count did not expire", cache.get(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID)));
+        assertEquals("Expired entry was not removed", 0, cache.size());
+    }
+
+    @Test
+    public void test120InvalidationOnResourceChange() throws Exception {
+        final String TEST_NAME = "test120InvalidationOnResourceChange";
+        displayTestTitle(TEST_NAME);
+
+        ResourceObjectCountCache cache = new ResourceObjectCountCache(new Clock());
+        cache.put(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID), 42);
+        cache.put(OTHER_RESOURCE_OID, OBJECT_CLASS, createQuery(OTHER_RESOURCE_OID), 10);
+
+        cache.invalidate(UserType.class, RESOURCE_OID, null);
+        assertEquals("Entries removed on unrelated invalidation", 2, cache.size());
+
+        cache.invalidate(ResourceType.class, RESOURCE_OID, null);
+        assertNull("Count survived resource change", cache.get(RESOURCE_OID, OBJECT_CLASS, createQuery(RESOURCE_OID)));
+        assertEquals("Wrong count for other resource", (Integer) 10, cache.get(OTHER_RESOURCE_OID, OBJECT_CLASS, createQuery(OTHER_RESOURCE_OID)));
+
+        cache.invalidate(null, null, null);
+        assertEquals("Cache not cleared", 0, cache.size());
+    }
+
+    /**
+     * Only filters on resource, object class, kind and intent can be answered from the shadow table.
+     */
+    @Test
+    public void test200RepositoryCountability() throws Exception {
+        final String TEST_NAME = "test200RepositoryCountability";
+        displayTestTitle(TEST_NAME);
+
+        assertTrue("Coordinates-only query is not countable in repository",
+                ShadowCache.isCountableInRepository(createQuery(RESOURCE_OID).getFilter()));
+        assertTrue("Kind/intent query is not countable in repository",
+                ShadowCache.isCountableInRepository(getPrismContext().queryFor(ShadowType.class)
+                        .item(ShadowType.F_RESOURCE_REF).ref(RESOURCE_OID)
+                        .and().item(ShadowType.F_KIND).eq(ShadowKindType.ACCOUNT)
+                        .and().item(ShadowType.F_INTENT).eq("default")
+                        .buildFilter()));
+        assertFalse("Query on other shadow properties is countable in repository",
+                ShadowCache.isCountableInRepository(getPrismContext().queryFor(ShadowType.class)
+                        .item(ShadowType.F_RESOURCE_REF).ref(RESOURCE_OID)
+                        .and().item(ShadowType.F_OBJECT_CLASS).eq(OBJECT_CLASS)
+                        .and().item(ShadowType.F_EXISTS).eq(true)
+                        .buildFilter()));
+        assertFalse("OR query is countable in repository",
+                ShadowCache.isCountableInRepository(getPrismContext().queryFor(ShadowType.class)
+                        .item(ShadowType.F_RESOURCE_REF).ref(RESOURCE_OID)
+                        .or().item(ShadowType.F_OBJECT_CLASS).eq(OBJECT_CLASS)
+                        .buildFilter()));
+    }
+
+    private ObjectQuery createQuery(String resourceOid) {
+        return getPrismContext().queryFor(ShadowType.class)
+                .item(ShadowType.F_RESOURCE_REF).ref(resourceOid)
+                .and().item(ShadowType.F_OBJECT_CLASS).eq(OBJECT_CLASS)
+                .build();
+    }
+
+    private PrismContext getPrismContext() {
+        return PrismTestUtil.getPrismContext();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.sync;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.provisioning.ucf.api.Change;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+
+public class TestChangeCoalescer {
+
+    private static final String OID_WILL = "c0c010c0-d34d-b33f-f00d-111111111111";
+    private static final String OID_ELAINE = "c0c010c0-d34d-b33f-f00d-222222222222";
+
+    @BeforeSuite
+    public void setup() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100MergeModifications() throws Exception {
+        final String TEST_NAME = "test100MergeModifications";
+        displayTestTitle(TEST_NAME);
+
+        ChangeCoalescer coalescer = new ChangeCoalescer(10);
+
+        assertTrue("Ready changes after the first change", coalescer.add(modifyChange("will", OID_WILL, "first", 1), 0).isEmpty());
+        assertTrue("Ready changes after the second change", coalescer.add(modifyChange("will", OID_WILL, "second", 2), 1).isEmpty());
+        assertTrue("Ready changes after the third change", coalescer.add(modifyChange("elaine", OID_ELAINE, "third", 3), 2).isEmpty());
+
+        assertEquals("Wrong # of coalesced changes", 1, coalescer.getChangesCoalesced());
+
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.flush();
+        assertEquals("Wrong # of ready changes", 2, ready.size());
+        assertTrue("Coalescer is not empty after flush", coalescer.isEmpty());
+
+        ChangeCoalescer.CoalescedChange will = ready.get(0);
+        assertEquals("Wrong sequential numbers", Arrays.asList(0, 1), will.getSequentialNumbers());
+        assertEquals("Wrong token (latest one expected)", 2, (int) will.getChange().getToken().getRealValue());
+        ObjectDelta<ShadowType> delta = will.getChange().getObjectDelta();
+        assertNotNull("No merged delta", delta);
+        assertTrue("Merged delta is not a modify delta", delta.isModify());
+        assertEquals("Wrong description in merged delta", "second",
+                delta.findPropertyDelta(ShadowType.F_DESCRIPTION).getValuesToReplace().iterator().next().getRealValue());
+
+        ChangeCoalescer.CoalescedChange elaine = ready.get(1);
+        assertEquals("Wrong sequential numbers", Collections.singletonList(2), elaine.getSequentialNumbers());
+    }
+
+    @Test
+    public void test110DeleteWins() throws Exception {
+        final String TEST_NAME = "test110DeleteWins";
+        displayTestTitle(TEST_NAME);
+
+        ChangeCoalescer coalescer = new ChangeCoalescer(10);
+        coalescer.add(modifyChange("will", OID_WILL, "first", 1), 0);
+        Change delete = change("will", getPrismContext().deltaFactory().object().createDeleteDelta(ShadowType.class, OID_WILL), 2);
+        coalescer.add(delete, 1);
+
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.flush();
+        assertEquals("Wrong # of ready changes", 1, ready.size());
+        assertSame("Wrong change", delete, ready.get(0).getChange());
+        assertTrue("Delete delta expected", ready.get(0).getChange().getObjectDelta().isDelete());
+        assertEquals("Wrong sequential numbers", Arrays.asList(0, 1), ready.get(0).getSequentialNumbers());
+    }
+
+    @Test
+    public void test120FullWindowIsFlushed() throws Exception {
+        final String TEST_NAME = "test120FullWindowIsFlushed";
+        displayTestTitle(TEST_NAME);
+
+        ChangeCoalescer coalescer = new ChangeCoalescer(3);
+        assertTrue(coalescer.add(modifyChange("will", OID_WILL, "a", 1), 0).isEmpty());
+        assertTrue(coalescer.add(modifyChange("elaine", OID_ELAINE, "b", 2), 1).isEmpty());
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.add(modifyChange("will", OID_WILL, "c", 3), 2);
+
+        assertEquals("Wrong # of ready changes", 2, ready.size());
+        assertEquals("Wrong sequential numbers", Arrays.asList(0, 2), ready.get(0).getSequentialNumbers());
+        assertEquals("Wrong sequential numbers", Collections.singletonList(1), ready.get(1).getSequentialNumbers());
+        assertTrue("Coalescer is not empty", coalescer.isEmpty());
+    }
+
+    @Test
+    public void test130ChangeWithoutIdentifierIsNotBuffered() throws Exception {
+        final String TEST_NAME = "test130ChangeWithoutIdentifierIsNotBuffered";
+        displayTestTitle(TEST_NAME);
+
+        ChangeCoalescer coalescer = new ChangeCoalescer(10);
+        Change change = change(null, null, 1);
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.add(change, 0);
+
+        assertEquals("Wrong # of ready changes", 1, ready.size());
+        assertSame("Wrong change", change, ready.get(0).getChange());
+        assertTrue("Coalescer is not empty", coalescer.isEmpty());
+    }
+
+    /**
+     * ADD delta cannot be merged into MODIFY one. The older change must be submitted first and the newer one
+     * has to wait.
+     */
+    @Test
+    public void test140UnmergeableDeltas() throws Exception {
+        final String TEST_NAME = "test140UnmergeableDeltas";
+        displayTestTitle(TEST_NAME);
+
+        ChangeCoalescer coalescer = new ChangeCoalescer(10);
+        Change modify = modifyChange("will", OID_WILL, "first", 1);
+        coalescer.add(modify, 0);
+
+        ShadowType shadow = new ShadowType(getPrismContext()).oid(OID_WILL).description("re-created");
+        Change add = change("will", shadow.asPrismObject().createAddDelta(), 2);
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.add(add, 1);
+
+        assertEquals("Wrong # of ready changes", 1, ready.size());
+        assertSame("Wrong change", modify, ready.get(0).getChange());
+        assertEquals("Wrong sequential numbers", Collections.singletonList(0), ready.get(0).getSequentialNumbers());
+        assertEquals("Wrong # of coalesced changes", 0, coalescer.getChangesCoalesced());
+
+        List<ChangeCoalescer.CoalescedChange> rest = coalescer.flush();
+        assertEquals("Wrong # of remaining changes", 1, rest.size());
+        assertSame("Wrong change", add, rest.get(0).getChange());
+    }
+
+    /**
+     * When the processing is stopped, waiting changes are discarded. They must not be marked as processed,
+     * so the token stays before them.
+     */
+    @Test
+    public void test150DiscardOnStop() throws Exception {
+        final String TEST_NAME = "test150DiscardOnStop";
+        displayTestTitle(TEST_NAME);
+
+        OldestTokenWatcher watcher = new OldestTokenWatcher();
+        ChangeCoalescer coalescer = new ChangeCoalescer(2);
+
+        // #0 and #1 (different objects) fill the window, so they are flushed and processed
+        Change first = modifyChange("will", OID_WILL, "a", 1);
+        coalescer.add(first, watcher.changeArrived(first.getToken()));
+        Change second = modifyChange("elaine", OID_ELAINE, "b", 2);
+        List<ChangeCoalescer.CoalescedChange> ready = coalescer.add(second, watcher.changeArrived(second.getToken()));
+        assertEquals("Wrong # of ready changes", 2, ready.size());
+        ready.forEach(c -> c.getSequentialNumbers().forEach(watcher::changeProcessed));
+
+        // #2 waits in the window and then the processing is stopped
+        Change third = modifyChange("will", OID_WILL, "c", 3);
+        assertTrue(coalescer.add(third, watcher.changeArrived(third.getToken())).isEmpty());
+
+        assertEquals("Wrong # of discarded changes", 1, coalescer.discard());
+        assertTrue("Coalescer is not empty", coalescer.isEmpty());
+        assertTrue("Changes flushed after discard", coalescer.flush().isEmpty());
+        assertEquals("Wrong oldest token processed", 2, (int) watcher.getOldestTokenProcessed().getRealValue());
+    }
+
+    private Change modifyChange(String name, String oid, String description, int token) throws Exception {
+        ObjectDelta<ShadowType> delta = getPrismContext().deltaFor(ShadowType.class)
+                .item(ShadowType.F_DESCRIPTION).replace(description)
+                .asObjectDeltaCast(oid);
+        return change(name, delta, token);
+    }
+
+    private Change change(String primaryIdentifier, ObjectDelta<ShadowType> delta, int token) {
+        return new Change(primaryIdentifier, null, null, delta, createToken(token));
+    }
+
+    private PrismProperty<Integer> createToken(int value) {
+        PrismProperty<Integer> token = getPrismContext().itemFactory().createProperty(new QName("token"));
+        token.setRealValue(value);
+        return token;
+    }
+
+    private PrismContext getPrismContext() {
+        return PrismTestUtil.getPrismContext();
+    }
+}
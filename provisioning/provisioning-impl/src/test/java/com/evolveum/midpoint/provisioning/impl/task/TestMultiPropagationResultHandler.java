@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.provisioning.impl.task;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+import static com.evolveum.midpoint.test.util.TestUtil.displayThen;
+import static com.evolveum.midpoint.test.util.TestUtil.displayWhen;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.ResultHandler;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.LightweightTaskHandler;
+import com.evolveum.midpoint.task.api.RunningTask;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.task.api.TaskManager;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.util.exception.CommunicationException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ResourceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
+
+/**
+ * Tests propagation of pending operations of many shadows by {@link MultiPropagationResultHandler},
+ * both in the coordinator thread and in worker threads. The propagation itself is replaced by recording
+ * of the propagated shadows.
+ */
+public class TestMultiPropagationResultHandler {
+
+    private static final String RESOURCE_OID = "0b8ea2a6-b8e4-11e9-9ff0-0f4e1b5b2a86";
+    private static final String FAILING_SHADOW_NAME = "shadow-13";
+
+    @BeforeSuite
+    public void setup() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100PropagateInCoordinatorThread() throws Exception {
+        final String TEST_NAME = "test100PropagateInCoordinatorThread";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        List<PrismObject<ShadowType>> shadows = createShadows(5, false);
+        FakeTasks tasks = new FakeTasks(null, null);
+        TestedHandler handler = new TestedHandler(tasks, shadows);
+        OperationResult result = new OperationResult(TEST_NAME);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        handler.handleObject(createResource(), tasks.coordinator, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Wrong propagated shadows", getOids(shadows), handler.propagated.keySet());
+        assertEquals("Wrong # of iterative operations", 5, tasks.operationsEnded.size());
+        assertEquals("Worker threads were started", 0, tasks.workerThreads.size());
+        assertTrue("Result is not success: " + result.getStatus(), result.isSuccess());
+    }
+
+    /**
+     * Shadows are propagated in batches by worker threads. Each shadow is propagated exactly once;
+     * a failure of one shadow does not stop the others but it makes the resource result an error.
+     */
+    @Test
+    public void test200PropagateInWorkerThreads() throws Exception {
+        final String TEST_NAME = "test200PropagateInWorkerThreads";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        List<PrismObject<ShadowType>> shadows = createShadows(100, true);
+        FakeTasks tasks = new FakeTasks(4, 7);
+        TestedHandler handler = new TestedHandler(tasks, shadows);
+        OperationResult result = new OperationResult(TEST_NAME);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        handler.handleObject(createResource(), tasks.coordinator, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Wrong # of worker threads", 4, tasks.workerThreads.size());
+        assertEquals("Wrong propagated shadows", getOids(shadows), handler.propagated.keySet());
+        assertTrue("Some shadows were propagated more than once: " + handler.propagated,
+                handler.propagated.values().stream().allMatch(count -> count == 1));
+        assertEquals("Wrong # of iterative operations", 100, tasks.operationsEnded.size());
+        assertEquals("Wrong # of failed iterative operations", 1, tasks.operationsFailed.size());
+        assertTrue("Result is not an error: " + result.getStatus(), result.isError());
+    }
+
+    private PrismContext getPrismContext() {
+        return PrismTestUtil.getPrismContext();
+    }
+
+    private PrismObject<ResourceType> createResource() {
+        return new ResourceType(getPrismContext())
+                .oid(RESOURCE_OID)
+                .name("resource")
+                .asPrismObject();
+    }
+
+    private List<PrismObject<ShadowType>> createShadows(int count, boolean withFailing) {
+        List<PrismObject<ShadowType>> shadows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = i == 13 && withFailing ? FAILING_SHADOW_NAME : "shadow-" + i;
+            shadows.add(new ShadowType(getPrismContext())
+                    .oid(String.format("00000000-0000-0000-0000-%012d", i))
+                    .name(name)
+                    .asPrismObject());
+        }
+        return shadows;
+    }
+
+    private Set<String> getOids(List<PrismObject<ShadowType>> shadows) {
+        Set<String> oids = new HashSet<>();
+        shadows.forEach(shadow -> oids.add(shadow.getOid()));
+        return oids;
+    }
+
+    private static class TestedHandler extends MultiPropagationResultHandler {
+
+        private final ConcurrentHashMap<String, Integer> propagated = new ConcurrentHashMap<>();
+
+        private TestedHandler(FakeTasks tasks, List<PrismObject<ShadowType>> shadows) {
+            super(tasks.coordinator, "test", tasks.taskManager, createRepository(shadows), null);
+        }
+
+        @Override
+        protected void propagateOperations(PrismObject<ResourceType> resource, PrismObject<ShadowType> shadow, Task workerTask,
+                OperationResult result) throws CommunicationException {
+            propagated.merge(shadow.getOid(), 1, Integer::sum);
+            if (FAILING_SHADOW_NAME.equals(shadow.getName().getOrig())) {
+                throw new CommunicationException("Resource is not reachable");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static RepositoryService createRepository(List<PrismObject<ShadowType>> shadows) {
+            return (RepositoryService) Proxy.newProxyInstance(RepositoryService.class.getClassLoader(),
+                    new Class<?>[] { RepositoryService.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "searchObjectsIterative":
+                                ResultHandler<ShadowType> handler = (ResultHandler<ShadowType>) args[2];
+                                for (PrismObject<ShadowType> shadow : shadows) {
+                                    if (!handler.handle(shadow, (OperationResult) args[5])) {
+                                        break;
+                                    }
+                                }
+                                return null;
+                            case "toString":
+                                return "in-memory shadows";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Coordinator task, its lightweight subtasks (run in plain threads) and the task manager that waits for them.
+     */
+    private class FakeTasks {
+
+        private final RunningTask coordinator;
+        private final TaskManager taskManager;
+        private final List<Thread> workerThreads = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> operationsEnded = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> operationsFailed = Collections.synchronizedList(new ArrayList<>());
+
+        private FakeTasks(Integer workerThreadsCount, Integer workerBatchSize) {
+            coordinator = createTask(null, workerThreadsCount, workerBatchSize);
+            taskManager = (TaskManager) Proxy.newProxyInstance(TaskManager.class.getClassLoader(),
+                    new Class<?>[] { TaskManager.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "waitForTransientChildren":
+                                for (Thread thread : new ArrayList<>(workerThreads)) {
+                                    thread.join();
+                                }
+                                return null;
+                            case "toString":
+                                return "fake task manager";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private RunningTask createTask(LightweightTaskHandler lightweightHandler, Integer workerThreadsCount,
+                Integer workerBatchSize) {
+            return (RunningTask) Proxy.newProxyInstance(RunningTask.class.getClassLoader(),
+                    new Class<?>[] { RunningTask.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getProgress":
+                                return 0L;
+                            case "canRun":
+                                return true;
+                            case "getExtensionPropertyOrClone":
+                                return getExtensionProperty((QName) args[0], workerThreadsCount, workerBatchSize);
+                            case "createSubtask":
+                                return createTask((LightweightTaskHandler) args[0], null, null);
+                            case "startLightweightHandler":
+                                Thread thread = new Thread(() -> lightweightHandler.run((RunningTask) proxy));
+                                workerThreads.add(thread);
+                                thread.start();
+                                return null;
+                            case "recordIterativeOperationEnd":
+                                ShadowType shadow = (ShadowType) args[0];
+                                operationsEnded.add(shadow.getOid());
+                                if (args[2] != null) {
+                                    operationsFailed.add(shadow.getOid());
+                                }
+                                return null;
+                            case "deleteLightweightAsynchronousSubtasks":
+                            case "resetIterativeTaskInformation":
+                            case "recordIterativeOperationStart":
+                            case "recordWorkerWaitTimes":
+                            case "setCategory":
+                            case "setResult":
+                            case "setName":
+                            case "setExecutionEnvironment":
+                            case "getCategory":
+                            case "getExecutionEnvironment":
+                                return null;
+                            case "toString":
+                                return lightweightHandler != null ? "fake worker task" : "fake coordinator task";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private PrismProperty<Integer> getExtensionProperty(QName name, Integer workerThreadsCount, Integer workerBatchSize) {
+            Integer value;
+            if (SchemaConstants.MODEL_EXTENSION_WORKER_THREADS.equals(name)) {
+                value = workerThreadsCount;
+            } else if (SchemaConstants.MODEL_EXTENSION_WORKER_BATCH_SIZE.equals(name)) {
+                value = workerBatchSize;
+            } else {
+                value = null;
+            }
+            if (value == null) {
+                return null;
+            }
+            PrismProperty<Integer> property = getPrismContext().itemFactory().createProperty(name);
+            property.setRealValue(value);
+            return property;
+        }
+    }
+}
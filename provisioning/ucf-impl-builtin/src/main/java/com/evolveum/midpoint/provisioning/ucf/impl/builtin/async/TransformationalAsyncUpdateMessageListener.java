@@ -113,7 +113,8 @@ public class TransformationalAsyncUpdateMessageListener implements AsyncUpdateMe
 
                 if (task.getTracingRequestedFor().contains(TracingRootType.ASYNCHRONOUS_MESSAGE_PROCESSING)) {
                     TracingProfileType profile = task.getTracingProfile() != null ? task.getTracingProfile() : tracer.getDefaultProfile();
-                    resultBuilder.tracingProfile(tracer.compileProfile(profile, task.getResult()));
+                    // null (i.e. sampled out) means no tracing
+                    resultBuilder.tracingProfile(tracer.compileProfileIfSampled(profile, task.getResult()));
                 }
 
                 // replace task result with the newly-built one
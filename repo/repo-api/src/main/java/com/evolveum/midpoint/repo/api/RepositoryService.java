@@ -9,6 +9,7 @@ package com.evolveum.midpoint.repo.api;
 import java.util.Collection;
 import java.util.List;
 
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 
 import com.evolveum.midpoint.repo.api.perf.PerformanceMonitor;
@@ -36,6 +37,7 @@ import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SecurityViolationException;
 import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.DiagnosticInformationType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.FullTextSearchConfigurationType;
@@ -152,6 +154,10 @@ public interface RepositoryService {
     String EXECUTE_QUERY_DIAGNOSTICS = CLASS_NAME_WITH_DOT + "executeQueryDiagnostics";
     String ADD_DIAGNOSTIC_INFORMATION = CLASS_NAME_WITH_DOT + "addDiagnosticInformation";
     String HAS_CONFLICT = CLASS_NAME_WITH_DOT + "hasConflict";
+    String ADD_CACHE_INVALIDATION_EVENT = CLASS_NAME_WITH_DOT + "addCacheInvalidationEvent";
+    String GET_CACHE_INVALIDATION_EVENTS = CLASS_NAME_WITH_DOT + "getCacheInvalidationEvents";
+    String GET_LAST_CACHE_INVALIDATION_EVENT_SEQUENCE_NUMBER = CLASS_NAME_WITH_DOT + "getLastCacheInvalidationEventSequenceNumber";
+    String DELETE_CACHE_INVALIDATION_EVENTS = CLASS_NAME_WITH_DOT + "deleteCacheInvalidationEvents";
 
     String KEY_DIAG_DATA = "repositoryDiagData";            // see GetOperationOptions.attachDiagData
     String KEY_ORIGINAL_OBJECT = "repositoryOriginalObject";
@@ -172,6 +178,10 @@ public interface RepositoryService {
     String OP_SEARCH_OBJECTS = "searchObjects";
     String OP_SEARCH_OBJECTS_ITERATIVE = "searchObjectsIterative";
     String OP_FETCH_EXT_ITEMS = "fetchExtItems";
+    String OP_ADD_CACHE_INVALIDATION_EVENT = "addCacheInvalidationEvent";
+    String OP_GET_CACHE_INVALIDATION_EVENTS = "getCacheInvalidationEvents";
+    String OP_GET_LAST_CACHE_INVALIDATION_EVENT_SEQUENCE_NUMBER = "getLastCacheInvalidationEventSequenceNumber";
+    String OP_DELETE_CACHE_INVALIDATION_EVENTS = "deleteCacheInvalidationEvents";
 
     /**
      * Returns object for provided OID.
@@ -660,4 +670,41 @@ public interface RepositoryService {
             throws ObjectNotFoundException, SchemaException, ObjectAlreadyExistsException;
 
     PerformanceMonitor getPerformanceMonitor();
+
+    /**
+     * Appends a cache invalidation event to be distributed to other nodes of the cluster.
+     * (The sequence number of the event is ignored.)
+     *
+     * EXPERIMENTAL
+     *
+     * @return sequence number assigned to the event
+     */
+    long addCacheInvalidationEvent(@NotNull CacheInvalidationEventType event, OperationResult parentResult);
+
+    /**
+     * Returns cache invalidation events with sequence numbers greater than given one, ordered by the sequence number.
+     *
+     * Note that sequence numbers are assigned when the events are added, but the events become visible when the adding
+     * transaction commits. So an event with lower sequence number can appear after an event with a higher one.
+     *
+     * EXPERIMENTAL
+     */
+    @NotNull
+    List<CacheInvalidationEventType> getCacheInvalidationEvents(long afterSequenceNumber, int maxSize, OperationResult parentResult);
+
+    /**
+     * @return The highest sequence number of existing cache invalidation events (0 if there are none).
+     *
+     * EXPERIMENTAL
+     */
+    long getLastCacheInvalidationEventSequenceNumber(OperationResult parentResult);
+
+    /**
+     * Deletes cache invalidation events created before given time.
+     *
+     * EXPERIMENTAL
+     *
+     * @return number of events deleted
+     */
+    int deleteCacheInvalidationEvents(@NotNull XMLGregorianCalendar olderThan, OperationResult parentResult);
 }
@@ -36,6 +36,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
+import javax.xml.datatype.XMLGregorianCalendar;
 import java.util.Objects;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -1890,6 +1891,28 @@ public class RepositoryCache implements RepositoryService, Cacheable {
         return repositoryService.getPerformanceMonitor();
     }
 
+    @Override
+    public long addCacheInvalidationEvent(@NotNull CacheInvalidationEventType event, OperationResult parentResult) {
+        return repositoryService.addCacheInvalidationEvent(event, parentResult);
+    }
+
+    @NotNull
+    @Override
+    public List<CacheInvalidationEventType> getCacheInvalidationEvents(long afterSequenceNumber, int maxSize,
+            OperationResult parentResult) {
+        return repositoryService.getCacheInvalidationEvents(afterSequenceNumber, maxSize, parentResult);
+    }
+
+    @Override
+    public long getLastCacheInvalidationEventSequenceNumber(OperationResult parentResult) {
+        return repositoryService.getLastCacheInvalidationEventSequenceNumber(parentResult);
+    }
+
+    @Override
+    public int deleteCacheInvalidationEvents(@NotNull XMLGregorianCalendar olderThan, OperationResult parentResult) {
+        return repositoryService.deleteCacheInvalidationEvents(olderThan, parentResult);
+    }
+
     private static class Context {
         CacheConfiguration cacheConfig;
         CacheObjectTypeConfiguration typeConfig;
@@ -13,6 +13,7 @@ import com.evolveum.midpoint.repo.api.PreconditionViolationException;
 import com.evolveum.midpoint.repo.cache.RepositoryCache;
 import com.evolveum.midpoint.repo.common.util.RepoCommonUtils;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.CompiledTracingProfile;
 import com.evolveum.midpoint.schema.result.OperationResultBuilder;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.schema.statistics.StatisticsUtil;
@@ -74,6 +75,9 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
     private boolean enableSynchronizationStatistics = false;        // whether we want to collect sync statistics
     private boolean enableActionsExecutedStatistics = false;        // whether we want to collect repo objects statistics
     private BlockingQueue<ProcessingRequest> requestQueue;
+    private WorkStealingDispatcher<ProcessingRequest> dispatcher;        // used instead of requestQueue if batched dispatching is configured
+    private WorkBucketCheckpointer checkpointer;                        // set if checkpoints of the current work bucket are recorded
+    private WorkerThreadsTuner tuner;                                   // set if the number of active worker threads is tuned automatically
     private AtomicBoolean stopRequestedByAnyWorker = new AtomicBoolean(false);
     private final long startTime;
 
@@ -179,7 +183,20 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
         }
 
         ProcessingRequest request = new ProcessingRequest(object);
-        if (requestQueue != null) {
+        if (checkpointer != null) {
+            request.checkpointSequence = checkpointer.registerSubmitted(object.getOid());
+            checkpointer.checkpointIfNeeded();
+        }
+        if (dispatcher != null) {
+            try {
+                if (!dispatcher.submit(request, () -> !shouldStop(parentResult))) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                recordInterrupted(parentResult);
+                return false;
+            }
+        } else if (requestQueue != null) {
             // by not putting anything in the parent result we hope the status will be SUCCESS
             try {
                 while (!requestQueue.offer(request, REQUEST_QUEUE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
@@ -195,6 +212,10 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
             processRequest(request, coordinatorTask, parentResult);            // coordinator is also a worker here
         }
 
+        if (tuner != null && tuner.evaluateIfNeeded()) {
+            coordinatorTask.recordWorkerThreadsTuning(tuner.getInformation());
+        }
+
         return !shouldStop(parentResult);
     }
 
@@ -218,6 +239,9 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
     }
 
     public void signalAllItemsSubmitted() {
+        if (dispatcher != null) {
+            dispatcher.signalAllSubmitted();
+        }
         allItemsSubmitted = true;
     }
 
@@ -266,14 +290,39 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
     public void completeProcessing(Task task, OperationResult result) {
         signalAllItemsSubmitted();
         waitForCompletion(result);              // in order to provide correct statistics results, we have to wait until all child tasks finish
+        if (checkpointer != null && !coordinatorTask.canRun()) {
+            checkpointer.checkpoint();          // the bucket will not be completed, so let's record how far we got
+        }
         updateOperationResult(result);
     }
 
+    public void setCheckpointer(WorkBucketCheckpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    public WorkerThreadsTuner getTuner() {
+        return tuner;
+    }
+
+    /**
+     * Sets the tuner used when processing previous work bucket(s) within the current task run, so that the tuning
+     * continues from the number of threads found so far.
+     */
+    public void setTuner(WorkerThreadsTuner tuner) {
+        this.tuner = tuner;
+    }
+
     class WorkerHandler implements LightweightTaskHandler {
         private OperationResult workerSpecificResult;
+        private final int workerIndex;
 
         public WorkerHandler(OperationResult workerSpecificResult) {
+            this(workerSpecificResult, 0);
+        }
+
+        WorkerHandler(OperationResult workerSpecificResult, int workerIndex) {
             this.workerSpecificResult = workerSpecificResult;
+            this.workerIndex = workerIndex;
         }
 
         @Override
@@ -283,7 +332,22 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
             workerTask.setName(workerTask.getName().getOrig() + " (" + Thread.currentThread().getName() + ")");
             workerSpecificResult.addArbitraryObjectAsContext("subtaskName", workerTask.getName());
 
+            if (dispatcher != null) {
+                processBatches(workerTask);
+                return;
+            }
+
             while (workerTask.canRun()) {
+                if (!isAllowedToWork(workerTask)) {
+                    if (allItemsSubmitted && requestQueue.isEmpty()) {
+                        LOGGER.trace("worker is not allowed to work and nothing more is expected - exiting");
+                        return;
+                    }
+                    if (!waitUntilAllowed()) {
+                        return;
+                    }
+                    continue;
+                }
                 workerTask.refreshLowLevelStatistics();
                 ProcessingRequest request;
                 try {
@@ -304,6 +368,76 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
                 }
             }
         }
+
+        private void processBatches(RunningTask workerTask) {
+            while (workerTask.canRun()) {
+                if (!isAllowedToWork(workerTask)) {
+                    if (dispatcher.isAllSubmitted()) {
+                        LOGGER.trace("worker is not allowed to work and nothing more is expected - exiting");
+                        return;         // batches in our queue will be taken by other workers
+                    }
+                    if (!waitUntilAllowed()) {
+                        return;
+                    }
+                    continue;
+                }
+                workerTask.refreshLowLevelStatistics();
+                boolean allSubmitted = dispatcher.isAllSubmitted();        // must be checked before taking the batch
+                long waitStart = System.currentTimeMillis();
+                WorkStealingDispatcher.Batch<ProcessingRequest> batch;
+                try {
+                    batch = dispatcher.take(workerIndex, WORKER_THREAD_WAIT_FOR_REQUEST);
+                } catch (InterruptedException e) {
+                    LOGGER.trace("Interrupted when waiting for next batch of requests", e);
+                    return;
+                } finally {
+                    workerTask.refreshLowLevelStatistics();
+                }
+                long idleTime = System.currentTimeMillis() - waitStart;
+                if (batch != null) {
+                    workerTask.recordWorkerWaitTimes(batch.getQueueWaitTime(), idleTime);
+                    for (ProcessingRequest request : batch.getRequests()) {
+                        if (!workerTask.canRun()) {
+                            return;
+                        }
+                        processRequest(request, workerTask, workerSpecificResult);
+                    }
+                } else {
+                    workerTask.recordWorkerWaitTimes(0, idleTime);
+                    if (allSubmitted) {
+                        LOGGER.trace("queues are empty and nothing more is expected - exiting");
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Workers above the number allowed by the worker threads budget of the node (or by the worker threads tuner)
+         * wait until they are allowed again. This is not applied if there is worker affinity, because requests handed
+         * over to a waiting worker would stay there.
+         */
+        private boolean isAllowedToWork(RunningTask workerTask) {
+            if (dispatcher != null && dispatcher.hasAffinity()) {
+                return true;
+            }
+            RunningTask parent = workerTask.getParentForLightweightAsynchronousTask();
+            int allowed = parent != null ? parent.getAllowedWorkerThreads() : Integer.MAX_VALUE;
+            if (tuner != null) {
+                allowed = Math.min(allowed, tuner.getActiveWorkers());
+            }
+            return workerIndex < allowed;
+        }
+
+        private boolean waitUntilAllowed() {
+            try {
+                Thread.sleep(WORKER_THREAD_WAIT_FOR_REQUEST);
+                return true;
+            } catch (InterruptedException e) {
+                LOGGER.trace("Interrupted when waiting for being allowed to work", e);
+                return false;
+            }
+        }
     }
 
     private void processRequest(ProcessingRequest request, RunningTask workerTask, OperationResult parentResult) {
@@ -341,8 +475,12 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
             OperationResultBuilder builder = parentResult.subresult(taskOperationPrefix + ".handle")
                     .addParam("object", object);
             if (workerTask.getTracingRequestedFor().contains(TracingRootType.ITERATIVE_TASK_OBJECT_PROCESSING)) {
-                tracingRequested = true;
-                builder.tracingProfile(taskManager.getTracer().compileProfile(workerTask.getTracingProfile(), parentResult));
+                CompiledTracingProfile compiledProfile = taskManager.getTracer()
+                        .compileProfileIfSampled(workerTask.getTracingProfile(), parentResult);
+                if (compiledProfile != null) {          // null means sampled out
+                    tracingRequested = true;
+                    builder.tracingProfile(compiledProfile);
+                }
             }
             result = builder.build();
 
@@ -384,11 +522,17 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
             }
         } finally {
             RepositoryCache.exit();
+            if (checkpointer != null) {
+                checkpointer.markProcessed(request.checkpointSequence);
+            }
             workerTask.stopDynamicProfiling();
             workerTask.stopTracing();
 
             long duration = System.currentTimeMillis()-startTime;
             long total = totalTimeProcessing.addAndGet(duration);
+            if (tuner != null) {
+                tuner.recordProcessed(duration);
+            }
             long progress = initialProgress + objectsProcessed.incrementAndGet();
 
             result.addContext(OperationResult.CONTEXT_PROGRESS, progress);
@@ -399,7 +543,7 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
 
             synchronized (coordinatorTask) {
                 coordinatorTask.setProgress(progress);
-                if (requestQueue != null) {
+                if (requestQueue != null || dispatcher != null) {
                     workerTask.setProgress(workerTask.getProgress()+1);
                 }
                 // todo report current op result?
@@ -527,6 +671,7 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
 
     public class ProcessingRequest {
         public PrismObject<O> object;
+        private long checkpointSequence = WorkBucketCheckpointer.NO_SEQUENCE;
 
         public ProcessingRequest(PrismObject<O> object) {
             this.object = object;
@@ -542,10 +687,31 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
         // remove subtasks that could have been created during processing of previous buckets
         coordinatorTask.deleteLightweightAsynchronousSubtasks();
 
-        int queueSize = threadsCount*2;                // actually, size of threadsCount should be sufficient but it doesn't hurt if queue is larger
-        requestQueue = new ArrayBlockingQueue<>(queueSize);
+        dispatcher = WorkStealingDispatcher.createIfConfigured(coordinatorTask, threadsCount, request -> request.object.getOid());
+        if (dispatcher == null) {
+            int queueSize = threadsCount*2;                // actually, size of threadsCount should be sufficient but it doesn't hurt if queue is larger
+            requestQueue = new ArrayBlockingQueue<>(queueSize);
+        } else {
+            requestQueue = null;
+        }
+
+        if (tuner == null || tuner.getMaxWorkers() != threadsCount) {
+            tuner = WorkerThreadsTuner.createIfConfigured(coordinatorTask, threadsCount);
+        } else {
+            LOGGER.trace("Continuing with {} active worker thread(s) found for previous bucket(s)", tuner.getActiveWorkers());
+        }
+        if (tuner != null) {
+            if (dispatcher != null && dispatcher.hasAffinity()) {
+                LOGGER.warn("Automatic tuning of worker threads cannot be used together with worker affinity; using {} threads",
+                        threadsCount);
+                tuner = null;
+            } else {
+                coordinatorTask.recordWorkerThreadsTuning(tuner.getInformation());
+            }
+        }
 
         workerSpecificResults = new ArrayList<>(threadsCount);
+        coordinatorTask.requestWorkerThreads(threadsCount);
 
         for (int i = 0; i < threadsCount; i++) {
             // we intentionally do not put worker specific result under main operation result until the handler is done
@@ -554,7 +720,7 @@ public abstract class AbstractSearchIterativeResultHandler<O extends ObjectType>
             workerSpecificResult.addContext("subtaskIndex", i+1);
             workerSpecificResults.add(workerSpecificResult);
 
-            RunningTask subtask = coordinatorTask.createSubtask(new WorkerHandler(workerSpecificResult));
+            RunningTask subtask = coordinatorTask.createSubtask(new WorkerHandler(workerSpecificResult, i));
             if (isEnableIterationStatistics()) {
                 subtask.resetIterativeTaskInformation(null);
             }
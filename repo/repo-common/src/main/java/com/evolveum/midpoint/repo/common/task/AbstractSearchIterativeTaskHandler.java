@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import javax.xml.namespace.QName;
@@ -62,6 +63,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.IterationMethodType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.SelectorQualifiedGetOptionsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskPartitionDefinitionType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketType;
 import com.evolveum.prism.xml.ns._public.query_3.QueryType;
@@ -95,6 +97,9 @@ public abstract class AbstractSearchIterativeTaskHandler<O extends ObjectType, H
     // persistent tasks only - which is obviously true.
     private Map<String, H> handlers = Collections.synchronizedMap(new HashMap<String, H>());
 
+    // Worker threads tuners are kept across work buckets processed within one task run (key = task OID).
+    private final Map<String, WorkerThreadsTuner> tuners = new ConcurrentHashMap<>();
+
     @Autowired
     protected TaskManager taskManager;
 
@@ -246,6 +251,15 @@ public abstract class AbstractSearchIterativeTaskHandler<O extends ObjectType, H
                     useRepository = requiresDirectRepositoryAccess(resultHandler, runResult, localCoordinatorTask, opResult);
                 }
 
+                if (isResumableFromCheckpoint(type, useRepository)) {
+                    WorkBucketCheckpointer checkpointer = WorkBucketCheckpointer.createIfConfigured(taskManager,
+                            localCoordinatorTask, workBucket, opResult);
+                    if (checkpointer != null) {
+                        query = checkpointer.applyResumePosition(query, prismContext);
+                        resultHandler.setCheckpointer(checkpointer);
+                    }
+                }
+
                 // counting objects can be within try-catch block, because the handling is similar to handling errors within searchIterative
                 Long expectedTotal = computeExpectedTotalIfApplicable(type, query, searchOptions, useRepository, workBucket, localCoordinatorTask, opResult);
 
@@ -262,7 +276,13 @@ public abstract class AbstractSearchIterativeTaskHandler<O extends ObjectType, H
 
                 searchOptions = updateSearchOptionsWithIterationMethod(searchOptions, localCoordinatorTask);
 
+                resultHandler.setTuner(previousRunResult != null ? tuners.get(localCoordinatorTask.getOid()) : null);
                 resultHandler.createWorkerThreads(localCoordinatorTask, opResult);
+                if (resultHandler.getTuner() != null) {
+                    tuners.put(localCoordinatorTask.getOid(), resultHandler.getTuner());
+                } else {
+                    tuners.remove(localCoordinatorTask.getOid());
+                }
                 try {
                     if (!useRepository) {   // todo consider honoring useRepository=true within searchIterative itself
                         searchIterative((Class<O>) type, query, searchOptions, resultHandler, localCoordinatorTask, opResult);
@@ -349,6 +369,20 @@ public abstract class AbstractSearchIterativeTaskHandler<O extends ObjectType, H
         }
     }
 
+    @Override
+    public TaskWorkBucketProcessingResult onNoMoreBuckets(Task task, TaskWorkBucketProcessingResult previousRunResult) {
+        tuners.remove(task.getOid());
+        return previousRunResult;
+    }
+
+    /**
+     * Work bucket checkpoints require the objects to come in the order of their OIDs. This is the case for repository
+     * searches (strictly sequential iteration), but not for objects fetched from resources.
+     */
+    protected boolean isResumableFromCheckpoint(Class<? extends ObjectType> type, boolean useRepository) {
+        return useRepository || !ShadowType.class.isAssignableFrom(type);
+    }
+
     protected void checkRawAuthorization(Task task, OperationResult result)
             throws CommunicationException, ObjectNotFoundException, SchemaException, SecurityViolationException,
             ConfigurationException, ExpressionEvaluationException {
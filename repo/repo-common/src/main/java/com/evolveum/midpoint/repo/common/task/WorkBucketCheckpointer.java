@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.RunningTask;
+import com.evolveum.midpoint.task.api.TaskManager;
+import com.evolveum.midpoint.util.exception.CommonException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketCheckpointType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the position within a work bucket up to which all objects have been processed, and periodically
+ * records it into the bucket (WorkBucketType.checkpoint). When the bucket is processed again, e.g. after it was
+ * reclaimed from a suspended or dead worker, the search starts after the recorded position.
+ *
+ * The position is an OID: objects are expected to come in the order of their OIDs, as provided by strictly sequential
+ * iteration in the repository. They can be processed out of order by worker threads, though. So the checkpoint
+ * is the OID of the last object of the longest processed prefix of the submitted objects. If an object arrives
+ * out of order (e.g. because a different iteration method was used), checkpointing is turned off for the rest of the bucket.
+ *
+ * Checkpoints are written by the thread that submits the objects (the coordinator thread).
+ *
+ * EXPERIMENTAL
+ */
+public class WorkBucketCheckpointer {
+
+    private static final Trace LOGGER = TraceManager.getTrace(WorkBucketCheckpointer.class);
+
+    private static final String OP_CHECKPOINT = WorkBucketCheckpointer.class.getName() + ".checkpoint";
+
+    public static final long NO_SEQUENCE = -1;
+
+    @NotNull private final Recorder recorder;
+    private final RunningTask task;                 // for diagnostics only (null in unit tests)
+    private final int sequentialNumber;
+    private final long interval;
+
+    // Guarded by this.
+    private final TreeMap<Long, Submitted> submitted = new TreeMap<>();      // objects after the processed prefix, by sequence
+    private long nextSequence;
+    private String lastSubmittedOid;
+    private String lastProcessedOid;
+    private int processedObjects;
+    private boolean disabled;
+
+    // Used only by the coordinator thread.
+    private String lastRecordedOid;
+    private long lastRecordedTime = System.currentTimeMillis();
+
+    /**
+     * Writes the checkpoint into the bucket.
+     */
+    @FunctionalInterface
+    interface Recorder {
+        /**
+         * @return false if the bucket is no longer being processed by the task, so the checkpoint was not recorded.
+         */
+        boolean record(int sequentialNumber, WorkBucketCheckpointType checkpoint, OperationResult result) throws CommonException;
+    }
+
+    private static class Submitted {
+        @NotNull private final String oid;
+        private boolean processed;
+
+        private Submitted(@NotNull String oid) {
+            this.oid = oid;
+        }
+    }
+
+    private WorkBucketCheckpointer(@NotNull TaskManager taskManager, @NotNull RunningTask task, @NotNull WorkBucketType bucket,
+            long interval) {
+        this((sequentialNumber, checkpoint, result) ->
+                taskManager.checkpointWorkBucket(task.getOid(), sequentialNumber, checkpoint, result), task, bucket, interval);
+    }
+
+    // for unit tests
+    WorkBucketCheckpointer(@NotNull Recorder recorder, RunningTask task, @NotNull WorkBucketType bucket, long interval) {
+        this.recorder = recorder;
+        this.task = task;
+        this.sequentialNumber = bucket.getSequentialNumber();
+        this.interval = interval;
+        WorkBucketCheckpointType checkpoint = bucket.getCheckpoint();
+        if (checkpoint != null && checkpoint.getLastProcessedOid() != null) {
+            lastProcessedOid = checkpoint.getLastProcessedOid();
+            lastSubmittedOid = lastProcessedOid;
+            lastRecordedOid = lastProcessedOid;
+            processedObjects = checkpoint.getProcessedObjects() != null ? checkpoint.getProcessedObjects() : 0;
+        }
+    }
+
+    /**
+     * Creates the checkpointer if checkpoints are configured for the work buckets of given task.
+     */
+    public static WorkBucketCheckpointer createIfConfigured(@NotNull TaskManager taskManager, @NotNull RunningTask task,
+            WorkBucketType bucket, OperationResult result) {
+        if (bucket == null || task.getOid() == null) {
+            return null;
+        }
+        Long interval;
+        try {
+            interval = taskManager.getWorkBucketCheckpointInterval(task, result);
+        } catch (Throwable t) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't determine checkpoint interval for {}; checkpoints will not be recorded", t, task);
+            return null;
+        }
+        return interval != null ? new WorkBucketCheckpointer(taskManager, task, bucket, interval) : null;
+    }
+
+    /**
+     * Narrows the query so that the search starts after the last checkpoint (if there is any).
+     * If the query cannot be narrowed (because of custom paging), the bucket is processed from the beginning.
+     */
+    public ObjectQuery applyResumePosition(ObjectQuery query, PrismContext prismContext) {
+        String resumeAfter;
+        int processedBefore;
+        synchronized (this) {
+            resumeAfter = lastProcessedOid;
+            processedBefore = processedObjects;
+        }
+        if (resumeAfter == null) {
+            return query;
+        }
+        ObjectPaging paging = query != null ? query.getPaging() : null;
+        if (paging != null && (paging.hasOrdering() || paging.hasGrouping() || paging.getOffset() != null || paging.hasCookie())) {
+            LOGGER.warn("Cannot resume processing of bucket #{} in {} after {}, as the query has custom paging; "
+                    + "starting from the beginning of the bucket", sequentialNumber, task, resumeAfter);
+            synchronized (this) {
+                lastProcessedOid = null;
+                lastSubmittedOid = null;
+                processedObjects = 0;
+            }
+            lastRecordedOid = null;
+            return query;
+        }
+        ObjectQuery narrowed = query != null ? query.clone() : prismContext.queryFactory().createQuery();
+        ObjectPaging newPaging = paging != null ? paging.clone() : prismContext.queryFactory().createPaging();
+        newPaging.setCookie(resumeAfter);
+        narrowed.setPaging(newPaging);
+        LOGGER.info("Resuming processing of bucket #{} in {} after object {} ({} object(s) processed before)",
+                sequentialNumber, task, resumeAfter, processedBefore);
+        return narrowed;
+    }
+
+    /**
+     * Registers an object submitted for processing. Must be called in the order of submission.
+     *
+     * @return Sequence number to be used when the object is processed.
+     */
+    public synchronized long registerSubmitted(@NotNull String oid) {
+        if (disabled) {
+            return NO_SEQUENCE;
+        }
+        if (lastSubmittedOid != null && oid.compareTo(lastSubmittedOid) <= 0) {
+            LOGGER.warn("Objects do not come in the order of their OIDs ({} after {}); checkpoints of bucket #{} in {} "
+                    + "will not be recorded", oid, lastSubmittedOid, sequentialNumber, task);
+            disabled = true;
+            submitted.clear();
+            return NO_SEQUENCE;
+        }
+        long sequence = nextSequence++;
+        submitted.put(sequence, new Submitted(oid));
+        lastSubmittedOid = oid;
+        return sequence;
+    }
+
+    /**
+     * Marks the object as processed (successfully or not). Can be called from any thread.
+     */
+    public synchronized void markProcessed(long sequence) {
+        Submitted object = submitted.get(sequence);
+        if (disabled || object == null) {
+            return;
+        }
+        object.processed = true;
+        while (!submitted.isEmpty() && submitted.firstEntry().getValue().processed) {
+            lastProcessedOid = submitted.pollFirstEntry().getValue().oid;
+            processedObjects++;
+        }
+    }
+
+    public void checkpointIfNeeded() {
+        if (System.currentTimeMillis() - lastRecordedTime >= interval) {
+            checkpoint();
+        }
+    }
+
+    public void checkpoint() {
+        String oid;
+        int processed;
+        synchronized (this) {
+            if (disabled) {
+                return;
+            }
+            oid = lastProcessedOid;
+            processed = processedObjects;
+        }
+        lastRecordedTime = System.currentTimeMillis();
+        if (oid == null || Objects.equals(oid, lastRecordedOid)) {
+            return;
+        }
+        WorkBucketCheckpointType checkpoint = new WorkBucketCheckpointType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .lastProcessedOid(oid)
+                .processedObjects(processed);
+        OperationResult result = new OperationResult(OP_CHECKPOINT);
+        try {
+            if (recorder.record(sequentialNumber, checkpoint, result)) {
+                lastRecordedOid = oid;
+                LOGGER.trace("Recorded checkpoint of bucket #{} in {}: {}", sequentialNumber, task, checkpoint);
+            } else {
+                synchronized (this) {
+                    disabled = true;
+                }
+            }
+        } catch (Throwable t) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't record checkpoint of bucket #{} in {}", t, sequentialNumber, task);
+        }
+    }
+}
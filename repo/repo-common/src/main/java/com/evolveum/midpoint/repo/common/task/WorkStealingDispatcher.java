@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Hands requests over from a producer (the coordinator thread that searches for objects or fetches changes)
+ * to a set of worker threads.
+ *
+ * Unlike a single queue shared by all workers, each worker has its own deque, and the requests are passed in batches,
+ * so the producer and the workers synchronize once per batch instead of once per request. A worker takes batches
+ * from the head of its own deque; if it is empty, it steals a batch from the tail of a deque of another worker.
+ *
+ * If affinity is requested, requests with the same affinity key (e.g. object OID) are always handed over to the same
+ * worker, in the order in which they were submitted. Stealing is switched off in this mode, as it would break this guarantee.
+ *
+ * The number of batches waiting in the deques is limited, so the producer does not get much ahead of the workers.
+ *
+ * EXPERIMENTAL
+ */
+public class WorkStealingDispatcher<R> {
+
+    private static final Trace LOGGER = TraceManager.getTrace(WorkStealingDispatcher.class);
+
+    private static final int BATCHES_WAITING_PER_WORKER = 2;
+    private static final long CAPACITY_WAIT_INTERVAL = 1000L;
+    private static final long STEAL_INTERVAL = 50L;         // how often a waiting worker looks into deques of other workers
+
+    private final int workers;
+    private final int batchSize;
+    @Nullable private final Function<R, Object> affinityKeyFunction;
+
+    private final List<BlockingDeque<Batch<R>>> deques;
+    private final Semaphore capacity;
+
+    // Producer side. Guarded by this. Without affinity there is a single batch being filled; with affinity there is one per worker
+    // plus one for requests without affinity key (these are handed over to workers in round robin fashion).
+    private final List<List<R>> openBatches;
+    private int nextWorker;
+
+    private volatile boolean allSubmitted;
+
+    /**
+     * A batch of requests, as taken by a worker.
+     */
+    public static final class Batch<R> {
+
+        @NotNull private final List<R> requests;
+        private final boolean holdsPermit;
+        private final long dispatched = System.currentTimeMillis();
+        private long queueWaitTime;
+
+        private Batch(@NotNull List<R> requests, boolean holdsPermit) {
+            this.requests = requests;
+            this.holdsPermit = holdsPermit;
+        }
+
+        @NotNull
+        public List<R> getRequests() {
+            return Collections.unmodifiableList(requests);
+        }
+
+        /**
+         * How long (in milliseconds) the batch waited in the deque before it was taken by a worker.
+         */
+        public long getQueueWaitTime() {
+            return queueWaitTime;
+        }
+    }
+
+    /**
+     * @param affinityKeyFunction Provides affinity key for a request. If null, there is no affinity (and stealing is enabled).
+     */
+    public WorkStealingDispatcher(int workers, int batchSize, @Nullable Function<R, Object> affinityKeyFunction) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.affinityKeyFunction = affinityKeyFunction;
+        this.deques = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            deques.add(new LinkedBlockingDeque<>());
+        }
+        this.capacity = new Semaphore(workers * BATCHES_WAITING_PER_WORKER);
+        int openBatchesCount = affinityKeyFunction != null ? workers + 1 : 1;
+        this.openBatches = new ArrayList<>(openBatchesCount);
+        for (int i = 0; i < openBatchesCount; i++) {
+            openBatches.add(new ArrayList<>(batchSize));
+        }
+    }
+
+    /**
+     * Creates the dispatcher if the task asks for batched dispatching of requests (workerBatchSize extension property).
+     *
+     * @param affinityKeyFunction Affinity key for requests; used only if the task asks for affinity (workerAffinity property).
+     * @return null if the task should use traditional (single queue) dispatching
+     */
+    @Nullable
+    public static <R> WorkStealingDispatcher<R> createIfConfigured(@NotNull Task coordinatorTask, int workers,
+            @NotNull Function<R, Object> affinityKeyFunction) {
+        PrismProperty<Integer> batchSizeProperty = coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_BATCH_SIZE);
+        Integer batchSize = batchSizeProperty != null ? batchSizeProperty.getRealValue() : null;
+        if (batchSize == null || batchSize <= 0 || workers <= 0) {
+            return null;
+        }
+        PrismProperty<Boolean> affinityProperty = coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_AFFINITY);
+        boolean affinity = affinityProperty != null && Boolean.TRUE.equals(affinityProperty.getRealValue());
+        LOGGER.debug("Dispatching requests to {} worker(s) in batches of {}, affinity: {}", workers, batchSize, affinity);
+        return new WorkStealingDispatcher<>(workers, batchSize, affinity ? affinityKeyFunction : null);
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public boolean hasAffinity() {
+        return affinityKeyFunction != null;
+    }
+
+    public boolean isAllSubmitted() {
+        return allSubmitted;
+    }
+
+    /**
+     * Adds a request to the batch being filled. A full batch is handed over to a worker; if there are too many batches
+     * waiting already, this method waits until some of them are taken.
+     *
+     * @param canRun Checked periodically while waiting.
+     * @return false if the waiting was given up because canRun returned false (the request is then not processed)
+     */
+    public synchronized boolean submit(@NotNull R request, @NotNull BooleanSupplier canRun) throws InterruptedException {
+        int slot = getSlot(request);
+        List<R> batch = openBatches.get(slot);
+        batch.add(request);
+        if (batch.size() < batchSize) {
+            return true;
+        }
+        openBatches.set(slot, new ArrayList<>(batchSize));
+        while (!capacity.tryAcquire(CAPACITY_WAIT_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (!canRun.getAsBoolean()) {
+                return false;
+            }
+        }
+        enqueue(new Batch<>(batch, true), slot);
+        return true;
+    }
+
+    /**
+     * Hands over all partially filled batches, without waiting for free capacity. To be called when the producer
+     * is not going to submit any more requests for some time (e.g. because it waits for the requests to be processed).
+     */
+    public synchronized void flush() {
+        for (int slot = 0; slot < openBatches.size(); slot++) {
+            List<R> batch = openBatches.get(slot);
+            if (!batch.isEmpty()) {
+                openBatches.set(slot, new ArrayList<>(batchSize));
+                enqueue(new Batch<>(batch, false), slot);
+            }
+        }
+    }
+
+    public void signalAllSubmitted() {
+        flush();
+        allSubmitted = true;
+    }
+
+    /**
+     * Returns the index of the open batch for given request: the affinity worker if there is one, or the "no affinity" slot
+     * (0 if affinity is not used, the last one otherwise).
+     */
+    private int getSlot(R request) {
+        if (affinityKeyFunction == null) {
+            return 0;
+        }
+        Object key = affinityKeyFunction.apply(request);
+        return key != null ? Math.floorMod(key.hashCode(), workers) : workers;
+    }
+
+    private void enqueue(Batch<R> batch, int slot) {
+        int target;
+        if (affinityKeyFunction != null && slot < workers) {
+            target = slot;
+        } else {
+            target = nextWorker;
+            nextWorker = (nextWorker + 1) % workers;
+        }
+        deques.get(target).addLast(batch);
+    }
+
+    /**
+     * Returns next batch for given worker: from its own deque or (if stealing is enabled) from a deque of another worker.
+     * If all the deques are empty, waits up to the specified time.
+     *
+     * If this method returns null and {@link #isAllSubmitted()} was true before it was called, there is nothing more
+     * to process for the worker.
+     */
+    @Nullable
+    public Batch<R> take(int worker, long timeout) throws InterruptedException {
+        BlockingDeque<Batch<R>> own = deques.get(worker);
+        long deadline = System.currentTimeMillis() + timeout;
+        for (;;) {
+            Batch<R> batch = own.pollFirst();
+            if (batch == null && affinityKeyFunction == null) {
+                batch = steal(worker);
+            }
+            if (batch == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                batch = own.pollFirst(Math.min(remaining, STEAL_INTERVAL), TimeUnit.MILLISECONDS);
+            }
+            if (batch != null) {
+                if (batch.holdsPermit) {
+                    capacity.release();
+                }
+                batch.queueWaitTime = System.currentTimeMillis() - batch.dispatched;
+                return batch;
+            }
+        }
+    }
+
+    private Batch<R> steal(int thief) {
+        for (int i = 1; i < workers; i++) {
+            int victim = (thief + i) % workers;
+            Batch<R> batch = deques.get(victim).pollLast();
+            if (batch != null) {
+                LOGGER.trace("Worker #{} took a batch of {} request(s) from worker #{}", thief, batch.requests.size(), victim);
+                return batch;
+            }
+        }
+        return null;
+    }
+}
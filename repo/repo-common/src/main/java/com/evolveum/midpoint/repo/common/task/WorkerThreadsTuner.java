@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsAdjustmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsTuningInformationType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tunes the number of active worker threads of a multithreaded task between workerThreadsMin and workerThreads
+ * task extension properties, looking for the number beyond which the throughput does not grow any more (e.g. because
+ * the database or a resource is saturated).
+ *
+ * The processing is measured in windows (workerThreadsTuningWindow). After each window the throughput (objects per second)
+ * is compared with that of the previous one. If the last change of the number of threads improved the throughput,
+ * the tuner continues in the same direction. If it made the throughput worse, or if an added thread brought no significant
+ * improvement (only higher latency), the change is reverted and the number is kept for a few windows before probing again.
+ * A removed thread that did not make the throughput worse stays removed.
+ *
+ * Threads above the current number are not stopped: they wait until they are allowed to work again, just like threads
+ * above the worker threads budget of the node.
+ *
+ * Evaluation is done by the coordinator thread; objects processed are reported by the worker threads.
+ *
+ * EXPERIMENTAL
+ */
+public class WorkerThreadsTuner {
+
+    private static final Trace LOGGER = TraceManager.getTrace(WorkerThreadsTuner.class);
+
+    private static final long DEFAULT_WINDOW = 30000L;
+    private static final double SIGNIFICANT_CHANGE = 0.05;
+    private static final int MIN_OBJECTS_IN_WINDOW = 10;
+    private static final int HOLD_WINDOWS = 3;
+    private static final int ADJUSTMENTS_KEPT = 10;
+
+    private final int min;
+    private final int max;
+    private final long window;
+
+    private volatile int active;
+
+    private final LongAdder objectsProcessed = new LongAdder();
+    private final LongAdder processingTime = new LongAdder();
+
+    // Used only by the coordinator thread.
+    private long windowStart = System.currentTimeMillis();
+    private Double lastThroughput;
+    private int lastChange;
+    private int direction = 1;
+    private int holdWindows;
+    @NotNull private final WorkerThreadsTuningInformationType information;
+
+    WorkerThreadsTuner(int min, int max, long window) {
+        this.min = min;
+        this.max = max;
+        this.window = window;
+        this.active = min;
+        this.information = new WorkerThreadsTuningInformationType()
+                .minWorkerThreads(min)
+                .maxWorkerThreads(max)
+                .activeWorkerThreads(min);
+    }
+
+    public static WorkerThreadsTuner createIfConfigured(@NotNull Task coordinatorTask, int threadsCount) {
+        PrismProperty<Integer> minProperty = coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_THREADS_MIN);
+        Integer min = minProperty != null ? minProperty.getRealValue() : null;
+        if (min == null || min <= 0 || min >= threadsCount) {
+            return null;
+        }
+        PrismProperty<Integer> windowProperty = coordinatorTask.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_THREADS_TUNING_WINDOW);
+        Integer window = windowProperty != null ? windowProperty.getRealValue() : null;
+        LOGGER.debug("Tuning the number of worker threads of {} between {} and {}", coordinatorTask, min, threadsCount);
+        return new WorkerThreadsTuner(min, threadsCount, window != null && window > 0 ? window : DEFAULT_WINDOW);
+    }
+
+    public int getMaxWorkers() {
+        return max;
+    }
+
+    /**
+     * Number of worker threads that are currently allowed to process objects.
+     */
+    public int getActiveWorkers() {
+        return active;
+    }
+
+    /**
+     * Called by worker threads after processing an object.
+     */
+    public void recordProcessed(long duration) {
+        objectsProcessed.increment();
+        processingTime.add(duration);
+    }
+
+    /**
+     * Evaluates the current window if it is over. Called by the coordinator thread.
+     *
+     * @return true if the number of active workers was changed
+     */
+    public boolean evaluateIfNeeded() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - windowStart;
+        if (elapsed < window) {
+            return false;
+        }
+        windowStart = now;
+        long objects = objectsProcessed.sumThenReset();
+        long time = processingTime.sumThenReset();
+        if (objects < MIN_OBJECTS_IN_WINDOW) {
+            LOGGER.trace("Only {} object(s) processed in the window, not tuning the number of worker threads", objects);
+            lastThroughput = null;          // the next window is not comparable to this one
+            lastChange = 0;
+            return false;
+        }
+        return adjust(objects * 1000.0 / elapsed, (double) time / objects);
+    }
+
+    /**
+     * Decides on the number of active workers after a window with given throughput (objects per second)
+     * and average latency (milliseconds).
+     */
+    boolean adjust(double throughput, double latency) {
+        int current = active;
+        int next;
+        String reason;
+        if (holdWindows > 0) {
+            holdWindows--;
+            next = current;
+            reason = null;
+        } else if (lastThroughput == null || lastChange == 0) {
+            if (current + direction > max || current + direction < min) {
+                direction = -direction;
+            }
+            next = current + direction;
+            reason = "probing";
+        } else {
+            double change = (throughput - lastThroughput) / lastThroughput;
+            if (change > SIGNIFICANT_CHANGE) {
+                direction = lastChange;
+                next = current + lastChange;
+                reason = String.format("throughput improved by %.1f%%", change * 100);
+            } else if (change < -SIGNIFICANT_CHANGE) {
+                next = current - lastChange;
+                reason = String.format("throughput dropped by %.1f%%", -change * 100);
+                hold();
+            } else if (lastChange > 0) {
+                next = current - 1;
+                reason = "no significant improvement after adding a thread";
+                hold();
+            } else {
+                next = current - 1;
+                reason = "throughput did not drop after removing a thread";
+            }
+        }
+        next = Math.max(min, Math.min(max, next));
+        lastThroughput = throughput;
+        lastChange = next - current;
+        if (next == current) {
+            return false;
+        }
+        active = next;
+        recordAdjustment(current, next, throughput, latency, reason);
+        return true;
+    }
+
+    private void hold() {
+        holdWindows = HOLD_WINDOWS;
+        direction = 1;              // after holding, let's look for more throughput again
+    }
+
+    private void recordAdjustment(int oldCount, int newCount, double throughput, double latency, String reason) {
+        LOGGER.info("Changing the number of active worker threads from {} to {} ({}; throughput: {} objects/s, "
+                + "average latency: {} ms)", oldCount, newCount, reason, String.format("%.2f", throughput),
+                String.format("%.1f", latency));
+        information.setActiveWorkerThreads(newCount);
+        information.getAdjustment().add(new WorkerThreadsAdjustmentType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .oldWorkerThreads(oldCount)
+                .newWorkerThreads(newCount)
+                .throughput(throughput)
+                .averageLatency(latency)
+                .reason(reason));
+        while (information.getAdjustment().size() > ADJUSTMENTS_KEPT) {
+            information.getAdjustment().remove(0);
+        }
+    }
+
+    @NotNull
+    public WorkerThreadsTuningInformationType getInformation() {
+        return information;
+    }
+}
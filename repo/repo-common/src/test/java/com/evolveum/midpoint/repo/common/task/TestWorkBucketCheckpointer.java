@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+import static com.evolveum.midpoint.repo.common.task.WorkBucketCheckpointer.NO_SEQUENCE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.constants.MidPointConstants;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketCheckpointType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketType;
+
+public class TestWorkBucketCheckpointer {
+
+    private static final String OID_1 = "00000000-0000-0000-0000-000000000001";
+    private static final String OID_2 = "00000000-0000-0000-0000-000000000002";
+    private static final String OID_3 = "00000000-0000-0000-0000-000000000003";
+    private static final String OID_4 = "00000000-0000-0000-0000-000000000004";
+
+    private final List<WorkBucketCheckpointType> recorded = new ArrayList<>();
+
+    @BeforeSuite
+    public void setup() throws Exception {
+        PrettyPrinter.setDefaultNamespacePrefix(MidPointConstants.NS_MIDPOINT_PUBLIC_PREFIX);
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100CheckpointIsProcessedPrefix() {
+        final String TEST_NAME = "test100CheckpointIsProcessedPrefix";
+        displayTestTitle(TEST_NAME);
+
+        WorkBucketCheckpointer checkpointer = createCheckpointer(new WorkBucketType().sequentialNumber(1), true);
+        long seq1 = checkpointer.registerSubmitted(OID_1);
+        long seq2 = checkpointer.registerSubmitted(OID_2);
+        long seq3 = checkpointer.registerSubmitted(OID_3);
+
+        // out of order: nothing is processed up to this object
+        checkpointer.markProcessed(seq2);
+        checkpointer.checkpoint();
+        assertEquals("Checkpoint recorded although no prefix was processed", 0, recorded.size());
+
+        checkpointer.markProcessed(seq1);
+        checkpointer.checkpoint();
+        assertCheckpoint(OID_2, 2);
+
+        // nothing new
+        checkpointer.checkpoint();
+        assertEquals("Checkpoint recorded twice", 1, recorded.size());
+
+        checkpointer.markProcessed(seq3);
+        checkpointer.checkpoint();
+        assertCheckpoint(OID_3, 3);
+    }
+
+    @Test
+    public void test110OidsOutOfOrder() {
+        final String TEST_NAME = "test110OidsOutOfOrder";
+        displayTestTitle(TEST_NAME);
+
+        WorkBucketCheckpointer checkpointer = createCheckpointer(new WorkBucketType().sequentialNumber(1), true);
+        long seq2 = checkpointer.registerSubmitted(OID_2);
+        long seq1 = checkpointer.registerSubmitted(OID_1);
+        assertEquals("Wrong sequence for object out of order", NO_SEQUENCE, seq1);
+
+        checkpointer.markProcessed(seq2);
+        checkpointer.markProcessed(seq1);
+        checkpointer.checkpoint();
+        assertEquals("Checkpoint recorded although objects came out of order", 0, recorded.size());
+        assertEquals("Checkpointing was not turned off", NO_SEQUENCE, checkpointer.registerSubmitted(OID_3));
+    }
+
+    @Test
+    public void test120ResumeFromCheckpoint() {
+        final String TEST_NAME = "test120ResumeFromCheckpoint";
+        displayTestTitle(TEST_NAME);
+
+        WorkBucketType bucket = new WorkBucketType()
+                .sequentialNumber(1)
+                .checkpoint(new WorkBucketCheckpointType()
+                        .lastProcessedOid(OID_2)
+                        .processedObjects(2));
+        WorkBucketCheckpointer checkpointer = createCheckpointer(bucket, true);
+
+        ObjectQuery query = checkpointer.applyResumePosition(null, getPrismContext());
+        assertEquals("Wrong resume position", OID_2, query.getPaging().getCookie());
+
+        // the recorded position was not changed
+        checkpointer.checkpoint();
+        assertEquals("Unchanged checkpoint was recorded", 0, recorded.size());
+
+        assertEquals("Object before the resume position was accepted", NO_SEQUENCE,
+                createCheckpointer(bucket, true).registerSubmitted(OID_1));
+
+        long seq3 = checkpointer.registerSubmitted(OID_3);
+        long seq4 = checkpointer.registerSubmitted(OID_4);
+        checkpointer.markProcessed(seq3);
+        checkpointer.markProcessed(seq4);
+        checkpointer.checkpoint();
+        assertCheckpoint(OID_4, 4);
+    }
+
+    @Test
+    public void test130CustomPagingPreventsResume() {
+        final String TEST_NAME = "test130CustomPagingPreventsResume";
+        displayTestTitle(TEST_NAME);
+
+        WorkBucketType bucket = new WorkBucketType()
+                .sequentialNumber(1)
+                .checkpoint(new WorkBucketCheckpointType()
+                        .lastProcessedOid(OID_2)
+                        .processedObjects(2));
+        WorkBucketCheckpointer checkpointer = createCheckpointer(bucket, true);
+
+        ObjectQuery query = getPrismContext().queryFactory().createQuery(getPrismContext().queryFactory().createPaging(10, null));
+        ObjectQuery narrowed = checkpointer.applyResumePosition(query, getPrismContext());
+        assertSame("Query with custom paging was changed", query, narrowed);
+        assertNull("Cookie was set", narrowed.getPaging().getCookie());
+
+        // processing starts from the beginning of the bucket
+        long seq1 = checkpointer.registerSubmitted(OID_1);
+        checkpointer.markProcessed(seq1);
+        checkpointer.checkpoint();
+        assertCheckpoint(OID_1, 1);
+    }
+
+    @Test
+    public void test140BucketNoLongerOwned() {
+        final String TEST_NAME = "test140BucketNoLongerOwned";
+        displayTestTitle(TEST_NAME);
+
+        WorkBucketCheckpointer checkpointer = createCheckpointer(new WorkBucketType().sequentialNumber(1), false);
+        checkpointer.markProcessed(checkpointer.registerSubmitted(OID_1));
+        checkpointer.checkpoint();
+        assertEquals("Wrong # of recording attempts", 1, recorded.size());
+
+        checkpointer.markProcessed(checkpointer.registerSubmitted(OID_2));
+        checkpointer.checkpoint();
+        assertEquals("Checkpoint recorded after the bucket was lost", 1, recorded.size());
+    }
+
+    private WorkBucketCheckpointer createCheckpointer(WorkBucketType bucket, boolean owned) {
+        recorded.clear();
+        return new WorkBucketCheckpointer((sequentialNumber, checkpoint, result) -> {
+            assertEquals("Wrong bucket", bucket.getSequentialNumber(), sequentialNumber);
+            recorded.add(checkpoint);
+            return owned;
+        }, null, bucket, 1000L);
+    }
+
+    private void assertCheckpoint(String expectedOid, int expectedProcessed) {
+        assertTrue("No checkpoint recorded", !recorded.isEmpty());
+        WorkBucketCheckpointType last = recorded.get(recorded.size() - 1);
+        assertEquals("Wrong last processed OID", expectedOid, last.getLastProcessedOid());
+        assertEquals("Wrong # of processed objects", Integer.valueOf(expectedProcessed), last.getProcessedObjects());
+    }
+
+    private PrismContext getPrismContext() {
+        return PrismTestUtil.getPrismContext();
+    }
+}
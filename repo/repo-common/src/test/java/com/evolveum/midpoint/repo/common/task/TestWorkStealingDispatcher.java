@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+public class TestWorkStealingDispatcher {
+
+    private static final long TIMEOUT = 100L;
+
+    @Test
+    public void test100BatchesAreHandedOverWhenFull() throws Exception {
+        final String TEST_NAME = "test100BatchesAreHandedOverWhenFull";
+        displayTestTitle(TEST_NAME);
+
+        WorkStealingDispatcher<Integer> dispatcher = new WorkStealingDispatcher<>(2, 3, null);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(dispatcher.submit(i, () -> true));
+        }
+
+        WorkStealingDispatcher.Batch<Integer> first = dispatcher.take(0, TIMEOUT);
+        assertNotNull("No first batch", first);
+        assertEquals("Wrong first batch", Arrays.asList(0, 1, 2), first.getRequests());
+
+        // the second batch was handed over to worker #1, but worker #0 can take it as well
+        WorkStealingDispatcher.Batch<Integer> second = dispatcher.take(0, TIMEOUT);
+        assertNotNull("No second batch", second);
+        assertEquals("Wrong second batch", Arrays.asList(3, 4, 5), second.getRequests());
+
+        assertNull("Partial batch was handed over", dispatcher.take(1, TIMEOUT));
+
+        dispatcher.signalAllSubmitted();
+        WorkStealingDispatcher.Batch<Integer> last = dispatcher.take(1, TIMEOUT);
+        assertNotNull("No last batch", last);
+        assertEquals("Wrong last batch", Collections.singletonList(6), last.getRequests());
+        assertNull("Unexpected batch", dispatcher.take(0, TIMEOUT));
+    }
+
+    @Test
+    public void test200AffinityKeepsOrder() throws Exception {
+        final String TEST_NAME = "test200AffinityKeepsOrder";
+        displayTestTitle(TEST_NAME);
+
+        int workers = 4;
+        int keys = 10;
+        int perKey = 500;
+        WorkStealingDispatcher<int[]> dispatcher = new WorkStealingDispatcher<>(workers, 7, request -> request[0]);
+
+        Map<Integer, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<Integer, Integer> workerForKey = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                int worker = w;
+                futures.add(executor.submit(() -> {
+                    for (;;) {
+                        boolean allSubmitted = dispatcher.isAllSubmitted();
+                        WorkStealingDispatcher.Batch<int[]> batch = dispatcher.take(worker, TIMEOUT);
+                        if (batch == null) {
+                            if (allSubmitted) {
+                                return null;
+                            }
+                            continue;
+                        }
+                        for (int[] request : batch.getRequests()) {
+                            Integer previous = workerForKey.putIfAbsent(request[0], worker);
+                            assertTrue("Key " + request[0] + " processed by more workers", previous == null || previous == worker);
+                            processed.computeIfAbsent(request[0], k -> Collections.synchronizedList(new ArrayList<>()))
+                                    .add(request[1]);
+                        }
+                    }
+                }));
+            }
+
+            for (int i = 0; i < perKey; i++) {
+                for (int key = 0; key < keys; key++) {
+                    assertTrue(dispatcher.submit(new int[] { key, i }, () -> true));
+                }
+            }
+            dispatcher.signalAllSubmitted();
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals("Wrong # of keys processed", keys, processed.size());
+        for (Map.Entry<Integer, List<Integer>> entry : processed.entrySet()) {
+            List<Integer> sequence = entry.getValue();
+            assertEquals("Wrong # of requests for key " + entry.getKey(), perKey, sequence.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals("Wrong order of requests for key " + entry.getKey(), i, (int) sequence.get(i));
+            }
+        }
+    }
+
+    /**
+     * Requests without affinity key must not be mixed into batches of requests with a key.
+     */
+    @Test
+    public void test210AffinityWithNullKeys() throws Exception {
+        final String TEST_NAME = "test210AffinityWithNullKeys";
+        displayTestTitle(TEST_NAME);
+
+        int workers = 2;
+        // key 0 goes to worker #0; requests with null key have none
+        WorkStealingDispatcher<Integer[]> dispatcher = new WorkStealingDispatcher<>(workers, 2, request -> request[0]);
+        assertTrue(dispatcher.submit(new Integer[] { 0, 1 }, () -> true));
+        assertTrue(dispatcher.submit(new Integer[] { null, 2 }, () -> true));
+        assertTrue(dispatcher.submit(new Integer[] { null, 3 }, () -> true));         // null-key batch is full now
+        assertTrue(dispatcher.submit(new Integer[] { 0, 4 }, () -> true));            // key 0 batch is full now
+        assertTrue(dispatcher.submit(new Integer[] { null, 5 }, () -> true));
+        dispatcher.signalAllSubmitted();
+
+        List<List<Integer>> batches0 = takeAll(dispatcher, 0);
+        List<List<Integer>> batches1 = takeAll(dispatcher, 1);
+
+        assertTrue("Batch with key 0 was not given to worker #0: " + batches0, batches0.contains(Arrays.asList(1, 4)));
+        List<List<Integer>> all = new ArrayList<>(batches0);
+        all.addAll(batches1);
+        assertEquals("Wrong batches", 3, all.size());
+        assertTrue("Null-key batch missing or mixed: " + all, all.contains(Arrays.asList(2, 3)));
+        assertTrue("Last null-key batch missing or mixed: " + all, all.contains(Collections.singletonList(5)));
+        // null-key batches are distributed among the workers
+        assertFalse("Null-key batches were not distributed: " + batches1, batches1.isEmpty());
+    }
+
+    private List<List<Integer>> takeAll(WorkStealingDispatcher<Integer[]> dispatcher, int worker) throws InterruptedException {
+        List<List<Integer>> rv = new ArrayList<>();
+        WorkStealingDispatcher.Batch<Integer[]> batch;
+        while ((batch = dispatcher.take(worker, TIMEOUT)) != null) {
+            List<Integer> values = new ArrayList<>();
+            for (Integer[] request : batch.getRequests()) {
+                values.add(request[1]);
+            }
+            rv.add(values);
+        }
+        return rv;
+    }
+}
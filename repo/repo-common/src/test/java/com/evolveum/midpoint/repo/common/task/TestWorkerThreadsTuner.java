@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.common.task;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import static com.evolveum.midpoint.test.IntegrationTestTools.display;
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+
+import java.util.function.IntToDoubleFunction;
+
+import org.testng.annotations.Test;
+
+public class TestWorkerThreadsTuner {
+
+    private static final int WINDOWS = 40;
+
+    @Test
+    public void test100StopsAtSaturation() {
+        final String TEST_NAME = "test100StopsAtSaturation";
+        displayTestTitle(TEST_NAME);
+
+        // throughput grows linearly up to 4 threads, then stays flat
+        WorkerThreadsTuner tuner = new WorkerThreadsTuner(1, 8, 1000L);
+        int maxReached = simulate(tuner, threads -> Math.min(threads, 4) * 10.0);
+
+        assertEquals("Wrong maximal number of threads tried", 5, maxReached);
+        assertTrue("Wrong final number of threads: " + tuner.getActiveWorkers(),
+                tuner.getActiveWorkers() == 4 || tuner.getActiveWorkers() == 5);
+        assertEquals("Wrong recorded number of threads", Integer.valueOf(tuner.getActiveWorkers()),
+                tuner.getInformation().getActiveWorkerThreads());
+        assertTrue("Adjustments were not recorded", !tuner.getInformation().getAdjustment().isEmpty());
+    }
+
+    @Test
+    public void test110BacksOffWhenThroughputDrops() {
+        final String TEST_NAME = "test110BacksOffWhenThroughputDrops";
+        displayTestTitle(TEST_NAME);
+
+        // throughput grows up to 3 threads, then drops (e.g. because of lock contention in the database)
+        WorkerThreadsTuner tuner = new WorkerThreadsTuner(1, 8, 1000L);
+        int maxReached = simulate(tuner, threads -> threads <= 3 ? threads * 10.0 : 30.0 - (threads - 3) * 5.0);
+
+        assertEquals("Wrong maximal number of threads tried", 4, maxReached);
+        assertTrue("Wrong final number of threads: " + tuner.getActiveWorkers(),
+                tuner.getActiveWorkers() == 3 || tuner.getActiveWorkers() == 4);
+    }
+
+    @Test
+    public void test120StaysWithinLimits() {
+        final String TEST_NAME = "test120StaysWithinLimits";
+        displayTestTitle(TEST_NAME);
+
+        // throughput grows all the time
+        WorkerThreadsTuner tuner = new WorkerThreadsTuner(2, 6, 1000L);
+        int maxReached = simulate(tuner, threads -> threads * 10.0);
+
+        assertEquals("Wrong maximal number of threads tried", 6, maxReached);
+        assertTrue("Wrong final number of threads: " + tuner.getActiveWorkers(),
+                tuner.getActiveWorkers() >= 5 && tuner.getActiveWorkers() <= 6);
+    }
+
+    private int simulate(WorkerThreadsTuner tuner, IntToDoubleFunction throughputFunction) {
+        int maxReached = tuner.getActiveWorkers();
+        for (int i = 0; i < WINDOWS; i++) {
+            int threads = tuner.getActiveWorkers();
+            tuner.adjust(throughputFunction.applyAsDouble(threads), 100.0);
+            display("Window " + i + ": " + threads + " -> " + tuner.getActiveWorkers());
+            maxReached = Math.max(maxReached, tuner.getActiveWorkers());
+        }
+        return maxReached;
+    }
+}
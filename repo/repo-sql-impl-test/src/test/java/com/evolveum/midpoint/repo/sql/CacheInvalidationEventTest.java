@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CacheInvalidationEventTest extends BaseSQLRepoTest {
+
+    private static final String NODE = "node1";
+    private static final String ROLE_OID = "ae7a43b4-2b3b-4b3d-8a4e-0bd8f2a4a7d1";
+
+    private long first;
+
+    @Test
+    public void test100AddAndGetEvents() {
+        OperationResult result = new OperationResult("test100AddAndGetEvents");
+
+        long lastBefore = repositoryService.getLastCacheInvalidationEventSequenceNumber(result);
+
+        first = repositoryService.addCacheInvalidationEvent(new CacheInvalidationEventType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .objectType(RoleType.COMPLEX_TYPE)
+                .objectOid(ROLE_OID)
+                .sourceNodeIdentifier(NODE), result);
+        long second = repositoryService.addCacheInvalidationEvent(new CacheInvalidationEventType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .objectType(SystemConfigurationType.COMPLEX_TYPE)
+                .sourceNodeIdentifier(NODE), result);
+        long third = repositoryService.addCacheInvalidationEvent(new CacheInvalidationEventType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .sourceNodeIdentifier(NODE), result);
+
+        assertTrue("Sequence numbers are not increasing", lastBefore < first && first < second && second < third);
+        assertEquals("Wrong last sequence number", third, repositoryService.getLastCacheInvalidationEventSequenceNumber(result));
+
+        List<CacheInvalidationEventType> events = repositoryService.getCacheInvalidationEvents(lastBefore, 10, result);
+        assertEquals("Wrong # of events", 3, events.size());
+        assertEquals("Wrong sequence number", (Long) first, events.get(0).getSequenceNumber());
+        assertEquals("Wrong object type", RoleType.COMPLEX_TYPE, events.get(0).getObjectType());
+        assertEquals("Wrong object oid", ROLE_OID, events.get(0).getObjectOid());
+        assertEquals("Wrong source node", NODE, events.get(0).getSourceNodeIdentifier());
+        assertEquals("Wrong object type", SystemConfigurationType.COMPLEX_TYPE, events.get(1).getObjectType());
+        assertNull("Unexpected object oid", events.get(1).getObjectOid());
+        assertNull("Unexpected object type", events.get(2).getObjectType());
+
+        List<CacheInvalidationEventType> batch = repositoryService.getCacheInvalidationEvents(first, 1, result);
+        assertEquals("Wrong # of events in a batch", 1, batch.size());
+        assertEquals("Wrong sequence number", (Long) second, batch.get(0).getSequenceNumber());
+    }
+
+    @Test
+    public void test200DeleteOldEvents() {
+        OperationResult result = new OperationResult("test200DeleteOldEvents");
+
+        repositoryService.addCacheInvalidationEvent(new CacheInvalidationEventType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis() - 7200000L))
+                .sourceNodeIdentifier(NODE), result);
+
+        int deleted = repositoryService.deleteCacheInvalidationEvents(
+                XmlTypeConverter.createXMLGregorianCalendar(System.currentTimeMillis() - 3600000L), result);
+
+        assertEquals("Wrong # of deleted events", 1, deleted);
+        assertEquals("Wrong # of remaining events", 3, repositoryService.getCacheInvalidationEvents(first - 1, 10, result).size());
+    }
+}
@@ -9,6 +9,7 @@ package com.evolveum.midpoint.repo.sql;
 
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.repo.api.RepositoryService;
@@ -215,6 +216,39 @@ public class SearchIterativeTest extends BaseSQLRepoTest {
         assertObjects(objects, COUNT);
     }
 
+    /**
+     * The cookie is the OID after which the strictly sequential iteration starts (used when resuming work buckets).
+     */
+    @Test
+    public void test106SequentialIterationFromCookie() throws Exception {
+        OperationResult result = new OperationResult("test106SequentialIterationFromCookie");
+
+        final List<PrismObject<UserType>> objects = new ArrayList<>();
+
+        ResultHandler<UserType> handler = (object, parentResult) -> {
+            objects.add(object);
+            return true;
+        };
+
+        SearchOpAsserter asserter = new SearchOpAsserter();
+
+        int skipped = 200;
+        ObjectPaging paging = prismContext.queryFactory().createPaging();
+        paging.setCookie("user-" + (BASE + skipped - 1) + "-00");
+        ObjectQuery query = prismContext.queryFactory().createQuery(paging);
+        repositoryService.searchObjectsIterative(UserType.class, query, handler, null, true, result);
+        result.recomputeStatus();
+
+        asserter.assertIncrement((COUNT - skipped) / BATCH + 1);
+
+        assertTrue(result.isSuccess());
+        boolean[] numbers = assertObjects(objects, COUNT - skipped);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals("Wrong presence of object " + (BASE + i), i >= skipped, numbers[i]);
+        }
+        assertEquals("Wrong first object", "user-" + (BASE + skipped) + "-00", objects.get(0).getOid());
+    }
+
     private boolean[] assertObjects(List<PrismObject<UserType>> objects, Integer count) {
         if (count != null) {
             assertEquals("Wrong # of objects", count.intValue(), objects.size());
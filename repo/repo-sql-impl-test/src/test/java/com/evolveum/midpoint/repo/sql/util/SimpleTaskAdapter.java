@@ -677,6 +677,10 @@ public class SimpleTaskAdapter implements Task {
     public void recordSynchronizationOperationStart(String objectName, String objectDisplayName, QName objectType, String objectOid) {
     }
 
+    @Override
+    public void recordSynchronizationChangesCoalesced(int count) {
+    }
+
     @Override
     public void resetEnvironmentalPerformanceInformation(EnvironmentalPerformanceInformationType value) {
     }
@@ -701,6 +705,14 @@ public class SimpleTaskAdapter implements Task {
     public void recordIterativeOperationEnd(ShadowType shadow, long started, Throwable exception) {
     }
 
+    @Override
+    public void recordWorkerWaitTimes(long queueWaitTime, long idleTime) {
+    }
+
+    @Override
+    public void recordWorkerThreadsTuning(WorkerThreadsTuningInformationType information) {
+    }
+
     @Override
     public void recordIterativeOperationStart(ShadowType shadow) {
     }
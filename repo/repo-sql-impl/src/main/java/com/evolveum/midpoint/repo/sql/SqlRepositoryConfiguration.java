@@ -311,6 +311,7 @@ public class SqlRepositoryConfiguration {
     public static final String PROPERTY_ENABLE_NO_FETCH_EXTENSION_VALUES_INSERTION = "enableNoFetchExtensionValuesInsertion";
     public static final String PROPERTY_ENABLE_NO_FETCH_EXTENSION_VALUES_DELETION = "enableNoFetchExtensionValuesDeletion";
     public static final String PROPERTY_ENABLE_INDEX_ONLY_ITEMS = "enableIndexOnlyItems";
+    public static final String PROPERTY_ENABLE_LAZY_PARSING = "enableLazyParsing";
 
     public static final String PROPERTY_TEXT_INFO_COLUMN_SIZE = "textInfoColumnSize";
 
@@ -394,6 +395,7 @@ public class SqlRepositoryConfiguration {
     private boolean enableNoFetchExtensionValuesInsertion;
     private boolean enableNoFetchExtensionValuesDeletion;
     private boolean enableIndexOnlyItems;
+    private boolean enableLazyParsing;          // EXPERIMENTAL
 
     private int textInfoColumnSize;
 
@@ -518,6 +520,7 @@ public class SqlRepositoryConfiguration {
         enableNoFetchExtensionValuesInsertion = configuration.getBoolean(PROPERTY_ENABLE_NO_FETCH_EXTENSION_VALUES_INSERTION, true);
         enableNoFetchExtensionValuesDeletion = configuration.getBoolean(PROPERTY_ENABLE_NO_FETCH_EXTENSION_VALUES_DELETION, false);
         enableIndexOnlyItems = configuration.getBoolean(PROPERTY_ENABLE_INDEX_ONLY_ITEMS, false);
+        enableLazyParsing = configuration.getBoolean(PROPERTY_ENABLE_LAZY_PARSING, false);
 
         int maxTextSize = (database == MYSQL || database == MARIADB) && UTF8MB4.equalsIgnoreCase(schemaVariant) ? 191 : 255;
         textInfoColumnSize = configuration.getInt(PROPERTY_TEXT_INFO_COLUMN_SIZE, maxTextSize);
@@ -1000,6 +1003,10 @@ public class SqlRepositoryConfiguration {
         return enableIndexOnlyItems;
     }
 
+    public boolean isEnableLazyParsing() {
+        return enableLazyParsing;
+    }
+
     public int getTextInfoColumnSize() {
         return textInfoColumnSize;
     }
@@ -1021,4 +1028,10 @@ public class SqlRepositoryConfiguration {
     public void setEnableIndexOnlyItems(boolean enableIndexOnlyItems) {
         this.enableIndexOnlyItems = enableIndexOnlyItems;
     }
+
+    // for testing only
+    @SuppressWarnings("SameParameterValue")
+    public void setEnableLazyParsing(boolean enableLazyParsing) {
+        this.enableLazyParsing = enableLazyParsing;
+    }
 }
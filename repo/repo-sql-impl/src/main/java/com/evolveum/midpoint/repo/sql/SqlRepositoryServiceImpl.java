@@ -27,6 +27,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 
 import com.evolveum.midpoint.repo.api.*;
@@ -64,6 +65,7 @@ import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.repo.api.query.ObjectFilterExpressionEvaluator;
 import com.evolveum.midpoint.repo.sql.helpers.BaseHelper;
+import com.evolveum.midpoint.repo.sql.helpers.CacheInvalidationEventHelper;
 import com.evolveum.midpoint.repo.sql.helpers.ObjectRetriever;
 import com.evolveum.midpoint.repo.sql.helpers.ObjectUpdater;
 import com.evolveum.midpoint.repo.sql.helpers.OrgClosureManager;
@@ -134,6 +136,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
     private static final String DETAILS_HIBERNATE_HBM_2_DDL = "hibernateHbm2ddl";
 
     @Autowired private SequenceHelper sequenceHelper;
+    @Autowired private CacheInvalidationEventHelper cacheInvalidationEventHelper;
     @Autowired private ObjectRetriever objectRetriever;
     @Autowired private ObjectUpdater objectUpdater;
     @Autowired private OrgClosureManager closureManager;
@@ -227,6 +230,15 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         }
     }
 
+    private <RV> RV executeAttemptsNoCheckedException(String operationName, Class<?> type, String operationVerb,
+            OperationResult subResult, ResultSupplier<RV> supplier) {
+        try {
+            return executeAttempts(null, operationName, type, operationVerb, subResult, supplier);
+        } catch (ObjectNotFoundException | SchemaException e) {
+            throw new AssertionError("Should not occur", e);
+        }
+    }
+
     private <RV> RV executeQueryAttemptsNoSchemaException(ObjectQuery query, String operationName, Class<?> type, String operationVerb, OperationResult subResult,
             Supplier<RV> emptyQueryResultSupplier, ResultQueryBasedSupplier<RV> supplier) {
         try {
@@ -1358,4 +1370,49 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
             return true;
         }
     }
+
+    @Override
+    public long addCacheInvalidationEvent(@NotNull CacheInvalidationEventType event, OperationResult parentResult) {
+        OperationResult result = parentResult.subresult(ADD_CACHE_INVALIDATION_EVENT)
+                .setMinor()
+                .addParam("objectType", event.getObjectType())
+                .addParam("objectOid", event.getObjectOid())
+                .build();
+        return executeAttemptsNoCheckedException(OP_ADD_CACHE_INVALIDATION_EVENT, CacheInvalidationEventType.class,
+                "adding cache invalidation event", result, () -> cacheInvalidationEventHelper.addEventAttempt(event, result));
+    }
+
+    @NotNull
+    @Override
+    public List<CacheInvalidationEventType> getCacheInvalidationEvents(long afterSequenceNumber, int maxSize,
+            OperationResult parentResult) {
+        OperationResult result = parentResult.subresult(GET_CACHE_INVALIDATION_EVENTS)
+                .setMinor()
+                .addParam("afterSequenceNumber", afterSequenceNumber)
+                .addParam("maxSize", maxSize)
+                .build();
+        return executeAttemptsNoCheckedException(OP_GET_CACHE_INVALIDATION_EVENTS, CacheInvalidationEventType.class,
+                "getting cache invalidation events", result,
+                () -> cacheInvalidationEventHelper.getEventsAttempt(afterSequenceNumber, maxSize, result));
+    }
+
+    @Override
+    public long getLastCacheInvalidationEventSequenceNumber(OperationResult parentResult) {
+        OperationResult result = parentResult.subresult(GET_LAST_CACHE_INVALIDATION_EVENT_SEQUENCE_NUMBER)
+                .setMinor()
+                .build();
+        return executeAttemptsNoCheckedException(OP_GET_LAST_CACHE_INVALIDATION_EVENT_SEQUENCE_NUMBER, CacheInvalidationEventType.class,
+                "getting last cache invalidation event sequence number", result,
+                () -> cacheInvalidationEventHelper.getLastSequenceNumberAttempt(result));
+    }
+
+    @Override
+    public int deleteCacheInvalidationEvents(@NotNull XMLGregorianCalendar olderThan, OperationResult parentResult) {
+        OperationResult result = parentResult.subresult(DELETE_CACHE_INVALIDATION_EVENTS)
+                .addParam("olderThan", String.valueOf(olderThan))
+                .build();
+        return executeAttemptsNoCheckedException(OP_DELETE_CACHE_INVALIDATION_EVENTS, CacheInvalidationEventType.class,
+                "deleting cache invalidation events", result,
+                () -> cacheInvalidationEventHelper.deleteEventsAttempt(olderThan, result));
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.sql.data.common;
+
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.sql.helpers.modify.Ignore;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+/**
+ * Cache invalidation event distributed to cluster nodes via the repository. The ID is the sequence number of the event.
+ *
+ * EXPERIMENTAL
+ */
+@Ignore
+@Entity
+@Table(name = RCacheInvalidationEvent.TABLE_NAME, indexes = {
+        @Index(name = "iCacheInvalidationTimestamp", columnList = RCacheInvalidationEvent.COLUMN_TIMESTAMP)
+})
+public class RCacheInvalidationEvent {
+
+    public static final String TABLE_NAME = "m_cache_invalidation_event";
+    public static final String COLUMN_TIMESTAMP = "timestampValue";
+
+    public static final String F_ID = "id";
+    public static final String F_TIMESTAMP = "timestamp";
+
+    private Long id;
+    private Timestamp timestamp;
+    private String objectType;
+    private String objectOid;
+    private String sourceNode;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Column(name = COLUMN_TIMESTAMP)
+    public Timestamp getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Timestamp timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Column(length = RUtil.COLUMN_LENGTH_QNAME)
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public void setObjectType(String objectType) {
+        this.objectType = objectType;
+    }
+
+    @Column(length = RUtil.COLUMN_LENGTH_OID)
+    public String getObjectOid() {
+        return objectOid;
+    }
+
+    public void setObjectOid(String objectOid) {
+        this.objectOid = objectOid;
+    }
+
+    public String getSourceNode() {
+        return sourceNode;
+    }
+
+    public void setSourceNode(String sourceNode) {
+        this.sourceNode = sourceNode;
+    }
+
+    public static RCacheInvalidationEvent fromJaxb(CacheInvalidationEventType event) {
+        RCacheInvalidationEvent repo = new RCacheInvalidationEvent();
+        repo.setTimestamp(event.getTimestamp() != null ?
+                new Timestamp(XmlTypeConverter.toMillis(event.getTimestamp())) : new Timestamp(System.currentTimeMillis()));
+        repo.setObjectType(event.getObjectType() != null ? RUtil.qnameToString(event.getObjectType()) : null);
+        repo.setObjectOid(event.getObjectOid());
+        repo.setSourceNode(event.getSourceNodeIdentifier());
+        return repo;
+    }
+
+    public CacheInvalidationEventType toJaxb() {
+        return new CacheInvalidationEventType()
+                .sequenceNumber(id)
+                .timestamp(timestamp != null ? XmlTypeConverter.createXMLGregorianCalendar(timestamp.getTime()) : null)
+                .objectType(objectType != null ? RUtil.stringToQName(objectType) : null)
+                .objectOid(objectOid)
+                .sourceNodeIdentifier(sourceNode);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof RCacheInvalidationEvent))
+            return false;
+        RCacheInvalidationEvent that = (RCacheInvalidationEvent) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(timestamp, that.timestamp) &&
+                Objects.equals(objectType, that.objectType) &&
+                Objects.equals(objectOid, that.objectOid) &&
+                Objects.equals(sourceNode, that.sourceNode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, timestamp, objectType, objectOid, sourceNode);
+    }
+
+    @Override
+    public String toString() {
+        return "RCacheInvalidationEvent{" +
+                "id=" + id +
+                ", timestamp=" + timestamp +
+                ", objectType='" + objectType + '\'' +
+                ", objectOid='" + objectOid + '\'' +
+                ", sourceNode='" + sourceNode + '\'' +
+                '}';
+    }
+}
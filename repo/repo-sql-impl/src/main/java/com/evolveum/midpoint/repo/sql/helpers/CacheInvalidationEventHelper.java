@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.sql.data.common.RCacheInvalidationEvent;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores and retrieves cache invalidation events (m_cache_invalidation_event table).
+ *
+ * EXPERIMENTAL
+ */
+@Component
+public class CacheInvalidationEventHelper {
+
+    private static final Trace LOGGER = TraceManager.getTrace(CacheInvalidationEventHelper.class);
+
+    @Autowired private BaseHelper baseHelper;
+
+    public long addEventAttempt(@NotNull CacheInvalidationEventType event, OperationResult result) {
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            RCacheInvalidationEvent repoEvent = RCacheInvalidationEvent.fromJaxb(event);
+            session.save(repoEvent);
+            session.getTransaction().commit();
+            LOGGER.trace("Added cache invalidation event {}", repoEvent);
+            return repoEvent.getId();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+            throw new SystemException("Exception " + ex + " was not handled correctly", ex);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+    }
+
+    @NotNull
+    public List<CacheInvalidationEventType> getEventsAttempt(long afterSequenceNumber, int maxSize, OperationResult result) {
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            Query<RCacheInvalidationEvent> query = session.createQuery(
+                    "from RCacheInvalidationEvent e where e.id > :after order by e.id", RCacheInvalidationEvent.class);
+            query.setParameter("after", afterSequenceNumber);
+            query.setMaxResults(maxSize);
+            List<CacheInvalidationEventType> events = new ArrayList<>();
+            for (RCacheInvalidationEvent repoEvent : query.list()) {
+                events.add(repoEvent.toJaxb());
+            }
+            session.getTransaction().commit();
+            return events;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+            throw new SystemException("Exception " + ex + " was not handled correctly", ex);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+    }
+
+    public long getLastSequenceNumberAttempt(OperationResult result) {
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            Long max = session.createQuery("select max(e.id) from RCacheInvalidationEvent e", Long.class)
+                    .uniqueResult();
+            session.getTransaction().commit();
+            return max != null ? max : 0L;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+            throw new SystemException("Exception " + ex + " was not handled correctly", ex);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+    }
+
+    public int deleteEventsAttempt(@NotNull XMLGregorianCalendar olderThan, OperationResult result) {
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            int deleted = session.createQuery("delete from RCacheInvalidationEvent e where e.timestamp < :olderThan")
+                    .setParameter("olderThan", new Timestamp(XmlTypeConverter.toMillis(olderThan)))
+                    .executeUpdate();
+            session.getTransaction().commit();
+            LOGGER.debug("Deleted {} cache invalidation event(s) older than {}", deleted, olderThan);
+            return deleted;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+            throw new SystemException("Exception " + ex + " was not handled correctly", ex);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+    }
+}
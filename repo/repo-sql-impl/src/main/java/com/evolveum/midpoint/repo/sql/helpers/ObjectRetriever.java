@@ -72,6 +72,13 @@ public class ObjectRetriever {
 
     public static final String NULL_OID_MARKER = "###null-oid###";     // brutal hack (TODO)
 
+    /**
+     * Potentially large containers that are seldom needed by the callers. If lazy parsing is enabled, they are parsed
+     * only when accessed; and written back without parsing when the object is serialized.
+     */
+    private static final Collection<ItemName> LAZY_ITEMS = Arrays.asList(
+            ObjectType.F_OPERATION_EXECUTION, TaskType.F_OPERATION_STATS, ResourceType.F_SCHEMA);
+
     @Autowired private LookupTableHelper lookupTableHelper;
     @Autowired private CertificationCaseHelper caseHelper;
     @Autowired private CaseManagementHelper caseManagementHelper;
@@ -503,7 +510,7 @@ public class ObjectRetriever {
             baseHelper.cleanupSessionAndResult(session, result);
         }
 
-        list.forEach(c -> ObjectTypeUtil.normalizeAllRelations(c.asPrismContainerValue(), relationRegistry));
+        list.forEach(c -> ObjectTypeUtil.normalizeParsedRelations(c.asPrismContainerValue(), relationRegistry));
         return new SearchResultList<>(list);
     }
 
@@ -524,6 +531,9 @@ public class ObjectRetriever {
         try {
             // "Postel mode": be tolerant what you read. We need this to tolerate (custom) schema changes
             ParsingContext parsingContext = prismContext.createParsingContextForCompatibilityMode();
+            if (getConfiguration().isEnableLazyParsing()) {
+                parsingContext.lazyItems(LAZY_ITEMS, item -> ObjectTypeUtil.normalizeAllRelations(item, relationRegistry));
+            }
             prismObject = prismContext.parserFor(xml).language(SqlRepositoryServiceImpl.DATA_LANGUAGE).context(parsingContext).parse();
             if (parsingContext.hasWarnings()) {
                 LOGGER.warn("Object {} parsed with {} warnings", ObjectTypeUtil.toShortString(prismObject), parsingContext.getWarnings().size());
@@ -604,7 +614,7 @@ public class ObjectRetriever {
         nameResolutionHelper.resolveNamesIfRequested(session, prismObject.getValue(), options);
         validateObjectType(prismObject, type);
 
-        ObjectTypeUtil.normalizeAllRelations(prismObject, relationRegistry);
+        ObjectTypeUtil.normalizeParsedRelations(prismObject.getValue(), relationRegistry);
         return prismObject;
     }
 
@@ -968,7 +978,8 @@ main:       while (remaining > 0) {
      *
      * Constraints:
      *  - There can be no ordering prescribed. We use our own ordering.
-     *  - We also disallow any explicit paging - except for maxSize setting.
+     *  - We also disallow any explicit paging - except for maxSize and cookie settings. The cookie (if present)
+     *    is the OID after which the iteration starts; it is used e.g. to resume processing of a work bucket.
      *
      *  Implementation is very simple - we fetch objects ordered by OID, and remember last OID fetched.
      *  Obviously no object will be present in output more than once.
@@ -994,7 +1005,7 @@ main:       while (remaining > 0) {
                 pagedQuery = prismContext.queryFactory().createQuery();
             }
 
-            String lastOid = null;
+            String lastOid = query != null && query.getPaging() != null ? query.getPaging().getCookie() : null;
             final int batchSize = getConfiguration().getIterativeSearchByPagingBatchSize();
 
             ObjectPaging paging = prismContext.queryFactory().createPaging();
@@ -101,6 +101,21 @@ public interface RunningTask extends Task {
 
     void deleteLightweightAsynchronousSubtasks();
 
+    /**
+     * Tells the worker threads budget of the node how many worker threads (lightweight asynchronous subtasks)
+     * this task is going to use. Zero means none.
+     * EXPERIMENTAL
+     */
+    void requestWorkerThreads(int count);
+
+    /**
+     * Returns the number of worker threads this task can keep active now, according to the worker threads budget
+     * of the node. It changes as other tasks start and finish. Workers with index equal to or greater than this
+     * number should wait.
+     * EXPERIMENTAL
+     */
+    int getAllowedWorkerThreads();
+
     // EXPERIMENTAL; consider moving to AbstractSearchIterativeResultHandler
     int getAndIncrementObjectsSeen();
 
@@ -702,6 +702,20 @@ public interface TaskManager {
             Function<ItemPath, ItemDefinition<?>> itemDefinitionProvider, Task workerTask,
             WorkBucketType workBucket, OperationResult opResult) throws SchemaException, ObjectNotFoundException;
 
+    /**
+     * Returns the interval (in milliseconds) of recording work bucket checkpoints for given worker task,
+     * or null if checkpoints are not to be recorded. EXPERIMENTAL.
+     */
+    Long getWorkBucketCheckpointInterval(Task workerTask, OperationResult opResult) throws SchemaException, ObjectNotFoundException;
+
+    /**
+     * Records the position within given work bucket up to which the processing is done. EXPERIMENTAL.
+     *
+     * @return false if the bucket is no longer being processed by the worker task, so the checkpoint was not recorded.
+     */
+    boolean checkpointWorkBucket(String workerTaskOid, int sequentialNumber, WorkBucketCheckpointType checkpoint,
+            OperationResult opResult) throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException;
+
     TaskHandler createAndRegisterPartitioningTaskHandler(String handlerUri, Function<Task, TaskPartitionsDefinition> partitioningStrategy);
 
     void setFreeBucketWaitInterval(long value);
@@ -762,4 +776,18 @@ public interface TaskManager {
 
     // EXPERIMENTAL
     void removeGlobalTracingOverride();
+
+    /**
+     * True if cluster-wide cache invalidations are distributed via the repository instead of REST calls
+     * to individual nodes. EXPERIMENTAL.
+     */
+    boolean isCacheInvalidationOverRepository();
+
+    /**
+     * Stores a cache invalidation event in the repository, from which it is fetched by the other nodes. EXPERIMENTAL.
+     *
+     * @param type Type of object(s) to be invalidated. Null means 'all types'.
+     * @param oid Object to be invalidated. Null means 'all objects of given type'.
+     */
+    void publishCacheInvalidationEvent(Class<? extends ObjectType> type, String oid, OperationResult result);
 }
@@ -39,5 +39,14 @@ public interface Tracer {
 
     CompiledTracingProfile compileProfile(TracingProfileType profile, OperationResult result) throws SchemaException;
 
+    /**
+     * Compiles the profile for an operation that is about to be traced, applying profile's samplingInterval.
+     * Should be called once per operation, when the tracing is being switched on.
+     *
+     * @return Compiled profile or null if the operation was sampled out, i.e. it should not be traced at all.
+     */
+    @Nullable
+    CompiledTracingProfile compileProfileIfSampled(TracingProfileType profile, OperationResult result) throws SchemaException;
+
     //TracingLevelType getLevel(@NotNull TracingProfileType resolvedProfile, @NotNull Class<TraceType> traceClass);
 }
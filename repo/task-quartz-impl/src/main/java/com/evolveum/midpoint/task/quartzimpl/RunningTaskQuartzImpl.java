@@ -10,12 +10,14 @@ package com.evolveum.midpoint.task.quartzimpl;
 import ch.qos.logback.classic.Level;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.api.perf.PerformanceMonitor;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.*;
 import com.evolveum.midpoint.task.quartzimpl.statistics.Statistics;
+import com.evolveum.midpoint.task.quartzimpl.statistics.TaskStatisticsFlusher;
 import com.evolveum.midpoint.task.quartzimpl.statistics.WorkBucketStatisticsCollector;
 import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
@@ -46,6 +48,9 @@ public class RunningTaskQuartzImpl extends TaskQuartzImpl implements RunningTask
 
     private static final long DEFAULT_OPERATION_STATS_UPDATE_INTERVAL = 3000L;
 
+    private static final List<ItemPath> STATISTICS_ITEMS =
+            Arrays.asList(TaskType.F_PROGRESS, TaskType.F_EXPECTED_TOTAL, TaskType.F_OPERATION_STATS);
+
     private long operationStatsUpdateInterval = DEFAULT_OPERATION_STATS_UPDATE_INTERVAL;
     private Long lastOperationStatsUpdateTimestamp;
 
@@ -235,8 +240,28 @@ public class RunningTaskQuartzImpl extends TaskQuartzImpl implements RunningTask
         }
     }
 
+    /**
+     * If the asynchronous statistics flusher is available, the statistics (along with progress and expected total)
+     * are written by it; we only tell it there is something new. The in-memory task is updated right now, as are
+     * other pending modifications.
+     */
     @Override
     public void storeOperationStats() {
+        TaskStatisticsFlusher flusher = taskManager.getStatisticsFlusher();
+        if (isPersistent() && flusher.isActive()) {
+            try {
+                refreshLowLevelStatistics();
+                setOperationStatsTransient(getAggregatedLiveOperationStats());
+                flusher.markDirty(this);
+                if (hasPendingModificationsExcept(STATISTICS_ITEMS)) {
+                    flushPendingModifications(new OperationResult(DOT_INTERFACE + ".storeOperationStats"));
+                }
+                lastOperationStatsUpdateTimestamp = System.currentTimeMillis();
+            } catch (SchemaException | ObjectNotFoundException | ObjectAlreadyExistsException | RuntimeException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't store pending modifications of task {}", e, this);
+            }
+            return;
+        }
         try {
             storeOperationStatsDeferred();
             addPendingModification(createPropertyDeltaIfPersistent(TaskType.F_PROGRESS, getProgress()));
@@ -273,6 +298,16 @@ public class RunningTaskQuartzImpl extends TaskQuartzImpl implements RunningTask
         return operationStatsUpdateInterval;
     }
 
+    @Override
+    public void requestWorkerThreads(int count) {
+        taskManager.getExecutionManager().getWorkerThreadsBudget().request(this, count);
+    }
+
+    @Override
+    public int getAllowedWorkerThreads() {
+        return taskManager.getExecutionManager().getWorkerThreadsBudget().getAllowed(this);
+    }
+
     @Override
     public void incrementProgressAndStoreStatsIfNeeded() {
         setProgress(getProgress() + 1);
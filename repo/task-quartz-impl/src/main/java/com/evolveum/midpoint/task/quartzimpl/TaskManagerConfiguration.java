@@ -90,6 +90,16 @@ public class TaskManagerConfiguration {
 
     private static final String TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY = "taskExecutionLimitations";
 
+    private static final String ASYNCHRONOUS_STATISTICS_FLUSHING_CONFIG_ENTRY = "asynchronousStatisticsFlushing";     // experimental
+    private static final String STATISTICS_FLUSH_MAX_INTERVAL_CONFIG_ENTRY = "statisticsFlushMaxInterval";              // experimental
+    private static final String WORKER_THREADS_BUDGET_CONFIG_ENTRY = "workerThreadsBudget";                            // experimental
+    private static final String CACHE_INVALIDATION_TRANSPORT_CONFIG_ENTRY = "cacheInvalidationTransport";              // experimental
+    private static final String CACHE_INVALIDATION_POLL_INTERVAL_CONFIG_ENTRY = "cacheInvalidationPollInterval";        // experimental
+    private static final String CACHE_INVALIDATION_BATCH_SIZE_CONFIG_ENTRY = "cacheInvalidationBatchSize";              // experimental
+    private static final String CACHE_INVALIDATION_EVENTS_RETENTION_CONFIG_ENTRY = "cacheInvalidationEventsRetention";  // experimental
+    private static final String ASYNCHRONOUS_TRACE_WRITING_CONFIG_ENTRY = "asynchronousTraceWriting";                  // experimental
+    private static final String TRACE_WRITER_QUEUE_SIZE_CONFIG_ENTRY = "traceWriterQueueSize";                          // experimental
+
     @Deprecated private static final String JMX_PORT_PROPERTY = "com.sun.management.jmxremote.port";
     private static final String SUREFIRE_PRESENCE_PROPERTY = "surefire.real.class.path";
 
@@ -119,6 +129,18 @@ public class TaskManagerConfiguration {
     private static final long WORK_ALLOCATION_INITIAL_DELAY_DEFAULT = 5000L;
     private static final long WORK_ALLOCATION_DEFAULT_FREE_BUCKET_WAIT_INTERVAL_DEFAULT = 20000L;
 
+    private static final boolean ASYNCHRONOUS_STATISTICS_FLUSHING_DEFAULT = false;
+    private static final long STATISTICS_FLUSH_MAX_INTERVAL_DEFAULT = 30000L;
+    private static final int WORKER_THREADS_BUDGET_DEFAULT = 0;            // not limited
+    private static final long CACHE_INVALIDATION_POLL_INTERVAL_DEFAULT = 1000L;
+    private static final int CACHE_INVALIDATION_BATCH_SIZE_DEFAULT = 100;
+    private static final long CACHE_INVALIDATION_EVENTS_RETENTION_DEFAULT = 3600L;      // seconds
+    private static final boolean ASYNCHRONOUS_TRACE_WRITING_DEFAULT = false;
+    private static final int TRACE_WRITER_QUEUE_SIZE_DEFAULT = 20;
+
+    public static final String CACHE_INVALIDATION_TRANSPORT_REST = "rest";
+    public static final String CACHE_INVALIDATION_TRANSPORT_REPOSITORY = "repository";
+
     private static final String NODE_ID_SOURCE_RANDOM = "random";
     private static final String NODE_ID_SOURCE_HOSTNAME = "hostname";
 
@@ -154,6 +176,18 @@ public class TaskManagerConfiguration {
 
     private TaskExecutionLimitationsType taskExecutionLimitations;
 
+    private boolean asynchronousStatisticsFlushing;
+    private long statisticsFlushMaxInterval;
+    private int workerThreadsBudget;
+
+    private boolean cacheInvalidationOverRepository;
+    private long cacheInvalidationPollInterval;
+    private int cacheInvalidationBatchSize;
+    private long cacheInvalidationEventsRetention;
+
+    private boolean asynchronousTraceWriting;
+    private int traceWriterQueueSize;
+
     private boolean useJmx;
     // JMX credentials for connecting to remote nodes
     @Deprecated private String jmxUsername;
@@ -227,7 +261,16 @@ public class TaskManagerConfiguration {
             WORK_ALLOCATION_INITIAL_DELAY_ENTRY,
             WORK_ALLOCATION_RETRY_EXPONENTIAL_THRESHOLD_ENTRY,
             WORK_ALLOCATION_DEFAULT_FREE_BUCKET_WAIT_INTERVAL_ENTRY,
-            TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY
+            TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY,
+            ASYNCHRONOUS_STATISTICS_FLUSHING_CONFIG_ENTRY,
+            STATISTICS_FLUSH_MAX_INTERVAL_CONFIG_ENTRY,
+            WORKER_THREADS_BUDGET_CONFIG_ENTRY,
+            CACHE_INVALIDATION_TRANSPORT_CONFIG_ENTRY,
+            CACHE_INVALIDATION_POLL_INTERVAL_CONFIG_ENTRY,
+            CACHE_INVALIDATION_BATCH_SIZE_CONFIG_ENTRY,
+            CACHE_INVALIDATION_EVENTS_RETENTION_CONFIG_ENTRY,
+            ASYNCHRONOUS_TRACE_WRITING_CONFIG_ENTRY,
+            TRACE_WRITER_QUEUE_SIZE_CONFIG_ENTRY
     );
 
     void checkAllowedKeys(MidpointConfiguration masterConfig) throws TaskManagerConfigurationException {
@@ -340,6 +383,28 @@ public class TaskManagerConfiguration {
         workAllocationDefaultFreeBucketWaitInterval = c.getLong(WORK_ALLOCATION_DEFAULT_FREE_BUCKET_WAIT_INTERVAL_ENTRY,
                 WORK_ALLOCATION_DEFAULT_FREE_BUCKET_WAIT_INTERVAL_DEFAULT);
 
+        asynchronousStatisticsFlushing = c.getBoolean(ASYNCHRONOUS_STATISTICS_FLUSHING_CONFIG_ENTRY, ASYNCHRONOUS_STATISTICS_FLUSHING_DEFAULT);
+        statisticsFlushMaxInterval = c.getLong(STATISTICS_FLUSH_MAX_INTERVAL_CONFIG_ENTRY, STATISTICS_FLUSH_MAX_INTERVAL_DEFAULT);
+        workerThreadsBudget = c.getInt(WORKER_THREADS_BUDGET_CONFIG_ENTRY, WORKER_THREADS_BUDGET_DEFAULT);
+
+        String transport = c.getString(CACHE_INVALIDATION_TRANSPORT_CONFIG_ENTRY, CACHE_INVALIDATION_TRANSPORT_REST);
+        if (CACHE_INVALIDATION_TRANSPORT_REPOSITORY.equals(transport)) {
+            cacheInvalidationOverRepository = true;
+        } else if (CACHE_INVALIDATION_TRANSPORT_REST.equals(transport)) {
+            cacheInvalidationOverRepository = false;
+        } else {
+            throw new TaskManagerConfigurationException("Illegal value for " + CACHE_INVALIDATION_TRANSPORT_CONFIG_ENTRY + ": " + transport);
+        }
+        cacheInvalidationPollInterval = c.getLong(CACHE_INVALIDATION_POLL_INTERVAL_CONFIG_ENTRY, CACHE_INVALIDATION_POLL_INTERVAL_DEFAULT);
+        cacheInvalidationBatchSize = c.getInt(CACHE_INVALIDATION_BATCH_SIZE_CONFIG_ENTRY, CACHE_INVALIDATION_BATCH_SIZE_DEFAULT);
+        cacheInvalidationEventsRetention = c.getLong(CACHE_INVALIDATION_EVENTS_RETENTION_CONFIG_ENTRY, CACHE_INVALIDATION_EVENTS_RETENTION_DEFAULT);
+
+        asynchronousTraceWriting = c.getBoolean(ASYNCHRONOUS_TRACE_WRITING_CONFIG_ENTRY, ASYNCHRONOUS_TRACE_WRITING_DEFAULT);
+        traceWriterQueueSize = c.getInt(TRACE_WRITER_QUEUE_SIZE_CONFIG_ENTRY, TRACE_WRITER_QUEUE_SIZE_DEFAULT);
+        if (traceWriterQueueSize <= 0) {
+            throw new TaskManagerConfigurationException("Illegal value for " + TRACE_WRITER_QUEUE_SIZE_CONFIG_ENTRY + ": " + traceWriterQueueSize);
+        }
+
         if (c.containsKey(TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY)) {
             taskExecutionLimitations = parseExecutionLimitations(c.getString(TASK_EXECUTION_LIMITATIONS_CONFIG_ENTRY));
         }
@@ -719,6 +784,60 @@ public class TaskManagerConfiguration {
         return workAllocationDefaultFreeBucketWaitInterval;
     }
 
+    public boolean isAsynchronousStatisticsFlushing() {
+        return asynchronousStatisticsFlushing;
+    }
+
+    // for tests
+    public void setAsynchronousStatisticsFlushing(boolean asynchronousStatisticsFlushing) {
+        this.asynchronousStatisticsFlushing = asynchronousStatisticsFlushing;
+    }
+
+    public long getStatisticsFlushMaxInterval() {
+        return statisticsFlushMaxInterval;
+    }
+
+    public int getWorkerThreadsBudget() {
+        return workerThreadsBudget;
+    }
+
+    public boolean isCacheInvalidationOverRepository() {
+        return cacheInvalidationOverRepository;
+    }
+
+    public long getCacheInvalidationPollInterval() {
+        return cacheInvalidationPollInterval;
+    }
+
+    public int getCacheInvalidationBatchSize() {
+        return cacheInvalidationBatchSize;
+    }
+
+    public long getCacheInvalidationEventsRetention() {
+        return cacheInvalidationEventsRetention;
+    }
+
+    public boolean isAsynchronousTraceWriting() {
+        return asynchronousTraceWriting;
+    }
+
+    // for tests
+    public void setAsynchronousTraceWriting(boolean asynchronousTraceWriting) {
+        this.asynchronousTraceWriting = asynchronousTraceWriting;
+    }
+
+    /**
+     * Maximum number of traces waiting to be written. (The size of the traces is not limited.)
+     */
+    public int getTraceWriterQueueSize() {
+        return traceWriterQueueSize;
+    }
+
+    // for tests
+    public void setTraceWriterQueueSize(int traceWriterQueueSize) {
+        this.traceWriterQueueSize = traceWriterQueueSize;
+    }
+
     public TaskExecutionLimitationsType getTaskExecutionLimitations() {
         return taskExecutionLimitations;
     }
@@ -72,6 +72,7 @@ import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.query.builder.S_AtomicFilterEntry;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.CacheDispatcher;
 import com.evolveum.midpoint.repo.api.PreconditionViolationException;
 import com.evolveum.midpoint.repo.api.RepoAddOptions;
 import com.evolveum.midpoint.repo.api.RepositoryService;
@@ -93,6 +94,8 @@ import com.evolveum.midpoint.task.quartzimpl.execution.ExecutionManager;
 import com.evolveum.midpoint.task.quartzimpl.execution.HandlerExecutor;
 import com.evolveum.midpoint.task.quartzimpl.execution.StalledTasksWatcher;
 import com.evolveum.midpoint.task.quartzimpl.handlers.PartitioningTaskHandler;
+import com.evolveum.midpoint.task.quartzimpl.statistics.TaskStatisticsFlusher;
+import com.evolveum.midpoint.task.quartzimpl.tracing.TraceWriter;
 import com.evolveum.midpoint.task.quartzimpl.work.WorkStateManager;
 import com.evolveum.midpoint.task.quartzimpl.work.workers.WorkersManager;
 import com.evolveum.midpoint.util.exception.CommunicationException;
@@ -145,6 +148,8 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
     @Autowired private Protector protector;
     @Autowired private CacheConfigurationManager cacheConfigurationManager;
     @Autowired private Tracer tracer;
+    @Autowired private TraceWriter traceWriter;
+    @Autowired private CacheDispatcher cacheDispatcher;
 
     private GlobalTracingOverride globalTracingOverride;
 
@@ -154,6 +159,7 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
     // instances of all the helper classes (see their definitions for their description)
     private ExecutionManager executionManager = new ExecutionManager(this);
     private ClusterManager clusterManager = new ClusterManager(this);
+    private TaskStatisticsFlusher statisticsFlusher = new TaskStatisticsFlusher(this);
     private StalledTasksWatcher stalledTasksWatcher = new StalledTasksWatcher(this);
 
     // task handlers (mapped from their URIs)
@@ -279,6 +285,8 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
         if (!configuration.isTestMode()) {
             clusterManager.startClusterManagerThread();
         }
+        statisticsFlusher.startFlusherThread();
+        traceWriter.startWriterThread();
 
         if (configuration.isSchedulerInitiallyStopped()) {
             LOGGER.info("Scheduler was not started because of system configuration 'schedulerInitiallyStopped' setting. You can start it manually if needed.");
@@ -318,6 +326,8 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
         }
 
         clusterManager.stopClusterManagerThread(0L, result);
+        statisticsFlusher.stopFlusherThread(0L, result);
+        traceWriter.stopWriterThread(0L, result);
         clusterManager.recordNodeShutdown(result);
 
         if (configuration.isJdbcJobStore() && configuration.isDatabaseIsEmbedded()) {
@@ -361,6 +371,8 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
 
         LOGGER.info("Deactivating Task Manager service threads (waiting time = " + timeToWait + ")");
         clusterManager.stopClusterManagerThread(timeToWait, result);
+        statisticsFlusher.stopFlusherThread(timeToWait, result);
+        traceWriter.stopWriterThread(timeToWait, result);
         boolean retval = executionManager.stopSchedulerAndTasksLocally(timeToWait, result);
 
         result.computeStatus();
@@ -374,6 +386,8 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
 
         LOGGER.info("Reactivating Task Manager service threads.");
         clusterManager.startClusterManagerThread();
+        statisticsFlusher.startFlusherThread();
+        traceWriter.startWriterThread();
         executionManager.startScheduler(getNodeId(), result);
 
         result.computeStatus();
@@ -1168,6 +1182,7 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
             locallyRunningTaskInstancesMap.remove(task.getTaskIdentifier());
             LOGGER.trace("Unregistered task {}, locally running instances = {}", task, locallyRunningTaskInstancesMap);
         }
+        executionManager.getWorkerThreadsBudget().release(task);
     }
 
     //endregion
@@ -1231,6 +1246,7 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
                 } finally {
                     task.setExecutingThread(null);
                     task.setLightweightHandlerExecuting(false);
+                    executionManager.getWorkerThreadsBudget().release(task);
                 }
                 LOGGER.debug("Lightweight task handler shell finishing; task = {}", task);
                 try {
@@ -1919,6 +1935,10 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
         return clusterManager;
     }
 
+    public TaskStatisticsFlusher getStatisticsFlusher() {
+        return statisticsFlusher;
+    }
+
     public RepositoryService getRepositoryService() {
         return repositoryService;
     }
@@ -2442,6 +2462,18 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
         return workStateManager.narrowQueryForWorkBucket(workerTask, query, type, itemDefinitionProvider, workBucket, opResult);
     }
 
+    @Override
+    public Long getWorkBucketCheckpointInterval(Task workerTask, OperationResult opResult)
+            throws SchemaException, ObjectNotFoundException {
+        return workStateManager.getCheckpointInterval(workerTask, opResult);
+    }
+
+    @Override
+    public boolean checkpointWorkBucket(String workerTaskOid, int sequentialNumber, WorkBucketCheckpointType checkpoint,
+            OperationResult opResult) throws SchemaException, ObjectNotFoundException, ObjectAlreadyExistsException {
+        return workStateManager.checkpointWorkBucket(workerTaskOid, sequentialNumber, checkpoint, opResult);
+    }
+
     @Override
     public TaskHandler createAndRegisterPartitioningTaskHandler(String handlerUri, Function<Task, TaskPartitionsDefinition> partitioningStrategy) {
         PartitioningTaskHandler handler = new PartitioningTaskHandler(this, partitioningStrategy);
@@ -2468,6 +2500,20 @@ public class TaskManagerQuartzImpl implements TaskManager, BeanFactoryAware, Sys
         return configuration.isClustered();
     }
 
+    @Override
+    public boolean isCacheInvalidationOverRepository() {
+        return clusterManager.getCacheInvalidationEventManager().isEnabled();
+    }
+
+    @Override
+    public void publishCacheInvalidationEvent(Class<? extends ObjectType> type, String oid, OperationResult result) {
+        clusterManager.getCacheInvalidationEventManager().publish(type, oid, result);
+    }
+
+    public CacheDispatcher getCacheDispatcher() {
+        return cacheDispatcher;
+    }
+
     public SystemConfigurationChangeDispatcher getSystemConfigurationChangeDispatcher() {
         return systemConfigurationChangeDispatcher;
     }
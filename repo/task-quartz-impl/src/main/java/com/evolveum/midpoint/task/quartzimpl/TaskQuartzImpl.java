@@ -360,6 +360,16 @@ public class TaskQuartzImpl implements InternalTaskInterface {
         }
     }
 
+    /**
+     * Are there any pending modifications other than of the specified items?
+     */
+    boolean hasPendingModificationsExcept(Collection<? extends ItemPath> paths) {
+        synchronized (pendingModifications) {
+            return pendingModifications.stream()
+                    .anyMatch(delta -> paths.stream().noneMatch(path -> path.equivalent(delta.getPath())));
+        }
+    }
+
     @Override
     @NotNull
     public Collection<ItemDelta<?, ?>> getPendingModifications() {
@@ -2461,6 +2471,16 @@ public class TaskQuartzImpl implements InternalTaskInterface {
         statistics.recordIterativeOperationStart(shadow);
     }
 
+    @Override
+    public void recordWorkerWaitTimes(long queueWaitTime, long idleTime) {
+        statistics.recordWorkerWaitTimes(queueWaitTime, idleTime);
+    }
+
+    @Override
+    public void recordWorkerThreadsTuning(WorkerThreadsTuningInformationType information) {
+        statistics.recordWorkerThreadsTuning(information);
+    }
+
     @Override
     public void recordIterativeOperationEnd(String objectName, String objectDisplayName, QName objectType, String objectOid,
             long started, Throwable exception) {
@@ -2485,6 +2505,11 @@ public class TaskQuartzImpl implements InternalTaskInterface {
         statistics.recordSynchronizationOperationEnd(objectName, objectDisplayName, objectType, objectOid, started, exception, originalStateIncrement, newStateIncrement);
     }
 
+    @Override
+    public void recordSynchronizationChangesCoalesced(int count) {
+        statistics.recordSynchronizationChangesCoalesced(count);
+    }
+
     @Override
     public void recordObjectActionExecuted(String objectName, String objectDisplayName, QName objectType, String objectOid,
             ChangeType changeType, String channel, Throwable exception) {
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.cluster;
+
+import com.evolveum.midpoint.CacheInvalidationContext;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.CacheDispatcher;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerConfiguration;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerQuartzImpl;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationStateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.NodeType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.jetbrains.annotations.NotNull;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Distributes cluster-wide cache invalidations via the repository (cacheInvalidationTransport = repository)
+ * instead of REST calls to individual nodes.
+ *
+ * Invalidations are appended to the repository as events with increasing sequence numbers. Each node fetches them
+ * in batches, in the order of sequence numbers, from the cluster manager thread (every cacheInvalidationPollInterval)
+ * and dispatches them to local caches. Events created by the node itself are skipped, as they were already
+ * dispatched locally.
+ *
+ * The position in the event sequence is stored in the node object (cacheInvalidationState) on each node
+ * registration update, so a restarted node continues with the events that follow. A new node starts at the end
+ * of the sequence. If the stored position is older than the oldest event retained in the repository, some events
+ * could have been deleted before the node processed them; so local caches are invalidated completely.
+ *
+ * Sequence numbers are assigned when events are added, but events become visible when the adding transactions commit.
+ * So an event can appear after events with higher numbers. Therefore numbers skipped while fetching (gaps) are
+ * re-checked for some time.
+ *
+ * Propagation lag is the time between the creation of an event and its processing on this node, so it includes
+ * clock differences between the nodes.
+ *
+ * EXPERIMENTAL
+ */
+public class CacheInvalidationEventManager {
+
+    private static final Trace LOGGER = TraceManager.getTrace(CacheInvalidationEventManager.class);
+
+    private static final String CLASS_DOT = CacheInvalidationEventManager.class.getName() + ".";
+    private static final String OP_PUBLISH = CLASS_DOT + "publish";
+
+    private static final long GAP_TIMEOUT = 60000L;
+    private static final int MAX_GAPS = 1000;
+    private static final int MAX_BATCHES_PER_POLL = 100;
+    private static final long CLEANUP_INTERVAL = 60000L;
+
+    @NotNull private final TaskManagerQuartzImpl taskManager;
+
+    // All the following is guarded by this.
+    private Long lastSequenceNumber;                                    // null = not initialized yet
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();          // sequence number -> when it was found missing
+    private Long lastPollTimestamp;
+    private Long lastEventTimestamp;
+    private long processedEvents;
+    private long lagSum;
+    private long lagCount;
+    private long maxLag;
+    private long lastCleanup;
+
+    CacheInvalidationEventManager(@NotNull TaskManagerQuartzImpl taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    public boolean isEnabled() {
+        TaskManagerConfiguration configuration = taskManager.getConfiguration();
+        return configuration.isCacheInvalidationOverRepository() && configuration.isClustered();
+    }
+
+    public void publish(Class<? extends ObjectType> type, String oid, OperationResult parentResult) {
+        OperationResult result = parentResult.createMinorSubresult(OP_PUBLISH);
+        try {
+            CacheInvalidationEventType event = new CacheInvalidationEventType()
+                    .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                    .objectType(type != null ? ObjectTypes.getObjectType(type).getTypeQName() : null)
+                    .objectOid(oid)
+                    .sourceNodeIdentifier(taskManager.getNodeId());
+            long sequenceNumber = getRepositoryService().addCacheInvalidationEvent(event, result);
+            LOGGER.trace("Published cache invalidation event #{} for {}:{}", sequenceNumber, type, oid);
+            result.recordSuccess();
+        } catch (Throwable t) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't publish cache invalidation event for {}:{}", t, type, oid);
+            result.recordFatalError(t);
+        }
+    }
+
+    /**
+     * Fetches new events and dispatches them to local caches. Called from the cluster manager thread.
+     */
+    public synchronized void poll(OperationResult result) {
+        if (lastSequenceNumber == null) {
+            initialize(result);
+        }
+        long now = System.currentTimeMillis();
+        lastPollTimestamp = now;
+        int batchSize = Math.max(1, taskManager.getConfiguration().getCacheInvalidationBatchSize());
+        long fetchAfter = gaps.isEmpty() ? lastSequenceNumber : Math.min(gaps.firstKey() - 1, lastSequenceNumber);
+        for (int batch = 0; batch < MAX_BATCHES_PER_POLL; batch++) {
+            List<CacheInvalidationEventType> events = getRepositoryService()
+                    .getCacheInvalidationEvents(fetchAfter, batchSize, result);
+            for (CacheInvalidationEventType event : events) {
+                processEvent(event, now);
+            }
+            if (events.size() < batchSize) {
+                break;
+            }
+            fetchAfter = events.get(events.size() - 1).getSequenceNumber();
+        }
+        gaps.values().removeIf(foundAt -> now - foundAt > GAP_TIMEOUT);
+    }
+
+    private void initialize(OperationResult result) {
+        long lastInRepository = getRepositoryService().getLastCacheInvalidationEventSequenceNumber(result);
+        NodeType node = getLocalNode();
+        CacheInvalidationStateType state = node != null ? node.getCacheInvalidationState() : null;
+        Long stored = state != null ? state.getLastSequenceNumber() : null;
+        if (stored != null && stored <= lastInRepository && !couldHaveMissedEvents(stored, result)) {
+            LOGGER.info("Processing cache invalidation events after #{} (the last one is #{})", stored, lastInRepository);
+            lastSequenceNumber = stored;
+        } else {
+            if (stored != null) {
+                LOGGER.info("Cache invalidation events after #{} might have been deleted before being processed; "
+                        + "invalidating all local caches", stored);
+                dispatch(null, null);
+            }
+            LOGGER.info("Processing cache invalidation events after #{}", lastInRepository);
+            lastSequenceNumber = lastInRepository;
+        }
+    }
+
+    /**
+     * Events are deleted after cacheInvalidationEventsRetention. If the oldest retained event is not the one that
+     * immediately follows given position, the events in between might have been deleted. (Or they might have never
+     * existed, because their transactions were rolled back; but we cannot distinguish these cases.)
+     */
+    private boolean couldHaveMissedEvents(long position, OperationResult result) {
+        List<CacheInvalidationEventType> oldest = getRepositoryService().getCacheInvalidationEvents(0, 1, result);
+        return !oldest.isEmpty() && oldest.get(0).getSequenceNumber() > position + 1;
+    }
+
+    private void processEvent(CacheInvalidationEventType event, long now) {
+        long sequenceNumber = event.getSequenceNumber();
+        if (sequenceNumber <= lastSequenceNumber) {
+            if (gaps.remove(sequenceNumber) == null) {
+                return;             // already processed
+            }
+            LOGGER.trace("Got cache invalidation event #{} that was missing before", sequenceNumber);
+        } else {
+            for (long missing = lastSequenceNumber + 1; missing < sequenceNumber && gaps.size() < MAX_GAPS; missing++) {
+                gaps.put(missing, now);
+            }
+            lastSequenceNumber = sequenceNumber;
+        }
+        if (!Objects.equals(event.getSourceNodeIdentifier(), taskManager.getNodeId())) {
+            Class<? extends ObjectType> type = event.getObjectType() != null ?
+                    ObjectTypes.getObjectTypeClass(event.getObjectType()) : null;
+            LOGGER.trace("Dispatching cache invalidation event #{} for {}:{} from {}", sequenceNumber, type,
+                    event.getObjectOid(), event.getSourceNodeIdentifier());
+            dispatch(type, event.getObjectOid());
+        }
+        if (event.getTimestamp() != null) {
+            long timestamp = XmlTypeConverter.toMillis(event.getTimestamp());
+            long lag = Math.max(0, now - timestamp);
+            lagSum += lag;
+            lagCount++;
+            maxLag = Math.max(maxLag, lag);
+            if (lastEventTimestamp == null || timestamp > lastEventTimestamp) {
+                lastEventTimestamp = timestamp;
+            }
+        }
+        processedEvents++;
+    }
+
+    // overridden in tests
+    void dispatch(Class<? extends ObjectType> type, String oid) {
+        CacheDispatcher cacheDispatcher = taskManager.getCacheDispatcher();
+        try {
+            // clusterwide is false: the event is already distributed to all the nodes
+            cacheDispatcher.dispatchInvalidation(type, oid, false, new CacheInvalidationContext(true, null));
+        } catch (Throwable t) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't dispatch cache invalidation for {}:{}", t, type, oid);
+        }
+    }
+
+    // overridden in tests
+    RepositoryService getRepositoryService() {
+        return taskManager.getRepositoryService();
+    }
+
+    // overridden in tests
+    NodeType getLocalNode() {
+        return taskManager.getLocalNode();
+    }
+
+    /**
+     * Deletes events older than cacheInvalidationEventsRetention. Done by all the nodes, but not too often.
+     */
+    public void cleanupIfNeeded(OperationResult result) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (now - lastCleanup < CLEANUP_INTERVAL) {
+                return;
+            }
+            lastCleanup = now;
+        }
+        long retention = taskManager.getConfiguration().getCacheInvalidationEventsRetention() * 1000L;
+        getRepositoryService().deleteCacheInvalidationEvents(
+                XmlTypeConverter.createXMLGregorianCalendar(now - retention), result);
+    }
+
+    /**
+     * Returns the current state to be stored in the node object. Propagation lag is computed over the events processed
+     * since the last call.
+     */
+    public synchronized CacheInvalidationStateType getStateAndResetLag() {
+        if (lastSequenceNumber == null) {
+            return null;
+        }
+        CacheInvalidationStateType state = new CacheInvalidationStateType()
+                .lastSequenceNumber(lastSequenceNumber)
+                .lastPollTimestamp(toXml(lastPollTimestamp))
+                .lastEventTimestamp(toXml(lastEventTimestamp))
+                .processedEvents(processedEvents);
+        if (lagCount > 0) {
+            state.setPropagationLag(lagSum / lagCount);
+            state.setMaxPropagationLag(maxLag);
+        }
+        lagSum = 0;
+        lagCount = 0;
+        maxLag = 0;
+        return state;
+    }
+
+    private static XMLGregorianCalendar toXml(Long timestamp) {
+        return timestamp != null ? XmlTypeConverter.createXMLGregorianCalendar(timestamp) : null;
+    }
+}
@@ -36,11 +36,14 @@ public class ClusterManager {
 
     private static final String CLASS_DOT = ClusterManager.class.getName() + ".";
     private static final String CHECK_SYSTEM_CONFIGURATION_CHANGED = CLASS_DOT + "checkSystemConfigurationChanged";
+    private static final String POLL_CACHE_INVALIDATION_EVENTS = CLASS_DOT + "pollCacheInvalidationEvents";
 
     private TaskManagerQuartzImpl taskManager;
 
     private NodeRegistrar nodeRegistrar;
 
+    private CacheInvalidationEventManager cacheInvalidationEventManager;
+
     private ClusterManagerThread clusterManagerThread;
 
     private static boolean updateNodeExecutionLimitations = true;           // turned off when testing
@@ -48,6 +51,7 @@ public class ClusterManager {
     public ClusterManager(TaskManagerQuartzImpl taskManager) {
         this.taskManager = taskManager;
         this.nodeRegistrar = new NodeRegistrar(taskManager, this);
+        this.cacheInvalidationEventManager = new CacheInvalidationEventManager(taskManager);
     }
 
     public static void setUpdateNodeExecutionLimitations(boolean value) {
@@ -104,6 +108,10 @@ public class ClusterManager {
         return nodeRegistrar.isUp(nodeType);
     }
 
+    public CacheInvalidationEventManager getCacheInvalidationEventManager() {
+        return cacheInvalidationEventManager;
+    }
+
     class ClusterManagerThread extends Thread {
 
         boolean canRun = true;
@@ -143,19 +151,56 @@ public class ClusterManager {
                         LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception while checking stalled tasks; continuing execution.", t);
                     }
 
+                    if (cacheInvalidationEventManager.isEnabled()) {
+                        try {
+                            cacheInvalidationEventManager.cleanupIfNeeded(result);
+                        } catch (Throwable t) {
+                            LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception while deleting old cache invalidation events; continuing execution.", t);
+                        }
+                    }
+
                 } catch (Throwable t) {
                     LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception in ClusterManager thread; continuing execution.", t);
                 }
 
                 LOGGER.trace("ClusterManager thread sleeping for {} msec", delay);
+                sleepAndPollCacheInvalidationEvents(delay);
+            }
+
+            LOGGER.info("ClusterManager thread stopping.");
+        }
+
+        /**
+         * Waits until the next cycle. If cache invalidation events are distributed via the repository,
+         * they are fetched every cacheInvalidationPollInterval in the meanwhile.
+         */
+        private void sleepAndPollCacheInvalidationEvents(long delay) {
+            long end = System.currentTimeMillis() + delay;
+            while (canRun) {
+                boolean polling = cacheInvalidationEventManager.isEnabled();
+                if (polling) {
+                    pollCacheInvalidationEvents();
+                }
+                long remaining = end - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                long pollInterval = Math.max(1L, taskManager.getConfiguration().getCacheInvalidationPollInterval());
                 try {
-                    Thread.sleep(delay);
+                    Thread.sleep(polling ? Math.min(remaining, pollInterval) : remaining);
                 } catch (InterruptedException e) {
                     LOGGER.trace("ClusterManager thread interrupted.");
                 }
             }
+        }
 
-            LOGGER.info("ClusterManager thread stopping.");
+        private void pollCacheInvalidationEvents() {
+            OperationResult result = new OperationResult(POLL_CACHE_INVALIDATION_EVENTS);
+            try {
+                cacheInvalidationEventManager.poll(result);
+            } catch (Throwable t) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception while processing cache invalidation events; continuing execution.", t);
+            }
         }
 
         void signalShutdown() {
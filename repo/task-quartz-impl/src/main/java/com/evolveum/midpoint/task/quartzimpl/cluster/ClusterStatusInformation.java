@@ -10,6 +10,7 @@ package com.evolveum.midpoint.task.quartzimpl.cluster;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.NodeType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.SchedulerInformationType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsAllocationType;
 
 import java.io.Serializable;
 import java.util.*;
@@ -55,6 +56,9 @@ public class ClusterStatusInformation implements Serializable {
 
     private Map<NodeType,List<TaskInfo>> tasks = new HashMap<>();
 
+    // EXPERIMENTAL. Filled in only for nodes that provide this information.
+    private Map<String, List<WorkerThreadsAllocationType>> workerThreadsAllocations = new HashMap<>();      // key = node identifier
+
     public Set<TaskInfo> getTasks() {
         Set<TaskInfo> retval = new HashSet<>();
         for (List<TaskInfo> tasksOnNode : tasks.values()) {
@@ -110,6 +114,16 @@ public class ClusterStatusInformation implements Serializable {
 
     public void addNodeAndTaskInfo(SchedulerInformationType info) {
         tasks.put(info.getNode(), getTaskInfoList(info));
+        if (info.getNode() != null && !info.getWorkerThreadsAllocation().isEmpty()) {
+            workerThreadsAllocations.put(info.getNode().getNodeIdentifier(), new ArrayList<>(info.getWorkerThreadsAllocation()));
+        }
+    }
+
+    /**
+     * Worker threads allocated to tasks executing at given node (as divided by the node worker threads budget).
+     */
+    public List<WorkerThreadsAllocationType> getWorkerThreadsAllocations(String nodeIdentifier) {
+        return workerThreadsAllocations.getOrDefault(nodeIdentifier, Collections.emptyList());
     }
 
     private List<TaskInfo> getTaskInfoList(SchedulerInformationType info) {
@@ -130,6 +130,8 @@ public class NodeRegistrar {
                 nodeToBe.setSecret(nodeInRepo.asObjectable().getSecret());
                 nodeToBe.setSecretUpdateTimestamp(nodeInRepo.asObjectable().getSecretUpdateTimestamp());
             }
+            // to continue processing of cache invalidation events where we stopped
+            nodeToBe.setCacheInvalidationState(nodeInRepo.asObjectable().getCacheInvalidationState());
             ObjectDelta<NodeType> nodeDelta = nodeInRepo.diff(nodeToBe.asPrismObject(), EquivalenceStrategy.LITERAL);
             LOGGER.debug("Applying delta to existing node object:\n{}", nodeDelta.debugDumpLazily());
             try {
@@ -362,6 +364,12 @@ public class NodeRegistrar {
                         .item(NodeType.F_SECRET_UPDATE_TIMESTAMP).replace(currentTime)
                         .asItemDeltas());
             }
+            CacheInvalidationStateType cacheInvalidationState = clusterManager.getCacheInvalidationEventManager().getStateAndResetLag();
+            if (cacheInvalidationState != null) {
+                modifications.add(getPrismContext().deltaFor(NodeType.class)
+                        .item(NodeType.F_CACHE_INVALIDATION_STATE).replace(cacheInvalidationState)
+                        .asItemDelta());
+            }
             if (myUrl != null) {    // i.e. if known (might not be known during startup)
                 modifications.add(getPrismContext().deltaFor(NodeType.class)
                         .item(NodeType.F_URL).replace(myUrl)
@@ -83,6 +83,7 @@ public class ExecutionManager {
     private LocalNodeManager localNodeManager;
     private RemoteNodesManager remoteNodesManager;
     private TaskSynchronizer taskSynchronizer;
+    private WorkerThreadsBudget workerThreadsBudget;
 
     private Scheduler quartzScheduler;
 
@@ -93,6 +94,7 @@ public class ExecutionManager {
         this.localNodeManager = new LocalNodeManager(taskManager);
         this.remoteNodesManager = new RemoteNodesManager(taskManager);
         this.taskSynchronizer = new TaskSynchronizer(taskManager);
+        this.workerThreadsBudget = new WorkerThreadsBudget(taskManager);
     }
 
     /*
@@ -583,6 +585,7 @@ public class ExecutionManager {
                 TaskType task = new TaskType(taskManager.getPrismContext()).oid(oid);
                 info.getExecutingTask().add(task);
             }
+            workerThreadsBudget.fillSchedulerInformation(info);
             result.computeStatus();
             return info;
         } catch (Throwable t) {
@@ -591,6 +594,10 @@ public class ExecutionManager {
         }
     }
 
+    public WorkerThreadsBudget getWorkerThreadsBudget() {
+        return workerThreadsBudget;
+    }
+
     public void stopLocalScheduler(OperationResult parentResult) {
         OperationResult result = parentResult.createSubresult(DOT_CLASS + "stopLocalScheduler");
         try {
@@ -696,6 +696,7 @@ mainCycle:
                 }
             }
             task.setNode(null);
+            taskManagerImpl.getStatisticsFlusher().unregister(task);      // so it would not overwrite the final values
             task.storeOperationStatsDeferred();     // maybe redundant, but better twice than never at all
             task.flushPendingModifications(result);
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.execution;
+
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.task.quartzimpl.RunningTaskQuartzImpl;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerQuartzImpl;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SchedulerInformationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkerThreadsAllocationType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Divides the worker threads budget of the node (workerThreadsBudget configuration property) among locally
+ * running tasks that use worker threads (lightweight asynchronous subtasks).
+ *
+ * Each task gets a share of the budget proportional to its weight (workerThreadsWeight extension property),
+ * but not more than it requested; the rest is divided among the other tasks. Every task gets at least one thread,
+ * so the budget is exceeded if there are more such tasks than threads in the budget.
+ *
+ * Tasks create all the requested workers; the workers above the current allocation just wait (see
+ * RunningTask.getAllowedWorkerThreads). So the number of active workers of a task shrinks and grows at runtime
+ * as other tasks start and finish.
+ *
+ * EXPERIMENTAL
+ */
+public class WorkerThreadsBudget {
+
+    private static final Trace LOGGER = TraceManager.getTrace(WorkerThreadsBudget.class);
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final TaskManagerQuartzImpl taskManager;
+
+    // Guarded by this. Key = task identifier.
+    private final Map<String, Request> requests = new LinkedHashMap<>();
+
+    // Replaced on each change, so it can be read without locking.
+    private volatile Map<String, Integer> allocations = Collections.emptyMap();
+
+    private static class Request {
+        @NotNull private final RunningTaskQuartzImpl task;
+        private final int requested;
+        private final int weight;
+
+        private Request(@NotNull RunningTaskQuartzImpl task, int requested, int weight) {
+            this.task = task;
+            this.requested = requested;
+            this.weight = weight;
+        }
+    }
+
+    WorkerThreadsBudget(TaskManagerQuartzImpl taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    public synchronized void request(@NotNull RunningTaskQuartzImpl task, int count) {
+        requests.values().removeIf(r -> r.task.getExecutingThread() == null);      // tasks that were not released correctly
+        if (count > 0) {
+            requests.put(task.getTaskIdentifier(), new Request(task, count, getWeight(task)));
+        } else {
+            requests.remove(task.getTaskIdentifier());
+        }
+        reallocate();
+    }
+
+    public synchronized void release(@NotNull RunningTaskQuartzImpl task) {
+        Request request = requests.get(task.getTaskIdentifier());
+        if (request != null && request.task == task) {
+            requests.remove(task.getTaskIdentifier());
+            reallocate();
+        }
+    }
+
+    /**
+     * @return Number of worker threads the task can keep active. Not limited for tasks that did not request any.
+     */
+    public int getAllowed(@NotNull RunningTaskQuartzImpl task) {
+        Integer allowed = allocations.get(task.getTaskIdentifier());
+        return allowed != null ? allowed : Integer.MAX_VALUE;
+    }
+
+    private int getWeight(RunningTaskQuartzImpl task) {
+        PrismProperty<Integer> weightProperty = task.getExtensionPropertyOrClone(SchemaConstants.MODEL_EXTENSION_WORKER_THREADS_WEIGHT);
+        Integer weight = weightProperty != null ? weightProperty.getRealValue() : null;
+        return weight != null && weight > 0 ? weight : DEFAULT_WEIGHT;
+    }
+
+    private void reallocate() {
+        List<Request> requestList = new ArrayList<>(requests.values());
+        int[] requested = new int[requestList.size()];
+        int[] weights = new int[requestList.size()];
+        for (int i = 0; i < requestList.size(); i++) {
+            requested[i] = requestList.get(i).requested;
+            weights[i] = requestList.get(i).weight;
+        }
+        int[] allocated = computeAllocations(taskManager.getConfiguration().getWorkerThreadsBudget(), requested, weights);
+        Map<String, Integer> newAllocations = new HashMap<>();
+        for (int i = 0; i < requestList.size(); i++) {
+            newAllocations.put(requestList.get(i).task.getTaskIdentifier(), allocated[i]);
+            if (allocated[i] < requested[i]) {
+                LOGGER.debug("Task {} can use {} of {} requested worker threads", requestList.get(i).task, allocated[i], requested[i]);
+            }
+        }
+        allocations = newAllocations;
+    }
+
+    /**
+     * Weighted fair share of the budget, capped by the requested numbers ("water filling"). Threads left after
+     * rounding down go to the tasks in the order of their requests.
+     *
+     * @param budget Total number of threads; 0 or less means "not limited".
+     */
+    public static int[] computeAllocations(int budget, int[] requested, int[] weights) {
+        int n = requested.length;
+        int[] allocated = new int[n];
+        if (budget <= 0) {
+            System.arraycopy(requested, 0, allocated, 0, n);
+            return allocated;
+        }
+        boolean[] satisfied = new boolean[n];
+        int remaining = budget;
+        for (;;) {
+            long weightSum = 0;
+            for (int i = 0; i < n; i++) {
+                if (!satisfied[i]) {
+                    weightSum += weights[i];
+                }
+            }
+            if (weightSum == 0) {
+                break;
+            }
+            boolean anySatisfied = false;
+            for (int i = 0; i < n; i++) {
+                if (!satisfied[i] && (long) requested[i] * weightSum <= (long) remaining * weights[i]) {
+                    allocated[i] = requested[i];
+                    satisfied[i] = true;
+                    remaining -= requested[i];
+                    anySatisfied = true;
+                }
+            }
+            if (!anySatisfied) {
+                int distributed = 0;
+                for (int i = 0; i < n; i++) {
+                    if (!satisfied[i]) {
+                        allocated[i] = (int) ((long) remaining * weights[i] / weightSum);
+                        distributed += allocated[i];
+                    }
+                }
+                int leftover = remaining - distributed;
+                for (int i = 0; i < n && leftover > 0; i++) {
+                    if (!satisfied[i] && allocated[i] < requested[i]) {
+                        allocated[i]++;
+                        leftover--;
+                    }
+                }
+                break;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            allocated[i] = Math.max(allocated[i], Math.min(1, requested[i]));
+        }
+        return allocated;
+    }
+
+    void fillSchedulerInformation(SchedulerInformationType info) {
+        int budget = taskManager.getConfiguration().getWorkerThreadsBudget();
+        if (budget > 0) {
+            info.setWorkerThreadsBudget(budget);
+        }
+        Map<String, Integer> currentAllocations = allocations;
+        List<Request> currentRequests;
+        synchronized (this) {
+            currentRequests = new ArrayList<>(requests.values());
+        }
+        for (Request request : currentRequests) {
+            Integer allocated = currentAllocations.get(request.task.getTaskIdentifier());
+            info.getWorkerThreadsAllocation().add(new WorkerThreadsAllocationType()
+                    .taskOid(request.task.getOid())
+                    .requested(request.requested)
+                    .weight(request.weight)
+                    .allocated(allocated));
+        }
+    }
+}
@@ -54,10 +54,14 @@ public class Statistics implements WorkBucketStatisticsCollector {
         this.prismContext = prismContext;
     }
 
-    private EnvironmentalPerformanceInformation environmentalPerformanceInformation = new EnvironmentalPerformanceInformation();
-    private SynchronizationInformation synchronizationInformation;                // has to be explicitly enabled
-    private IterativeTaskInformation iterativeTaskInformation;                    // has to be explicitly enabled
-    private ActionsExecutedInformation actionsExecutedInformation;            // has to be explicitly enabled
+    /*
+     * The collectors are thread safe and do not lock when recording, so they can be shared by many worker threads.
+     * They are replaced as a whole when the statistics are reset.
+     */
+    private volatile EnvironmentalPerformanceInformation environmentalPerformanceInformation = new EnvironmentalPerformanceInformation();
+    private volatile SynchronizationInformation synchronizationInformation;                // has to be explicitly enabled
+    private volatile IterativeTaskInformation iterativeTaskInformation;                    // has to be explicitly enabled
+    private volatile ActionsExecutedInformation actionsExecutedInformation;            // has to be explicitly enabled
 
     /**
      * This data structure is synchronized explicitly. Because it is updated infrequently, it should be sufficient.
@@ -281,28 +285,38 @@ public class Statistics implements WorkBucketStatisticsCollector {
         environmentalPerformanceInformation.recordMappingOperation(objectOid, objectName, objectTypeName, mappingName, duration);
     }
 
-    public synchronized void recordSynchronizationOperationEnd(String objectName, String objectDisplayName, QName objectType,
+    public void recordSynchronizationOperationEnd(String objectName, String objectDisplayName, QName objectType,
             String objectOid,
             long started, Throwable exception, SynchronizationInformation.Record originalStateIncrement,
             SynchronizationInformation.Record newStateIncrement) {
-        if (synchronizationInformation != null) {
-            synchronizationInformation
+        SynchronizationInformation information = synchronizationInformation;
+        if (information != null) {
+            information
                     .recordSynchronizationOperationEnd(objectName, objectDisplayName, objectType, objectOid, started, exception,
                             originalStateIncrement, newStateIncrement);
         }
     }
 
-    public synchronized void recordSynchronizationOperationStart(String objectName, String objectDisplayName, QName objectType,
+    public void recordSynchronizationOperationStart(String objectName, String objectDisplayName, QName objectType,
             String objectOid) {
-        if (synchronizationInformation != null) {
-            synchronizationInformation.recordSynchronizationOperationStart(objectName, objectDisplayName, objectType, objectOid);
+        SynchronizationInformation information = synchronizationInformation;
+        if (information != null) {
+            information.recordSynchronizationOperationStart(objectName, objectDisplayName, objectType, objectOid);
         }
     }
 
-    public synchronized void recordIterativeOperationEnd(String objectName, String objectDisplayName, QName objectType,
+    public void recordSynchronizationChangesCoalesced(int count) {
+        SynchronizationInformation information = synchronizationInformation;
+        if (information != null) {
+            information.recordChangesCoalesced(count);
+        }
+    }
+
+    public void recordIterativeOperationEnd(String objectName, String objectDisplayName, QName objectType,
             String objectOid, long started, Throwable exception) {
-        if (iterativeTaskInformation != null) {
-            iterativeTaskInformation.recordOperationEnd(objectName, objectDisplayName, objectType, objectOid, started, exception);
+        IterativeTaskInformation information = iterativeTaskInformation;
+        if (information != null) {
+            information.recordOperationEnd(objectName, objectDisplayName, objectType, objectOid, started, exception);
         }
     }
 
@@ -316,10 +330,25 @@ public class Statistics implements WorkBucketStatisticsCollector {
                 ShadowType.COMPLEX_TYPE, shadow.getOid());
     }
 
-    public synchronized void recordIterativeOperationStart(String objectName, String objectDisplayName, QName objectType,
+    public void recordIterativeOperationStart(String objectName, String objectDisplayName, QName objectType,
             String objectOid) {
-        if (iterativeTaskInformation != null) {
-            iterativeTaskInformation.recordOperationStart(objectName, objectDisplayName, objectType, objectOid);
+        IterativeTaskInformation information = iterativeTaskInformation;
+        if (information != null) {
+            information.recordOperationStart(objectName, objectDisplayName, objectType, objectOid);
+        }
+    }
+
+    public void recordWorkerWaitTimes(long queueWaitTime, long idleTime) {
+        IterativeTaskInformation information = iterativeTaskInformation;
+        if (information != null) {
+            information.recordWorkerWaitTimes(queueWaitTime, idleTime);
+        }
+    }
+
+    public void recordWorkerThreadsTuning(WorkerThreadsTuningInformationType tuningInformation) {
+        IterativeTaskInformation information = iterativeTaskInformation;
+        if (information != null) {
+            information.recordWorkerThreadsTuning(tuningInformation);
         }
     }
 
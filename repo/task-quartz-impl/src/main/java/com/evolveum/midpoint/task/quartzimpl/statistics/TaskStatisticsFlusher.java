@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.statistics;
+
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.RunningTaskQuartzImpl;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerQuartzImpl;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationStatsType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes progress, expected total and operation statistics of locally running tasks into the repository.
+ *
+ * Instead of each task (or its worker threads) writing these items synchronously, tasks only mark themselves as dirty
+ * and a single thread per node stores the data for all of them. Updates made in the meanwhile are coalesced into one
+ * repository modification per task, and only items that changed since the last write are sent.
+ *
+ * The flushing cycle adapts to the repository latency: the slower the writes are, the longer the thread sleeps
+ * between the cycles (up to the configured maximum), so that the statistics never consume more than a small fraction
+ * of repository capacity.
+ *
+ * Live values for tasks running on this node are available via TaskManager (see fillOperationExecutionState),
+ * so the repository is only a bit behind.
+ *
+ * EXPERIMENTAL
+ */
+public class TaskStatisticsFlusher {
+
+    private static final Trace LOGGER = TraceManager.getTrace(TaskStatisticsFlusher.class);
+
+    private static final String OP_FLUSH = TaskStatisticsFlusher.class.getName() + ".flush";
+
+    private static final long MIN_CYCLE_INTERVAL = 250L;
+    private static final int LATENCY_MULTIPLIER = 10;         // the thread spends at most ~1/10 of the time writing
+
+    private final TaskManagerQuartzImpl taskManager;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();       // key = task identifier
+
+    // Tasks that were unregistered (key = task identifier). Their threads (e.g. worker threads that are just finishing)
+    // can still call markDirty; such calls are ignored, so the final values stored by the task are not overwritten.
+    // Weak references, so that the tasks can be garbage collected.
+    private final Map<String, WeakReference<RunningTaskQuartzImpl>> unregistered = new ConcurrentHashMap<>();
+
+    private FlusherThread flusherThread;
+
+    private static class Entry {
+
+        @NotNull private final RunningTaskQuartzImpl task;
+        private volatile boolean dirty;
+
+        // Guarded by this entry.
+        private boolean closed;
+        private long lastFlush;
+        private OperationStatsType lastStats;
+        private Long lastProgress;
+        private Long lastExpectedTotal;
+
+        private Entry(@NotNull RunningTaskQuartzImpl task) {
+            this.task = task;
+        }
+    }
+
+    public TaskStatisticsFlusher(TaskManagerQuartzImpl taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    public boolean isActive() {
+        return taskManager.getConfiguration().isAsynchronousStatisticsFlushing()
+                && flusherThread != null && flusherThread.isAlive();
+    }
+
+    /**
+     * Tells the flusher that the statistics of the task have changed and should be written in the near future.
+     */
+    public void markDirty(@NotNull RunningTaskQuartzImpl task) {
+        // executed atomically with respect to unregister(..) of the same task
+        entries.compute(task.getTaskIdentifier(), (identifier, existing) -> {
+            WeakReference<RunningTaskQuartzImpl> tombstone = unregistered.get(identifier);
+            if (tombstone != null) {
+                if (tombstone.get() == task) {
+                    LOGGER.trace("Ignoring statistics update of {} as it was already unregistered", task);
+                    return existing;
+                } else {
+                    unregistered.remove(identifier, tombstone);     // a new run of the task
+                }
+            }
+            Entry entry = existing != null && existing.task == task ? existing : new Entry(task);
+            entry.dirty = true;
+            return entry;
+        });
+    }
+
+    /**
+     * Stops flushing the statistics of the task. Waits for the write in progress (if any), so the caller can safely
+     * store final values afterwards. Any later {@link #markDirty(RunningTaskQuartzImpl)} calls for the task are ignored.
+     */
+    public void unregister(@NotNull RunningTaskQuartzImpl task) {
+        AtomicReference<Entry> removed = new AtomicReference<>();
+        entries.compute(task.getTaskIdentifier(), (identifier, existing) -> {
+            unregistered.put(identifier, new WeakReference<>(task));
+            if (existing != null && existing.task == task) {
+                removed.set(existing);
+                return null;
+            } else {
+                return existing;
+            }
+        });
+        Entry entry = removed.get();
+        if (entry != null) {
+            synchronized (entry) {
+                entry.closed = true;
+            }
+        }
+    }
+
+    /**
+     * Is the task registered for flushing its statistics? (For diagnostics and tests.)
+     */
+    public boolean isRegistered(@NotNull RunningTaskQuartzImpl task) {
+        Entry entry = entries.get(task.getTaskIdentifier());
+        return entry != null && entry.task == task;
+    }
+
+    /**
+     * @return Time spent by writing to the repository (in milliseconds).
+     */
+    private long flush() {
+        OperationResult result = new OperationResult(OP_FLUSH);
+        unregistered.values().removeIf(tombstone -> tombstone.get() == null);
+        long writeTime = 0;
+        for (Entry entry : entries.values()) {
+            if (!entry.dirty) {
+                continue;
+            }
+            RunningTaskQuartzImpl task = entry.task;
+            if (taskManager.getLocallyRunningTaskByIdentifier(task.getTaskIdentifier()) != task) {
+                entries.remove(task.getTaskIdentifier(), entry);
+                continue;
+            }
+            synchronized (entry) {
+                long now = System.currentTimeMillis();
+                if (entry.closed || now - entry.lastFlush < task.getOperationStatsUpdateInterval()) {
+                    continue;
+                }
+                entry.dirty = false;
+                entry.lastFlush = now;
+                try {
+                    writeTime += flush(entry, result);
+                } catch (ObjectNotFoundException e) {
+                    LOGGER.debug("Task {} no longer exists, its statistics will not be stored", task);
+                    entries.remove(task.getTaskIdentifier(), entry);
+                } catch (Throwable t) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't store statistical information into task {}", t, task);
+                }
+            }
+        }
+        return writeTime;
+    }
+
+    // Called under entry lock.
+    private long flush(Entry entry, OperationResult result) throws Exception {
+        RunningTaskQuartzImpl task = entry.task;
+        OperationStatsType stats = task.getAggregatedLiveOperationStats();
+        Long progress = task.getProgress();
+        Long expectedTotal = task.getExpectedTotal();
+
+        List<ItemDelta<?, ?>> deltas = new ArrayList<>();
+        if (!Objects.equals(stats, entry.lastStats)) {
+            deltas.addAll(taskManager.getPrismContext().deltaFor(TaskType.class)
+                    .item(TaskType.F_OPERATION_STATS).replace(stats)
+                    .asItemDeltas());
+        }
+        if (!Objects.equals(progress, entry.lastProgress)) {
+            deltas.addAll(taskManager.getPrismContext().deltaFor(TaskType.class)
+                    .item(TaskType.F_PROGRESS).replace(progress)
+                    .asItemDeltas());
+        }
+        if (!Objects.equals(expectedTotal, entry.lastExpectedTotal)) {
+            deltas.addAll(taskManager.getPrismContext().deltaFor(TaskType.class)
+                    .item(TaskType.F_EXPECTED_TOTAL).replace(expectedTotal)
+                    .asItemDeltas());
+        }
+        if (deltas.isEmpty()) {
+            LOGGER.trace("No statistics of {} changed since the last write", task);
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        taskManager.getRepositoryService().modifyObject(TaskType.class, task.getOid(), deltas, result);
+        long duration = System.currentTimeMillis() - start;
+        LOGGER.trace("Stored {} statistics item(s) of {} in {} ms", deltas.size(), task, duration);
+
+        entry.lastStats = stats;
+        entry.lastProgress = progress;
+        entry.lastExpectedTotal = expectedTotal;
+        return duration;
+    }
+
+    class FlusherThread extends Thread {
+
+        volatile boolean canRun = true;
+
+        @Override
+        public void run() {
+            LOGGER.info("Task statistics flusher thread starting.");
+            while (canRun) {
+                long delay;
+                try {
+                    long writeTime = flush();
+                    delay = Math.max(MIN_CYCLE_INTERVAL, Math.min(writeTime * LATENCY_MULTIPLIER, getMaxCycleInterval()));
+                } catch (Throwable t) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception in task statistics flusher thread; continuing execution.", t);
+                    delay = getMaxCycleInterval();
+                }
+                LOGGER.trace("Task statistics flusher thread sleeping for {} msec", delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    LOGGER.trace("Task statistics flusher thread interrupted.");
+                }
+            }
+            LOGGER.info("Task statistics flusher thread stopping.");
+        }
+
+        private long getMaxCycleInterval() {
+            return Math.max(MIN_CYCLE_INTERVAL, taskManager.getConfiguration().getStatisticsFlushMaxInterval());
+        }
+
+        void signalShutdown() {
+            canRun = false;
+            this.interrupt();
+        }
+    }
+
+    public void startFlusherThread() {
+        if (!taskManager.getConfiguration().isAsynchronousStatisticsFlushing()) {
+            LOGGER.info("Asynchronous flushing of task statistics is turned off.");
+            return;
+        }
+        flusherThread = new FlusherThread();
+        flusherThread.setName("TaskStatisticsFlusherThread");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    /**
+     * Stops the thread. Statistics not written yet are not lost: tasks store them when finishing.
+     */
+    public void stopFlusherThread(long waitTime, OperationResult parentResult) {
+        OperationResult result = parentResult.createSubresult(TaskStatisticsFlusher.class.getName() + ".stopFlusherThread");
+        result.addParam("waitTime", waitTime);
+        if (flusherThread != null) {
+            flusherThread.signalShutdown();
+            try {
+                flusherThread.join(waitTime);
+            } catch (InterruptedException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Waiting for TaskStatisticsFlusherThread shutdown was interrupted", e);
+            }
+            if (flusherThread.isAlive()) {
+                result.recordWarning("TaskStatisticsFlusherThread shutdown requested but after " + waitTime + " ms it is still running.");
+            } else {
+                result.recordSuccess();
+            }
+        } else {
+            result.recordSuccess();
+        }
+    }
+}
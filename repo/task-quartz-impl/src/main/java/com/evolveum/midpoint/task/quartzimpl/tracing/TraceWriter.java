@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.tracing;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerConfiguration;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Element;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Serializes traces and writes them to files (and creates repository objects pointing to them).
+ *
+ * If asynchronous trace writing is enabled, traced operations only put the trace into a bounded queue and a single
+ * thread per node does the serialization, compression and writing. If the queue is full, the trace is discarded,
+ * so that a burst of traced operations never blocks the threads doing the real work. Otherwise, traces are written
+ * directly by the threads that executed the traced operations.
+ *
+ * Note that the queue is bounded by the number of traces (traceWriterQueueSize), not by their size: a trace waits
+ * in the queue in its in-memory form, and its serialized size is not known until it is written. So the queue can hold
+ * up to traceWriterQueueSize times the largest trace; maxTraceSize does not help here, as it is applied when writing.
+ * Keep the queue short if tracing operations that produce large traces.
+ *
+ * Traces are serialized directly into the file, without creating their string representation. If a trace exceeds
+ * maxTraceSize, the rest of its output is skipped and the file is rewritten with the top-level operation result only.
+ *
+ * EXPERIMENTAL
+ */
+@Component
+public class TraceWriter {
+
+    private static final Trace LOGGER = TraceManager.getTrace(TraceWriter.class);
+
+    private static final String OP_WRITE_TRACE = TraceWriter.class.getName() + ".writeTrace";
+
+    private static final String ZIP_ENTRY_NAME = "trace.xml";
+    private static final long POLL_INTERVAL = 1000L;
+
+    @Autowired private PrismContext prismContext;
+    @Autowired private TaskManagerConfiguration configuration;
+
+    @Autowired
+    @Qualifier("cacheRepositoryService")
+    private transient RepositoryService repositoryService;
+
+    private volatile BlockingQueue<Request> queue;
+    private final AtomicLong discarded = new AtomicLong();
+
+    private volatile WriterThread writerThread;
+
+    public TraceWriter() {
+    }
+
+    // for unit tests
+    TraceWriter(PrismContext prismContext, TaskManagerConfiguration configuration, RepositoryService repositoryService) {
+        this.prismContext = prismContext;
+        this.configuration = configuration;
+        this.repositoryService = repositoryService;
+    }
+
+    static class Request {
+
+        @NotNull private final TracingOutputType tracingOutput;
+        @NotNull private final File file;
+        private final boolean zip;
+        private final Long maxTraceSize;
+        private final String objectName;                // null if no repository object is to be created
+        private final ObjectReferenceType nodeRef;
+
+        Request(@NotNull TracingOutputType tracingOutput, @NotNull File file, boolean zip, Long maxTraceSize,
+                String objectName, ObjectReferenceType nodeRef) {
+            this.tracingOutput = tracingOutput;
+            this.file = file;
+            this.zip = zip;
+            this.maxTraceSize = maxTraceSize;
+            this.objectName = objectName;
+            this.nodeRef = nodeRef;
+        }
+
+        @NotNull
+        File getFile() {
+            return file;
+        }
+    }
+
+    public boolean isActive() {
+        WriterThread thread = writerThread;
+        return configuration.isAsynchronousTraceWriting() && thread != null && thread.canRun && thread.isAlive();
+    }
+
+    /**
+     * Writes the trace asynchronously if possible; otherwise writes it right now.
+     */
+    void write(@NotNull Request request, OperationResult result) {
+        BlockingQueue<Request> currentQueue = queue;
+        if (isActive() && currentQueue != null) {
+            if (currentQueue.offer(request)) {
+                LOGGER.trace("Trace {} was queued for writing ({} trace(s) in the queue)", request.file, currentQueue.size());
+            } else {
+                LOGGER.warn("Trace writer queue is full ({} traces), discarding trace {} ({} trace(s) discarded so far)",
+                        currentQueue.size(), request.file, discarded.incrementAndGet());
+            }
+        } else {
+            writeNow(request, result);
+        }
+    }
+
+    // for tests
+    long getDiscarded() {
+        return discarded.get();
+    }
+
+    void writeNow(@NotNull Request request, OperationResult result) {       // overridden in tests
+        File file = request.file;
+        try {
+            long start = System.currentTimeMillis();
+            long chars = serializeAndWrite(request);
+            LOGGER.info("Trace was written to {} ({} chars{}) in {} milliseconds", file, chars,
+                    request.zip ? " uncompressed" : "", System.currentTimeMillis() - start);
+            if (request.objectName != null) {
+                ReportOutputType reportOutputObject = new ReportOutputType(prismContext)
+                        .name(request.objectName)
+                        .archetypeRef(SystemObjectsType.ARCHETYPE_TRACE.value(), ArchetypeType.COMPLEX_TYPE)
+                        .filePath(file.getAbsolutePath())
+                        .nodeRef(request.nodeRef);
+                repositoryService.addObject(reportOutputObject.asPrismObject(), null, result);
+            }
+        } catch (IOException | SchemaException | ObjectAlreadyExistsException | RuntimeException e) {
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write trace ({})", e, file);
+            throw new SystemException(e);
+        }
+    }
+
+    /**
+     * @return Number of characters written.
+     */
+    private long serializeAndWrite(Request request) throws SchemaException, IOException {
+        TracingOutputType tracingOutput = request.tracingOutput;
+        Long limit = tracingOutput.getResult() != null ? request.maxTraceSize : null;
+        long chars = serializeAndWrite(tracingOutput, request, limit);
+        if (limit != null && chars > limit) {
+            LOGGER.warn("Trace {} has {} chars, exceeding the limit of {}; storing the top-level operation result only",
+                    request.file, chars, limit);
+            // The request owns the output, so we can strip it directly.
+            OperationResultType resultBean = tracingOutput.getResult();
+            resultBean.getPartialResults().clear();
+            resultBean.getTrace().clear();
+            resultBean.getLog().clear();
+            tracingOutput.setDictionary(null);
+            chars = serializeAndWrite(tracingOutput, request, null);
+        }
+        return chars;
+    }
+
+    /**
+     * Returns the number of characters of the serialized output. If it is over the limit, the file is incomplete.
+     */
+    private long serializeAndWrite(TracingOutputType tracingOutput, Request request, Long limit)
+            throws SchemaException, IOException {
+        Element element = prismContext.domSerializer().serializeRealValue(tracingOutput);
+        try (LimitingWriter writer = new LimitingWriter(createWriter(request.file, request.zip), limit)) {
+            DOMUtil.serializeDOMToWriter(element, writer);
+            return writer.count;
+        }
+    }
+
+    private Writer createWriter(File file, boolean zip) throws IOException {
+        if (zip) {
+            ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
+            return new OutputStreamWriter(zipOut, StandardCharsets.UTF_8);
+        } else {
+            return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Passes the characters to the target writer until the limit is exceeded; then it only counts them.
+     */
+    private static class LimitingWriter extends Writer {
+
+        @NotNull private final Writer target;
+        private final Long limit;
+        private long count;
+
+        private LimitingWriter(@NotNull Writer target, Long limit) {
+            this.target = target;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+            count += len;
+            if (limit == null || count <= limit) {
+                target.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+
+    class WriterThread extends Thread {
+
+        volatile boolean canRun = true;
+
+        @Override
+        public void run() {
+            LOGGER.info("Trace writer thread starting.");
+            BlockingQueue<Request> currentQueue = queue;
+            // Traces queued before the shutdown are written before the thread stops.
+            while (canRun || !currentQueue.isEmpty()) {
+                try {
+                    Request request = currentQueue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                    if (request != null) {
+                        writeNow(request, new OperationResult(OP_WRITE_TRACE));
+                    }
+                } catch (InterruptedException e) {
+                    LOGGER.trace("Trace writer thread interrupted.");
+                } catch (Throwable t) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception in trace writer thread; continuing execution.", t);
+                }
+            }
+            LOGGER.info("Trace writer thread stopping.");
+        }
+
+        void signalShutdown() {
+            canRun = false;
+            this.interrupt();
+        }
+    }
+
+    public void startWriterThread() {
+        if (!configuration.isAsynchronousTraceWriting()) {
+            LOGGER.info("Asynchronous writing of traces is turned off.");
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(configuration.getTraceWriterQueueSize());
+        writerThread = new WriterThread();
+        writerThread.setName("TraceWriterThread");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the thread. Traces already queued are written before the thread finishes.
+     */
+    public void stopWriterThread(long waitTime, OperationResult parentResult) {
+        OperationResult result = parentResult.createSubresult(TraceWriter.class.getName() + ".stopWriterThread");
+        result.addParam("waitTime", waitTime);
+        if (writerThread != null) {
+            writerThread.signalShutdown();
+            try {
+                writerThread.join(waitTime);
+            } catch (InterruptedException e) {
+                LoggingUtils.logUnexpectedException(LOGGER, "Waiting for TraceWriterThread shutdown was interrupted", e);
+            }
+            if (writerThread.isAlive()) {
+                result.recordWarning("TraceWriterThread shutdown requested but after " + waitTime + " ms it is still running.");
+            } else {
+                result.recordSuccess();
+            }
+        } else {
+            result.recordSuccess();
+        }
+    }
+}
@@ -10,7 +10,6 @@ package com.evolveum.midpoint.task.quartzimpl.tracing;
 import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.util.CloneUtil;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
-import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.api.SystemConfigurationChangeDispatcher;
 import com.evolveum.midpoint.repo.api.SystemConfigurationChangeListener;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
@@ -22,11 +21,7 @@ import com.evolveum.midpoint.task.api.Task;
 import com.evolveum.midpoint.task.api.TaskManager;
 import com.evolveum.midpoint.task.api.Tracer;
 import com.evolveum.midpoint.util.DebugUtil;
-import com.evolveum.midpoint.util.MiscUtil;
-import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
 import com.evolveum.midpoint.util.exception.SchemaException;
-import com.evolveum.midpoint.util.exception.SystemException;
-import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
@@ -34,19 +29,16 @@ import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -71,18 +63,16 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
     @Autowired private PrismContext prismContext;
     @Autowired private TaskManager taskManager;
     @Autowired private SystemConfigurationChangeDispatcher systemConfigurationChangeDispatcher;
-
-    @Autowired
-    @Qualifier("cacheRepositoryService")
-    private transient RepositoryService repositoryService;
+    @Autowired private TraceWriter traceWriter;
 
     private SystemConfigurationType systemConfiguration;            // can be null during some tests
 
+    private final Map<String, AtomicLong> samplingCounters = new ConcurrentHashMap<>();        // key = profile name
+
     private static final String OP_STORE_TRACE = TracerImpl.class.getName() + ".storeTrace";
 
     private static final String MIDPOINT_HOME = System.getProperty("midpoint.home");
     private static final String TRACE_DIR = MIDPOINT_HOME + "trace/";
-    private static final String ZIP_ENTRY_NAME = "trace.xml";
 
     private static final String DEFAULT_FILE_NAME_PATTERN = "trace-%{timestamp}";
 
@@ -111,36 +101,27 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
             result.clearTracingProfile();
 
             if (!Boolean.FALSE.equals(tracingProfile.isCreateTraceFile())) {
+                if (!isToBeStored(tracingProfile, result)) {
+                    thisOpResult.recordNotApplicableIfUnknown();
+                    return;
+                }
                 boolean zip = !Boolean.FALSE.equals(tracingProfile.isCompressOutput());
                 Map<String, String> templateParameters = createTemplateParameters(task, result);      // todo evaluate lazily if needed
                 File file = createFileName(zip, tracingProfile, templateParameters);
-                try {
-                    long start = System.currentTimeMillis();
-                    TracingOutputType tracingOutput = createTracingOutput(task, result, tracingProfile);
-                    String xml = prismContext.xmlSerializer().serializeRealValue(tracingOutput);
-                    if (zip) {
-                        MiscUtil.writeZipFile(file, ZIP_ENTRY_NAME, xml, StandardCharsets.UTF_8);
-                        LOGGER.info("Trace was written to {} ({} chars uncompressed) in {} milliseconds", file, xml.length(),
-                                System.currentTimeMillis() - start);
-                    } else {
-                        try (PrintWriter pw = new PrintWriter(new FileWriter(file))) {
-                            pw.write(xml);
-                            LOGGER.info("Trace was written to {} ({} chars) in {} milliseconds", file, xml.length(),
-                                    System.currentTimeMillis() - start);
-                        }
-                    }
-                    if (!Boolean.FALSE.equals(tracingProfile.isCreateRepoObject())) {
-                        ReportOutputType reportOutputObject = new ReportOutputType(prismContext)
-                                .name(createObjectName(tracingProfile, templateParameters))
-                                .archetypeRef(SystemObjectsType.ARCHETYPE_TRACE.value(), ArchetypeType.COMPLEX_TYPE)
-                                .filePath(file.getAbsolutePath())
-                                .nodeRef(ObjectTypeUtil.createObjectRef(taskManager.getLocalNode(), prismContext));
-                        repositoryService.addObject(reportOutputObject.asPrismObject(), null, thisOpResult);
-                    }
-                } catch (IOException | SchemaException | ObjectAlreadyExistsException | RuntimeException e) {
-                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write trace ({})", e, file);
-                    throw new SystemException(e);
+                // The output has to be created here, as it is based on the live operation result and task.
+                // Serialization and writing can be done later.
+                TracingOutputType tracingOutput = createTracingOutput(task, result, tracingProfile);
+                String objectName;
+                ObjectReferenceType nodeRef;
+                if (!Boolean.FALSE.equals(tracingProfile.isCreateRepoObject())) {
+                    objectName = createObjectName(tracingProfile, templateParameters);
+                    nodeRef = ObjectTypeUtil.createObjectRef(taskManager.getLocalNode(), prismContext);
+                } else {
+                    objectName = null;
+                    nodeRef = null;
                 }
+                traceWriter.write(new TraceWriter.Request(tracingOutput, file, zip, tracingProfile.getMaxTraceSize(),
+                        objectName, nodeRef), thisOpResult);
             }
         } catch (Throwable t) {
             thisOpResult.recordFatalError(t);
@@ -150,6 +131,36 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
         }
     }
 
+    /**
+     * Applies minimumDuration. This is done before the trace is created, so the operations that are not stored
+     * cost (almost) nothing here. (Sampling is applied earlier, when the tracing is switched on.)
+     */
+    boolean isToBeStored(TracingProfileType tracingProfile, OperationResult result) {      // package-private for tests
+        Long minimumDuration = tracingProfile.getMinimumDuration();
+        if (minimumDuration != null) {
+            Long duration = getDuration(result);
+            if (duration != null && duration < minimumDuration) {
+                LOGGER.trace("Not storing trace for {} as it took only {} ms (minimum is {} ms)", result.getOperation(),
+                        duration, minimumDuration);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The result is usually not closed yet when the trace is being stored.
+    private Long getDuration(OperationResult result) {
+        if (result.getMicroseconds() != null) {
+            return result.getMicroseconds() / 1000;
+        } else if (result.getStart() != null && result.getEnd() != null) {
+            return result.getEnd() - result.getStart();
+        } else if (result.getStart() != null) {
+            return System.currentTimeMillis() - result.getStart();
+        } else {
+            return null;
+        }
+    }
+
     private TracingOutputType createTracingOutput(Task task, OperationResult result, TracingProfileType tracingProfile) {
         TracingOutputType output = new TracingOutputType(prismContext);
         output.beginMetadata()
@@ -548,6 +559,30 @@ public class TracerImpl implements Tracer, SystemConfigurationChangeListener {
         return CompiledTracingProfile.create(resolvedProfile, prismContext);
     }
 
+    @Override
+    public CompiledTracingProfile compileProfileIfSampled(TracingProfileType profile, OperationResult result)
+            throws SchemaException {
+        TracingProfileType resolvedProfile = resolve(profile, result);
+        if (resolvedProfile != null && !isSampledIn(resolvedProfile)) {
+            return null;
+        } else {
+            return CompiledTracingProfile.create(resolvedProfile, prismContext);
+        }
+    }
+
+    private boolean isSampledIn(TracingProfileType resolvedProfile) {
+        Integer samplingInterval = resolvedProfile.getSamplingInterval();
+        if (samplingInterval != null && samplingInterval > 1) {
+            String profileName = resolvedProfile.getName() != null ? resolvedProfile.getName() : "";
+            long counter = samplingCounters.computeIfAbsent(profileName, k -> new AtomicLong()).getAndIncrement();
+            if (counter % samplingInterval != 0) {
+                LOGGER.trace("Not tracing operation because of sampling (1 in {}) in profile '{}'", samplingInterval, profileName);
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Nullable
     private TracingConfigurationType getTracingConfiguration() {
         return systemConfiguration != null && systemConfiguration.getInternals() != null ?
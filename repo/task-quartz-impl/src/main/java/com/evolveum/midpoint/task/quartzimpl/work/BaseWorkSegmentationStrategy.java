@@ -100,7 +100,7 @@ public abstract class BaseWorkSegmentationStrategy implements WorkSegmentationSt
         return configuration != null && configuration.getBuckets() != null ? configuration.getBuckets().getAllocation() : null;
     }
 
-    private int getBucketCreationBatch() {
+    protected int getBucketCreationBatch() {
         WorkAllocationConfigurationType ac = getAllocationConfiguration();
         if (ac != null && ac.getBucketCreationBatch() != null) {
             return ac.getBucketCreationBatch();
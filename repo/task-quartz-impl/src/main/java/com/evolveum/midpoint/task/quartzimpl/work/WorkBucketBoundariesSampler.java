@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.work;
+
+import com.evolveum.midpoint.prism.PrismConstants;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.OrderDirection;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.task.quartzimpl.work.segmentation.SampledWorkSegmentationStrategy;
+import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SampledWorkBucketBoundariesType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SampledWorkSegmentationType;
+import com.evolveum.prism.xml.ns._public.query_3.QueryType;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.util.List;
+
+/**
+ * Computes boundaries for sampled work segmentation: selects objects at regular positions in the sequence of objects
+ * to be processed (ordered by the discriminator) and takes their discriminator values. So each bucket gets
+ * approximately the same number of objects, regardless of how the values are distributed.
+ *
+ * Each value is taken by a separate query (ordered by the discriminator, with the offset of the boundary position
+ * and the maximal size of 1), so only the objects at the boundaries are fetched from the repository.
+ * Objects with the same discriminator value can be returned in any order, but that does not matter, because only
+ * the value is used.
+ *
+ * EXPERIMENTAL
+ */
+@Component
+public class WorkBucketBoundariesSampler {
+
+    private static final Trace LOGGER = TraceManager.getTrace(WorkBucketBoundariesSampler.class);
+
+    @Autowired private RepositoryService repositoryService;
+    @Autowired private PrismContext prismContext;
+
+    @NotNull
+    public SampledWorkBucketBoundariesType sampleBoundaries(@NotNull Task task, @NotNull SampledWorkSegmentationType configuration,
+            OperationResult result) throws SchemaException {
+        Class<? extends ObjectType> type = getObjectType(task, configuration);
+        ObjectQuery query = getObjectQuery(task, type);
+        ItemPath discriminator = SampledWorkSegmentationStrategy.getDiscriminator(configuration);
+        boolean normalized = isNormalized(configuration);
+
+        int count = repositoryService.countObjects(type, query, null, result);
+        int numberOfBuckets = Math.min(SampledWorkSegmentationStrategy.getNumberOfBuckets(configuration), Math.max(count, 1));
+
+        SampledWorkBucketBoundariesType boundaries = new SampledWorkBucketBoundariesType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .objectCount(count);
+        List<String> values = boundaries.getBoundary();
+        for (int boundary = 1; boundary < numberOfBuckets; boundary++) {
+            int position = (int) ((long) count * boundary / numberOfBuckets);
+            String value = getValueAt(type, query, discriminator, normalized, position, result);
+            // Values can repeat (if there are many objects with the same value); such boundaries are ignored.
+            if (value != null && (values.isEmpty() || value.compareTo(values.get(values.size() - 1)) > 0)) {
+                values.add(value);
+            }
+        }
+        LOGGER.debug("Sampled {} object(s) of {} in {}: got {} boundaries: {}", count, type.getSimpleName(), task,
+                values.size(), values);
+        return boundaries;
+    }
+
+    /**
+     * Returns the discriminator value of the object at given position in the sequence ordered by the discriminator.
+     */
+    private String getValueAt(Class<? extends ObjectType> type, ObjectQuery query, ItemPath discriminator, boolean normalized,
+            int position, OperationResult result) throws SchemaException {
+        ObjectQuery pagedQuery = query != null ? query.clone() : prismContext.queryFactory().createQuery();
+        pagedQuery.setPaging(prismContext.queryFactory().createPaging(position, 1, discriminator, OrderDirection.ASCENDING));
+        List<? extends PrismObject<? extends ObjectType>> objects =
+                repositoryService.searchObjects(type, pagedQuery,
+                        SelectorOptions.createCollection(GetOperationOptions.createReadOnly()), result);
+        if (objects.isEmpty()) {
+            return null;            // the objects were deleted in the meanwhile
+        }
+        PrismProperty<?> property = objects.get(0).findProperty(discriminator);
+        Object realValue = property != null ? property.getRealValue() : null;
+        if (realValue == null) {
+            return null;
+        } else if (realValue instanceof PolyString) {
+            return normalized ? ((PolyString) realValue).getNorm() : ((PolyString) realValue).getOrig();
+        } else {
+            return String.valueOf(realValue);
+        }
+    }
+
+    @NotNull
+    private Class<? extends ObjectType> getObjectType(Task task, SampledWorkSegmentationType configuration) {
+        QName typeName = configuration.getType() != null
+                ? configuration.getType()
+                : task.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_OBJECT_TYPE);
+        if (typeName == null) {
+            return ObjectType.class;
+        }
+        Class<? extends ObjectType> type = prismContext.getSchemaRegistry().getCompileTimeClassForObjectType(typeName);
+        if (type == null) {
+            throw new IllegalStateException("Unknown object type " + typeName + " in " + task);
+        }
+        return type;
+    }
+
+    private ObjectQuery getObjectQuery(Task task, Class<? extends ObjectType> type) {
+        QueryType queryBean = task.getExtensionPropertyRealValue(SchemaConstants.MODEL_EXTENSION_OBJECT_QUERY);
+        if (queryBean == null) {
+            return null;
+        }
+        try {
+            return prismContext.getQueryConverter().createObjectQuery(type, queryBean);
+        } catch (SchemaException | RuntimeException e) {
+            // e.g. the query contains expressions that can be evaluated only by the task handler
+            LOGGER.warn("Couldn't use the query of {} for sampling, all objects of {} will be sampled instead: {}",
+                    task, type.getSimpleName(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private boolean isNormalized(SampledWorkSegmentationType configuration) {
+        return configuration.getMatchingRule() != null && QNameUtil.match(PrismConstants.POLY_STRING_NORM_MATCHING_RULE_NAME,
+                QNameUtil.uriToQName(configuration.getMatchingRule(), PrismConstants.NS_MATCHING_RULE));
+    }
+}
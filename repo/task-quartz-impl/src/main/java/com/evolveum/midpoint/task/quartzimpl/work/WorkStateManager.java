@@ -15,6 +15,7 @@ import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.prism.util.CloneUtil;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.repo.api.ModificationPrecondition;
 import com.evolveum.midpoint.repo.api.PreconditionViolationException;
 import com.evolveum.midpoint.repo.api.RepositoryService;
@@ -88,6 +89,7 @@ public class WorkStateManager {
     @Autowired private PrismContext prismContext;
     @Autowired private WorkSegmentationStrategyFactory strategyFactory;
     @Autowired private WorkBucketContentHandlerRegistry handlerFactory;
+    @Autowired private WorkBucketBoundariesSampler boundariesSampler;
     @Autowired private TaskManagerConfiguration configuration;
 
     private static final long DYNAMIC_SLEEP_INTERVAL = 100L;
@@ -223,6 +225,7 @@ public class WorkStateManager {
             throws SchemaException, ObjectAlreadyExistsException, ObjectNotFoundException, InterruptedException {
         TaskWorkManagementType workManagement = ctx.coordinatorTask.getWorkManagement();
         WorkSegmentationStrategy workStateStrategy = strategyFactory.createStrategy(workManagement);
+        sampleBoundariesIfNeeded(ctx.coordinatorTask, result);
         setOrUpdateEstimatedNumberOfBuckets(ctx.coordinatorTask, workStateStrategy, result);
 
 waitForAvailableBucket:    // this cycle exits when something is found OR when a definite 'no more buckets' answer is received
@@ -244,7 +247,8 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
                             if (i == selected) {
                                 newCoordinatorBuckets.add(newBucketsResponse.newBuckets.get(i).clone()
                                         .state(WorkBucketStateType.DELEGATED)
-                                        .workerRef(ctx.workerTask.getOid(), TaskType.COMPLEX_TYPE));
+                                        .workerRef(ctx.workerTask.getOid(), TaskType.COMPLEX_TYPE)
+                                        .allocationTimestamp(XmlTypeConverter.createXMLGregorianCalendar()));
                             } else {
                                 newCoordinatorBuckets.add(newBucketsResponse.newBuckets.get(i).clone());
                             }
@@ -375,6 +379,59 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
         }
     }
 
+    /**
+     * For sampled segmentation, computes the bucket boundaries before the first bucket is created. As the work state
+     * is reset when the task is restarted, the boundaries are computed anew for each run.
+     *
+     * Workers of a multi-node task can get here concurrently. So the current state is re-read before sampling, and
+     * the boundaries are stored only if nobody has stored them (or created any buckets) in the meanwhile; otherwise
+     * the stored ones are used.
+     */
+    private void sampleBoundariesIfNeeded(Task task, OperationResult result)
+            throws SchemaException, ObjectAlreadyExistsException, ObjectNotFoundException {
+        AbstractWorkSegmentationType segmentation = TaskWorkStateTypeUtil.getWorkSegmentationConfiguration(task.getWorkManagement());
+        if (!(segmentation instanceof SampledWorkSegmentationType)) {
+            return;
+        }
+        if (!needsSampling(task.getWorkState())) {
+            return;
+        }
+        TaskWorkStateType currentWorkState = repositoryService.getObject(TaskType.class, task.getOid(), null, result)
+                .asObjectable().getWorkState();
+        if (!needsSampling(currentWorkState)) {
+            useStoredBoundaries(task, currentWorkState);
+            return;
+        }
+        SampledWorkBucketBoundariesType boundaries = boundariesSampler.sampleBoundaries(task,
+                (SampledWorkSegmentationType) segmentation, result);
+        List<ItemDelta<?, ?>> itemDeltas = prismContext.deltaFor(TaskType.class)
+                .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_SAMPLED_BOUNDARIES).replace(boundaries)
+                .asItemDeltas();
+        try {
+            repositoryService.modifyObject(TaskType.class, task.getOid(), itemDeltas,
+                    taskObject -> needsSampling(taskObject.asObjectable().getWorkState()), null, result);
+        } catch (PreconditionViolationException e) {
+            LOGGER.debug("Boundaries for {} were sampled by someone else in the meanwhile, using them", task);
+            useStoredBoundaries(task, repositoryService.getObject(TaskType.class, task.getOid(), null, result)
+                    .asObjectable().getWorkState());
+            return;
+        }
+        ((InternalTaskInterface) task).applyModificationsTransient(itemDeltas);
+    }
+
+    private boolean needsSampling(TaskWorkStateType workState) {
+        return workState == null || workState.getSampledBoundaries() == null && workState.getBucket().isEmpty();
+    }
+
+    private void useStoredBoundaries(Task task, TaskWorkStateType storedWorkState) throws SchemaException {
+        SampledWorkBucketBoundariesType stored = storedWorkState != null ? storedWorkState.getSampledBoundaries() : null;
+        if (stored != null) {
+            ((InternalTaskInterface) task).applyModificationsTransient(prismContext.deltaFor(TaskType.class)
+                    .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_SAMPLED_BOUNDARIES).replace(stored.clone())
+                    .asItemDeltas());
+        }
+    }
+
     private void dynamicSleep(long delay, Context ctx) throws InterruptedException {
         dynamicSleep(delay, ctx.canRunSupplier);
     }
@@ -460,6 +517,7 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
     private WorkBucketType getWorkBucketStandalone(Context ctx, OperationResult result)
             throws SchemaException, ObjectAlreadyExistsException, ObjectNotFoundException {
         WorkSegmentationStrategy workStateStrategy = strategyFactory.createStrategy(ctx.workerTask.getWorkManagement());
+        sampleBoundariesIfNeeded(ctx.workerTask, result);
         setOrUpdateEstimatedNumberOfBuckets(ctx.workerTask, workStateStrategy, result);
         TaskWorkStateType workState = getWorkStateOrNew(ctx.workerTask);
         GetBucketResult response = workStateStrategy.getBucket(workState);
@@ -468,6 +526,8 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
             throw new AssertionError("Found unallocated buckets in standalone worker task on a second pass: " + ctx.workerTask);
         } else if (response instanceof NewBuckets) {
             NewBuckets newBucketsResponse = (NewBuckets) response;
+            newBucketsResponse.newBuckets.get(newBucketsResponse.selected)
+                    .setAllocationTimestamp(XmlTypeConverter.createXMLGregorianCalendar());
             repositoryService.modifyObject(TaskType.class, ctx.workerTask.getOid(),
                     bucketsAddDeltas(newBucketsResponse.newBuckets), null, result);
             ctx.register(GET_WORK_BUCKET_CREATED_NEW);
@@ -543,7 +603,8 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
                     + " cannot be marked as complete, as it is not delegated; its state = " + bucket.getState());
         }
         checkWorkerRefOnDelegatedBucket(ctx, bucket);
-        Collection<ItemDelta<?, ?>> modifications = bucketStateChangeDeltas(bucket, WorkBucketStateType.COMPLETE);
+        Collection<ItemDelta<?, ?>> modifications = new ArrayList<>(bucketStateChangeDeltas(bucket, WorkBucketStateType.COMPLETE));
+        modifications.addAll(bucketSizingDeltas(ctx.coordinatorTask, workState, bucket));
         try {
             repositoryService.modifyObject(TaskType.class, ctx.coordinatorTask.getOid(),
                     modifications, bucketUnchangedPrecondition(bucket), null, result);
@@ -580,7 +641,8 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
             throw new IllegalStateException("Work bucket " + sequentialNumber + " in " + ctx.coordinatorTask
                     + " cannot be marked as complete, as it is not ready; its state = " + bucket.getState());
         }
-        Collection<ItemDelta<?, ?>> modifications = bucketStateChangeDeltas(bucket, WorkBucketStateType.COMPLETE);
+        Collection<ItemDelta<?, ?>> modifications = new ArrayList<>(bucketStateChangeDeltas(bucket, WorkBucketStateType.COMPLETE));
+        modifications.addAll(bucketSizingDeltas(ctx.workerTask, workState, bucket));
         repositoryService.modifyObject(TaskType.class, ctx.workerTask.getOid(), modifications, null, result);
         ((InternalTaskInterface) ctx.workerTask).applyModificationsTransient(modifications);
         ((InternalTaskInterface) ctx.workerTask).applyDeltasImmediate(modifications, result);
@@ -627,6 +689,78 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
         ctx.register(RELEASE_WORK_BUCKET);
     }
 
+    /**
+     * Returns the interval (in milliseconds) of recording checkpoints for buckets processed by given worker task,
+     * or null if checkpoints are not to be recorded.
+     */
+    public Long getCheckpointInterval(Task workerTask, OperationResult result) throws SchemaException, ObjectNotFoundException {
+        Context ctx = createContext(workerTask.getOid(), () -> true, null, false, result);
+        TaskWorkManagementType config = ctx.getWorkStateConfiguration();
+        Long interval = config != null && config.getBuckets() != null ? config.getBuckets().getCheckpointInterval() : null;
+        return interval != null && interval > 0 ? interval : null;
+    }
+
+    /**
+     * Records a checkpoint of work bucket processing.
+     * Should be called from the worker task.
+     *
+     * @return false if the bucket is no longer being processed by the worker task (e.g. it was reclaimed in the meanwhile),
+     * so the checkpoint was not recorded.
+     */
+    public boolean checkpointWorkBucket(String workerTaskOid, int sequentialNumber, WorkBucketCheckpointType checkpoint,
+            OperationResult result) throws ObjectAlreadyExistsException, ObjectNotFoundException, SchemaException {
+        Context ctx = createContext(workerTaskOid, null, null, false, result);
+        LOGGER.trace("Recording checkpoint {} of bucket {} in {} (coordinator {})", checkpoint, sequentialNumber,
+                ctx.workerTask, ctx.coordinatorTask);
+        if (ctx.isStandalone()) {
+            return checkpointWorkBucketStandalone(ctx, sequentialNumber, checkpoint, result);
+        } else {
+            return checkpointWorkBucketMultiNode(ctx, sequentialNumber, checkpoint, result);
+        }
+    }
+
+    private boolean checkpointWorkBucketMultiNode(Context ctx, int sequentialNumber, WorkBucketCheckpointType checkpoint,
+            OperationResult result) throws SchemaException, ObjectAlreadyExistsException, ObjectNotFoundException {
+        WorkBucketType bucket = findBucketByNumber(getWorkStateOrNew(ctx.coordinatorTask).getBucket(), sequentialNumber);
+        if (bucket == null || !isDelegatedTo(bucket, ctx.workerTask.getOid())) {
+            LOGGER.debug("Work bucket {} in {} is no longer delegated to {}, not recording the checkpoint: {}",
+                    sequentialNumber, ctx.coordinatorTask, ctx.workerTask, bucket);
+            return false;
+        }
+        try {
+            repositoryService.modifyObject(TaskType.class, ctx.coordinatorTask.getOid(),
+                    bucketCheckpointDeltas(bucket, checkpoint), bucketDelegatedToPrecondition(sequentialNumber, ctx.workerTask.getOid()),
+                    null, result);
+        } catch (PreconditionViolationException e) {
+            LOGGER.debug("Work bucket {} in {} was taken from {} in the meanwhile, not recording the checkpoint",
+                    sequentialNumber, ctx.coordinatorTask, ctx.workerTask);
+            return false;
+        }
+        // the worker's copy is updated as well, as it is used when the worker continues after being restarted
+        WorkBucketType workerBucket = findBucketByNumber(getWorkStateOrNew(ctx.workerTask).getBucket(), sequentialNumber);
+        if (workerBucket != null) {
+            repositoryService.modifyObject(TaskType.class, ctx.workerTask.getOid(), bucketCheckpointDeltas(workerBucket, checkpoint), result);
+        }
+        return true;
+    }
+
+    private boolean checkpointWorkBucketStandalone(Context ctx, int sequentialNumber, WorkBucketCheckpointType checkpoint,
+            OperationResult result) throws SchemaException, ObjectAlreadyExistsException, ObjectNotFoundException {
+        WorkBucketType bucket = findBucketByNumber(getWorkStateOrNew(ctx.workerTask).getBucket(), sequentialNumber);
+        if (bucket == null || bucket.getState() == WorkBucketStateType.COMPLETE) {
+            LOGGER.debug("Work bucket {} in {} does not exist or is complete, not recording the checkpoint: {}",
+                    sequentialNumber, ctx.workerTask, bucket);
+            return false;
+        }
+        repositoryService.modifyObject(TaskType.class, ctx.workerTask.getOid(), bucketCheckpointDeltas(bucket, checkpoint), result);
+        return true;
+    }
+
+    private boolean isDelegatedTo(WorkBucketType bucket, String workerOid) {
+        return bucket.getState() == WorkBucketStateType.DELEGATED && bucket.getWorkerRef() != null
+                && workerOid.equals(bucket.getWorkerRef().getOid());
+    }
+
     private void checkWorkerRefOnDelegatedBucket(Context ctx, WorkBucketType bucket) {
         if (bucket.getWorkerRef() == null) {
             LOGGER.warn("DELEGATED bucket without workerRef: {}", bucket);
@@ -660,6 +794,27 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
         }
     }
 
+    /**
+     * Lets the segmentation strategy adapt bucket sizing to the processing time of the completed bucket.
+     * (Concurrent completions in multi-node tasks can overwrite each other's sizing state. This is acceptable,
+     * as the sizing is only a heuristic.)
+     */
+    private Collection<ItemDelta<?, ?>> bucketSizingDeltas(Task task, TaskWorkStateType workState, WorkBucketType bucket)
+            throws SchemaException {
+        if (bucket.getAllocationTimestamp() == null) {
+            return emptyList();
+        }
+        long duration = System.currentTimeMillis() - XmlTypeConverter.toMillis(bucket.getAllocationTimestamp());
+        WorkSegmentationStrategy strategy = strategyFactory.createStrategy(task.getWorkManagement());
+        WorkBucketSizingStateType sizing = strategy.onBucketCompleted(workState, bucket, duration);
+        if (sizing == null) {
+            return emptyList();
+        }
+        return prismContext.deltaFor(TaskType.class)
+                .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_BUCKET_SIZING).replace(sizing)
+                .asItemDeltas();
+    }
+
     private Collection<ItemDelta<?, ?>> bucketsReplaceDeltas(List<WorkBucketType> buckets) throws SchemaException {
         return prismContext.deltaFor(TaskType.class)
                 .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_BUCKET)
@@ -691,6 +846,8 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
                     .replace(newState)
                 .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_BUCKET, bucket.getId(), WorkBucketType.F_WORKER_REF)
                     .replaceRealValues(workerOid != null ? singletonList(new ObjectReferenceType().oid(workerOid).type(TaskType.COMPLEX_TYPE)) : emptyList())
+                .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_BUCKET, bucket.getId(), WorkBucketType.F_ALLOCATION_TIMESTAMP)
+                    .replaceRealValues(workerOid != null ? singletonList(XmlTypeConverter.createXMLGregorianCalendar()) : emptyList())
                 .asItemDeltas();
     }
 
@@ -709,6 +866,21 @@ waitForConflictLessUpdate: // this cycle exits when coordinator task update succ
         };
     }
 
+    private Collection<ItemDelta<?, ?>> bucketCheckpointDeltas(WorkBucketType bucket, WorkBucketCheckpointType checkpoint)
+            throws SchemaException {
+        return prismContext.deltaFor(TaskType.class)
+                .item(TaskType.F_WORK_STATE, TaskWorkStateType.F_BUCKET, bucket.getId(), WorkBucketType.F_CHECKPOINT)
+                .replace(checkpoint.clone()).asItemDeltas();
+    }
+
+    private ModificationPrecondition<TaskType> bucketDelegatedToPrecondition(int sequentialNumber, String workerOid) {
+        return taskObject -> {
+            WorkBucketType currentBucket = findBucketByNumber(getWorkStateOrNew(taskObject.asObjectable()).getBucket(),
+                    sequentialNumber);
+            return currentBucket != null && isDelegatedTo(currentBucket, workerOid);
+        };
+    }
+
     private WorkBucketType cloneNoId(WorkBucketType bucket) {
         return bucket.clone().id(null);
     }
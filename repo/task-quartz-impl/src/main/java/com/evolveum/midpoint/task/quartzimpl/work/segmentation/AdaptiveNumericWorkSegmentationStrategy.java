@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.work.segmentation;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.schema.util.TaskWorkStateTypeUtil;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Numeric interval based strategy that adapts the size of buckets to the measured processing time.
+ *
+ * When a bucket is complete, the size that would be processed in the target duration is computed from the bucket size
+ * and its processing time. The current size is then moved halfway towards it, changing by at most {@link #MAX_CHANGE_FACTOR}
+ * at once, so a single unusually fast or slow bucket does not cause wild swings.
+ *
+ * Near the end of the processing space (when less than tailFactor buckets remain) each new bucket covers only
+ * 1/tailFactor of the rest, so the last buckets are small and the workers finish at approximately the same time.
+ *
+ * Buckets are created one at a time (bucketCreationBatch is ignored), as the size of each is decided separately.
+ *
+ * EXPERIMENTAL
+ */
+public class AdaptiveNumericWorkSegmentationStrategy extends NumericWorkSegmentationStrategy {
+
+    private static final Trace LOGGER = TraceManager.getTrace(AdaptiveNumericWorkSegmentationStrategy.class);
+
+    private static final long DEFAULT_TARGET_BUCKET_DURATION = 60000L;
+    private static final int DEFAULT_TAIL_FACTOR = 4;
+    private static final int DEFAULT_MIN_SIZE_DIVISOR = 10;
+    private static final long MAX_CHANGE_FACTOR = 4;
+    private static final int DECISIONS_KEPT = 10;
+
+    @NotNull private final AdaptiveNumericWorkSegmentationType adaptiveConfiguration;
+
+    public AdaptiveNumericWorkSegmentationStrategy(@NotNull TaskWorkManagementType configuration, PrismContext prismContext) {
+        super(configuration, prismContext);
+        this.adaptiveConfiguration = (AdaptiveNumericWorkSegmentationType)
+                TaskWorkStateTypeUtil.getWorkSegmentationConfiguration(configuration);
+    }
+
+    @NotNull
+    @Override
+    protected List<? extends AbstractWorkBucketContentType> createAdditionalBuckets(TaskWorkStateType workState) {
+        WorkBucketType lastBucket = TaskWorkStateTypeUtil.getLastBucket(workState.getBucket());
+        BigInteger to = getOrComputeTo();
+        BigInteger from;
+        if (lastBucket != null) {
+            if (!(lastBucket.getContent() instanceof NumericIntervalWorkBucketContentType)) {
+                throw new IllegalStateException("Null or unsupported bucket content: " + lastBucket.getContent());
+            }
+            from = ((NumericIntervalWorkBucketContentType) lastBucket.getContent()).getTo();
+            if (from == null || from.compareTo(to) >= 0) {
+                return emptyList();         // no more buckets
+            }
+        } else {
+            from = getFrom();
+        }
+
+        BigInteger size = getCurrentBucketSize(workState);
+        BigInteger tailSize = to.subtract(from).divide(BigInteger.valueOf(getTailFactor()));
+        if (tailSize.compareTo(size) < 0) {
+            size = tailSize.max(getMinBucketSize()).max(BigInteger.ONE);
+        }
+        BigInteger newEnd = from.add(size).min(to);
+        return singletonList(new NumericIntervalWorkBucketContentType()
+                .from(from)
+                .to(newEnd));
+    }
+
+    @Nullable
+    @Override
+    public WorkBucketSizingStateType onBucketCompleted(@NotNull TaskWorkStateType workState, @NotNull WorkBucketType bucket,
+            long duration) {
+        if (!(bucket.getContent() instanceof NumericIntervalWorkBucketContentType)) {
+            return null;
+        }
+        NumericIntervalWorkBucketContentType content = (NumericIntervalWorkBucketContentType) bucket.getContent();
+        if (content.getFrom() == null || content.getTo() == null) {
+            return null;
+        }
+        BigInteger completedSize = content.getTo().subtract(content.getFrom());
+        if (completedSize.signum() <= 0) {
+            return null;
+        }
+
+        BigInteger currentSize = getCurrentBucketSize(workState);
+        BigInteger idealSize = completedSize
+                .multiply(BigInteger.valueOf(getTargetBucketDuration()))
+                .divide(BigInteger.valueOf(Math.max(duration, 1L)));
+        BigInteger newSize = currentSize.add(idealSize).shiftRight(1);
+        BigInteger maxChange = BigInteger.valueOf(MAX_CHANGE_FACTOR);
+        newSize = newSize
+                .min(currentSize.multiply(maxChange))
+                .max(currentSize.divide(maxChange))
+                .max(getMinBucketSize())
+                .max(BigInteger.ONE);
+        if (adaptiveConfiguration.getMaxBucketSize() != null) {
+            newSize = newSize.min(adaptiveConfiguration.getMaxBucketSize());
+        }
+
+        LOGGER.debug("Bucket #{} of size {} was processed in {} ms; changing bucket size from {} to {} (ideal size: {})",
+                bucket.getSequentialNumber(), completedSize, duration, currentSize, newSize, idealSize);
+
+        WorkBucketSizingStateType sizing = workState.getBucketSizing() != null
+                ? workState.getBucketSizing().clone()
+                : new WorkBucketSizingStateType();
+        sizing.setBucketSize(newSize);
+        sizing.getDecision().add(new WorkBucketSizingDecisionType()
+                .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                .sequentialNumber(bucket.getSequentialNumber())
+                .bucketSize(completedSize)
+                .duration(duration)
+                .newBucketSize(newSize));
+        while (sizing.getDecision().size() > DECISIONS_KEPT) {
+            sizing.getDecision().remove(0);
+        }
+        return sizing;
+    }
+
+    @Override
+    public Integer estimateNumberOfBuckets(@Nullable TaskWorkStateType workState) {
+        if (workState == null) {
+            return super.estimateNumberOfBuckets(null);
+        }
+        WorkBucketType lastBucket = TaskWorkStateTypeUtil.getLastBucket(workState.getBucket());
+        if (lastBucket == null || !(lastBucket.getContent() instanceof NumericIntervalWorkBucketContentType)
+                || ((NumericIntervalWorkBucketContentType) lastBucket.getContent()).getTo() == null) {
+            return super.estimateNumberOfBuckets(workState);
+        }
+        BigInteger remaining = getOrComputeTo().subtract(((NumericIntervalWorkBucketContentType) lastBucket.getContent()).getTo());
+        BigInteger[] divideAndRemainder = remaining.max(BigInteger.ZERO).divideAndRemainder(getCurrentBucketSize(workState));
+        int remainingBuckets = divideAndRemainder[0].intValue() + (divideAndRemainder[1].signum() != 0 ? 1 : 0);
+        return lastBucket.getSequentialNumber() + remainingBuckets;
+    }
+
+    @NotNull
+    private BigInteger getCurrentBucketSize(TaskWorkStateType workState) {
+        WorkBucketSizingStateType sizing = workState.getBucketSizing();
+        if (sizing != null && sizing.getBucketSize() != null && sizing.getBucketSize().signum() > 0) {
+            return sizing.getBucketSize();
+        } else {
+            return getOrComputeBucketSize();
+        }
+    }
+
+    @NotNull
+    private BigInteger getMinBucketSize() {
+        if (adaptiveConfiguration.getMinBucketSize() != null) {
+            return adaptiveConfiguration.getMinBucketSize();
+        } else {
+            return getOrComputeBucketSize().divide(BigInteger.valueOf(DEFAULT_MIN_SIZE_DIVISOR));
+        }
+    }
+
+    private long getTargetBucketDuration() {
+        Long configured = adaptiveConfiguration.getTargetBucketDuration();
+        return configured != null && configured > 0 ? configured : DEFAULT_TARGET_BUCKET_DURATION;
+    }
+
+    private int getTailFactor() {
+        Integer configured = adaptiveConfiguration.getTailFactor();
+        return configured != null && configured > 0 ? configured : DEFAULT_TAIL_FACTOR;
+    }
+}
@@ -65,7 +65,7 @@ public class NumericWorkSegmentationStrategy extends BaseWorkSegmentationStrateg
     }
 
     @NotNull
-    private BigInteger getOrComputeBucketSize() {
+    BigInteger getOrComputeBucketSize() {
         if (bucketsConfiguration.getBucketSize() != null) {
             return bucketsConfiguration.getBucketSize();
         } else if (bucketsConfiguration.getTo() != null && bucketsConfiguration.getNumberOfBuckets() != null) {
@@ -76,12 +76,12 @@ public class NumericWorkSegmentationStrategy extends BaseWorkSegmentationStrateg
     }
 
     @NotNull
-    private BigInteger getFrom() {
+    BigInteger getFrom() {
         return bucketsConfiguration.getFrom() != null ? bucketsConfiguration.getFrom() : BigInteger.ZERO;
     }
 
     @NotNull
-    private BigInteger getOrComputeTo() {
+    BigInteger getOrComputeTo() {
         if (bucketsConfiguration.getTo() != null) {
             return bucketsConfiguration.getTo();
         } else if (bucketsConfiguration.getBucketSize() != null && bucketsConfiguration.getNumberOfBuckets() != null) {
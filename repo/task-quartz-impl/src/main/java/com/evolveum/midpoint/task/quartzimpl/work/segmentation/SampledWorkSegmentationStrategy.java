@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+
+package com.evolveum.midpoint.task.quartzimpl.work.segmentation;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.schema.util.TaskWorkStateTypeUtil;
+import com.evolveum.midpoint.task.quartzimpl.work.BaseWorkSegmentationStrategy;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * String interval based strategy with boundaries taken from the work state (sampledBoundaries).
+ * The boundaries are computed by WorkBucketBoundariesSampler when the first bucket is to be created.
+ *
+ * Boundaries can be re-sampled while some buckets already exist (e.g. by two workers starting concurrently).
+ * Therefore a new bucket always starts at the end of the last one, and ends at the first boundary that follows.
+ *
+ * EXPERIMENTAL
+ */
+public class SampledWorkSegmentationStrategy extends BaseWorkSegmentationStrategy {
+
+    private static final int DEFAULT_NUMBER_OF_BUCKETS = 10;
+
+    @NotNull private final SampledWorkSegmentationType bucketsConfiguration;
+
+    // Boundaries of the work state the buckets are being created for. (A strategy is created for each bucket operation.)
+    @NotNull private List<String> boundaries = emptyList();
+
+    public SampledWorkSegmentationStrategy(@NotNull TaskWorkManagementType configuration, PrismContext prismContext) {
+        super(configuration, prismContext);
+        this.bucketsConfiguration = (SampledWorkSegmentationType)
+                TaskWorkStateTypeUtil.getWorkSegmentationConfiguration(configuration);
+    }
+
+    @NotNull
+    @Override
+    protected List<? extends AbstractWorkBucketContentType> createAdditionalBuckets(TaskWorkStateType workState)
+            throws SchemaException {
+        boundaries = getBoundaries(workState);
+        return super.createAdditionalBuckets(workState);
+    }
+
+    @Override
+    protected AbstractWorkBucketContentType createAdditionalBucket(AbstractWorkBucketContentType lastBucketContent,
+            Integer lastBucketSequentialNumber) {
+        String lastBoundary;
+        if (lastBucketContent != null) {
+            if (!(lastBucketContent instanceof StringIntervalWorkBucketContentType)) {
+                throw new IllegalStateException("Unsupported bucket content: " + lastBucketContent);
+            }
+            lastBoundary = ((StringIntervalWorkBucketContentType) lastBucketContent).getTo();
+            if (lastBoundary == null) {
+                return null;            // no more buckets
+            }
+        } else {
+            lastBoundary = null;
+        }
+        return new StringIntervalWorkBucketContentType()
+                .from(lastBoundary)
+                .to(getNextBoundary(lastBoundary));
+    }
+
+    private String getNextBoundary(String lastBoundary) {
+        if (lastBoundary == null) {
+            return boundaries.isEmpty() ? null : boundaries.get(0);
+        }
+        int index = boundaries.indexOf(lastBoundary);
+        if (index >= 0) {
+            return index + 1 < boundaries.size() ? boundaries.get(index + 1) : null;
+        }
+        // the boundaries were re-sampled since the last bucket was created
+        for (String boundary : boundaries) {
+            if (boundary.compareTo(lastBoundary) > 0) {
+                return boundary;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Integer estimateNumberOfBuckets(@Nullable TaskWorkStateType workState) {
+        if (workState != null && workState.getSampledBoundaries() != null) {
+            return workState.getSampledBoundaries().getBoundary().size() + 1;
+        } else {
+            return getNumberOfBuckets(bucketsConfiguration);
+        }
+    }
+
+    @NotNull
+    private List<String> getBoundaries(TaskWorkStateType workState) {
+        return workState.getSampledBoundaries() != null ? workState.getSampledBoundaries().getBoundary() : emptyList();
+    }
+
+    public static int getNumberOfBuckets(@NotNull SampledWorkSegmentationType configuration) {
+        Integer configured = configuration.getNumberOfBuckets();
+        return configured != null && configured > 0 ? configured : DEFAULT_NUMBER_OF_BUCKETS;
+    }
+
+    @NotNull
+    public static ItemPath getDiscriminator(@NotNull SampledWorkSegmentationType configuration) {
+        return configuration.getDiscriminator() != null ? configuration.getDiscriminator().getItemPath() : ObjectType.F_NAME;
+    }
+}
@@ -8,6 +8,7 @@
 package com.evolveum.midpoint.task.quartzimpl.work.segmentation;
 
 import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketSizingStateType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.WorkBucketType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskWorkStateType;
 import org.jetbrains.annotations.NotNull;
@@ -36,6 +37,19 @@ public interface WorkSegmentationStrategy {
         return null;
     }
 
+    /**
+     * Called when a bucket is complete. Strategies that adapt the size of buckets to the measured processing time
+     * return updated sizing state here; it is stored into the work state along with marking the bucket as complete.
+     *
+     * @param duration Processing time of the bucket (in milliseconds).
+     * @return null if there is nothing to update
+     */
+    @Nullable
+    default WorkBucketSizingStateType onBucketCompleted(@NotNull TaskWorkStateType workState, @NotNull WorkBucketType bucket,
+            long duration) {
+        return null;
+    }
+
     class GetBucketResult {
         public static class NothingFound extends GetBucketResult {
             public final boolean definite;
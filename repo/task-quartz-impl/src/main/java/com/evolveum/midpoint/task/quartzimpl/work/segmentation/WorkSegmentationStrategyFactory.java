@@ -34,8 +34,10 @@ public class WorkSegmentationStrategyFactory {
 
     {
         registerStrategyClass(NumericWorkSegmentationType.class, NumericWorkSegmentationStrategy.class);
+        registerStrategyClass(AdaptiveNumericWorkSegmentationType.class, AdaptiveNumericWorkSegmentationStrategy.class);
         registerStrategyClass(StringWorkSegmentationType.class, StringWorkSegmentationStrategy.class);
         registerStrategyClass(OidWorkSegmentationType.class, StringWorkSegmentationStrategy.class);
+        registerStrategyClass(SampledWorkSegmentationType.class, SampledWorkSegmentationStrategy.class);
         registerStrategyClass(ExplicitWorkSegmentationType.class, ExplicitWorkSegmentationStrategy.class);
     }
 
@@ -12,6 +12,7 @@ import com.evolveum.midpoint.prism.PrismConstants;
 import com.evolveum.midpoint.prism.path.ItemName;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.task.quartzimpl.work.segmentation.SampledWorkSegmentationStrategy;
 import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.*;
 import com.evolveum.prism.xml.ns._public.types_3.ItemPathType;
@@ -68,6 +69,8 @@ public abstract class IntervalWorkBucketContentHandler extends BaseWorkBucketCon
             return discriminatorPathType.getItemPath();
         } else if (configuration instanceof OidWorkSegmentationType) {
             return ItemName.fromQName(PrismConstants.T_ID);     // fixme
+        } else if (configuration instanceof SampledWorkSegmentationType) {
+            return SampledWorkSegmentationStrategy.getDiscriminator((SampledWorkSegmentationType) configuration);
         } else {
             throw new IllegalStateException("No buckets discriminator defined; bucket content = " + content);
         }
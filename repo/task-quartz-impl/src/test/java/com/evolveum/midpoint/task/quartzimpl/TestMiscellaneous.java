@@ -12,6 +12,7 @@ import com.evolveum.midpoint.schema.constants.MidPointConstants;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.task.api.TaskManagerConfigurationException;
 import com.evolveum.midpoint.task.quartzimpl.cluster.NodeRegistrar;
+import com.evolveum.midpoint.task.quartzimpl.execution.WorkerThreadsBudget;
 import com.evolveum.midpoint.util.PrettyPrinter;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskExecutionLimitationsType;
@@ -117,6 +118,23 @@ public class TestMiscellaneous {
                 new TaskGroupExecutionLimitationType().groupName("*")));
     }
 
+    @Test
+    public void testComputingWorkerThreadsAllocations() {
+        assertAllocations(0, new int[] { 8, 8 }, new int[] { 1, 1 }, new int[] { 8, 8 });           // no budget
+        assertAllocations(10, new int[] { 4 }, new int[] { 1 }, new int[] { 4 });
+        assertAllocations(10, new int[] { 8, 8 }, new int[] { 1, 1 }, new int[] { 5, 5 });
+        assertAllocations(10, new int[] { 2, 8 }, new int[] { 1, 1 }, new int[] { 2, 8 });
+        assertAllocations(10, new int[] { 10, 10 }, new int[] { 3, 1 }, new int[] { 8, 2 });
+        assertAllocations(10, new int[] { 2, 10, 10 }, new int[] { 1, 1, 1 }, new int[] { 2, 4, 4 });
+        assertAllocations(2, new int[] { 4, 4, 4 }, new int[] { 1, 1, 1 }, new int[] { 1, 1, 1 });  // at least one each
+    }
+
+    private void assertAllocations(int budget, int[] requested, int[] weights, int[] expected) {
+        int[] allocated = WorkerThreadsBudget.computeAllocations(budget, requested, weights);
+        assertEquals("Wrong allocations for budget " + budget + ", requested " + Arrays.toString(requested)
+                + ", weights " + Arrays.toString(weights), Arrays.toString(expected), Arrays.toString(allocated));
+    }
+
     private void assertLimitationsParsed(String value, List<TaskGroupExecutionLimitationType> expected) throws TaskManagerConfigurationException, SchemaException {
         TaskExecutionLimitationsType parsed = TaskManagerConfiguration.parseExecutionLimitations(value);
         display("parsed value of '" + value + "'", serialize(parsed));
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.task.quartzimpl;
+
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.statistics.TaskStatisticsFlusher;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TaskType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import javax.annotation.PostConstruct;
+
+import static com.evolveum.midpoint.test.IntegrationTestTools.display;
+import static com.evolveum.midpoint.test.IntegrationTestTools.waitFor;
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+import static com.evolveum.midpoint.test.util.TestUtil.displayThen;
+import static com.evolveum.midpoint.test.util.TestUtil.displayWhen;
+import static java.util.Collections.singleton;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests asynchronous flushing of task statistics (see {@link TaskStatisticsFlusher}).
+ */
+@ContextConfiguration(locations = {"classpath:ctx-task-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TestStatisticsFlusher extends AbstractTaskManagerTest {
+
+    private static final transient Trace LOGGER = TraceManager.getTrace(TestStatisticsFlusher.class);
+    private static final long DEFAULT_SLEEP_INTERVAL = 250L;
+    private static final long DEFAULT_TIMEOUT = 30000L;
+
+    private static final String TASK_100_FILE = "src/test/resources/statistics/task-100AsynchronousFlushing.xml";
+    private static final String TASK_100_OID = "91919191-76e0-59e2-86d6-556655660450";
+
+    @PostConstruct
+    public void initialize() throws Exception {
+        super.initialize();
+    }
+
+    @AfterClass
+    public void cleanup() {
+        OperationResult result = new OperationResult(TestStatisticsFlusher.class.getName() + ".cleanup");
+        taskManager.getStatisticsFlusher().stopFlusherThread(DEFAULT_TIMEOUT, result);
+        taskManager.getConfiguration().setAsynchronousStatisticsFlushing(false);
+    }
+
+    @Test
+    public void test000TurnedOffByDefault() {
+        final String TEST_NAME = "test000TurnedOffByDefault";
+        displayTestTitle(TEST_NAME);
+
+        assertFalse("Asynchronous flushing is on by default", taskManager.getConfiguration().isAsynchronousStatisticsFlushing());
+        assertFalse("Flusher is active by default", taskManager.getStatisticsFlusher().isActive());
+    }
+
+    @Test
+    public void test100FlushingRunningTask() throws Exception {
+        final String TEST_NAME = "test100FlushingRunningTask";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TaskStatisticsFlusher flusher = taskManager.getStatisticsFlusher();
+        taskManager.getConfiguration().setAsynchronousStatisticsFlushing(true);
+        flusher.startFlusherThread();
+        assertTrue("Flusher is not active", flusher.isActive());
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        addObjectFromFile(TASK_100_FILE);
+        waitForTaskStart(TASK_100_OID, result, DEFAULT_TIMEOUT, DEFAULT_SLEEP_INTERVAL);
+        TaskType taskInRepo = repositoryService.getObject(TaskType.class, TASK_100_OID, null, result).asObjectable();
+        RunningTaskQuartzImpl task = (RunningTaskQuartzImpl) taskManager.getLocallyRunningTaskByIdentifier(taskInRepo.getTaskIdentifier());
+        assertNotNull("Task is not running", task);
+        waitFor("Waiting for statistics being flushed", () -> {
+            TaskType current = repositoryService.getObject(TaskType.class, TASK_100_OID, null, result).asObjectable();
+            return current.getProgress() != null && current.getProgress() > 0 && current.getOperationStats() != null;
+        }, DEFAULT_TIMEOUT, DEFAULT_SLEEP_INTERVAL);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertTrue("Task is not registered in the flusher", flusher.isRegistered(task));
+        assertNotNull("No operation statistics in the in-memory task", task.getStoredOperationStats());
+        assertTrue("No progress in the in-memory task", task.getProgress() > 0);
+    }
+
+    /**
+     * Final values stored by the finishing task must not be overwritten by statistics updates coming after
+     * the task was unregistered from the flusher.
+     */
+    @Test
+    public void test110SuspendTask() throws Exception {
+        final String TEST_NAME = "test110SuspendTask";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TaskStatisticsFlusher flusher = taskManager.getStatisticsFlusher();
+        TaskType taskInRepo = repositoryService.getObject(TaskType.class, TASK_100_OID, null, result).asObjectable();
+        RunningTaskQuartzImpl task = (RunningTaskQuartzImpl) taskManager.getLocallyRunningTaskByIdentifier(taskInRepo.getTaskIdentifier());
+        assertNotNull("Task is not running", task);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        boolean stopped = taskManager.suspendTasks(singleton(TASK_100_OID), DEFAULT_TIMEOUT, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertTrue("Task was not stopped", stopped);
+        assertFalse("Task is still registered in the flusher", flusher.isRegistered(task));
+
+        flusher.markDirty(task);        // a late update, e.g. from a worker thread
+        assertFalse("Task was registered again after being unregistered", flusher.isRegistered(task));
+
+        Thread.sleep(2000L);            // giving the flusher a chance to write something (it should not)
+        TaskType taskAfter = repositoryService.getObject(TaskType.class, TASK_100_OID, null, result).asObjectable();
+        display("Task after suspension", taskAfter);
+        assertEquals("Wrong progress in repository", (Long) task.getProgress(), taskAfter.getProgress());
+    }
+}
@@ -30,6 +30,7 @@ import org.testng.annotations.Test;
 import javax.annotation.PostConstruct;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -479,6 +480,142 @@ public class TestWorkBucketStrategies extends AbstractTaskManagerTest {
         suspendAndDeleteTasks(task.getOid());
     }
 
+    @Test
+    public void test160AdaptiveNumericBuckets() throws Exception {
+        final String TEST_NAME = "test160AdaptiveNumericBuckets";
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+        addObjectFromFile(taskFilename(TEST_NAME));
+
+        TaskQuartzImpl task = taskManager.getTask(taskOid(TEST_NAME), result);
+
+        // WHEN
+        WorkSegmentationStrategy segmentationStrategy = strategyFactory.createStrategy(task.getWorkManagement());
+        TaskWorkStateType workState = new TaskWorkStateType(prismContext);
+
+        // WHEN+THEN
+        assertEquals("Wrong # of estimated buckets", Integer.valueOf(100), segmentationStrategy.estimateNumberOfBuckets(null));
+        WorkBucketType bucket = getNextBucket(segmentationStrategy, workState, 1);
+        assertNumericBucket(bucket, null, 1, 0, 100);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+
+        // processed 4x faster than the target: the size grows halfway towards the ideal one (400)
+        completeAdaptiveBucket(segmentationStrategy, workState, bucket, 250L, 250);
+        bucket = getNextBucket(segmentationStrategy, workState, 2);
+        assertNumericBucket(bucket, null, 2, 100, 350);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+
+        // processed 2.5x slower than the target: the size shrinks halfway towards the ideal one (100)
+        completeAdaptiveBucket(segmentationStrategy, workState, bucket, 2500L, 175);
+        bucket = getNextBucket(segmentationStrategy, workState, 3);
+        assertNumericBucket(bucket, null, 3, 350, 525);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+
+        // the tail: each bucket takes 1/4 of the rest
+        workState.getBucket().add(new WorkBucketType(prismContext)
+                .sequentialNumber(4)
+                .state(WorkBucketStateType.COMPLETE)
+                .content(new NumericIntervalWorkBucketContentType().from(BigInteger.valueOf(525)).to(BigInteger.valueOf(9600))));
+        bucket = getNextBucket(segmentationStrategy, workState, 5);
+        assertNumericBucket(bucket, null, 5, 9600, 9700);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+        bucket = getNextBucket(segmentationStrategy, workState, 6);
+        assertNumericBucket(bucket, null, 6, 9700, 9775);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+
+        // ... but not less than minBucketSize
+        workState.getBucket().add(new WorkBucketType(prismContext)
+                .sequentialNumber(7)
+                .state(WorkBucketStateType.COMPLETE)
+                .content(new NumericIntervalWorkBucketContentType().from(BigInteger.valueOf(9775)).to(BigInteger.valueOf(9985))));
+        bucket = getNextBucket(segmentationStrategy, workState, 8);
+        assertNumericBucket(bucket, null, 8, 9985, 9995);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+        bucket = getNextBucket(segmentationStrategy, workState, 9);
+        assertNumericBucket(bucket, null, 9, 9995, 10000);
+        workState.getBucket().add(bucket.clone().state(WorkBucketStateType.COMPLETE));
+        assumeNoNextBucket(segmentationStrategy, workState);
+
+        suspendAndDeleteTasks(task.getOid());
+    }
+
+    @Test
+    public void test170SampledBuckets() throws Exception {
+        final String TEST_NAME = "test170SampledBuckets";
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // names are clustered: uniform prefix or interval buckets would be very unbalanced here
+        List<String> userOids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            names.add(String.format("samplea%02d", i));
+        }
+        names.addAll(Arrays.asList("samplex", "sampley", "samplez", "samplezz"));
+        for (String name : names) {
+            UserType user = new UserType(prismContext).name(name);
+            userOids.add(repositoryService.addObject(user.asPrismObject(), null, result));
+        }
+        addObjectFromFile(taskFilename(TEST_NAME));
+
+        TaskQuartzImpl task = taskManager.getTask(taskOid(TEST_NAME), result);
+        ObjectQuery query = prismContext.queryFor(UserType.class)
+                .item(UserType.F_NAME).startsWith("sample").matchingNorm()
+                .build();
+
+        // WHEN
+        WorkBucketType bucket = workStateManager.getWorkBucket(task.getOid(), 0, null, null, result);
+
+        // THEN
+        display("allocated bucket", bucket);
+        TaskQuartzImpl taskAfter = taskManager.getTask(task.getOid(), result);
+        display("task after", taskAfter);
+
+        SampledWorkBucketBoundariesType boundaries = taskAfter.getWorkState().getSampledBoundaries();
+        AssertJUnit.assertNotNull("No sampled boundaries", boundaries);
+        assertEquals("Wrong object count", Integer.valueOf(20), boundaries.getObjectCount());
+        assertEquals("Wrong boundaries", Arrays.asList("samplea05", "samplea10", "samplea15"), boundaries.getBoundary());
+        assertEquals("Wrong # of buckets", Integer.valueOf(4), taskAfter.getWorkState().getNumberOfBuckets());
+
+        // WHEN+THEN (each bucket gets the same number of objects)
+        String[] expectedBoundaries = { null, "samplea05", "samplea10", "samplea15", null };
+        for (int i = 1; i <= 4; i++) {
+            AssertJUnit.assertNotNull("No bucket #" + i, bucket);
+            assertEquals("Wrong content class", StringIntervalWorkBucketContentType.class, bucket.getContent().getClass());
+            StringIntervalWorkBucketContentType content = (StringIntervalWorkBucketContentType) bucket.getContent();
+            assertEquals("Wrong 'from' in bucket #" + i, expectedBoundaries[i - 1], content.getFrom());
+            assertEquals("Wrong 'to' in bucket #" + i, expectedBoundaries[i], content.getTo());
+
+            ObjectQuery narrowedQuery = workStateManager
+                    .narrowQueryForWorkBucket(task, query, UserType.class, null, bucket, result);
+            display("narrowed query (" + i + ")", narrowedQuery);
+            assertEquals("Wrong # of objects in bucket #" + i, 5,
+                    repositoryService.countObjects(UserType.class, narrowedQuery, null, result));
+
+            workStateManager.completeWorkBucket(task.getOid(), bucket.getSequentialNumber(), null, result);
+            bucket = workStateManager.getWorkBucket(task.getOid(), 0, null, null, result);
+        }
+        //noinspection SimplifiedTestNGAssertion
+        assertEquals("Expected null bucket", null, bucket);
+
+        suspendAndDeleteTasks(task.getOid());
+        for (String userOid : userOids) {
+            repositoryService.deleteObject(UserType.class, userOid, result);
+        }
+    }
+
+    private void completeAdaptiveBucket(WorkSegmentationStrategy segmentationStrategy, TaskWorkStateType workState,
+            WorkBucketType bucket, long duration, int expectedNewSize) {
+        int decisionsBefore = workState.getBucketSizing() != null ? workState.getBucketSizing().getDecision().size() : 0;
+        WorkBucketSizingStateType sizing = segmentationStrategy.onBucketCompleted(workState, bucket, duration);
+        display("bucket sizing", sizing);
+        AssertJUnit.assertNotNull("No bucket sizing", sizing);
+        assertEquals("Wrong new bucket size", BigInteger.valueOf(expectedNewSize), sizing.getBucketSize());
+        assertEquals("Wrong # of sizing decisions", decisionsBefore + 1, sizing.getDecision().size());
+        WorkBucketSizingDecisionType decision = sizing.getDecision().get(sizing.getDecision().size() - 1);
+        assertEquals("Wrong sequential number in decision", Integer.valueOf(bucket.getSequentialNumber()), decision.getSequentialNumber());
+        assertEquals("Wrong duration in decision", Long.valueOf(duration), decision.getDuration());
+        workState.setBucketSizing(sizing);
+    }
+
     private WorkBucketType assumeNextValue(WorkSegmentationStrategy segmentationStrategy, TaskWorkStateType workState,
             String expectedNextValue, int expectedSequentialNumber) throws SchemaException {
         WorkBucketType newBucket = getNextBucket(segmentationStrategy, workState, expectedSequentialNumber);
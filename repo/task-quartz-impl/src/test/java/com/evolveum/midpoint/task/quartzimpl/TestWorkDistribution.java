@@ -513,6 +513,67 @@ public class TestWorkDistribution extends AbstractTaskManagerTest {
         }
     }
 
+    @Test
+    public void test140CheckpointReleaseAndReallocate() throws Exception {
+        final String TEST_NAME = "test140CheckpointReleaseAndReallocate";
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+        addObjectFromFile(coordinatorTaskFilename(TEST_NAME));
+        addObjectFromFile(taskFilename(TEST_NAME, "1"));
+        addObjectFromFile(taskFilename(TEST_NAME, "2"));
+
+        try {
+            TaskQuartzImpl worker1 = taskManager.getTask(taskOid(TEST_NAME, "1"), result);
+            TaskQuartzImpl worker2 = taskManager.getTask(taskOid(TEST_NAME, "2"), result);
+
+            // WHEN
+            WorkBucketType bucket = workStateManager.getWorkBucket(worker1.getOid(), 0, null, null, result);
+            Long interval = workStateManager.getCheckpointInterval(worker1, result);
+            boolean recorded = workStateManager.checkpointWorkBucket(worker1.getOid(), 1,
+                    new WorkBucketCheckpointType().lastProcessedOid("oid-100").processedObjects(100), result);
+
+            // THEN
+            display("allocated bucket", bucket);
+            assertNumericBucket(bucket, null, 1, 0, 1);
+            assertEquals("Wrong checkpoint interval", Long.valueOf(1000L), interval);
+            assertTrue("Checkpoint was not recorded", recorded);
+
+            Task coordinator = taskManager.getTask(coordinatorTaskOid(TEST_NAME), result);
+            worker1 = taskManager.getTask(worker1.getOid(), result);
+            display("coordinator after checkpoint", coordinator);
+            display("worker1 after checkpoint", worker1);
+            assertCheckpoint(coordinator.getWorkState().getBucket().get(0), "oid-100", 100);
+            assertCheckpoint(worker1.getWorkState().getBucket().get(0), "oid-100", 100);
+
+            // WHEN
+            workStateManager.releaseWorkBucket(worker1.getOid(), 1, null, result);
+            WorkBucketType reallocated = workStateManager.getWorkBucket(worker2.getOid(), 0, null, null, result);
+            boolean recordedByFormerWorker = workStateManager.checkpointWorkBucket(worker1.getOid(), 1,
+                    new WorkBucketCheckpointType().lastProcessedOid("oid-200").processedObjects(200), result);
+
+            // THEN
+            display("reallocated bucket", reallocated);
+            assertNumericBucket(reallocated, null, 1, 0, 1);
+            assertCheckpoint(reallocated, "oid-100", 100);
+            assertFalse("Checkpoint of a released bucket was recorded", recordedByFormerWorker);
+
+            coordinator = taskManager.getTask(coordinator.getOid(), result);
+            display("coordinator after reallocation", coordinator);
+            List<WorkBucketType> buckets = new ArrayList<>(coordinator.getWorkState().getBucket());
+            sortBucketsBySequentialNumber(buckets);
+            assertNumericBucket(buckets.get(0), WorkBucketStateType.DELEGATED, 1, 0, 1);
+            assertCheckpoint(buckets.get(0), "oid-100", 100);
+        } finally {
+            suspendAndDeleteTasks(coordinatorTaskOid(TEST_NAME));
+        }
+    }
+
+    private void assertCheckpoint(WorkBucketType bucket, String lastProcessedOid, int processedObjects) {
+        WorkBucketCheckpointType checkpoint = bucket.getCheckpoint();
+        assertNotNull("No checkpoint in " + bucket, checkpoint);
+        assertEquals("Wrong last processed OID", lastProcessedOid, checkpoint.getLastProcessedOid());
+        assertEquals("Wrong # of processed objects", Integer.valueOf(processedObjects), checkpoint.getProcessedObjects());
+    }
+
     @Test
     public void test200OneWorkerTask() throws Exception {
         final String TEST_NAME = "test200OneWorkerTask";
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.task.quartzimpl.cluster;
+
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.AbstractTaskManagerTest;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerQuartzImpl;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationEventType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.CacheInvalidationStateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.NodeType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static com.evolveum.midpoint.test.IntegrationTestTools.display;
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+import static com.evolveum.midpoint.test.util.TestUtil.displayThen;
+import static com.evolveum.midpoint.test.util.TestUtil.displayWhen;
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests fetching of cache invalidation events by {@link CacheInvalidationEventManager}. The events are kept
+ * in memory instead of the repository, so the test can control when they become visible.
+ */
+@ContextConfiguration(locations = {"classpath:ctx-task-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TestCacheInvalidationEventManager extends AbstractTaskManagerTest {
+
+    private static final transient Trace LOGGER = TraceManager.getTrace(TestCacheInvalidationEventManager.class);
+
+    private static final String OTHER_NODE = "otherNode";
+    private static final String ALL = "*";
+
+    @PostConstruct
+    public void initialize() throws Exception {
+        super.initialize();
+    }
+
+    /**
+     * An event with lower sequence number becomes visible after an event with a higher one
+     * (e.g. because its transaction committed later).
+     */
+    @Test
+    public void test100GapIsRechecked() {
+        final String TEST_NAME = "test100GapIsRechecked";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TestEventManager manager = new TestEventManager(taskManager, null);
+        manager.poll(result);           // starting at the end of (empty) sequence
+        manager.addEvent(1);
+        manager.addEvent(3);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        manager.poll(result);
+        manager.addEvent(2);
+        manager.poll(result);
+        manager.poll(result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        display("Dispatched", manager.dispatched);
+        assertEquals("Wrong dispatched invalidations", Arrays.asList(oid(1), oid(3), oid(2)), manager.dispatched);
+        assertEquals("Wrong last sequence number", (Long) 3L, manager.getStateAndResetLag().getLastSequenceNumber());
+    }
+
+    /**
+     * A restarted node continues after the position stored in its node object.
+     */
+    @Test
+    public void test110RestartContinuesAtStoredPosition() {
+        final String TEST_NAME = "test110RestartContinuesAtStoredPosition";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TestEventManager manager = new TestEventManager(taskManager, 3L);
+        for (long i = 1; i <= 5; i++) {
+            manager.addEvent(i);
+        }
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        manager.poll(result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        display("Dispatched", manager.dispatched);
+        assertEquals("Wrong dispatched invalidations", Arrays.asList(oid(4), oid(5)), manager.dispatched);
+        assertEquals("Wrong last sequence number", (Long) 5L, manager.getStateAndResetLag().getLastSequenceNumber());
+    }
+
+    /**
+     * Events after the stored position were deleted before the node could process them.
+     */
+    @Test
+    public void test120RestartAfterEventsWereDeleted() {
+        final String TEST_NAME = "test120RestartAfterEventsWereDeleted";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TestEventManager manager = new TestEventManager(taskManager, 3L);
+        for (long i = 6; i <= 8; i++) {
+            manager.addEvent(i);
+        }
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        manager.poll(result);
+        manager.addEvent(9);
+        manager.poll(result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        display("Dispatched", manager.dispatched);
+        assertEquals("Wrong dispatched invalidations", Arrays.asList(ALL, oid(9)), manager.dispatched);
+        assertEquals("Wrong last sequence number", (Long) 9L, manager.getStateAndResetLag().getLastSequenceNumber());
+    }
+
+    private static String oid(long sequenceNumber) {
+        return "oid-" + sequenceNumber;
+    }
+
+    private static class TestEventManager extends CacheInvalidationEventManager {
+
+        private final TreeMap<Long, CacheInvalidationEventType> events = new TreeMap<>();       // visible ones
+        private final NodeType node;
+        private final RepositoryService repositoryService;
+        private final List<String> dispatched = new ArrayList<>();
+
+        private TestEventManager(TaskManagerQuartzImpl taskManager, Long storedSequenceNumber) {
+            super(taskManager);
+            node = new NodeType();
+            if (storedSequenceNumber != null) {
+                node.setCacheInvalidationState(new CacheInvalidationStateType().lastSequenceNumber(storedSequenceNumber));
+            }
+            repositoryService = (RepositoryService) Proxy.newProxyInstance(RepositoryService.class.getClassLoader(),
+                    new Class<?>[] { RepositoryService.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getCacheInvalidationEvents":
+                                return getEvents((long) args[0], (int) args[1]);
+                            case "getLastCacheInvalidationEventSequenceNumber":
+                                return getLastSequenceNumber();
+                            case "toString":
+                                return "in-memory cache invalidation events";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private synchronized List<CacheInvalidationEventType> getEvents(long after, int maxSize) {
+            return events.tailMap(after, false).values().stream()
+                    .limit(maxSize)
+                    .collect(Collectors.toList());
+        }
+
+        private synchronized long getLastSequenceNumber() {
+            return events.isEmpty() ? 0L : events.lastKey();
+        }
+
+        private synchronized void addEvent(long sequenceNumber) {
+            events.put(sequenceNumber, new CacheInvalidationEventType()
+                    .sequenceNumber(sequenceNumber)
+                    .timestamp(XmlTypeConverter.createXMLGregorianCalendar())
+                    .objectType(RoleType.COMPLEX_TYPE)
+                    .objectOid(oid(sequenceNumber))
+                    .sourceNodeIdentifier(OTHER_NODE));
+        }
+
+        @Override
+        void dispatch(Class<? extends ObjectType> type, String oid) {
+            dispatched.add(type == null && oid == null ? ALL : oid);
+        }
+
+        @Override
+        RepositoryService getRepositoryService() {
+            return repositoryService;
+        }
+
+        @Override
+        NodeType getLocalNode() {
+            return node;
+        }
+    }
+}
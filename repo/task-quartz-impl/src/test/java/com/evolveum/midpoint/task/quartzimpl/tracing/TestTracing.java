@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2010-2019 Evolveum and contributors
+ *
+ * This work is dual-licensed under the Apache License 2.0
+ * and European Union Public License. See LICENSE file for details.
+ */
+package com.evolveum.midpoint.task.quartzimpl.tracing;
+
+import com.evolveum.midpoint.schema.result.CompiledTracingProfile;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.task.quartzimpl.AbstractTaskManagerTest;
+import com.evolveum.midpoint.task.quartzimpl.TaskManagerConfiguration;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultStatusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TracingOutputType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.TracingProfileType;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.evolveum.midpoint.test.IntegrationTestTools.display;
+import static com.evolveum.midpoint.test.util.TestUtil.displayTestTitle;
+import static com.evolveum.midpoint.test.util.TestUtil.displayThen;
+import static com.evolveum.midpoint.test.util.TestUtil.displayWhen;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests sampling and minimum duration applied by {@link TracerImpl} and writing of traces by {@link TraceWriter}.
+ */
+@ContextConfiguration(locations = {"classpath:ctx-task-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class TestTracing extends AbstractTaskManagerTest {
+
+    private static final transient Trace LOGGER = TraceManager.getTrace(TestTracing.class);
+    private static final long DEFAULT_TIMEOUT = 30000L;
+
+    private static final File TRACE_DIR = new File("target/test-traces");
+
+    private boolean originalAsynchronousTraceWriting;
+    private int originalTraceWriterQueueSize;
+
+    @PostConstruct
+    public void initialize() throws Exception {
+        super.initialize();
+        TaskManagerConfiguration configuration = taskManager.getConfiguration();
+        originalAsynchronousTraceWriting = configuration.isAsynchronousTraceWriting();
+        originalTraceWriterQueueSize = configuration.getTraceWriterQueueSize();
+        //noinspection ResultOfMethodCallIgnored
+        TRACE_DIR.mkdirs();
+    }
+
+    @AfterClass
+    public void cleanup() {
+        TaskManagerConfiguration configuration = taskManager.getConfiguration();
+        configuration.setAsynchronousTraceWriting(originalAsynchronousTraceWriting);
+        configuration.setTraceWriterQueueSize(originalTraceWriterQueueSize);
+    }
+
+    /**
+     * Sampled-out operations get no tracing profile at all.
+     */
+    @Test
+    public void test100Sampling() throws Exception {
+        final String TEST_NAME = "test100Sampling";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TracerImpl tracer = (TracerImpl) taskManager.getTracer();
+        TracingProfileType profile = new TracingProfileType(prismContext)
+                .name(TEST_NAME)
+                .samplingInterval(3);
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        List<Boolean> traced = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            CompiledTracingProfile compiledProfile = tracer.compileProfileIfSampled(profile, result);
+            OperationResult operationResult = result.subresult(TEST_NAME + ".operation")
+                    .tracingProfile(compiledProfile)
+                    .build();
+            traced.add(operationResult.isTraced());
+            operationResult.computeStatus();
+        }
+
+        // THEN
+        displayThen(TEST_NAME);
+        display("Traced", traced);
+        assertEquals("Wrong traced operations", Arrays.asList(true, false, false, true, false, false, true), traced);
+    }
+
+    @Test
+    public void test110MinimumDuration() {
+        final String TEST_NAME = "test110MinimumDuration";
+        displayTestTitle(TEST_NAME);
+
+        // GIVEN
+        TracerImpl tracer = (TracerImpl) taskManager.getTracer();
+        TracingProfileType profile = new TracingProfileType(prismContext)
+                .name(TEST_NAME)
+                .minimumDuration(1000L);
+        OperationResult fast = new OperationResult(TEST_NAME + ".fast");
+        fast.setMicroseconds(10_000L);
+        OperationResult slow = new OperationResult(TEST_NAME + ".slow");
+        slow.setMicroseconds(2_000_000L);
+
+        // WHEN + THEN
+        assertFalse("Fast operation is to be stored", tracer.isToBeStored(profile, fast));
+        assertTrue("Slow operation is not to be stored", tracer.isToBeStored(profile, slow));
+    }
+
+    @Test
+    public void test200WithinMaxTraceSize() throws Exception {
+        final String TEST_NAME = "test200WithinMaxTraceSize";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TraceWriter writer = createTraceWriter(false);
+        TracingOutputType output = createTracingOutput(TEST_NAME, 10);
+        String expected = prismContext.xmlSerializer().serializeRealValue(output);
+        File file = new File(TRACE_DIR, TEST_NAME + ".xml");
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        writer.write(new TraceWriter.Request(output, file, false, 1_000_000L, null, null), result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        assertEquals("Wrong trace written", expected, readFile(file));
+    }
+
+    @Test
+    public void test210OverMaxTraceSize() throws Exception {
+        final String TEST_NAME = "test210OverMaxTraceSize";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TraceWriter writer = createTraceWriter(false);
+        TracingOutputType output = createTracingOutput(TEST_NAME, 100);
+        File file = new File(TRACE_DIR, TEST_NAME + ".xml");
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        writer.write(new TraceWriter.Request(output, file, false, 2000L, null, null), result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        String written = readFile(file);
+        display("Trace written", written);
+        assertTrue("Top-level result is missing", written.contains(TEST_NAME + ".top"));
+        assertFalse("Partial results were written", written.contains(TEST_NAME + ".partial"));
+        assertTrue("Trace is over the limit: " + written.length(), written.length() <= 2000);
+    }
+
+    /**
+     * Traces coming while the queue is full are discarded; traces already queued are written before the writer stops.
+     */
+    @Test
+    public void test300QueueOverflowAndDrainOnStop() throws Exception {
+        final String TEST_NAME = "test300QueueOverflowAndDrainOnStop";
+        displayTestTitle(TEST_NAME);
+        OperationResult result = createResult(TEST_NAME, LOGGER);
+
+        // GIVEN
+        TaskManagerConfiguration configuration = taskManager.getConfiguration();
+        configuration.setAsynchronousTraceWriting(true);
+        configuration.setTraceWriterQueueSize(2);
+        BlockingTraceWriter writer = new BlockingTraceWriter(configuration);
+        writer.startWriterThread();
+        assertTrue("Writer is not active", writer.isActive());
+
+        // WHEN
+        displayWhen(TEST_NAME);
+        writer.write(createRequest("trace-1"), result);
+        assertTrue("First trace was not taken from the queue", writer.started.await(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS));
+        writer.write(createRequest("trace-2"), result);
+        writer.write(createRequest("trace-3"), result);
+        writer.write(createRequest("trace-4"), result);     // the queue is full now
+
+        Thread releasingThread = new Thread(() -> {
+            try {
+                Thread.sleep(1000L);
+            } catch (InterruptedException e) {
+                // just go on
+            }
+            writer.release.countDown();
+        });
+        releasingThread.start();
+        writer.stopWriterThread(DEFAULT_TIMEOUT, result);
+
+        // THEN
+        displayThen(TEST_NAME);
+        display("Written", writer.written);
+        assertEquals("Wrong # of discarded traces", 1, writer.getDiscarded());
+        assertEquals("Wrong traces written", Arrays.asList("trace-1", "trace-2", "trace-3"), writer.written);
+        assertFalse("Writer is still active", writer.isActive());
+    }
+
+    private TraceWriter createTraceWriter(boolean asynchronous) {
+        TaskManagerConfiguration configuration = taskManager.getConfiguration();
+        configuration.setAsynchronousTraceWriting(asynchronous);
+        return new TraceWriter(prismContext, configuration, repositoryService);
+    }
+
+    private TracingOutputType createTracingOutput(String name, int partialResults) {
+        OperationResultType resultBean = new OperationResultType()
+                .operation(name + ".top")
+                .status(OperationResultStatusType.SUCCESS);
+        for (int i = 0; i < partialResults; i++) {
+            resultBean.getPartialResults().add(new OperationResultType()
+                    .operation(name + ".partial" + i)
+                    .status(OperationResultStatusType.SUCCESS));
+        }
+        return new TracingOutputType(prismContext)
+                .result(resultBean);
+    }
+
+    private TraceWriter.Request createRequest(String name) {
+        return new TraceWriter.Request(createTracingOutput(name, 0), new File(TRACE_DIR, name + ".xml"), false,
+                null, null, null);
+    }
+
+    private String readFile(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Remembers the traces instead of writing them. Writing of the first trace waits until released.
+     */
+    private class BlockingTraceWriter extends TraceWriter {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<String> written = new ArrayList<>();
+
+        private BlockingTraceWriter(TaskManagerConfiguration configuration) {
+            super(prismContext, configuration, repositoryService);
+        }
+
+        @Override
+        void writeNow(@NotNull Request request, OperationResult result) {
+            started.countDown();
+            for (;;) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // the shutdown was signalled; we continue waiting, as the queue is to be drained anyway
+                }
+            }
+            written.add(request.getFile().getName().replace(".xml", ""));
+        }
+    }
+}
@@ -80,6 +80,10 @@ public class ImportRepositoryAction extends RepositoryAction<ImportOptions> {
 
     private ImportProducerWorker importByFilter(ObjectFilter filter, boolean stopAfterFound,
                                                 BlockingQueue<PrismObject> queue, OperationStatus status) {
+        if (filter != null) {
+            // the filter is evaluated for each object; immutable filter is compiled only once
+            filter.setImmutable(true);
+        }
         return new ImportProducerWorker(context, options, queue, status, filter, stopAfterFound);
     }
 
@@ -83,7 +83,7 @@ public abstract class AbstractWriterConsumerWorker<OP extends ExportOptions> ext
 
     protected abstract String getEpilog();
 
-    private Writer createWriter() throws IOException {
+    protected Writer createWriter() throws IOException {
         Writer writer = NinjaUtils.createWriter(options.getOutput(), context.getCharset(), options.isZip());
         String prolog = getProlog();
         if (prolog != null) {
@@ -93,7 +93,7 @@ public abstract class AbstractWriterConsumerWorker<OP extends ExportOptions> ext
         return writer;
     }
 
-    private void finalizeWriter(Writer writer) throws IOException {
+    protected void finalizeWriter(Writer writer) throws IOException {
         if (writer == null) {
             return;
         }
@@ -16,6 +16,7 @@ import com.evolveum.midpoint.ninja.util.OperationStatus;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismSerializer;
 import com.evolveum.midpoint.prism.SerializationOptions;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 
@@ -31,6 +32,11 @@ public class ExportConsumerWorker extends AbstractWriterConsumerWorker<ExportOpt
 
     private PrismSerializer<String> serializer;
 
+    /**
+     * Objects are written one by one as they come, so they need not be kept in memory.
+     */
+    private PrismSerializer.ObjectsWriter objectsWriter;
+
     public ExportConsumerWorker(NinjaContext context, ExportOptions options, BlockingQueue<PrismObject> queue,
                                 OperationStatus operation) {
         super(context, options, queue, operation);
@@ -43,20 +49,40 @@ public class ExportConsumerWorker extends AbstractWriterConsumerWorker<ExportOpt
             .options(SerializationOptions.createSerializeForExport());
     }
 
+    @Override
+    protected Writer createWriter() throws IOException {
+        Writer writer = super.createWriter();
+        try {
+            objectsWriter = serializer.objectsWriter(writer, SchemaConstants.C_OBJECTS);
+        } catch (SchemaException ex) {
+            writer.close();
+            throw new NinjaException("Couldn't start writing objects, reason: " + ex.getMessage(), ex);
+        }
+        return writer;
+    }
+
     @Override
     protected String getProlog() {
-        return NinjaUtils.XML_OBJECTS_PREFIX;
+        return NinjaUtils.XML_DECLARATION;
     }
 
     @Override
     protected <O extends ObjectType> void write(Writer writer, PrismObject<O> object) throws SchemaException, IOException {
-        String xml = serializer.serialize(object);
-        writer.write(xml);
+        objectsWriter.write(object);
     }
 
     @Override
     protected String getEpilog() {
-        return NinjaUtils.XML_OBJECTS_SUFFIX;
+        return null;
     }
 
+    @Override
+    protected void finalizeWriter(Writer writer) throws IOException {
+        try {
+            objectsWriter.close();
+        } catch (SchemaException ex) {
+            throw new NinjaException("Couldn't finish writing objects, reason: " + ex.getMessage(), ex);
+        }
+        super.finalizeWriter(writer);
+    }
 }
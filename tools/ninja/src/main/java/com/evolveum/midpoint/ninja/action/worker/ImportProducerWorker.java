@@ -18,11 +18,13 @@ import com.evolveum.midpoint.ninja.util.OperationStatus;
 import com.evolveum.midpoint.prism.Objectable;
 import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismParser;
 import com.evolveum.midpoint.prism.match.MatchingRuleRegistry;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
 import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.SchemaException;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.context.ApplicationContext;
@@ -110,6 +112,11 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
     }
 
     private void processStream(InputStream input) throws IOException {
+        if (options.getParsingThreads() > 0) {
+            processStreamInParallel(input);
+            return;
+        }
+
         ApplicationContext appContext = context.getApplicationContext();
         PrismContext prismContext = appContext.getBean(PrismContext.class);
         MatchingRuleRegistry matchingRuleRegistry = appContext.getBean(MatchingRuleRegistry.class);
@@ -167,6 +174,58 @@ public class ImportProducerWorker extends BaseWorker<ImportOptions, PrismObject>
         validator.validate(new ReaderInputStream(reader, charset), result, result.getOperation());
     }
 
+    /**
+     * Objects are parsed by a pool of threads (without schema validation). If there is only a single consumer,
+     * the original order of objects is kept.
+     */
+    private void processStreamInParallel(InputStream input) throws IOException {
+        ApplicationContext appContext = context.getApplicationContext();
+        PrismContext prismContext = appContext.getBean(PrismContext.class);
+        MatchingRuleRegistry matchingRuleRegistry = appContext.getBean(MatchingRuleRegistry.class);
+        Log log = context.getLog();
+
+        PrismParser.ObjectHandler handler = new PrismParser.ObjectHandler() {
+
+            @Override
+            public boolean handleData(PrismObject<?> object) {
+                try {
+                    if (filter != null && !ObjectQuery.match(object, filter, matchingRuleRegistry)) {
+                        operation.incrementSkipped();
+                        return true;
+                    }
+
+                    if (!matchSelectedType(object.getCompileTimeClass())) {
+                        operation.incrementSkipped();
+                        return true;
+                    }
+
+                    queue.put(object);
+                } catch (Exception ex) {
+                    throw new NinjaException("Couldn't import object, reason: " + ex.getMessage(), ex);
+                }
+
+                return !stopAfterFound;
+            }
+
+            @Override
+            public boolean handleError(Throwable t) {
+                log.error("Couldn't parse object, reason: {}", t.getMessage());
+                operation.incrementError();
+                return true;
+            }
+        };
+
+        Charset charset = context.getCharset();
+        Reader reader = new InputStreamReader(input, charset);
+        try {
+            prismContext.parserFor(new ReaderInputStream(reader, charset))
+                    .xml()
+                    .parseObjectsIteratively(handler, options.getParsingThreads(), options.getMultiThread() == 1);
+        } catch (SchemaException ex) {
+            throw new NinjaException("Couldn't parse objects to be imported, reason: " + ex.getMessage(), ex);
+        }
+    }
+
     private boolean matchSelectedType(Class clazz) {
         if (options.getType().isEmpty()) {
             return true;
@@ -26,6 +26,9 @@ public class ImportOptions extends BaseImportExportOptions {
     public static final String P_ALLOW_UNENCRYPTED_VALUES = "-e";
     public static final String P_ALLOW_UNENCRYPTED_VALUES_LONG = "--allowUnencryptedValues";
 
+    public static final String P_PARSING_THREADS = "-pt";
+    public static final String P_PARSING_THREADS_LONG = "--parsing-threads";
+
     @Parameter(names = {P_INPUT, P_INPUT_LONG}, descriptionKey = "import.input")
     private File input;
 
@@ -36,6 +39,9 @@ public class ImportOptions extends BaseImportExportOptions {
             descriptionKey = "import.allowUnencryptedValues")
     private boolean allowUnencryptedValues;
 
+    @Parameter(names = {P_PARSING_THREADS, P_PARSING_THREADS_LONG}, descriptionKey = "import.parsingThreads")
+    private int parsingThreads;
+
     public File getInput() {
         return input;
     }
@@ -47,4 +53,8 @@ public class ImportOptions extends BaseImportExportOptions {
     public boolean isAllowUnencryptedValues() {
         return allowUnencryptedValues;
     }
+
+    public int getParsingThreads() {
+        return parsingThreads;
+    }
 }
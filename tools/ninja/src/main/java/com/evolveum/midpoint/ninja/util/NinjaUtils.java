@@ -42,6 +42,8 @@ import java.util.zip.ZipOutputStream;
  */
 public class NinjaUtils {
 
+    public static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
     public static final String XML_OBJECTS_PREFIX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
             "<c:objects xmlns=\"http://midpoint.evolveum.com/xml/ns/public/common/common-3\"\n" +
             "\txmlns:c=\"http://midpoint.evolveum.com/xml/ns/public/common/common-3\"\n" +